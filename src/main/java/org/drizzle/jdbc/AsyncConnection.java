@@ -0,0 +1,68 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.drizzle.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.Executor;
+
+/**
+ * Driver specific extension to run queries without blocking the calling thread, get it with
+ * <code>connection.unwrap(AsyncConnection.class)</code>.
+ * <p/>
+ * The queries of a connection are executed one at a time in the order they were submitted, on threads of an executor
+ * that is shared by all connections. Queued queries do not hold a thread, only the one currently executing on each
+ * connection does, so the number of threads needed is bounded by the number of busy connections, not the number of
+ * outstanding queries.
+ * <p/>
+ * The connection must not be used directly while it has outstanding asynchronous queries.
+ */
+public interface AsyncConnection {
+    /**
+     * Executes a query that returns a result set.
+     *
+     * @param sql the query
+     * @return a future giving the result set, get() throws an ExecutionException wrapping the SQLException if the query
+     *         fails
+     * @throws SQLException if the connection is closed
+     */
+    QueryFuture<ResultSet> executeQueryAsync(String sql) throws SQLException;
+
+    /**
+     * Executes an insert, update, delete or DDL statement.
+     *
+     * @param sql the statement
+     * @return a future giving the update count
+     * @throws SQLException if the connection is closed
+     */
+    QueryFuture<Integer> executeUpdateAsync(String sql) throws SQLException;
+
+    /**
+     * Sets the executor the queries of this connection run on, the default is a pool of daemon threads shared by all
+     * connections.
+     *
+     * @param executor the executor to use
+     */
+    void setAsyncExecutor(Executor executor);
+}
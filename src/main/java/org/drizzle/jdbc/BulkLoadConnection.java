@@ -0,0 +1,50 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.drizzle.jdbc;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+
+/**
+ * Driver specific extension to load rows with LOAD DATA LOCAL INFILE, get it with
+ * <code>connection.unwrap(BulkLoadConnection.class)</code>.
+ * <p/>
+ * The rows are encoded into the LOAD DATA text format while they are sent, so they can be produced lazily and are
+ * never all held in memory. The server must allow local infile.
+ */
+public interface BulkLoadConnection {
+    /**
+     * Loads the rows into the table with one LOAD DATA LOCAL INFILE statement.
+     * <p/>
+     * Fields are written as strings, null as NULL, byte arrays as they are, booleans as 1 and 0 and dates in the jdbc
+     * escape format. The table and column names are put in the statement as given.
+     *
+     * @param table   the table to load into
+     * @param columns the columns the fields of each row go into, in order, or null to use all columns of the table
+     * @param rows    the rows to load, each element of a row is one field
+     * @return the number of rows loaded and the warnings
+     * @throws SQLException if the load fails, or if the iterator throws, then the connection can not be used anymore
+     */
+    BulkLoadResult bulkLoad(String table, String[] columns, Iterator<? extends Object[]> rows) throws SQLException;
+}
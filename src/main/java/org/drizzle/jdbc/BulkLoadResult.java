@@ -0,0 +1,82 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.drizzle.jdbc;
+
+/**
+ * The outcome of a bulk load.
+ */
+public final class BulkLoadResult {
+    private final long rowsSent;
+    private final long rowsLoaded;
+    private final int warnings;
+    private final String message;
+
+    public BulkLoadResult(final long rowsSent, final long rowsLoaded, final int warnings, final String message) {
+        this.rowsSent = rowsSent;
+        this.rowsLoaded = rowsLoaded;
+        this.warnings = warnings;
+        this.message = message;
+    }
+
+    /**
+     * the number of rows sent to the server.
+     *
+     * @return the row count
+     */
+    public long getRowsSent() {
+        return rowsSent;
+    }
+
+    /**
+     * the number of rows the server inserted, rows can be skipped because of duplicate keys.
+     *
+     * @return the row count
+     */
+    public long getRowsLoaded() {
+        return rowsLoaded;
+    }
+
+    /**
+     * the number of warnings, get them by running SHOW WARNINGS on the connection.
+     *
+     * @return the warning count
+     */
+    public int getWarnings() {
+        return warnings;
+    }
+
+    /**
+     * the info message from the server, like "Records: 3  Deleted: 0  Skipped: 0  Warnings: 0".
+     *
+     * @return the message
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "rows sent: " + rowsSent + " rows loaded: " + rowsLoaded + " warnings: " + warnings;
+    }
+}
@@ -27,12 +27,19 @@ package org.drizzle.jdbc;
 import org.drizzle.jdbc.internal.SQLExceptionMapper;
 import org.drizzle.jdbc.internal.common.BinlogDumpException;
 import org.drizzle.jdbc.internal.common.DefaultParameterizedBatchHandlerFactory;
+import org.drizzle.jdbc.internal.common.LoadDataInputStream;
 import org.drizzle.jdbc.internal.common.ParameterizedBatchHandlerFactory;
+import org.drizzle.jdbc.internal.common.SerialExecutor;
+import org.drizzle.jdbc.internal.common.SharedAsyncExecutor;
 import org.drizzle.jdbc.internal.common.Protocol;
 import org.drizzle.jdbc.internal.common.QueryException;
 import org.drizzle.jdbc.internal.common.Utils;
 import org.drizzle.jdbc.internal.common.packet.RawPacket;
+import org.drizzle.jdbc.internal.common.query.DrizzleQueryFactory;
 import org.drizzle.jdbc.internal.common.query.QueryFactory;
+import org.drizzle.jdbc.internal.common.query.QueryTemplateCache;
+import org.drizzle.jdbc.internal.common.queryresults.ModifyQueryResult;
+import org.drizzle.jdbc.internal.common.queryresults.ResultBufferBudget;
 
 import java.sql.Array;
 import java.sql.Blob;
@@ -47,9 +54,14 @@ import java.sql.SQLWarning;
 import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Struct;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -60,7 +72,7 @@ import java.util.concurrent.ScheduledExecutorService;
  * User: marcuse Date: Jan 14, 2009 Time: 7:47:37 AM
  */
 public final class DrizzleConnection
-        implements Connection, ReplicationConnection {
+        implements Connection, ReplicationConnection, AsyncConnection, BulkLoadConnection {
     /**
      * the protocol to communicate with.
      */
@@ -87,6 +99,14 @@ public final class DrizzleConnection
      * Works having just one thread for this since it is not legal to have several executing queries on the same connection!
      */
     private final ScheduledExecutorService timeoutExecutor = Executors.newSingleThreadScheduledExecutor();
+    /**
+     * runs the asynchronous queries of this connection in order, created on first use.
+     */
+    private SerialExecutor asyncExecutor;
+    /**
+     * the asynchronous queries that are queued or running, they are failed when the connection is closed.
+     */
+    private final Set<QueryFuture<?>> pendingQueries = new HashSet<QueryFuture<?>>();
     /**
      * Creates a new connection with a given protocol and query factory.
      *
@@ -233,8 +253,138 @@ public final class DrizzleConnection
             protocol.close();
         } catch (QueryException e) {
             throw SQLExceptionMapper.get(e);
+        } finally {
+            failPendingQueries();
+        }
+
+    }
+
+    private synchronized void failPendingQueries() {
+        final SQLException closed = SQLExceptionMapper.getSQLException("Connection is closed");
+        for (final QueryFuture<?> query : new ArrayList<QueryFuture<?>>(pendingQueries)) {
+            query.fail(closed);
+        }
+        pendingQueries.clear();
+    }
+
+    /**
+     * queues an asynchronous query, it runs after the queries queued before it on this connection.
+     *
+     * @param query the query to queue
+     * @throws SQLException if the connection is closed
+     */
+    private synchronized void submit(final QueryFuture<?> query) throws SQLException {
+        if (isClosed()) {
+            throw SQLExceptionMapper.getSQLException("Connection is closed");
+        }
+        if (asyncExecutor == null) {
+            asyncExecutor = new SerialExecutor(SharedAsyncExecutor.get());
+        }
+        pendingQueries.add(query);
+        query.addListener(new Runnable() {
+            public void run() {
+                synchronized (DrizzleConnection.this) {
+                    pendingQueries.remove(query);
+                }
+            }
+        });
+        asyncExecutor.execute(query);
+    }
+
+    /**
+     * Executes a query without blocking, the queries of a connection run one at a time in submission order. The
+     * statement the query runs on is closed when the result set is closed.
+     *
+     * @param sql the query
+     * @return a future giving the result set
+     * @throws SQLException if the connection is closed
+     */
+    public QueryFuture<ResultSet> executeQueryAsync(final String sql) throws SQLException {
+        final QueryFuture<ResultSet> future = new QueryFuture<ResultSet>(new Callable<ResultSet>() {
+            public ResultSet call() throws SQLException {
+                final Statement statement = createStatement();
+                try {
+                    statement.closeOnCompletion();
+                    return statement.executeQuery(sql);
+                } catch (SQLException e) {
+                    statement.close();
+                    throw e;
+                }
+            }
+        });
+        submit(future);
+        return future;
+    }
+
+    /**
+     * Executes an update without blocking, the queries of a connection run one at a time in submission order.
+     *
+     * @param sql the statement
+     * @return a future giving the update count
+     * @throws SQLException if the connection is closed
+     */
+    public QueryFuture<Integer> executeUpdateAsync(final String sql) throws SQLException {
+        final QueryFuture<Integer> future = new QueryFuture<Integer>(new Callable<Integer>() {
+            public Integer call() throws SQLException {
+                final Statement statement = createStatement();
+                try {
+                    return statement.executeUpdate(sql);
+                } finally {
+                    statement.close();
+                }
+            }
+        });
+        submit(future);
+        return future;
+    }
+
+    /**
+     * Loads rows with LOAD DATA LOCAL INFILE, the rows are encoded while they are sent.
+     *
+     * @param table   the table to load into
+     * @param columns the columns to load into or null for all columns
+     * @param rows    the rows to load
+     * @return the number of rows loaded and the warnings
+     * @throws SQLException if the load fails
+     */
+    public BulkLoadResult bulkLoad(final String table, final String[] columns, final Iterator<? extends Object[]> rows)
+            throws SQLException {
+        final StringBuilder sql = new StringBuilder("LOAD DATA LOCAL INFILE 'rows' INTO TABLE ")
+                .append(table)
+                .append(" CHARACTER SET utf8 ")
+                .append(LoadDataInputStream.FIELDS_AND_LINES);
+        if (columns != null && columns.length > 0) {
+            sql.append(" (");
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(columns[i]);
+            }
+            sql.append(")");
+        }
+        final LoadDataInputStream rowStream = new LoadDataInputStream(rows);
+        try {
+            final ModifyQueryResult result =
+                    (ModifyQueryResult) protocol.executeQuery(queryFactory.createQuery(sql.toString()), rowStream);
+            return new BulkLoadResult(rowStream.getRowCount(), result.getUpdateCount(), result.getWarnings(),
+                    result.getMessage());
+        } catch (QueryException e) {
+            throw SQLExceptionMapper.get(e);
         }
+    }
 
+    /**
+     * Sets the executor the asynchronous queries of this connection run on.
+     *
+     * @param executor the executor to use
+     */
+    public synchronized void setAsyncExecutor(final Executor executor) {
+        if (asyncExecutor == null) {
+            asyncExecutor = new SerialExecutor(executor);
+        } else {
+            asyncExecutor.setExecutor(executor);
+        }
     }
 
     /**
@@ -1268,6 +1418,47 @@ public final class DrizzleConnection
         this.parameterizedBatchHandlerFactory = batchHandlerFactory;
     }
 
+    /**
+     * resets the connection to the state it had when it was opened, in one round trip to the server. The open
+     * transaction is rolled back, temporary tables, user variables and server side prepared statements are dropped,
+     * session variables like auto commit and the transaction isolation go back to the server defaults, and the database,
+     * read only and the client info go back to the values the connection was opened with. Meant for pools that
+     * recycle connections, it is much cheaper than connecting again.
+     *
+     * @throws SQLException if the session could not be reset
+     */
+    public void resetSession() throws SQLException {
+        try {
+            protocol.resetSession();
+        } catch (QueryException e) {
+            throw SQLExceptionMapper.get(e);
+        }
+        clientInfoProperties.clear();
+    }
+
+    /**
+     * returns the off-heap memory budget of buffered results set with the offHeapResultBudget connection property. The
+     * budget shows how much of it is in use and how many results have been spilled to disk.
+     *
+     * @return the budget, null if results are buffered on the heap
+     */
+    public ResultBufferBudget getResultBufferBudget() {
+        return protocol.getResultBufferBudget();
+    }
+
+    /**
+     * returns the cache of parsed prepared statement queries, it is shared with the other connections of the same data
+     * source or url and counts hits, misses and evictions.
+     *
+     * @return the cache, null if the query factory does not cache queries
+     */
+    public QueryTemplateCache getQueryTemplateCache() {
+        if (queryFactory instanceof DrizzleQueryFactory) {
+            return ((DrizzleQueryFactory) queryFactory).getCache();
+        }
+        return null;
+    }
+
     protected ScheduledExecutorService getTimeoutExecutor() {
         return timeoutExecutor;
     }
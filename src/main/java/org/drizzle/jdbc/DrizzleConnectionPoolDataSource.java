@@ -0,0 +1,60 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.drizzle.jdbc;
+
+import javax.sql.ConnectionPoolDataSource;
+import javax.sql.PooledConnection;
+import java.sql.SQLException;
+
+/**
+ * Creates pooled connections for connection pools, see DrizzlePoolingDataSource for the pool shipped with the driver.
+ */
+public class DrizzleConnectionPoolDataSource extends DrizzleDataSource implements ConnectionPoolDataSource {
+    public DrizzleConnectionPoolDataSource(final String hostname, final int port, final String database) {
+        super(hostname, port, database);
+    }
+
+    /**
+     * creates a physical connection that can be pooled.
+     *
+     * @return the pooled connection
+     * @throws SQLException if it is not possible to connect
+     */
+    public PooledConnection getPooledConnection() throws SQLException {
+        return new DrizzlePooledConnection((DrizzleConnection) getConnection());
+    }
+
+    /**
+     * creates a physical connection that can be pooled.
+     *
+     * @param username the database user on whose behalf the connection is being made
+     * @param password the user's password
+     * @return the pooled connection
+     * @throws SQLException if it is not possible to connect
+     */
+    public PooledConnection getPooledConnection(final String username, final String password) throws SQLException {
+        return new DrizzlePooledConnection((DrizzleConnection) getConnection(username, password));
+    }
+}
@@ -27,6 +27,7 @@ package org.drizzle.jdbc;
 import org.drizzle.jdbc.internal.SQLExceptionMapper;
 import org.drizzle.jdbc.internal.common.QueryException;
 import org.drizzle.jdbc.internal.common.query.DrizzleQueryFactory;
+import org.drizzle.jdbc.internal.common.query.QueryTemplateCache;
 import org.drizzle.jdbc.internal.mysql.MySQLProtocol;
 
 import javax.sql.DataSource;
@@ -44,6 +45,10 @@ public class DrizzleDataSource implements DataSource {
     private final String hostname;
     private final int port;
     private final String database;
+    /**
+     * shared by the connections of the data source, so prepared statement queries are only parsed once.
+     */
+    private final DrizzleQueryFactory queryFactory = new DrizzleQueryFactory();
 
     public DrizzleDataSource(final String hostname, final int port, final String database) {
         this.hostname = hostname;
@@ -60,7 +65,7 @@ public class DrizzleDataSource implements DataSource {
     public Connection getConnection() throws SQLException {
         try {
             return new DrizzleConnection(new MySQLProtocol(hostname, port, database, null, null, new Properties()),
-                    new DrizzleQueryFactory());
+                    queryFactory);
         } catch (QueryException e) {
             throw SQLExceptionMapper.get(e);
         }
@@ -78,12 +83,21 @@ public class DrizzleDataSource implements DataSource {
     public Connection getConnection(final String username, final String password) throws SQLException {
         try {
             return new DrizzleConnection(new MySQLProtocol(hostname, port, database, username, password, new Properties()),
-                    new DrizzleQueryFactory());
+                    queryFactory);
         } catch (QueryException e) {
             throw SQLExceptionMapper.get(e);
         }
     }
 
+    /**
+     * gets the cache of parsed prepared statement queries shared by the connections of this data source.
+     *
+     * @return the cache
+     */
+    public QueryTemplateCache getQueryTemplateCache() {
+        return queryFactory.getCache();
+    }
+
     /**
      * <p>Retrieves the log writer for this <code>DataSource</code> object.
      * <p/>
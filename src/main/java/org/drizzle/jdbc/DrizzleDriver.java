@@ -28,6 +28,7 @@ import org.drizzle.jdbc.internal.SQLExceptionMapper;
 import org.drizzle.jdbc.internal.common.Protocol;
 import org.drizzle.jdbc.internal.common.QueryException;
 import org.drizzle.jdbc.internal.common.query.DrizzleQueryFactory;
+import org.drizzle.jdbc.internal.common.query.QueryTemplateCache;
 import org.drizzle.jdbc.internal.mysql.MySQLProtocol;
 
 import java.sql.Connection;
@@ -35,6 +36,8 @@ import java.sql.DriverManager;
 import java.sql.DriverPropertyInfo;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
 import java.util.logging.Logger;
 
@@ -46,6 +49,21 @@ public final class DrizzleDriver implements java.sql.Driver {
      * the logger.
      */
     private static final Logger log = Logger.getLogger(DrizzleDriver.class.getName());
+    /**
+     * the max number of urls whose query factories are kept, the least recently connected to url is dropped first.
+     */
+    private static final int MAX_SHARED_QUERY_FACTORIES = 16;
+    /**
+     * the query factories, connections to the same url share a factory and its cache of parsed queries. Guarded by
+     * its own lock.
+     */
+    private static final Map<String, DrizzleQueryFactory> queryFactories =
+            new LinkedHashMap<String, DrizzleQueryFactory>(MAX_SHARED_QUERY_FACTORIES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, DrizzleQueryFactory> eldest) {
+                    return size() > MAX_SHARED_QUERY_FACTORIES;
+                }
+            };
 
     static {
         try {
@@ -93,12 +111,45 @@ public final class DrizzleDriver implements java.sql.Driver {
                         password,
                         info);
 
-            return new DrizzleConnection(protocol, new DrizzleQueryFactory());
+            return new DrizzleConnection(protocol, getQueryFactory(baseUrl, info));
         } catch (QueryException e) {
             throw SQLExceptionMapper.get(e);
         }
     }
 
+    /**
+     * gets the query factory shared by the connections to the url, queryTemplateCacheSize and queryTemplateCacheBytes
+     * bound the cache of parsed prepared statement queries. Only the factories of the last MAX_SHARED_QUERY_FACTORIES
+     * urls are kept, connections to a url whose factory was dropped keep using it but new connections get a new one.
+     * A connection with queryTemplateCacheSize=0 gets a factory without cache that is not shared.
+     *
+     * @param baseUrl the url without parameters
+     * @param info    the connection properties
+     * @return the query factory
+     */
+    private static DrizzleQueryFactory getQueryFactory(final String baseUrl, final Properties info) {
+        int size = DrizzleQueryFactory.DEFAULT_CACHE_SIZE;
+        long bytes = DrizzleQueryFactory.DEFAULT_CACHE_BYTES;
+        try {
+            size = Integer.parseInt(info.getProperty("queryTemplateCacheSize", String.valueOf(size)));
+            bytes = Long.parseLong(info.getProperty("queryTemplateCacheBytes", String.valueOf(bytes)));
+        } catch (NumberFormatException e) {
+            log.warning("Invalid queryTemplateCacheSize or queryTemplateCacheBytes, using " + size + " and " + bytes);
+        }
+        if (size <= 0) {
+            return new DrizzleQueryFactory(new QueryTemplateCache(0, bytes));
+        }
+        final String key = baseUrl + "|" + size + "|" + bytes;
+        synchronized (queryFactories) {
+            DrizzleQueryFactory queryFactory = queryFactories.get(key);
+            if (queryFactory == null) {
+                queryFactory = new DrizzleQueryFactory(new QueryTemplateCache(size, bytes));
+                queryFactories.put(key, queryFactory);
+            }
+            return queryFactory;
+        }
+    }
+
     private void setURLParameters(String urlParameters, Properties info) {
         String [] parameters = urlParameters.split("&");
         for(String param : parameters) {
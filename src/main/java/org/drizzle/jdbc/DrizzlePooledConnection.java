@@ -0,0 +1,406 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.drizzle.jdbc;
+
+import org.drizzle.jdbc.internal.SQLExceptionMapper;
+
+import javax.sql.ConnectionEvent;
+import javax.sql.ConnectionEventListener;
+import javax.sql.PooledConnection;
+import javax.sql.StatementEventListener;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A physical connection to the server that is handed out as logical connections. Closing a logical connection closes
+ * the statements created through it and tells the listeners, normally a pool, that the physical connection can be
+ * reused. Errors that break the connection are reported as connection errors.
+ * <p/>
+ * The statements, result sets and meta data of a logical connection are wrapped too, so getConnection and
+ * getStatement give the logical objects. unwrap only gives the interfaces of the logical objects, the physical
+ * connection can not be reached and used after it has been returned.
+ */
+public class DrizzlePooledConnection implements PooledConnection {
+    private static final Logger log = Logger.getLogger(DrizzlePooledConnection.class.getName());
+    private static final Constructor<?> HANDLE_CONSTRUCTOR;
+
+    static {
+        final Class<?>[] interfaces = {Connection.class, ReplicationConnection.class, BulkLoadConnection.class};
+        try {
+            // the proxy class is looked up once, creating logical connections through Proxy.newProxyInstance would
+            // look it up on every borrow
+            HANDLE_CONSTRUCTOR = Proxy.newProxyInstance(DrizzlePooledConnection.class.getClassLoader(),
+                    interfaces,
+                    new InvocationHandler() {
+                        public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                            return null;
+                        }
+                    }).getClass().getConstructor(InvocationHandler.class);
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException("Could not create connection proxy class", e);
+        }
+    }
+
+    private final DrizzleConnection connection;
+    private final CopyOnWriteArrayList<ConnectionEventListener> listeners =
+            new CopyOnWriteArrayList<ConnectionEventListener>();
+    private volatile Handle handle;
+    private volatile boolean autoCommitChanged;
+    private volatile boolean readOnlyChanged;
+    private volatile boolean catalogChanged;
+    private volatile boolean transactionIsolationChanged;
+    private volatile String defaultCatalog;
+    private volatile int defaultTransactionIsolation = -1;
+
+    public DrizzlePooledConnection(final DrizzleConnection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * creates a logical connection, a logical connection created earlier is closed.
+     *
+     * @return the logical connection
+     * @throws SQLException if the physical connection is closed
+     */
+    public Connection getConnection() throws SQLException {
+        if (connection.isClosed()) {
+            throw SQLExceptionMapper.getSQLException("Connection is closed");
+        }
+        final Handle previous = handle;
+        if (previous != null) {
+            previous.invalidate();
+        }
+        final Handle newHandle = new Handle();
+        try {
+            newHandle.proxy = (Connection) HANDLE_CONSTRUCTOR.newInstance(newHandle);
+        } catch (Exception e) {
+            throw SQLExceptionMapper.getSQLException("Could not create connection: " + e.getMessage(), e);
+        }
+        handle = newHandle;
+        return newHandle.proxy;
+    }
+
+    /**
+     * closes the physical connection.
+     *
+     * @throws SQLException if the connection could not be closed
+     */
+    public void close() throws SQLException {
+        final Handle current = handle;
+        if (current != null) {
+            current.invalidate();
+        }
+        connection.close();
+    }
+
+    public void addConnectionEventListener(final ConnectionEventListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeConnectionEventListener(final ConnectionEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * statement events are not sent, prepared statements are not pooled.
+     *
+     * @param listener the listener
+     */
+    public void addStatementEventListener(final StatementEventListener listener) {
+    }
+
+    public void removeStatementEventListener(final StatementEventListener listener) {
+    }
+
+    /**
+     * gets the physical connection.
+     *
+     * @return the connection
+     */
+    DrizzleConnection getPhysicalConnection() {
+        return connection;
+    }
+
+    /**
+     * restores the auto commit, read only, catalog and transaction isolation changed through the logical connections
+     * since the last call, so the next logical connection starts with the state of a new connection. Only the state
+     * that has been changed is restored, an open transaction is rolled back if auto commit was changed.
+     *
+     * @param resetSession true to reset the whole session with DrizzleConnection.resetSession instead
+     * @throws SQLException if the state could not be restored, the connection should not be reused then
+     */
+    void restoreSession(final boolean resetSession) throws SQLException {
+        final boolean autoCommit = autoCommitChanged;
+        final boolean readOnly = readOnlyChanged;
+        final boolean catalog = catalogChanged;
+        final boolean transactionIsolation = transactionIsolationChanged;
+        autoCommitChanged = false;
+        readOnlyChanged = false;
+        catalogChanged = false;
+        transactionIsolationChanged = false;
+        if (resetSession) {
+            connection.resetSession();
+            return;
+        }
+        if (autoCommit) {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        }
+        if (readOnly) {
+            connection.setReadOnly(false);
+        }
+        if (catalog) {
+            final String current = connection.getCatalog();
+            if (defaultCatalog == null) {
+                if (current != null) {
+                    throw SQLExceptionMapper.getSQLException("Could not restore catalog, the connection had none");
+                }
+            } else if (!defaultCatalog.equals(current)) {
+                connection.setCatalog(defaultCatalog);
+            }
+        }
+        if (transactionIsolation) {
+            connection.setTransactionIsolation(defaultTransactionIsolation);
+        }
+    }
+
+    /**
+     * remembers the state a logical connection is about to change, so it can be restored when it is returned.
+     */
+    private void stateChanging(final String name) throws SQLException {
+        if ("setAutoCommit".equals(name)) {
+            autoCommitChanged = true;
+        } else if ("setReadOnly".equals(name)) {
+            readOnlyChanged = true;
+        } else if ("setCatalog".equals(name) && !catalogChanged) {
+            defaultCatalog = connection.getCatalog();
+            catalogChanged = true;
+        } else if ("setTransactionIsolation".equals(name) && !transactionIsolationChanged) {
+            // the isolation is restored on every return, so the first one read is the default of the connection
+            if (defaultTransactionIsolation < 0) {
+                defaultTransactionIsolation = connection.getTransactionIsolation();
+            }
+            transactionIsolationChanged = true;
+        }
+    }
+
+    private void fireConnectionClosed() {
+        final ConnectionEvent event = new ConnectionEvent(this);
+        for (final ConnectionEventListener listener : listeners) {
+            listener.connectionClosed(event);
+        }
+    }
+
+    private void fireConnectionError(final SQLException e) {
+        final ConnectionEvent event = new ConnectionEvent(this, e);
+        for (final ConnectionEventListener listener : listeners) {
+            listener.connectionErrorOccurred(event);
+        }
+    }
+
+    /**
+     * calls a method on a physical object, errors that break the connection are reported to the listeners.
+     */
+    private Object invokePhysical(final Object target, final Method method, final Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof SQLException && isConnectionError((SQLException) cause)) {
+                fireConnectionError((SQLException) cause);
+            }
+            throw cause;
+        }
+    }
+
+    private boolean isConnectionError(final SQLException e) throws SQLException {
+        return connection.isClosed() || (e.getSQLState() != null && e.getSQLState().startsWith("08"));
+    }
+
+    private static Object unwrap(final Object proxy, final Class<?> iface) throws SQLException {
+        if (iface.isInstance(proxy)) {
+            return proxy;
+        }
+        throw SQLExceptionMapper.getSQLException("Pooled connection objects can not be unwrapped to " + iface.getName());
+    }
+
+    /**
+     * the logical connection, calls go to the physical connection until it is closed.
+     */
+    private final class Handle implements InvocationHandler {
+        private final List<Statement> statements = new ArrayList<Statement>();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private Connection proxy;
+
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            final String name = method.getName();
+            if ("close".equals(name)) {
+                // only the first close returns the connection, concurrent calls would release it twice
+                if (closed.compareAndSet(false, true)) {
+                    invalidate();
+                    fireConnectionClosed();
+                }
+                return null;
+            } else if ("isClosed".equals(name)) {
+                return closed.get() || connection.isClosed();
+            } else if ("equals".equals(name)) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            } else if ("toString".equals(name)) {
+                return "Pooled" + connection.toString();
+            } else if ("unwrap".equals(name)) {
+                return unwrap(proxy, (Class<?>) args[0]);
+            } else if ("isWrapperFor".equals(name)) {
+                return ((Class<?>) args[0]).isInstance(proxy);
+            }
+            checkOpen();
+            if (name.startsWith("set")) {
+                stateChanging(name);
+            }
+            return wrap(invokePhysical(connection, method, args), method.getReturnType(), null);
+        }
+
+        private void checkOpen() throws SQLException {
+            if (closed.get()) {
+                throw SQLExceptionMapper.getSQLException("Connection is closed");
+            }
+        }
+
+        /**
+         * closes the logical connection and the statements created through it, an unread streaming result would
+         * otherwise block the physical connection for the next borrower.
+         */
+        private void invalidate() {
+            closed.set(true);
+            final List<Statement> open;
+            synchronized (statements) {
+                open = new ArrayList<Statement>(statements);
+                statements.clear();
+            }
+            for (final Statement statement : open) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    log.log(Level.FINE, "Could not close pooled statement", e);
+                }
+            }
+        }
+
+        /**
+         * wraps the statements, result sets and meta data returned by the physical objects.
+         *
+         * @param result    the object returned by the physical object
+         * @param type      the declared return type
+         * @param statement the logical statement that returned a result set, null if it was not a statement
+         * @return the logical object, or the result itself if it does not need to be wrapped
+         */
+        private Object wrap(final Object result, final Class<?> type, final Object statement) {
+            if (result == null) {
+                return null;
+            }
+            if (Statement.class.isAssignableFrom(type)) {
+                synchronized (statements) {
+                    statements.add((Statement) result);
+                }
+            } else if (type != ResultSet.class && type != DatabaseMetaData.class) {
+                return result;
+            }
+            return Proxy.newProxyInstance(DrizzlePooledConnection.class.getClassLoader(),
+                    new Class<?>[]{type},
+                    new Child(this, result, statement));
+        }
+
+        private void forget(final Statement statement) {
+            synchronized (statements) {
+                statements.remove(statement);
+            }
+        }
+    }
+
+    /**
+     * a statement, result set or meta data object of a logical connection.
+     */
+    private final class Child implements InvocationHandler {
+        private final Handle owner;
+        private final Object target;
+        private final Object statement;
+
+        private Child(final Handle owner, final Object target, final Object statement) {
+            this.owner = owner;
+            this.target = target;
+            this.statement = statement;
+        }
+
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            final String name = method.getName();
+            if ("close".equals(name)) {
+                if (target instanceof Statement) {
+                    owner.forget((Statement) target);
+                }
+                if (owner.closed.get()) {
+                    return null;
+                }
+            } else if ("isClosed".equals(name)) {
+                return owner.closed.get() || (Boolean) invokePhysical(target, method, args);
+            } else if ("equals".equals(name)) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            } else if ("toString".equals(name)) {
+                return target.toString();
+            } else if ("unwrap".equals(name)) {
+                return unwrap(proxy, (Class<?>) args[0]);
+            } else if ("isWrapperFor".equals(name)) {
+                return ((Class<?>) args[0]).isInstance(proxy);
+            } else if ("getConnection".equals(name)) {
+                owner.checkOpen();
+                return owner.proxy;
+            } else if ("getStatement".equals(name)) {
+                owner.checkOpen();
+                return statement;
+            } else {
+                owner.checkOpen();
+            }
+            return owner.wrap(invokePhysical(target, method, args),
+                    method.getReturnType(),
+                    target instanceof Statement ? proxy : null);
+        }
+    }
+}
@@ -0,0 +1,681 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.drizzle.jdbc;
+
+import org.drizzle.jdbc.internal.SQLExceptionMapper;
+
+import javax.sql.ConnectionEvent;
+import javax.sql.ConnectionEventListener;
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.ref.WeakReference;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A data source that keeps a pool of connections to the server.
+ * <p/>
+ * Borrowing a connection does not lock: a thread first tries the connection it used last, then any idle connection,
+ * and only waits for one to be returned when the pool is at its max size. Returned connections are handed directly
+ * to waiting threads, so a thread that returns and borrows in a loop does not starve them. Connections that have been idle for longer
+ * than the validation threshold are pinged before they are handed out, connections are closed when they have been
+ * idle for longer than the idle timeout or are older than the max lifetime, and connections that are not returned
+ * within the leak detection threshold are logged with the stack trace of the thread that borrowed them.
+ * <p/>
+ * Closing a connection closes its statements and returns it to the pool, if auto commit was changed the transaction
+ * is rolled back and auto commit is turned on again, and read only, the catalog and the transaction isolation are
+ * set back if they were changed. With resetSessionOnReturn the whole session is reset with
+ * DrizzleConnection.resetSession instead.
+ */
+public class DrizzlePoolingDataSource implements DataSource {
+    private static final Logger log = Logger.getLogger(DrizzlePoolingDataSource.class.getName());
+    private static final AtomicInteger poolNumber = new AtomicInteger();
+    private static final int IDLE = 0;
+    private static final int IN_USE = 1;
+    private static final int REMOVED = 2;
+    private static final long HOUSEKEEPING_PERIOD = 30000;
+    /**
+     * how long a returning thread waits for a waiter to reach the hand off queue before it looks at the waiters again.
+     */
+    private static final long HANDOFF_WAIT = 1000000;
+
+    private final DrizzleConnectionPoolDataSource dataSource;
+    private final String username;
+    private final String password;
+    private final CopyOnWriteArrayList<PoolEntry> entries = new CopyOnWriteArrayList<PoolEntry>();
+    private final ThreadLocal<WeakReference<PoolEntry>> lastEntry = new ThreadLocal<WeakReference<PoolEntry>>();
+    /**
+     * the number of connections in the pool, including the ones being created.
+     */
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final SynchronousQueue<PoolEntry> handoff = new SynchronousQueue<PoolEntry>(true);
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final ScheduledExecutorService housekeeper;
+
+    private volatile int minPoolSize = 0;
+    private volatile int maxPoolSize = 10;
+    private volatile long connectionTimeout = 30000;
+    private volatile long idleTimeout = 600000;
+    private volatile long maxLifetime = 1800000;
+    private volatile long validationThreshold = 500;
+    private volatile long leakDetectionThreshold = 0;
+    private volatile boolean resetSessionOnReturn = false;
+    private volatile boolean closed;
+
+    public DrizzlePoolingDataSource(final String hostname, final int port, final String database,
+                                    final String username, final String password) {
+        this(new DrizzleConnectionPoolDataSource(hostname, port, database), username, password);
+    }
+
+    public DrizzlePoolingDataSource(final DrizzleConnectionPoolDataSource dataSource,
+                                    final String username, final String password) {
+        this.dataSource = dataSource;
+        this.username = username;
+        this.password = password;
+        final String threadName = "drizzle-jdbc-pool-" + poolNumber.incrementAndGet();
+        housekeeper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        housekeeper.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                housekeep();
+            }
+        }, HOUSEKEEPING_PERIOD, HOUSEKEEPING_PERIOD, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * borrows a connection from the pool, closing the connection returns it.
+     *
+     * @return a connection
+     * @throws SQLException if no connection was returned to the pool within the connection timeout or if it is not
+     *                      possible to connect
+     */
+    public Connection getConnection() throws SQLException {
+        final long startTime = System.nanoTime();
+        final long deadline = startTime + TimeUnit.MILLISECONDS.toNanos(connectionTimeout);
+        while (true) {
+            final PoolEntry entry = borrow(deadline);
+            final Connection connection;
+            try {
+                connection = entry.pooledConnection.getConnection();
+            } catch (SQLException e) {
+                retire(entry);
+                continue;
+            }
+            borrowCount.incrementAndGet();
+            waitNanos.addAndGet(System.nanoTime() - startTime);
+            return connection;
+        }
+    }
+
+    /**
+     * borrows a connection from the pool, only the credentials the pool was created with are supported.
+     *
+     * @param username the database user on whose behalf the connection is being made
+     * @param password the user's password
+     * @return a connection
+     * @throws SQLException if the credentials are not the pool's or no connection could be borrowed
+     */
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        if (!equal(this.username, username) || !equal(this.password, password)) {
+            throw SQLExceptionMapper.getFeatureNotSupportedException("Pooled connections for other users");
+        }
+        return getConnection();
+    }
+
+    private static boolean equal(final String a, final String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private PoolEntry borrow(final long deadline) throws SQLException {
+        final WeakReference<PoolEntry> last = lastEntry.get();
+        if (last != null) {
+            final PoolEntry entry = last.get();
+            if (entry != null && entry.state.compareAndSet(IDLE, IN_USE) && prepare(entry)) {
+                return entry;
+            }
+        }
+        if (closed) {
+            throw SQLExceptionMapper.getSQLException("Connection pool is closed");
+        }
+        final PoolEntry entry = takeIdle();
+        if (entry != null) {
+            return entry;
+        }
+        if (reserve()) {
+            return create(IN_USE);
+        }
+        return awaitConnection(deadline);
+    }
+
+    /**
+     * waits for a connection to be handed over by a returning thread or for room to create one.
+     */
+    private PoolEntry awaitConnection(final long deadline) throws SQLException {
+        try {
+            while (true) {
+                if (closed) {
+                    throw SQLExceptionMapper.getSQLException("Connection pool is closed");
+                }
+                final PoolEntry entry = pollConnection(deadline);
+                if (entry != null) {
+                    return entry;
+                }
+                if (reserve()) {
+                    return create(IN_USE);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw SQLExceptionMapper.getSQLException("Interrupted while waiting for a connection from the pool", e);
+        }
+    }
+
+    /**
+     * takes an idle connection or waits for one on the hand off queue. The thread counts as a waiter from before it
+     * looks for idle connections until it leaves the queue, and a thread returning a connection makes it idle before
+     * it looks for waiters, so a connection returned after the idle connections were checked is handed over.
+     *
+     * @return the connection, null if there is room to create a connection or the connection handed over could not
+     *         be used
+     */
+    private PoolEntry pollConnection(final long deadline) throws SQLException, InterruptedException {
+        waiters.incrementAndGet();
+        try {
+            final PoolEntry idle = takeIdle();
+            if (idle != null || totalConnections.get() < maxPoolSize) {
+                return idle;
+            }
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                timeoutCount.incrementAndGet();
+                throw SQLExceptionMapper.getSQLException("Timed out after " + connectionTimeout
+                        + "ms waiting for a connection from the pool");
+            }
+            final PoolEntry entry = handoff.poll(remaining, TimeUnit.NANOSECONDS);
+            if (entry != null && entry.state.compareAndSet(IDLE, IN_USE) && prepare(entry)) {
+                return entry;
+            }
+            return null;
+        } finally {
+            waiters.decrementAndGet();
+        }
+    }
+
+    /**
+     * hands an idle connection to a waiting thread. A waiter that has not reached the hand off queue yet is waited
+     * for, the wait ends when the connection has been taken or there are no waiters left.
+     */
+    private void handOff(final PoolEntry entry) {
+        try {
+            while (waiters.get() > 0 && entry.state.get() == IDLE) {
+                if (handoff.offer(entry, HANDOFF_WAIT, TimeUnit.NANOSECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            // the connection stays idle, waiters look for idle connections when their wait times out
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * creates a connection in the background for threads waiting after a connection was removed from the pool.
+     */
+    private void addConnectionForWaiters() {
+        if (waiters.get() == 0 || closed) {
+            return;
+        }
+        try {
+            housekeeper.execute(new Runnable() {
+                public void run() {
+                    if (waiters.get() > 0 && !closed && reserve()) {
+                        try {
+                            create(IDLE);
+                        } catch (SQLException e) {
+                            log.log(Level.WARNING, "Could not create pooled connection", e);
+                        }
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the pool was closed
+        }
+    }
+
+    private PoolEntry takeIdle() {
+        for (final PoolEntry entry : entries) {
+            if (entry.state.get() == IDLE && entry.state.compareAndSet(IDLE, IN_USE) && prepare(entry)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * checks a connection that has just been taken from the idle connections, connections that are too old or do not
+     * answer a ping are removed from the pool.
+     *
+     * @return true if the connection can be handed out
+     */
+    private boolean prepare(final PoolEntry entry) {
+        final long now = System.nanoTime();
+        if (isExpired(entry, now)) {
+            retire(entry);
+            return false;
+        }
+        if (now - entry.lastUsed > TimeUnit.MILLISECONDS.toNanos(validationThreshold)) {
+            boolean valid;
+            try {
+                valid = entry.pooledConnection.getPhysicalConnection().isValid(0);
+            } catch (SQLException e) {
+                valid = false;
+            }
+            if (!valid) {
+                retire(entry);
+                return false;
+            }
+        }
+        entry.borrowedAt = now;
+        entry.leakReported = false;
+        if (leakDetectionThreshold > 0) {
+            entry.borrowStack = new Throwable("Connection borrowed here");
+        }
+        final WeakReference<PoolEntry> last = lastEntry.get();
+        if (last == null || last.get() != entry) {
+            lastEntry.set(new WeakReference<PoolEntry>(entry));
+        }
+        return true;
+    }
+
+    private boolean isExpired(final PoolEntry entry, final long now) {
+        return maxLifetime > 0 && now - entry.createdAt > TimeUnit.MILLISECONDS.toNanos(maxLifetime);
+    }
+
+    private boolean reserve() {
+        while (true) {
+            final int total = totalConnections.get();
+            if (total >= maxPoolSize) {
+                return false;
+            }
+            if (totalConnections.compareAndSet(total, total + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * creates a connection for a place in the pool that has been reserved.
+     */
+    private PoolEntry create(final int state) throws SQLException {
+        final DrizzlePooledConnection pooledConnection;
+        try {
+            pooledConnection = (DrizzlePooledConnection) dataSource.getPooledConnection(username, password);
+        } catch (SQLException e) {
+            totalConnections.decrementAndGet();
+            addConnectionForWaiters();
+            throw e;
+        }
+        final PoolEntry entry = new PoolEntry(pooledConnection, state);
+        pooledConnection.addConnectionEventListener(entry);
+        entries.add(entry);
+        if (state == IN_USE) {
+            prepare(entry);
+        } else {
+            handOff(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * returns a connection to the pool.
+     */
+    private void release(final PoolEntry entry) {
+        if (entry.broken || closed || isExpired(entry, System.nanoTime())) {
+            retire(entry);
+            return;
+        }
+        try {
+            entry.pooledConnection.restoreSession(resetSessionOnReturn);
+        } catch (SQLException e) {
+            retire(entry);
+            return;
+        }
+        entry.borrowStack = null;
+        entry.lastUsed = System.nanoTime();
+        // the entry may have been retired or released by another thread meanwhile, it must not be handed out twice
+        if (entry.state.compareAndSet(IN_USE, IDLE)) {
+            handOff(entry);
+        }
+    }
+
+    private void retire(final PoolEntry entry) {
+        if (entry.state.getAndSet(REMOVED) == REMOVED) {
+            return;
+        }
+        entries.remove(entry);
+        totalConnections.decrementAndGet();
+        try {
+            entry.pooledConnection.close();
+        } catch (SQLException e) {
+            log.log(Level.FINE, "Could not close pooled connection", e);
+        }
+        addConnectionForWaiters();
+    }
+
+    /**
+     * closes connections that have been idle for too long or are too old, reports leaked connections and creates
+     * connections until the pool has its min size.
+     */
+    void housekeep() {
+        final long now = System.nanoTime();
+        for (final PoolEntry entry : entries) {
+            final int state = entry.state.get();
+            if (state == IDLE) {
+                final boolean idleTooLong = idleTimeout > 0
+                        && now - entry.lastUsed > TimeUnit.MILLISECONDS.toNanos(idleTimeout)
+                        && totalConnections.get() > minPoolSize;
+                if ((idleTooLong || isExpired(entry, now)) && entry.state.compareAndSet(IDLE, IN_USE)) {
+                    retire(entry);
+                }
+            } else if (state == IN_USE && leakDetectionThreshold > 0 && !entry.leakReported
+                    && entry.borrowStack != null
+                    && now - entry.borrowedAt > TimeUnit.MILLISECONDS.toNanos(leakDetectionThreshold)) {
+                entry.leakReported = true;
+                log.log(Level.WARNING, "Connection has not been returned to the pool for "
+                        + TimeUnit.NANOSECONDS.toMillis(now - entry.borrowedAt) + "ms, it may have leaked",
+                        entry.borrowStack);
+            }
+        }
+        while (!closed && totalConnections.get() < minPoolSize && reserve()) {
+            try {
+                create(IDLE);
+            } catch (SQLException e) {
+                log.log(Level.WARNING, "Could not create pooled connection", e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * closes the pool and its idle connections, connections in use are closed when they are returned.
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        for (final PoolEntry entry : entries) {
+            if (entry.state.compareAndSet(IDLE, IN_USE)) {
+                retire(entry);
+            }
+        }
+    }
+
+    public int getMinPoolSize() {
+        return minPoolSize;
+    }
+
+    /**
+     * sets the number of connections the pool keeps open even when they are idle, default 0.
+     *
+     * @param minPoolSize the min number of connections
+     */
+    public void setMinPoolSize(final int minPoolSize) {
+        this.minPoolSize = minPoolSize;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * sets the max number of connections in the pool, default 10.
+     *
+     * @param maxPoolSize the max number of connections
+     */
+    public void setMaxPoolSize(final int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public long getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    /**
+     * sets how long getConnection waits for a connection when the pool is at its max size, default 30 seconds.
+     *
+     * @param connectionTimeout the timeout in milliseconds
+     */
+    public void setConnectionTimeout(final long connectionTimeout) {
+        this.connectionTimeout = connectionTimeout;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * sets how long a connection can be idle before it is closed, connections are not closed below the min pool size.
+     * 0 keeps idle connections open, default 10 minutes.
+     *
+     * @param idleTimeout the timeout in milliseconds
+     */
+    public void setIdleTimeout(final long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public long getMaxLifetime() {
+        return maxLifetime;
+    }
+
+    /**
+     * sets how long a connection is used before it is closed and replaced, 0 means forever, default 30 minutes.
+     *
+     * @param maxLifetime the max lifetime in milliseconds
+     */
+    public void setMaxLifetime(final long maxLifetime) {
+        this.maxLifetime = maxLifetime;
+    }
+
+    public long getValidationThreshold() {
+        return validationThreshold;
+    }
+
+    /**
+     * sets how long a connection can be idle before it is pinged when it is borrowed, default 500 milliseconds.
+     *
+     * @param validationThreshold the threshold in milliseconds
+     */
+    public void setValidationThreshold(final long validationThreshold) {
+        this.validationThreshold = validationThreshold;
+    }
+
+    public long getLeakDetectionThreshold() {
+        return leakDetectionThreshold;
+    }
+
+    /**
+     * sets how long a connection can be borrowed before it is logged as a possible leak, 0 disables leak detection,
+     * default 0. Leaks are looked for every 30 seconds.
+     *
+     * @param leakDetectionThreshold the threshold in milliseconds
+     */
+    public void setLeakDetectionThreshold(final long leakDetectionThreshold) {
+        this.leakDetectionThreshold = leakDetectionThreshold;
+    }
+
+    public boolean isResetSessionOnReturn() {
+        return resetSessionOnReturn;
+    }
+
+    /**
+     * resets the session of connections when they are returned, so temporary tables, user variables and session
+     * variables set by one borrower are not seen by the next. Costs a round trip per return, default false.
+     *
+     * @param resetSessionOnReturn true to reset the session
+     */
+    public void setResetSessionOnReturn(final boolean resetSessionOnReturn) {
+        this.resetSessionOnReturn = resetSessionOnReturn;
+    }
+
+    /**
+     * @return the number of borrowed connections
+     */
+    public int getActiveConnections() {
+        return countEntries(IN_USE);
+    }
+
+    /**
+     * @return the number of connections waiting in the pool
+     */
+    public int getIdleConnections() {
+        return countEntries(IDLE);
+    }
+
+    /**
+     * @return the number of connections in the pool, including the ones being created
+     */
+    public int getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    /**
+     * @return the number of threads waiting for a connection
+     */
+    public int getThreadsAwaitingConnection() {
+        return waiters.get();
+    }
+
+    /**
+     * @return the number of connections borrowed since the pool was created
+     */
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    /**
+     * @return the total time spent in getConnection by all borrowers, in nanoseconds
+     */
+    public long getTotalWaitNanos() {
+        return waitNanos.get();
+    }
+
+    /**
+     * @return the number of times getConnection timed out waiting for a connection
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    private int countEntries(final int state) {
+        int count = 0;
+        for (final PoolEntry entry : entries) {
+            if (entry.state.get() == state) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public PrintWriter getLogWriter() throws SQLException {
+        return null;
+    }
+
+    public void setLogWriter(final PrintWriter out) throws SQLException {
+    }
+
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException("getParentLogger");
+    }
+
+    /**
+     * sets the connection timeout.
+     *
+     * @param seconds the timeout in seconds
+     * @throws SQLException never
+     */
+    public void setLoginTimeout(final int seconds) throws SQLException {
+        connectionTimeout = seconds * 1000L;
+    }
+
+    public int getLoginTimeout() throws SQLException {
+        return (int) (connectionTimeout / 1000);
+    }
+
+    public <T> T unwrap(final Class<T> iface) throws SQLException {
+        return iface.cast(this);
+    }
+
+    public boolean isWrapperFor(final Class<?> iface) throws SQLException {
+        return iface.isInstance(this);
+    }
+
+    /**
+     * a connection in the pool, it listens for the logical connection to be closed.
+     */
+    private final class PoolEntry implements ConnectionEventListener {
+        private final DrizzlePooledConnection pooledConnection;
+        private final long createdAt;
+        private final AtomicInteger state;
+        private volatile long lastUsed;
+        private volatile long borrowedAt;
+        private volatile Throwable borrowStack;
+        private volatile boolean leakReported;
+        private volatile boolean broken;
+
+        private PoolEntry(final DrizzlePooledConnection pooledConnection, final int state) {
+            this.pooledConnection = pooledConnection;
+            this.createdAt = System.nanoTime();
+            this.lastUsed = createdAt;
+            this.state = new AtomicInteger(state);
+        }
+
+        public void connectionClosed(final ConnectionEvent event) {
+            release(this);
+        }
+
+        public void connectionErrorOccurred(final ConnectionEvent event) {
+            broken = true;
+        }
+    }
+}
@@ -25,6 +25,8 @@
 package org.drizzle.jdbc;
 
 import org.drizzle.jdbc.internal.SQLExceptionMapper;
+import org.drizzle.jdbc.internal.common.BatchQueryException;
+import org.drizzle.jdbc.internal.common.JavaTimeConverter;
 import org.drizzle.jdbc.internal.common.ParameterizedBatchHandler;
 import org.drizzle.jdbc.internal.common.Protocol;
 import org.drizzle.jdbc.internal.common.QueryException;
@@ -99,7 +101,8 @@ public class DrizzlePreparedStatement extends DrizzleStatement implements Prepar
     public ResultSet executeQuery() throws SQLException {
         startTimer();
         try {
-            setQueryResult(getProtocol().executeQuery(dQuery));
+            closeQueryResult();
+            setQueryResult(getProtocol().executeQuery(dQuery, getFetchSize()));
             return new DrizzleResultSet(getQueryResult(), this, getProtocol());
         } catch (QueryException e) {
             throw SQLExceptionMapper.get(e);
@@ -122,6 +125,7 @@ public class DrizzlePreparedStatement extends DrizzleStatement implements Prepar
     public int executeUpdate() throws SQLException {
         startTimer();
         try {
+            closeQueryResult();
             setQueryResult(getProtocol().executeQuery(dQuery));
             dQuery.clearParameters();
         } catch (QueryException e) {
@@ -161,7 +165,8 @@ public class DrizzlePreparedStatement extends DrizzleStatement implements Prepar
     public boolean execute() throws SQLException {
         startTimer();
         try {
-            setQueryResult(getProtocol().executeQuery(dQuery));
+            closeQueryResult();
+            setQueryResult(getProtocol().executeQuery(dQuery, getFetchSize()));
             dQuery.clearParameters();
         } catch (QueryException e) {
             throw SQLExceptionMapper.get(e);
@@ -197,6 +202,8 @@ public class DrizzlePreparedStatement extends DrizzleStatement implements Prepar
     public int[] executeBatch() throws SQLException {
         try {
             return parameterizedBatchHandler.executeBatch();
+        } catch (BatchQueryException e) {
+            throw getBatchUpdateException(e);
         } catch (QueryException e) {
             throw SQLExceptionMapper.get(e);
         }
@@ -373,15 +380,12 @@ public class DrizzlePreparedStatement extends DrizzleStatement implements Prepar
      * @since 1.2
      */
     public void setTime(final int parameterIndex, final Time time, final Calendar cal) throws SQLException {
-//        SimpleDateFormat sdf = new SimpleDateFormat("HH:mm:ss");
-//        sdf.setCalendar(cal);
         if(time == null) {
             setNull(parameterIndex, Types.TIME);
             return;
         }
 
-
-        setParameter(parameterIndex, new TimeParameter(time.getTime()));
+        setParameter(parameterIndex, new TimeParameter(time.getTime(), cal));
     }
 
     /**
@@ -406,7 +410,7 @@ public class DrizzlePreparedStatement extends DrizzleStatement implements Prepar
             return;
         }
 
-        setParameter(parameterIndex, new TimestampParameter(x.getTime(), cal));
+        setParameter(parameterIndex, new TimestampParameter(x.getTime(), x.getNanos(), cal));
     }
 
     /**
@@ -464,7 +468,7 @@ public class DrizzlePreparedStatement extends DrizzleStatement implements Prepar
      * @since 1.4
      */
     public void setURL(final int parameterIndex, final URL x) throws SQLException {
-        setParameter(parameterIndex, new StringParameter(x.toString()));
+        setParameter(parameterIndex, new StringParameter(x.toString(), getProtocol().noBackslashEscapes()));
     }
 
     /**
@@ -1093,7 +1097,7 @@ public class DrizzlePreparedStatement extends DrizzleStatement implements Prepar
             return;
         }
 
-        setParameter(column, new StringParameter(s));
+        setParameter(column, new StringParameter(s, getProtocol().noBackslashEscapes()));
     }
 
     /**
@@ -1178,7 +1182,7 @@ public class DrizzlePreparedStatement extends DrizzleStatement implements Prepar
         }
 
 
-        setParameter(parameterIndex, new TimestampParameter(x.getTime()));
+        setParameter(parameterIndex, new TimestampParameter(x.getTime(), x.getNanos(), null));
     }
 
     /**
@@ -1488,6 +1492,10 @@ public class DrizzlePreparedStatement extends DrizzleStatement implements Prepar
      * <p/>
      * <b>Note:</b> This method throws an exception if there is an ambiguity, for example, if the object is of a class
      * implementing more than one of the interfaces named above.
+     * <p/>
+     * <code>java.time.LocalDate</code>, <code>LocalTime</code> and <code>LocalDateTime</code> are sent as they are,
+     * <code>Instant</code>, <code>OffsetDateTime</code> and <code>ZonedDateTime</code> are sent as a timestamp in the
+     * default time zone.
      *
      * @param parameterIndex the first parameter is 1, the second is 2, ...
      * @param x              the object containing the input parameter value
@@ -1532,6 +1540,12 @@ public class DrizzlePreparedStatement extends DrizzleStatement implements Prepar
             setCharacterStream(parameterIndex, (Reader) x);
         } else if (x instanceof BigDecimal) {
             setBigDecimal(parameterIndex, (BigDecimal)x);
+        } else if (x.getClass().getName().startsWith("java.time.")) {
+            final ParameterHolder holder = JavaTimeConverter.toParameter(x);
+            if (holder == null) {
+                throw SQLExceptionMapper.getSQLException("Could not set " + x.getClass().getName() + " parameter in setObject");
+            }
+            setParameter(parameterIndex, holder);
         } else {
             try {
                 setParameter(parameterIndex, new SerializableParameter(x));
@@ -1606,18 +1620,4 @@ public class DrizzlePreparedStatement extends DrizzleStatement implements Prepar
 
         setParameter(parameterIndex, new BigDecimalParameter(x));
     }
-
-    /**
-     * Indicates whether the statement is auto-closed when no result sets are
-     * remain open.
-     *
-     * @return True or false.
-     */
-    public boolean isCloseOnCompletion() throws SQLException {
-        return false;
-    }
-
-    public void closeOnCompletion() throws SQLException {
-        throw SQLExceptionMapper.getFeatureNotSupportedException("Statement closeOnCompletion");
-    }
 }
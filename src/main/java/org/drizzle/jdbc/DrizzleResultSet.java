@@ -26,11 +26,13 @@ package org.drizzle.jdbc;
 
 import org.drizzle.jdbc.internal.SQLExceptionMapper;
 import org.drizzle.jdbc.internal.common.*;
+import org.drizzle.jdbc.internal.common.queryresults.ColumnarQueryResult;
 import org.drizzle.jdbc.internal.common.queryresults.DrizzleQueryResult;
 import org.drizzle.jdbc.internal.common.queryresults.NoSuchColumnException;
 import org.drizzle.jdbc.internal.common.queryresults.QueryResult;
 import org.drizzle.jdbc.internal.common.queryresults.ResultSetType;
 import org.drizzle.jdbc.internal.common.queryresults.SelectQueryResult;
+import org.drizzle.jdbc.internal.common.queryresults.StreamingQueryResult;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -85,8 +87,23 @@ public class DrizzleResultSet implements ResultSet {
     }
 
     public boolean next() throws SQLException {
-        return queryResult.getResultSetType() == ResultSetType.SELECT
-                && ((SelectQueryResult) queryResult).next();
+        try {
+            return queryResult.getResultSetType() == ResultSetType.SELECT
+                    && ((SelectQueryResult) queryResult).next();
+        } catch (QueryException e) {
+            throw SQLExceptionMapper.get(e);
+        }
+    }
+
+    /**
+     * streaming results are read from the server as they are iterated, so they can only move forward.
+     *
+     * @throws SQLException if this is a streaming result
+     */
+    private void checkScrollable() throws SQLException {
+        if (queryResult instanceof StreamingQueryResult) {
+            throw SQLExceptionMapper.getSQLException("Streaming result sets are forward only");
+        }
     }
 
     public void close() throws SQLException {
@@ -94,6 +111,9 @@ public class DrizzleResultSet implements ResultSet {
         if (this.queryResult != null) {
             this.queryResult.close();
         }
+        if (statement != null && statement.isCloseOnCompletion()) {
+            statement.close();
+        }
     }
 
     /**
@@ -115,13 +135,54 @@ public class DrizzleResultSet implements ResultSet {
     }
 
     public int getInt(final int i) throws SQLException {
+        if (isLongColumn(i)) {
+            final long value = getColumnarLong(i);
+            return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+        }
         return getValueObject(i).getInt();
     }
 
     public int getInt(final String s) throws SQLException {
+        if (queryResult instanceof ColumnarQueryResult) {
+            return getInt(findColumn(s));
+        }
         return getValueObject(s).getInt();
     }
 
+    /**
+     * true if the column is stored as longs in a columnar result, the numeric getters read those without creating a
+     * value object.
+     *
+     * @param i the column, starts at 1
+     */
+    private boolean isLongColumn(final int i) {
+        return queryResult instanceof ColumnarQueryResult && ((ColumnarQueryResult) queryResult).isLongColumn(i - 1);
+    }
+
+    private boolean isDoubleColumn(final int i) {
+        return queryResult instanceof ColumnarQueryResult && ((ColumnarQueryResult) queryResult).isDoubleColumn(i - 1);
+    }
+
+    private long getColumnarLong(final int i) throws SQLException {
+        final ColumnarQueryResult columnarResult = (ColumnarQueryResult) queryResult;
+        try {
+            this.lastGetWasNull = columnarResult.isNull(i - 1);
+            return columnarResult.getLong(i - 1);
+        } catch (NoSuchColumnException e) {
+            throw SQLExceptionMapper.getSQLException("Could not get column " + i + ": " + e.getMessage(), e);
+        }
+    }
+
+    private double getColumnarDouble(final int i) throws SQLException {
+        final ColumnarQueryResult columnarResult = (ColumnarQueryResult) queryResult;
+        try {
+            this.lastGetWasNull = columnarResult.isNull(i - 1);
+            return columnarResult.getDouble(i - 1);
+        } catch (NoSuchColumnException e) {
+            throw SQLExceptionMapper.getSQLException("Could not get column " + i + ": " + e.getMessage(), e);
+        }
+    }
+
     private ValueObject getValueObject(final int i) throws SQLException {
         if (queryResult.getResultSetType() == ResultSetType.SELECT) {
             final ValueObject vo;
@@ -161,6 +222,9 @@ public class DrizzleResultSet implements ResultSet {
      *                               is called on a closed result set
      */
     public long getLong(final String columnLabel) throws SQLException {
+        if (queryResult instanceof ColumnarQueryResult) {
+            return getLong(findColumn(columnLabel));
+        }
         return getValueObject(columnLabel).getLong();
     }
 
@@ -175,6 +239,9 @@ public class DrizzleResultSet implements ResultSet {
      *                               is called on a closed result set
      */
     public float getFloat(final String columnLabel) throws SQLException {
+        if (queryResult instanceof ColumnarQueryResult) {
+            return getFloat(findColumn(columnLabel));
+        }
         return getValueObject(columnLabel).getFloat();
     }
 
@@ -189,6 +256,9 @@ public class DrizzleResultSet implements ResultSet {
      *                               is called on a closed result set
      */
     public double getDouble(final String columnLabel) throws SQLException {
+        if (queryResult instanceof ColumnarQueryResult) {
+            return getDouble(findColumn(columnLabel));
+        }
         return getValueObject(columnLabel).getDouble();
     }
 
@@ -459,6 +529,8 @@ public class DrizzleResultSet implements ResultSet {
 
     /**
      * <p>Gets the value of the designated column in the current row of this <code>ResultSet</code> object.
+     * <p>Temporal columns can be read as <code>java.time.LocalDate</code>, <code>LocalTime</code> and
+     * <code>LocalDateTime</code>.
      * @param columnIndex the first column is 1, the second is 2, ...
      * @param type The Java object type of the column to be retrieved.
      * @return an object of the specified type holding the column value
@@ -466,9 +538,24 @@ public class DrizzleResultSet implements ResultSet {
      *                               is called on a closed result set
      */
     public <T> T getObject(final int columnIndex, Class<T> type) throws SQLException {
+        if (type != null && type.getName().startsWith("java.time.")) {
+            return type.cast(getJavaTimeObject(getValueObject(columnIndex), type));
+        }
         return (T)(getObject(columnIndex));
     }
 
+    private Object getJavaTimeObject(final ValueObject vo, final Class<?> type) throws SQLException {
+        if (vo.isNull()) {
+            return null;
+        }
+        final TemporalValue value = TemporalValue.parse(vo.getBytes());
+        final Object result = value == null ? null : JavaTimeConverter.convert(value, type);
+        if (result == null) {
+            throw SQLExceptionMapper.getSQLException("Could not convert \"" + vo.getString() + "\" to " + type.getName());
+        }
+        return result;
+    }
+
     /**
      * <p>Gets the value of the designated column in the current row of this <code>ResultSet</code> object as an
      * <code>Object</code> in the Java programming language.
@@ -507,6 +594,9 @@ public class DrizzleResultSet implements ResultSet {
      *                               is called on a closed result set
      */
     public <T> T getObject(final String columnLabel, Class<T> type) throws SQLException {
+        if (type != null && type.getName().startsWith("java.time.")) {
+            return type.cast(getJavaTimeObject(getValueObject(columnLabel), type));
+        }
         return (T)(getObject(columnLabel));
     }
 
@@ -607,6 +697,9 @@ public class DrizzleResultSet implements ResultSet {
      * @since 1.2
      */
     public boolean isBeforeFirst() throws SQLException {
+        if (queryResult instanceof StreamingQueryResult) {
+            return ((StreamingQueryResult) queryResult).getRowPointer() == -1;
+        }
         return !(queryResult.getResultSetType() == ResultSetType.MODIFY || queryResult.getRows() == 0)
                 && ((SelectQueryResult) queryResult).getRowPointer() == -1;
     }
@@ -661,6 +754,7 @@ public class DrizzleResultSet implements ResultSet {
      * @since 1.2
      */
     public boolean isLast() throws SQLException {
+        checkScrollable();
         return queryResult.getResultSetType() != ResultSetType.MODIFY
                 && ((SelectQueryResult) queryResult).getRowPointer() == queryResult.getRows() - 1;
     }
@@ -676,6 +770,7 @@ public class DrizzleResultSet implements ResultSet {
      * @since 1.2
      */
     public void beforeFirst() throws SQLException {
+        checkScrollable();
         if (queryResult.getResultSetType() == ResultSetType.SELECT) {
             ((SelectQueryResult) queryResult).moveRowPointerTo(-1);
         }
@@ -707,6 +802,7 @@ public class DrizzleResultSet implements ResultSet {
      * @since 1.2
      */
     public boolean first() throws SQLException {
+        checkScrollable();
         if (queryResult.getResultSetType() == ResultSetType.SELECT && queryResult.getRows() > 0) {
             ((SelectQueryResult) queryResult).moveRowPointerTo(0);
             return true;
@@ -726,6 +822,7 @@ public class DrizzleResultSet implements ResultSet {
      * @since 1.2
      */
     public boolean last() throws SQLException {
+        checkScrollable();
         if (queryResult.getResultSetType() == ResultSetType.SELECT && queryResult.getRows() > 0) {
             ((SelectQueryResult) queryResult).moveRowPointerTo(queryResult.getRows() - 1);
             return true;
@@ -780,6 +877,7 @@ public class DrizzleResultSet implements ResultSet {
      * @since 1.2
      */
     public boolean absolute(final int row) throws SQLException {
+        checkScrollable();
         if (queryResult.getResultSetType() != ResultSetType.SELECT) {
             return false;
         }
@@ -815,6 +913,7 @@ public class DrizzleResultSet implements ResultSet {
      * @since 1.2
      */
     public boolean relative(final int rows) throws SQLException {
+        checkScrollable();
         if (queryResult.getResultSetType() != ResultSetType.SELECT) {
             return false;
         }
@@ -849,6 +948,7 @@ public class DrizzleResultSet implements ResultSet {
      * @since 1.2
      */
     public boolean previous() throws SQLException {
+        checkScrollable();
         if (queryResult.getResultSetType() != ResultSetType.SELECT) {
             return false;
         }
@@ -929,6 +1029,9 @@ public class DrizzleResultSet implements ResultSet {
      * @since 1.2
      */
     public int getType() throws SQLException {
+        if (queryResult instanceof StreamingQueryResult) {
+            return ResultSet.TYPE_FORWARD_ONLY;
+        }
         return ResultSet.TYPE_SCROLL_INSENSITIVE;
     }
 
@@ -3441,22 +3544,43 @@ public class DrizzleResultSet implements ResultSet {
     }
 
     public byte getByte(final int i) throws SQLException {
+        if (isLongColumn(i)) {
+            return (byte) Math.max(Byte.MIN_VALUE, Math.min(Byte.MAX_VALUE, getColumnarLong(i)));
+        }
         return getValueObject(i).getByte();
     }
 
     public short getShort(final int i) throws SQLException {
+        if (isLongColumn(i)) {
+            return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, getColumnarLong(i)));
+        }
         return getValueObject(i).getShort();
     }
 
     public long getLong(final int i) throws SQLException {
+        if (isLongColumn(i)) {
+            return getColumnarLong(i);
+        }
         return getValueObject(i).getLong();
     }
 
     public float getFloat(final int i) throws SQLException {
+        if (isLongColumn(i)) {
+            return getColumnarLong(i);
+        }
+        if (isDoubleColumn(i)) {
+            return (float) getColumnarDouble(i);
+        }
         return getValueObject(i).getFloat();
     }
 
     public double getDouble(final int i) throws SQLException {
+        if (isLongColumn(i)) {
+            return getColumnarLong(i);
+        }
+        if (isDoubleColumn(i)) {
+            return getColumnarDouble(i);
+        }
         return getValueObject(i).getDouble();
     }
 
@@ -3663,6 +3787,9 @@ public class DrizzleResultSet implements ResultSet {
      *                               is called on a closed result set
      */
     public byte getByte(final String columnLabel) throws SQLException {
+        if (queryResult instanceof ColumnarQueryResult) {
+            return getByte(findColumn(columnLabel));
+        }
         return getValueObject(columnLabel).getByte();
     }
 
@@ -3677,6 +3804,9 @@ public class DrizzleResultSet implements ResultSet {
      *                               is called on a closed result set
      */
     public short getShort(final String columnLabel) throws SQLException {
+        if (queryResult instanceof ColumnarQueryResult) {
+            return getShort(findColumn(columnLabel));
+        }
         return getValueObject(columnLabel).getShort();
     }
 
@@ -25,6 +25,7 @@
 package org.drizzle.jdbc;
 
 import org.drizzle.jdbc.internal.SQLExceptionMapper;
+import org.drizzle.jdbc.internal.common.BatchQueryException;
 import org.drizzle.jdbc.internal.common.Protocol;
 import org.drizzle.jdbc.internal.common.QueryException;
 import org.drizzle.jdbc.internal.common.query.Query;
@@ -32,9 +33,11 @@ import org.drizzle.jdbc.internal.common.query.QueryFactory;
 import org.drizzle.jdbc.internal.common.queryresults.ModifyQueryResult;
 import org.drizzle.jdbc.internal.common.queryresults.QueryResult;
 import org.drizzle.jdbc.internal.common.queryresults.ResultSetType;
+import org.drizzle.jdbc.internal.common.queryresults.StreamingQueryResult;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -85,6 +88,15 @@ public class DrizzleStatement implements Statement {
 
 
     private int queryTimeout;
+    /**
+     * the fetch size, Integer.MIN_VALUE means stream the rows.
+     */
+    private int fetchSize;
+    /**
+     * true if the statement is closed when its result set is closed.
+     */
+    private boolean closeOnCompletion;
+    private boolean isClosed;
     private ScheduledFuture<?> timoutFuture;
 
     /**
@@ -126,7 +138,7 @@ public class DrizzleStatement implements Statement {
                 queryResult.close();
             }
             final Query queryToSend = queryFactory.createQuery(query);
-            queryResult = protocol.executeQuery(queryToSend);
+            queryResult = protocol.executeQuery(queryToSend, fetchSize);
             warningsCleared = false;
             return new DrizzleResultSet(queryResult, this, getProtocol());
         } catch (QueryException e) {
@@ -207,7 +219,7 @@ public class DrizzleStatement implements Statement {
             if (queryResult != null) {
                 queryResult.close();
             }
-            queryResult = protocol.executeQuery(queryFactory.createQuery(query));
+            queryResult = protocol.executeQuery(queryFactory.createQuery(query), fetchSize);
             if (queryResult.getResultSetType() == ResultSetType.SELECT) {
                 setResultSet(new DrizzleResultSet(queryResult, this, getProtocol()));
                 return true;
@@ -238,6 +250,7 @@ public class DrizzleStatement implements Statement {
      * @throws java.sql.SQLException if a database access error occurs
      */
     public void close() throws SQLException {
+        isClosed = true;
         if (queryResult != null) {
             queryResult.close();
         }
@@ -690,7 +703,7 @@ public class DrizzleStatement implements Statement {
      * @since 1.6
      */
     public boolean isClosed() throws SQLException {
-        return false;
+        return isClosed;
     }
 
     /**
@@ -830,7 +843,10 @@ public class DrizzleStatement implements Statement {
      * @since 1.2
      */
     public void setFetchSize(final int rows) throws SQLException {
-
+        if (rows < 0 && rows != Integer.MIN_VALUE) {
+            throw SQLExceptionMapper.getSQLException("Fetch size must be >= 0 or Integer.MIN_VALUE");
+        }
+        this.fetchSize = rows;
     }
 
     /**
@@ -845,7 +861,7 @@ public class DrizzleStatement implements Statement {
      * @since 1.2
      */
     public int getFetchSize() throws SQLException {
-        return 0;
+        return fetchSize;
     }
 
     /**
@@ -946,24 +962,51 @@ public class DrizzleStatement implements Statement {
      */
     public int[] executeBatch() throws SQLException {
         try {
-
-            final List<QueryResult> queryRes = protocol.executeBatch();
-            final int[] retVals = new int[queryRes.size()];
-            int i = 0;
-            for (final QueryResult qr : queryRes) {
-                if (qr.getResultSetType() == ResultSetType.MODIFY) {
-                    retVals[i++] =
-                            (int) ((ModifyQueryResult) qr).getUpdateCount(); //TODO: this needs to be handled according to javadoc
-                } else {
-                    retVals[i++] = SUCCESS_NO_INFO;
-                }
-            }
-            return retVals;
+            return getUpdateCounts(protocol.executeBatch());
+        } catch (BatchQueryException e) {
+            throw getBatchUpdateException(e);
         } catch (QueryException e) {
             throw SQLExceptionMapper.get(e);
         }
     }
 
+    /**
+     * converts a failed batch to a BatchUpdateException with the update counts of the queries that were executed.
+     *
+     * @param e the batch failure
+     * @return the exception to throw
+     */
+    static BatchUpdateException getBatchUpdateException(final BatchQueryException e) {
+        final BatchUpdateException batchUpdateException = new BatchUpdateException(e.getMessage(),
+                e.getSqlState(),
+                e.getErrorCode(),
+                getUpdateCounts(e.getResults()));
+        batchUpdateException.initCause(e);
+        return batchUpdateException;
+    }
+
+    /**
+     * converts the results of a batch to update counts, failed queries (null results) are EXECUTE_FAILED.
+     *
+     * @param queryRes the results
+     * @return the update counts
+     */
+    private static int[] getUpdateCounts(final List<QueryResult> queryRes) {
+        final int[] retVals = new int[queryRes.size()];
+        int i = 0;
+        for (final QueryResult qr : queryRes) {
+            if (qr == null) {
+                retVals[i++] = EXECUTE_FAILED;
+            } else if (qr.getResultSetType() == ResultSetType.MODIFY) {
+                retVals[i++] =
+                        (int) ((ModifyQueryResult) qr).getUpdateCount(); //TODO: this needs to be handled according to javadoc
+            } else {
+                retVals[i++] = SUCCESS_NO_INFO;
+            }
+        }
+        return retVals;
+    }
+
     /**
      * Returns an object that implements the given interface to allow access to non-standard methods, or standard
      * methods not exposed by the proxy.
@@ -1019,6 +1062,16 @@ public class DrizzleStatement implements Statement {
         return queryResult;
     }
 
+    /**
+     * closes the current query result if it is still streaming rows from the server, this needs to be done before the
+     * statement is executed again.
+     */
+    protected void closeQueryResult() {
+        if (queryResult instanceof StreamingQueryResult) {
+            queryResult.close();
+        }
+    }
+
     /**
      * sets the current query result
      *
@@ -1040,11 +1093,14 @@ public class DrizzleStatement implements Statement {
      * @return True or false.
      */
     public boolean isCloseOnCompletion() throws SQLException {
-        return false;
+        return closeOnCompletion;
     }
 
+    /**
+     * Specifies that this statement will be closed when its result set is closed.
+     */
     public void closeOnCompletion() throws SQLException {
-        throw SQLExceptionMapper.getFeatureNotSupportedException("Statement closeOnCompletion");
+        closeOnCompletion = true;
     }
 
 }
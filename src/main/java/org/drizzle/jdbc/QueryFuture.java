@@ -0,0 +1,80 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.drizzle.jdbc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+/**
+ * The pending result of an asynchronous query. Listeners can be added to get notified when the query is done instead
+ * of blocking in get().
+ *
+ * @param <T> the type of the result
+ */
+public class QueryFuture<T> extends FutureTask<T> {
+    private List<Runnable> listeners = new ArrayList<Runnable>();
+
+    QueryFuture(final Callable<T> callable) {
+        super(callable);
+    }
+
+    /**
+     * Adds a listener that is run when the query completes, fails or is cancelled. Listeners run on the thread that
+     * completed the query, or right away on the calling thread if the query is already done, so they should not block.
+     *
+     * @param listener the listener
+     */
+    public void addListener(final Runnable listener) {
+        synchronized (this) {
+            if (listeners != null) {
+                listeners.add(listener);
+                return;
+            }
+        }
+        listener.run();
+    }
+
+    /**
+     * fails the query if it has not completed yet, get() then throws an ExecutionException wrapping the cause.
+     *
+     * @param cause the reason the query failed
+     */
+    void fail(final Throwable cause) {
+        setException(cause);
+    }
+
+    @Override
+    protected void done() {
+        final List<Runnable> toRun;
+        synchronized (this) {
+            toRun = listeners;
+            listeners = null;
+        }
+        for (final Runnable listener : toRun) {
+            listener.run();
+        }
+    }
+}
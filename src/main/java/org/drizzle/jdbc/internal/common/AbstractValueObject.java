@@ -102,32 +102,37 @@ public abstract class AbstractValueObject implements ValueObject {
         if (rawBytes == null) {
             return 0;
         }
-        return Float.valueOf(getString());
+        return Utils.byteArrayToFloat(rawBytes);
     }
 
     public double getDouble() {
         if (rawBytes == null) {
             return 0;
         }
-        return Double.valueOf(getString());
+        return Utils.byteArrayToDouble(rawBytes);
     }
 
     public BigDecimal getBigDecimal() {
         if (rawBytes == null) {
             return null;
         }
-        return new BigDecimal(getString());
+        return Utils.byteArrayToBigDecimal(rawBytes);
     }
     public BigInteger getBigInteger() {
         if (rawBytes == null) {
             return null;
         }
-        return new BigInteger(getString());
+        return Utils.byteArrayToBigInteger(rawBytes);
     }
     public Date getDate() throws ParseException {
         if (rawBytes == null) {
             return null;
         }
+        final TemporalValue value = TemporalValue.parse(rawBytes);
+        final Date date = value == null ? null : value.toDate(null);
+        if (date != null) {
+            return date;
+        }
         final String rawValue = getString();
         final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
         final java.util.Date utilDate = sdf.parse(rawValue);
@@ -146,6 +151,10 @@ public abstract class AbstractValueObject implements ValueObject {
         if (rawBytes == null) {
             return null;
         }
+        final TemporalValue value = TemporalValue.parse(rawBytes);
+        if (value != null && !value.isNegative() && value.getHour() < 24) {
+            return value.toTime(null);
+        }
         String rawValue = getString();
         SimpleDateFormat sdf = new SimpleDateFormat("HH:mm:ss");
 
@@ -158,6 +167,11 @@ public abstract class AbstractValueObject implements ValueObject {
         if (rawBytes == null) {
             return null;
         }
+        final TemporalValue value = TemporalValue.parse(rawBytes);
+        final Timestamp timestamp = value == null ? null : value.toTimestamp(null);
+        if (timestamp != null) {
+            return timestamp;
+        }
         String rawValue = getString();
         SimpleDateFormat sdf;
 
@@ -193,6 +207,11 @@ public abstract class AbstractValueObject implements ValueObject {
         if (rawBytes == null) {
             return null;
         }
+        final TemporalValue value = TemporalValue.parse(rawBytes);
+        final Date date = value == null ? null : value.toDate(cal);
+        if (date != null) {
+            return date;
+        }
         final String rawValue = getString();
         final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
         sdf.setCalendar(cal);
@@ -217,6 +236,11 @@ public abstract class AbstractValueObject implements ValueObject {
         if (rawBytes == null) {
             return null;
         }
+        final TemporalValue value = TemporalValue.parse(rawBytes);
+        final Timestamp timestamp = value == null ? null : value.toTimestamp(cal);
+        if (timestamp != null) {
+            return timestamp;
+        }
         final String rawValue = getString();
         final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
         sdf.setCalendar(cal);
@@ -228,8 +252,13 @@ public abstract class AbstractValueObject implements ValueObject {
         if (rawBytes == null) {
             return false;
         }
-        final String rawVal = getString();
-        return rawVal.equalsIgnoreCase("true") || rawVal.equalsIgnoreCase("1") || (rawBytes[0] & 0x1)==1;
+        if (rawBytes.length == 0) {
+            return false;
+        }
+        // "1" is odd, (c | 0x20) lower cases the letters of "true"
+        return (rawBytes[0] & 0x1) == 1
+                || (rawBytes.length == 4 && (rawBytes[0] | 0x20) == 't' && (rawBytes[1] | 0x20) == 'r'
+                && (rawBytes[2] | 0x20) == 'u' && (rawBytes[3] | 0x20) == 'e');
     }
 
     public boolean isNull() {
@@ -0,0 +1,56 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.drizzle.jdbc.internal.common;
+
+import org.drizzle.jdbc.internal.common.queryresults.QueryResult;
+
+import java.util.List;
+
+/**
+ * Thrown when a query in a batch fails, carries the results of the queries in the batch that were executed.
+ */
+public class BatchQueryException extends QueryException {
+    private static final long serialVersionUID = 1L;
+    private final transient List<QueryResult> results;
+
+    /**
+     * creates a batch exception
+     *
+     * @param cause   the failure of the first query that failed
+     * @param results the results of the executed queries in batch order, null for the queries that failed
+     */
+    public BatchQueryException(final QueryException cause, final List<QueryResult> results) {
+        super(cause.getMessage(), cause.getErrorCode(), cause.getSqlState(), cause);
+        this.results = results;
+    }
+
+    /**
+     * returns the results of the queries that were executed before the batch stopped.
+     *
+     * @return the results, null for the queries that failed
+     */
+    public List<QueryResult> getResults() {
+        return results;
+    }
+}
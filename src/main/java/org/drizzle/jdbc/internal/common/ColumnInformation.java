@@ -53,6 +53,4 @@ public interface ColumnInformation {
     byte getDecimals();
 
     Set<ColumnFlags> getFlags();
-
-    void updateDisplaySize(int displayLength);
 }
@@ -0,0 +1,109 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.drizzle.jdbc.internal.common;
+
+import org.drizzle.jdbc.internal.common.query.parameters.DateParameter;
+import org.drizzle.jdbc.internal.common.query.parameters.ParameterHolder;
+import org.drizzle.jdbc.internal.common.query.parameters.TimeParameter;
+import org.drizzle.jdbc.internal.common.query.parameters.TimestampParameter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+
+/**
+ * Converts temporal values to java.time types for ResultSet.getObject(int, Class), and java.time values to parameters
+ * for PreparedStatement.setObject.
+ * <p/>
+ * This is the only class that uses java.time, it is only loaded when a java.time class is asked for so the driver
+ * still runs on older java versions.
+ */
+public final class JavaTimeConverter {
+    private JavaTimeConverter() {
+    }
+
+    /**
+     * converts a value to LocalDate, LocalTime or LocalDateTime.
+     *
+     * @param value the value
+     * @param type  the java.time class
+     * @return the converted value, null if the value can not be converted to the type
+     */
+    public static Object convert(final TemporalValue value, final Class<?> type) {
+        if (type == LocalDate.class) {
+            return value.hasDate() ? localDate(value) : null;
+        }
+        if (type == LocalTime.class) {
+            return value.isNegative() || value.getHour() > 23 ? null : localTime(value);
+        }
+        if (type == LocalDateTime.class) {
+            return value.hasDate() ? LocalDateTime.of(localDate(value), localTime(value)) : null;
+        }
+        return null;
+    }
+
+    /**
+     * creates the parameter for a java.time value.
+     *
+     * @param value a LocalDate, LocalTime, LocalDateTime, Instant, OffsetDateTime or ZonedDateTime
+     * @return the parameter, null if the value is of another type
+     */
+    public static ParameterHolder toParameter(final Object value) {
+        if (value instanceof LocalDate) {
+            final LocalDate date = (LocalDate) value;
+            return new DateParameter(date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+        }
+        if (value instanceof LocalTime) {
+            final LocalTime time = (LocalTime) value;
+            return new TimeParameter(time.getHour(), time.getMinute(), time.getSecond(), time.getNano() / 1000);
+        }
+        if (value instanceof LocalDateTime) {
+            final LocalDateTime dateTime = (LocalDateTime) value;
+            return new TimestampParameter(dateTime.getYear(), dateTime.getMonthValue(), dateTime.getDayOfMonth(),
+                    dateTime.getHour(), dateTime.getMinute(), dateTime.getSecond(), dateTime.getNano() / 1000);
+        }
+        final Instant instant;
+        if (value instanceof Instant) {
+            instant = (Instant) value;
+        } else if (value instanceof OffsetDateTime) {
+            instant = ((OffsetDateTime) value).toInstant();
+        } else if (value instanceof ZonedDateTime) {
+            instant = ((ZonedDateTime) value).toInstant();
+        } else {
+            return null;
+        }
+        return new TimestampParameter(instant.toEpochMilli(), instant.getNano(), null);
+    }
+
+    private static LocalDate localDate(final TemporalValue value) {
+        return LocalDate.of(value.getYear(), value.getMonth(), value.getDay());
+    }
+
+    private static LocalTime localTime(final TemporalValue value) {
+        return LocalTime.of(value.getHour(), value.getMinute(), value.getSecond(), value.getMicroseconds() * 1000);
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.drizzle.jdbc.internal.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Iterator;
+
+/**
+ * Encodes rows into the LOAD DATA INFILE text format while it is read, only a buffer of encoded rows is kept in
+ * memory.
+ * <p/>
+ * Fields are separated by tab and rows by newline. Backslash is the escape character, tab, newline, carriage return,
+ * NUL and backslash itself are escaped and null is written as \N. The statement the stream is sent for must use the
+ * same format, see FIELDS_AND_LINES.
+ */
+public class LoadDataInputStream extends InputStream {
+    /**
+     * the format clauses for the LOAD DATA statement, hex literals are used so the clause means the same whatever
+     * sql_mode is set.
+     */
+    public static final String FIELDS_AND_LINES =
+            "FIELDS TERMINATED BY X'09' ENCLOSED BY '' ESCAPED BY X'5c' LINES TERMINATED BY X'0a'";
+    private static final int BUFFER_SIZE = 65536;
+    private static final byte[] NULL = new byte[]{'\\', 'N'};
+
+    private final Iterator<? extends Object[]> rows;
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long rowCount;
+
+    /**
+     * creates a stream encoding the given rows.
+     *
+     * @param rows the rows, every element of a row is one field
+     */
+    public LoadDataInputStream(final Iterator<? extends Object[]> rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * the number of rows encoded so far.
+     *
+     * @return the row count
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        final int chunk = Math.min(len, limit - position);
+        System.arraycopy(buffer, position, b, off, chunk);
+        position += chunk;
+        return chunk;
+    }
+
+    /**
+     * encodes rows until the buffer is full or there are no more rows.
+     *
+     * @return false if there was nothing left to encode
+     */
+    private boolean fill() throws IOException {
+        position = 0;
+        limit = 0;
+        try {
+            while (limit < BUFFER_SIZE && rows.hasNext()) {
+                writeRow(rows.next());
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Could not read row " + (rowCount + 1) + ": " + e.getMessage(), e);
+        }
+        return limit > 0;
+    }
+
+    private void writeRow(final Object[] row) throws UnsupportedEncodingException {
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                write((byte) '\t');
+            }
+            writeField(row[i]);
+        }
+        write((byte) '\n');
+        rowCount++;
+    }
+
+    private void writeField(final Object value) throws UnsupportedEncodingException {
+        if (value == null) {
+            ensureCapacity(NULL.length);
+            System.arraycopy(NULL, 0, buffer, limit, NULL.length);
+            limit += NULL.length;
+        } else if (value instanceof byte[]) {
+            writeEscaped((byte[]) value);
+        } else if (value instanceof Boolean) {
+            write((byte) (((Boolean) value) ? '1' : '0'));
+        } else if (value instanceof BigDecimal) {
+            writeEscaped(((BigDecimal) value).toPlainString().getBytes("UTF-8"));
+        } else if (value instanceof java.util.Date && !(value instanceof java.sql.Date)
+                && !(value instanceof java.sql.Time) && !(value instanceof Timestamp)) {
+            writeEscaped(new Timestamp(((java.util.Date) value).getTime()).toString().getBytes("UTF-8"));
+        } else {
+            writeEscaped(value.toString().getBytes("UTF-8"));
+        }
+    }
+
+    /**
+     * escapes byte by byte, which is safe for utf8 since the bytes of multi byte characters are never ascii.
+     */
+    private void writeEscaped(final byte[] bytes) {
+        ensureCapacity(bytes.length * 2);
+        for (final byte b : bytes) {
+            switch (b) {
+                case '\\':
+                    buffer[limit++] = '\\';
+                    buffer[limit++] = '\\';
+                    break;
+                case '\t':
+                    buffer[limit++] = '\\';
+                    buffer[limit++] = 't';
+                    break;
+                case '\n':
+                    buffer[limit++] = '\\';
+                    buffer[limit++] = 'n';
+                    break;
+                case '\r':
+                    buffer[limit++] = '\\';
+                    buffer[limit++] = 'r';
+                    break;
+                case 0:
+                    buffer[limit++] = '\\';
+                    buffer[limit++] = '0';
+                    break;
+                default:
+                    buffer[limit++] = b;
+            }
+        }
+    }
+
+    private void write(final byte b) {
+        ensureCapacity(1);
+        buffer[limit++] = b;
+    }
+
+    /**
+     * a single field bigger than the buffer makes it grow, it is never shrunk.
+     */
+    private void ensureCapacity(final int length) {
+        if (limit + length > buffer.length) {
+            final byte[] bigger = new byte[Math.max(buffer.length * 2, limit + length)];
+            System.arraycopy(buffer, 0, bigger, 0, limit);
+            buffer = bigger;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.drizzle.jdbc.internal.common;
+
+import org.drizzle.jdbc.internal.SQLExceptionMapper;
+import org.drizzle.jdbc.internal.common.query.DrizzleQuery;
+import org.drizzle.jdbc.internal.common.query.ParameterizedQuery;
+import org.drizzle.jdbc.internal.common.queryresults.ModifyQueryResult;
+import org.drizzle.jdbc.internal.common.queryresults.QueryResult;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends the rows of a batch of UPDATE or DELETE statements as multi statement queries, as many statements in each as
+ * fit in the max_allowed_packet of the server. Every statement gets its own result, so the update counts are exact.
+ * <p/>
+ * The server stops executing a multi statement query at the first failing statement, so the batch stops there too.
+ * The update counts of the statements executed before it are kept in the BatchQueryException.
+ */
+public class MultiStatementBatchHandler implements ParameterizedBatchHandler {
+    private final static Logger log = Logger.getLogger(MultiStatementBatchHandler.class.getName());
+    private static final byte[] SEPARATOR = {'\n', ';'};
+    private final Protocol protocol;
+    private final List<ParameterizedQuery> queries = new ArrayList<ParameterizedQuery>();
+
+    public MultiStatementBatchHandler(final Protocol protocol) {
+        this.protocol = protocol;
+    }
+
+    public void addToBatch(final ParameterizedQuery query) {
+        queries.add(query);
+    }
+
+    public int[] executeBatch() throws QueryException {
+        final int[] updateCounts = new int[queries.size()];
+        final List<QueryResult> results = new ArrayList<QueryResult>(queries.size());
+        int sent = 0;
+        try {
+            final int maxQueryLength = protocol.getMaxAllowedPacket() - 1;
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            int first = 0;
+            while (first < queries.size()) {
+                buffer.reset();
+                int last = first;
+                while (last < queries.size()) {
+                    final int length = queries.get(last).length() + SEPARATOR.length;
+                    if (last > first && buffer.size() + length > maxQueryLength) {
+                        break;
+                    }
+                    if (last > first) {
+                        buffer.write(SEPARATOR);
+                    }
+                    queries.get(last).writeTo(buffer);
+                    last++;
+                }
+                execute(buffer.toByteArray(), first, last, results);
+                sent++;
+                first = last;
+            }
+        } catch (IOException e) {
+            throw new QueryException("Could not write to byte array: " + e.getMessage(),
+                    -1,
+                    SQLExceptionMapper.SQLStates.UNDEFINED_SQLSTATE.getSqlState(),
+                    e);
+        } finally {
+            queries.clear();
+        }
+        if (log.isLoggable(Level.FINEST)) {
+            log.finest("Sent " + updateCounts.length + " queries as " + sent + " multi statement queries");
+        }
+        for (int i = 0; i < updateCounts.length; i++) {
+            updateCounts[i] = (int) ((ModifyQueryResult) results.get(i)).getUpdateCount();
+        }
+        return updateCounts;
+    }
+
+    /**
+     * executes the statements from first (inclusive) to last (exclusive) and adds their results. When a statement
+     * fails a BatchQueryException with the results so far, and null for the failed statement, is thrown.
+     */
+    private void execute(final byte[] query, final int first, final int last, final List<QueryResult> results)
+            throws QueryException {
+        for (int i = first; i < last; i++) {
+            try {
+                final QueryResult result = i == first
+                        ? protocol.executeQuery(new DrizzleQuery(query))
+                        : protocol.getMoreResults();
+                if (result == null) {
+                    throw new QueryException("Got fewer results than statements in the batch",
+                            -1,
+                            SQLExceptionMapper.SQLStates.CONNECTION_EXCEPTION.getSqlState(),
+                            null);
+                }
+                if (!(result instanceof ModifyQueryResult)) {
+                    QueryResult more = result;
+                    do {
+                        more.close();
+                        more = protocol.getMoreResults();
+                    } while (more != null);
+                    throw new QueryException("One of the queries in the batch returned a result set",
+                            (short) -1,
+                            SQLExceptionMapper.SQLStates.UNDEFINED_SQLSTATE.getSqlState());
+                }
+                results.add(result);
+            } catch (QueryException e) {
+                if (SQLExceptionMapper.SQLStates.CONNECTION_EXCEPTION.getSqlState().equals(e.getSqlState())) {
+                    throw e;
+                }
+                results.add(null);
+                throw new BatchQueryException(e, results);
+            }
+        }
+    }
+}
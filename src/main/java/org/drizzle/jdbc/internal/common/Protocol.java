@@ -27,6 +27,7 @@ package org.drizzle.jdbc.internal.common;
 import org.drizzle.jdbc.internal.common.packet.RawPacket;
 import org.drizzle.jdbc.internal.common.query.Query;
 import org.drizzle.jdbc.internal.common.queryresults.QueryResult;
+import org.drizzle.jdbc.internal.common.queryresults.ResultBufferBudget;
 
 import java.io.InputStream;
 import java.util.List;
@@ -161,6 +162,15 @@ public interface Protocol {
      */
     boolean ping() throws QueryException;
 
+    /**
+     * resets the session to the state it had after connecting in one round trip: the transaction is rolled back,
+     * temporary tables, user variables and prepared statements are dropped and session variables, the database and
+     * read only are set back.
+     *
+     * @throws QueryException if the session could not be reset
+     */
+    void resetSession() throws QueryException;
+
     /**
      * executes a query
      *
@@ -170,6 +180,18 @@ public interface Protocol {
      */
     QueryResult executeQuery(Query dQuery) throws QueryException;
 
+    /**
+     * executes a query using the given fetch size. A fetch size of Integer.MIN_VALUE streams the rows of a result set
+     * from the server one at a time instead of reading the whole result into memory; no other commands can be sent on
+     * the connection until the streamed result has been read or closed.
+     *
+     * @param dQuery    the query to execute
+     * @param fetchSize the fetch size of the statement
+     * @return a query result.
+     * @throws QueryException if there is a problem with the query
+     */
+    QueryResult executeQuery(Query dQuery, int fetchSize) throws QueryException;
+
     /**
      * adds a query to the batch
      *
@@ -232,4 +254,35 @@ public interface Protocol {
     public String getCatalog() throws QueryException;
     
     public boolean noPrepStmtCache();
+
+    /**
+     * tells if the NO_BACKSLASH_ESCAPES sql_mode is set on the connection, then quotes in string literals are escaped
+     * by doubling them and backslash is an ordinary char.
+     *
+     * @return true if backslash escapes are off
+     */
+    boolean noBackslashEscapes();
+
+    /**
+     * gets the max_allowed_packet of the server, it is read once per connection.
+     *
+     * @return the max packet size the server accepts
+     * @throws QueryException if the variable could not be read
+     */
+    int getMaxAllowedPacket() throws QueryException;
+
+    /**
+     * tells if several statements separated by semicolons can be sent as one query, the results are read with
+     * getMoreResults.
+     *
+     * @return true if the connection was opened with allowMultiQueries
+     */
+    boolean supportsMultiStatements();
+
+    /**
+     * the off-heap memory budget of buffered results, it also counts the results that were spilled to disk.
+     *
+     * @return the budget, null if results are buffered on the heap
+     */
+    ResultBufferBudget getResultBufferBudget();
 }
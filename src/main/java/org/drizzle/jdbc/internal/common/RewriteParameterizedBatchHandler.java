@@ -21,35 +21,58 @@
  * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
  * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
-
 package org.drizzle.jdbc.internal.common;
 
 import org.drizzle.jdbc.internal.common.query.DrizzleQuery;
 import org.drizzle.jdbc.internal.common.query.ParameterizedQuery;
 import org.drizzle.jdbc.internal.common.query.parameters.ParameterHolder;
+import org.drizzle.jdbc.internal.common.queryresults.ModifyQueryResult;
+import org.drizzle.jdbc.internal.common.queryresults.QueryResult;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Rewrites queries on the form (INSERT INTO xyz (a,b,c) VALUES (?,?,?))* to INSERT INTO xyz (a,b,c) VALUES ((?,?,?),)*
+ * and (DELETE FROM xyz WHERE a = ?)* to DELETE FROM xyz WHERE a IN ((?,)*)
+ * <p/>
+ * The value parts of the rows are written as bytes into one buffer when they are added. When the batch is executed
+ * the rows are split into as few queries as fit in the max_allowed_packet of the server.
  */
 public class RewriteParameterizedBatchHandler implements ParameterizedBatchHandler {
     private final static Logger log = Logger.getLogger(RewriteParameterizedBatchHandler.class.getName());
-    private final int MAX_QUERY_LENGTH = 1000000;
-    private final String baseQuery;
-    private final String queryValuePart;
+    /**
+     * the max query length used if the server does not say, the default max_allowed_packet of the server.
+     */
+    private static final int DEFAULT_MAX_QUERY_LENGTH = 1024 * 1024 - 1;
+    private final byte[] baseQuery;
+    /**
+     * the value part split on the question marks, there is one more part than parameters.
+     */
+    private final byte[][] valueParts;
+    /**
+     * what follows the rows, the duplicate key part of an insert or the closing parenthesis of an IN list.
+     */
+    private final byte[] queryEnd;
+    /**
+     * the most rows one row of the batch can affect, used to tell the update count of every row from the total,
+     * 0 if there is no limit.
+     */
+    private final int maxRowUpdateCount;
     private final Protocol protocol;
-    private final List<String> queriesToSend = new LinkedList<String>();
-    private StringBuilder queryBuilder = new StringBuilder();
-    private boolean firstWritten = false;
+    private final RowBuffer rows = new RowBuffer();
+    /**
+     * the end offsets of the rows in the buffer, a row starts where the previous one ends.
+     */
+    private int[] rowEnds = new int[16];
     private int queryCount = 0;
-    private final String onDupKeyPart;
 
     /**
      * Constructs a new handler
@@ -63,74 +86,172 @@ public class RewriteParameterizedBatchHandler implements ParameterizedBatchHandl
                                             final String baseQuery,
                                             final String queryValuePart,
                                             final String onDupKeyPart) {
-        this.baseQuery = baseQuery;
-        this.queryValuePart = queryValuePart;
-        this.onDupKeyPart = (onDupKeyPart == null ? "" : onDupKeyPart);
-        queryBuilder.append(baseQuery);
+        // an insert affects one row, or two if ON DUPLICATE KEY UPDATE changes an existing row
+        this(protocol, baseQuery, queryValuePart, onDupKeyPart, onDupKeyPart == null ? 1 : 2);
+    }
+
+    /**
+     * Constructs a new handler
+     *
+     * @param protocol          the protocol to use to send the query.
+     * @param baseQuery         everything before the first row
+     * @param queryValuePart    the part written for every row, with question marks for the parameters
+     * @param queryEnd          everything after the last row
+     * @param maxRowUpdateCount the most rows one row of the batch can affect, 0 if there is no limit
+     */
+    public RewriteParameterizedBatchHandler(final Protocol protocol,
+                                            final String baseQuery,
+                                            final String queryValuePart,
+                                            final String queryEnd,
+                                            final int maxRowUpdateCount) {
         this.protocol = protocol;
+        this.baseQuery = utf8(baseQuery);
+        this.queryEnd = utf8(queryEnd == null ? "" : queryEnd);
+        this.maxRowUpdateCount = maxRowUpdateCount;
+        final List<byte[]> parts = new ArrayList<byte[]>();
+        int start = 0;
+        for (int i = 0; i < queryValuePart.length(); i++) {
+            if (queryValuePart.charAt(i) == '?') {
+                parts.add(utf8(queryValuePart.substring(start, i)));
+                start = i + 1;
+            }
+        }
+        parts.add(utf8(queryValuePart.substring(start)));
+        this.valueParts = parts.toArray(new byte[parts.size()][]);
+    }
+
+    private static byte[] utf8(final String str) {
+        try {
+            return str.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException("Unsupported encoding: " + e.getMessage(), e);
+        }
     }
 
     public void addToBatch(final ParameterizedQuery query) {
-        final ParameterHolder [] parameters = query.getParameters();
-        final StringBuilder replacedValuePart = new StringBuilder();
-        int questionMarkPosition = 0;
+        final ParameterHolder[] parameters = query.getParameters();
+        rows.write(valueParts[0], 0, valueParts[0].length);
+        for (int i = 1; i < valueParts.length; i++) {
+            try {
+                parameters[i - 1].writeTo(rows, 0, Integer.MAX_VALUE); // writeTo escapes and adds quotes etc
+            } catch (IOException e) {
+                throw new RuntimeException("Could not write to byte array: " + e.getMessage(), e);
+            }
+            rows.write(valueParts[i], 0, valueParts[i].length);
+        }
+        if (queryCount == rowEnds.length) {
+            rowEnds = Arrays.copyOf(rowEnds, rowEnds.length * 2);
+        }
+        rowEnds[queryCount++] = rows.size();
+    }
 
-        for (int i = 0; i < queryValuePart.length(); i++) {
-            final char ch = queryValuePart.charAt(i);
-            if (ch == '?') {
-                final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                final ParameterHolder parameterHolder = parameters[questionMarkPosition++];
-                try {
-                    parameterHolder.writeTo(baos, 0, Integer.MAX_VALUE); // writeTo escapes and adds quotes etc
-                } catch (IOException e) {
-                    throw new RuntimeException("Could not write to byte array: " + e.getMessage(), e);
+    public int[] executeBatch() throws QueryException {
+        final int[] updateCounts = new int[queryCount];
+        int queries = 0;
+        try {
+            final int maxQueryLength = maxQueryLength();
+            int first = 0;
+            while (first < queryCount) {
+                int length = baseQuery.length + rowLength(first) + queryEnd.length;
+                int last = first + 1;
+                while (last < queryCount && length + 1 + rowLength(last) <= maxQueryLength) {
+                    length += 1 + rowLength(last);
+                    last++;
                 }
-                replacedValuePart.append(baos.toString());
-            } else {
-                replacedValuePart.append(ch);
+                final QueryResult result = protocol.executeQuery(new DrizzleQuery(createQuery(first, last, length)));
+                fillUpdateCounts(updateCounts, first, last, result);
+                queries++;
+                first = last;
             }
+        } finally {
+            rows.clear();
+            queryCount = 0;
+        }
+        if (log.isLoggable(Level.FINEST)) {
+            log.finest("Rewrote " + updateCounts.length + " queries to " + queries + " queries");
         }
-        final String replaced = replacedValuePart.toString();
+        return updateCounts;
+    }
 
-        if (queryBuilder.length() + replaced.length() + onDupKeyPart.length() > MAX_QUERY_LENGTH) {
-            queryBuilder.append(onDupKeyPart);
-            queriesToSend.add(queryBuilder.toString());
-            queryBuilder = new StringBuilder();
-            queryBuilder.append(baseQuery);
+    /**
+     * a query has to fit in a packet together with the command byte.
+     */
+    private int maxQueryLength() throws QueryException {
+        final int maxAllowedPacket = protocol.getMaxAllowedPacket();
+        return maxAllowedPacket > 1 ? maxAllowedPacket - 1 : DEFAULT_MAX_QUERY_LENGTH;
+    }
 
-            firstWritten = false;
-        }
+    private int rowStart(final int row) {
+        return row == 0 ? 0 : rowEnds[row - 1];
+    }
+
+    private int rowLength(final int row) {
+        return rowEnds[row] - rowStart(row);
+    }
 
-        if (firstWritten) {
-            queryBuilder.append(",");
+    /**
+     * creates the query inserting the rows from first (inclusive) to last (exclusive).
+     */
+    private byte[] createQuery(final int first, final int last, final int length) {
+        final byte[] query = new byte[length];
+        System.arraycopy(baseQuery, 0, query, 0, baseQuery.length);
+        int pos = baseQuery.length;
+        final byte[] buffer = rows.getBuffer();
+        for (int row = first; row < last; row++) {
+            if (row > first) {
+                query[pos++] = ',';
+            }
+            final int rowLength = rowLength(row);
+            System.arraycopy(buffer, rowStart(row), query, pos, rowLength);
+            pos += rowLength;
         }
+        System.arraycopy(queryEnd, 0, query, pos, queryEnd.length);
+        return query;
+    }
 
-        queryBuilder.append(replaced);
-        firstWritten = true;
-        queryCount++;
+    /**
+     * the server only tells how many rows a query affected in total. The count of every row is known when the query
+     * has one row, when no rows were affected, or when every row affected as many rows as a row can.
+     */
+    private void fillUpdateCounts(final int[] updateCounts, final int first, final int last,
+                                  final QueryResult result) {
+        int updateCount = Statement.SUCCESS_NO_INFO;
+        if (result instanceof ModifyQueryResult) {
+            final long affectedRows = ((ModifyQueryResult) result).getUpdateCount();
+            if (last - first == 1) {
+                updateCount = (int) affectedRows;
+            } else if (affectedRows == 0) {
+                updateCount = 0;
+            } else if (maxRowUpdateCount > 0 && affectedRows == (long) maxRowUpdateCount * (last - first)) {
+                updateCount = maxRowUpdateCount;
+            }
+        }
+        Arrays.fill(updateCounts, first, last, updateCount);
     }
 
-    public int[] executeBatch() throws QueryException {
-        queryBuilder.append(onDupKeyPart);
-        final String lastQuery = queryBuilder.toString();
+    /**
+     * gives access to the buffer without copying it.
+     */
+    private static final class RowBuffer extends ByteArrayOutputStream {
+        private static final int INITIAL_SIZE = 8192;
+        private static final int MAX_KEPT_SIZE = 65536;
 
-        if (firstWritten) {
-            queriesToSend.add(lastQuery);
+        RowBuffer() {
+            super(INITIAL_SIZE);
         }
 
-        for (final String query : queriesToSend) {
-            protocol.executeQuery(new DrizzleQuery(query));
+        /**
+         * empties the buffer, a large buffer is dropped so a big batch does not hold on to its memory.
+         */
+        void clear() {
+            if (buf.length > MAX_KEPT_SIZE) {
+                buf = new byte[INITIAL_SIZE];
+            }
+            count = 0;
         }
 
-        log.finest("Rewrote " + queryCount + " queries to " + queriesToSend.size() + " queries");
-        final int[] returnArray = new int[queryCount];
-        Arrays.fill(returnArray, Statement.SUCCESS_NO_INFO);
-        // reset stuff
-        queriesToSend.clear();
-        queryBuilder = new StringBuilder();
-        queryBuilder.append(baseQuery);
-        firstWritten = false;
-        queryCount = 0;        
-        return returnArray;
+        byte[] getBuffer() {
+            return buf;
+        }
     }
 }
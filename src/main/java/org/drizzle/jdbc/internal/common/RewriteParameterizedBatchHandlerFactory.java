@@ -27,16 +27,37 @@ package org.drizzle.jdbc.internal.common;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * Picks a batch handler from the shape of the prepared query:
+ * <ul>
+ * <li>INSERT ... VALUES (...) sends the rows as one multi-row insert</li>
+ * <li>DELETE FROM xyz WHERE a = ? sends the keys as one IN list</li>
+ * <li>other UPDATE and DELETE statements are sent as multi statement queries, if the connection allows them</li>
+ * </ul>
+ * Everything else is executed one row at a time.
+ */
 public class RewriteParameterizedBatchHandlerFactory implements ParameterizedBatchHandlerFactory {
+    private static final String IDENTIFIER = "(?:`[^`]+`|\\w+)";
+    private static final Pattern INSERT = Pattern.compile(
+            "(?i)^\\s*+(INSERT (INTO)?\\s*(\\w+\\.)?\\w+\\s*(\\([^\\)]*\\))?\\s*VALUES?)\\s*(\\([^\\)]*\\))\\s*(ON DUPLICATE KEY UPDATE.+)?");
+    private static final Pattern DELETE_BY_KEY = Pattern.compile(
+            "(?i)^\\s*+(DELETE\\s+FROM\\s+(?:" + IDENTIFIER + "\\.)?" + IDENTIFIER
+                    + "\\s+WHERE\\s+(?:" + IDENTIFIER + "\\.)?" + IDENTIFIER + ")\\s*=\\s*\\?\\s*");
+    private static final Pattern UPDATE_OR_DELETE = Pattern.compile("(?is)^\\s*+(UPDATE|DELETE)\\s.*[^;\\s]\\s*");
 
     public ParameterizedBatchHandler get(final String query, final Protocol protocol) {
-        final Pattern p = Pattern.compile(
-                "(?i)^\\s*+(INSERT (INTO)?\\s*(\\w+\\.)?\\w+\\s*(\\([^\\)]*\\))?\\s*VALUES?)\\s*(\\([^\\)]*\\))\\s*(ON DUPLICATE KEY UPDATE.+)?");
-        final Matcher m = p.matcher(query);
+        final Matcher m = INSERT.matcher(query);
         if (m.matches()) {
             return new RewriteParameterizedBatchHandler(protocol, m.group(1), m.group(5), m.group(6));
-        } else {
-            return new DefaultParameterizedBatchHandler(protocol);
         }
+        final Matcher delete = DELETE_BY_KEY.matcher(query);
+        if (delete.matches()) {
+            // a key can match any number of rows, so the count of every row is only known when none were deleted
+            return new RewriteParameterizedBatchHandler(protocol, delete.group(1) + " IN (", "?", ")", 0);
+        }
+        if (protocol.supportsMultiStatements() && UPDATE_OR_DELETE.matcher(query).matches()) {
+            return new MultiStatementBatchHandler(protocol);
+        }
+        return new DefaultParameterizedBatchHandler(protocol);
     }
 }
@@ -0,0 +1,77 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.drizzle.jdbc.internal.common;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The default executor for asynchronous queries, shared by all connections. The protocol does blocking reads, so a
+ * thread is held while a query runs. The number of threads is bounded, when all of them are busy the queries of other
+ * connections wait in the queue. Threads die after being idle for a minute, they are daemon threads so they do not keep
+ * the jvm alive.
+ * <p/>
+ * Since queries wait for a free thread, a query that waits for a lock held by a connection whose queries are queued
+ * can stall the pool. Applications that do that should give the connections an executor of their own.
+ */
+public final class SharedAsyncExecutor {
+    /**
+     * the max number of queries running at the same time.
+     */
+    public static final int MAX_THREADS = Math.max(8, Runtime.getRuntime().availableProcessors() * 4);
+    private static ExecutorService executor;
+
+    private SharedAsyncExecutor() {
+    }
+
+    /**
+     * gets the shared executor, it is created on first use.
+     *
+     * @return the executor
+     */
+    public static synchronized ExecutorService get() {
+        if (executor == null) {
+            final AtomicInteger threadNumber = new AtomicInteger();
+            final ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_THREADS,
+                    MAX_THREADS,
+                    60,
+                    TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactory() {
+                        public Thread newThread(final Runnable runnable) {
+                            final Thread thread = new Thread(runnable, "drizzle-jdbc-async-" + threadNumber.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+        return executor;
+    }
+}
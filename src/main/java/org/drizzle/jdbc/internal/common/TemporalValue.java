@@ -0,0 +1,362 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.drizzle.jdbc.internal.common;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/**
+ * A DATE, DATETIME, TIMESTAMP or TIME value parsed from the text the server sends, YYYY-MM-DD[ HH:MM:SS[.ffffff]] or
+ * [-]HHH:MM:SS[.ffffff].
+ * <p/>
+ * The java.sql values are computed from the fields and the offset of the time zone instead of going through a
+ * SimpleDateFormat and a Calendar. The offset of the last day converted is cached, so the rows of a result with
+ * values from the same day only look up the time zone once.
+ * <p/>
+ * Values that are not valid dates, like the zero date, and dates before 1600 where Calendar uses the julian calendar
+ * are not handled here, the conversion methods return null and the caller falls back to SimpleDateFormat.
+ */
+public final class TemporalValue {
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    private static final int MIN_YEAR = 1600;
+    /**
+     * 1600-01-01, calendars that switch to the gregorian calendar after this are left to Calendar.
+     */
+    private static final long MIN_GREGORIAN_CHANGE = -11676096000000L;
+    private static final int NO_OFFSET = Integer.MIN_VALUE;
+    private static volatile ZoneDay lastZoneDay;
+
+    private final boolean hasDate;
+    private final int year;
+    private final int month;
+    private final int day;
+    private final boolean negative;
+    private final int hour;
+    private final int minute;
+    private final int second;
+    private final int microseconds;
+
+    private TemporalValue(final boolean hasDate, final int year, final int month, final int day, final boolean negative,
+                          final int hour, final int minute, final int second, final int microseconds) {
+        this.hasDate = hasDate;
+        this.year = year;
+        this.month = month;
+        this.day = day;
+        this.negative = negative;
+        this.hour = hour;
+        this.minute = minute;
+        this.second = second;
+        this.microseconds = microseconds;
+    }
+
+    /**
+     * parses a temporal value.
+     *
+     * @param b the text of the value
+     * @return the value, null if the text is not a valid date, datetime or time
+     */
+    public static TemporalValue parse(final byte[] b) {
+        if (b.length >= 10 && b[4] == '-' && b[7] == '-') {
+            return parseDateTime(b);
+        }
+        return parseTime(b);
+    }
+
+    private static TemporalValue parseDateTime(final byte[] b) {
+        final int year = digits(b, 0, 4);
+        final int month = digits(b, 5, 2);
+        final int day = digits(b, 8, 2);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+            return null;
+        }
+        if (b.length == 10) {
+            return new TemporalValue(true, year, month, day, false, 0, 0, 0, 0);
+        }
+        if (b.length < 19 || b[10] != ' ' || b[13] != ':' || b[16] != ':') {
+            return null;
+        }
+        final int hour = digits(b, 11, 2);
+        final int minute = digits(b, 14, 2);
+        final int second = digits(b, 17, 2);
+        final int microseconds = fraction(b, 19);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59 || microseconds < 0) {
+            return null;
+        }
+        return new TemporalValue(true, year, month, day, false, hour, minute, second, microseconds);
+    }
+
+    private static TemporalValue parseTime(final byte[] b) {
+        final boolean negative = b.length > 0 && b[0] == '-';
+        final int start = negative ? 1 : 0;
+        int colon = start;
+        while (colon < b.length && b[colon] != ':') {
+            colon++;
+        }
+        final int hourDigits = colon - start;
+        if (hourDigits < 1 || hourDigits > 3 || b.length < colon + 6 || b[colon + 3] != ':') {
+            return null;
+        }
+        final int hour = digits(b, start, hourDigits);
+        final int minute = digits(b, colon + 1, 2);
+        final int second = digits(b, colon + 4, 2);
+        final int microseconds = fraction(b, colon + 6);
+        if (hour < 0 || minute < 0 || minute > 59 || second < 0 || second > 59 || microseconds < 0) {
+            return null;
+        }
+        return new TemporalValue(false, 1970, 1, 1, negative, hour, minute, second, microseconds);
+    }
+
+    /**
+     * @return the value of length digits at offset, -1 if they are not all digits
+     */
+    private static int digits(final byte[] b, final int offset, final int length) {
+        int value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            final int digit = b[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * @return the microseconds of an optional .f to .ffffff at offset that ends the value, -1 if the value does not
+     *         end there
+     */
+    private static int fraction(final byte[] b, final int offset) {
+        if (b.length == offset) {
+            return 0;
+        }
+        final int length = b.length - offset - 1;
+        if (b[offset] != '.' || length < 1 || length > 6) {
+            return -1;
+        }
+        int value = digits(b, offset + 1, length);
+        if (value < 0) {
+            return -1;
+        }
+        for (int i = length; i < 6; i++) {
+            value *= 10;
+        }
+        return value;
+    }
+
+    private static int daysInMonth(final int year, final int month) {
+        switch (month) {
+            case 2:
+                return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    public boolean hasDate() {
+        return hasDate;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getMonth() {
+        return month;
+    }
+
+    public int getDay() {
+        return day;
+    }
+
+    /**
+     * @return true for a negative TIME
+     */
+    public boolean isNegative() {
+        return negative;
+    }
+
+    /**
+     * @return the hours, a TIME can have more than 23
+     */
+    public int getHour() {
+        return hour;
+    }
+
+    public int getMinute() {
+        return minute;
+    }
+
+    public int getSecond() {
+        return second;
+    }
+
+    public int getMicroseconds() {
+        return microseconds;
+    }
+
+    /**
+     * the date at midnight in the time zone of the calendar.
+     *
+     * @param cal the calendar, null for the default time zone
+     * @return the date, null if the calendar can not be handled here
+     */
+    public Date toDate(final Calendar cal) {
+        if (!canConvert(cal, true)) {
+            return null;
+        }
+        return new Date(toMillis(cal, true, false));
+    }
+
+    /**
+     * the time on 1970-01-01 in the time zone of the calendar, the date of a DATETIME is dropped.
+     *
+     * @param cal the calendar, null for the default time zone
+     * @return the time, null if the calendar can not be handled here
+     */
+    public Time toTime(final Calendar cal) {
+        if (!canConvert(cal, false)) {
+            return null;
+        }
+        return new Time(toMillis(cal, false, true));
+    }
+
+    /**
+     * the timestamp in the time zone of the calendar with microsecond precision.
+     *
+     * @param cal the calendar, null for the default time zone
+     * @return the timestamp, null if the calendar can not be handled here
+     */
+    public Timestamp toTimestamp(final Calendar cal) {
+        if (!canConvert(cal, true)) {
+            return null;
+        }
+        final Timestamp timestamp = new Timestamp(toMillis(cal, true, true));
+        timestamp.setNanos(microseconds * 1000);
+        return timestamp;
+    }
+
+    private boolean canConvert(final Calendar cal, final boolean includeDate) {
+        if (includeDate && hasDate && year < MIN_YEAR) {
+            return false;
+        }
+        return cal == null || (cal instanceof GregorianCalendar
+                && ((GregorianCalendar) cal).getGregorianChange().getTime() <= MIN_GREGORIAN_CHANGE);
+    }
+
+    private long toMillis(final Calendar cal, final boolean includeDate, final boolean includeTime) {
+        long local = includeDate ? daysSinceEpoch(year, month, day) * MILLIS_PER_DAY : 0;
+        if (includeTime) {
+            final long time = ((hour * 60L + minute) * 60 + second) * 1000 + microseconds / 1000;
+            local += negative ? -time : time;
+        }
+        final TimeZone zone = cal == null ? TimeZone.getDefault() : cal.getTimeZone();
+        final int offset = offsetOfLocalTime(zone, local);
+        if (offset == NO_OFFSET) {
+            return calendarMillis(zone, includeDate, includeTime);
+        }
+        return local - offset;
+    }
+
+    /**
+     * lets Calendar decide what a local time that is skipped or repeated at a summer time switch means.
+     */
+    private long calendarMillis(final TimeZone zone, final boolean includeDate, final boolean includeTime) {
+        final Calendar cal = new GregorianCalendar(zone);
+        cal.clear();
+        if (includeDate) {
+            cal.set(year, month - 1, day);
+        } else {
+            cal.set(1970, Calendar.JANUARY, 1);
+        }
+        if (includeTime) {
+            final int sign = negative ? -1 : 1;
+            cal.set(Calendar.HOUR_OF_DAY, sign * hour);
+            cal.set(Calendar.MINUTE, sign * minute);
+            cal.set(Calendar.SECOND, sign * second);
+            cal.set(Calendar.MILLISECOND, sign * (microseconds / 1000));
+        }
+        return cal.getTimeInMillis();
+    }
+
+    /**
+     * days from 1970-01-01 to a date in the proleptic gregorian calendar.
+     */
+    private static long daysSinceEpoch(final int year, final int month, final int day) {
+        final int y = month <= 2 ? year - 1 : year;
+        final long era = (y >= 0 ? y : y - 399) / 400;
+        final long yearOfEra = y - era * 400;
+        final long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        final long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * the offset from UTC of a local time.
+     *
+     * @return the offset, NO_OFFSET if the local time is within a day of a switch of the offset
+     */
+    private static int offsetOfLocalTime(final TimeZone zone, final long local) {
+        final long localDay = local >= 0 ? local / MILLIS_PER_DAY : (local + 1) / MILLIS_PER_DAY - 1;
+        final ZoneDay cached = lastZoneDay;
+        if (cached != null && cached.day == localDay && cached.isFor(zone)) {
+            return cached.offset;
+        }
+        final int offset = zone.getOffset(local - zone.getRawOffset());
+        // the same offset a day before and after means there is no switch during the local day
+        if (zone.getOffset(local - offset - MILLIS_PER_DAY) != offset
+                || zone.getOffset(local - offset + MILLIS_PER_DAY) != offset) {
+            return NO_OFFSET;
+        }
+        lastZoneDay = new ZoneDay(zone, localDay, offset);
+        return offset;
+    }
+
+    /**
+     * the offset of a time zone during a local day without a summer time switch.
+     */
+    private static final class ZoneDay {
+        private final TimeZone zone;
+        private final long day;
+        private final int offset;
+
+        private ZoneDay(final TimeZone zone, final long day, final int offset) {
+            this.zone = (TimeZone) zone.clone();
+            this.day = day;
+            this.offset = offset;
+        }
+
+        private boolean isFor(final TimeZone other) {
+            return zone.getID().equals(other.getID()) && zone.hasSameRules(other);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.drizzle.jdbc.internal.common;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * A text protocol row that keeps the row payload in one array and only records where each column starts, the value
+ * objects are created when a column is read.
+ * <p/>
+ * A row read eagerly costs one array and one ValueObject plus one array per column, this costs two arrays per row no
+ * matter how many columns there are.
+ */
+public abstract class TextRow extends AbstractList<ValueObject> {
+    private final byte[] data;
+    /**
+     * the offset and length of each column, the length is -1 for NULL.
+     */
+    private final int[] positions;
+    private final List<ColumnInformation> columnInformation;
+
+    /**
+     * creates a row from a packet holding the whole row, the payload is copied since the packet can be a view of a
+     * buffer that is reused.
+     *
+     * @param payload           the row packet payload
+     * @param columnInformation the columns of the result set
+     */
+    protected TextRow(final ByteBuffer payload, final List<ColumnInformation> columnInformation) {
+        this.columnInformation = columnInformation;
+        final ByteBuffer source = payload.duplicate();
+        source.position(0);
+        data = new byte[source.remaining()];
+        source.get(data);
+        positions = new int[columnInformation.size() * 2];
+        int pos = 0;
+        for (int i = 0; i < positions.length; i += 2) {
+            long length = 0;
+            if (pos < data.length) {
+                final int type = data[pos++] & 0xff;
+                if (type <= 250) {
+                    length = type;
+                } else if (type == 251) {
+                    length = -1;
+                } else if (type == 252) {
+                    length = readInt(pos, 2);
+                    pos += 2;
+                } else if (type == 253) {
+                    length = readInt(pos, 3);
+                    pos += 3;
+                } else if (type == 254) {
+                    length = readInt(pos, 8);
+                    pos += 8;
+                }
+            }
+            positions[i] = pos;
+            positions[i + 1] = (int) length;
+            if (length > 0) {
+                pos += length;
+            }
+        }
+    }
+
+    private long readInt(final int pos, final int bytes) {
+        long value = 0;
+        for (int i = bytes - 1; i >= 0; i--) {
+            value = (value << 8) | (data[pos + i] & 0xff);
+        }
+        return value;
+    }
+
+    /**
+     * creates the value object for a column.
+     *
+     * @param rawBytes the column value, null for NULL
+     * @param dataType the type of the column
+     * @return the value object
+     */
+    protected abstract ValueObject createValueObject(byte[] rawBytes, DataType dataType);
+
+    @Override
+    public ValueObject get(final int index) {
+        if (index < 0 || index >= columnInformation.size()) {
+            throw new IndexOutOfBoundsException("No such column: " + index);
+        }
+        final int length = positions[index * 2 + 1];
+        byte[] rawBytes = null;
+        if (length >= 0) {
+            rawBytes = new byte[length];
+            System.arraycopy(data, positions[index * 2], rawBytes, 0, length);
+        }
+        return createValueObject(rawBytes, columnInformation.get(index).getType());
+    }
+
+    @Override
+    public int size() {
+        return columnInformation.size();
+    }
+}
@@ -24,8 +24,12 @@
 
 package org.drizzle.jdbc.internal.common;
 
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -33,6 +37,44 @@ import java.util.List;
  * User: marcuse Date: Feb 19, 2009 Time: 8:40:51 PM
  */
 public class Utils {
+    /**
+     * the largest integer that all smaller integers can be represented exactly as a double.
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    /**
+     * the largest integer that all smaller integers can be represented exactly as a float.
+     */
+    private static final long MAX_EXACT_FLOAT_MANTISSA = 1L << 24;
+    /**
+     * the powers of ten that are exact floats.
+     */
+    private static final float[] FLOAT_POWERS_OF_TEN = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+    /**
+     * the byte written after the backslash for the ascii chars that are escaped in a string literal, 0 for the chars
+     * written as they are.
+     */
+    private static final byte[] BACKSLASH_ESCAPES = new byte[128];
+    /**
+     * the byte written after the quote for the ascii chars that are escaped when the NO_BACKSLASH_ESCAPES sql_mode is
+     * set, only the quote itself.
+     */
+    private static final byte[] QUOTE_ESCAPES = new byte[128];
+
+    static {
+        BACKSLASH_ESCAPES[0] = '0';
+        BACKSLASH_ESCAPES['\n'] = 'n';
+        BACKSLASH_ESCAPES['\r'] = 'r';
+        BACKSLASH_ESCAPES['\032'] = 'Z';
+        BACKSLASH_ESCAPES['\\'] = '\\';
+        BACKSLASH_ESCAPES['\''] = '\'';
+        BACKSLASH_ESCAPES['"'] = '"';
+        QUOTE_ESCAPES['\''] = '\'';
+    }
+
     private static final int START_BIT_MILLISECONDS = 17;
     private static final int START_BIT_SECONDS = 11;
     private static final int START_BIT_MINUTES = 5;
@@ -100,7 +142,7 @@ public class Utils {
         boolean neededEscaping = false;
         for (int i = 0; i < str.length(); i++) {
             final char c = str.charAt(i);
-            if (needsEscaping((byte) c)) {
+            if (c < 0x80 && needsEscaping((byte) c)) {
                 neededEscaping = true;
                 buffer.append('\\');
             }
@@ -109,6 +151,74 @@ public class Utils {
         return neededEscaping ? buffer.toString() : str;
     }
 
+    /**
+     * encodes a string as a quoted, escaped string literal in UTF-8 in one pass over the string.
+     * <p/>
+     * The buffer starts out with room for the string as ascii and the quotes, so a string without chars to escape
+     * and without non-ascii chars is encoded into one right-sized array. Otherwise the buffer is grown when needed and
+     * cut to size at the end.
+     *
+     * @param str                the string to encode
+     * @param noBackslashEscapes true if the NO_BACKSLASH_ESCAPES sql_mode is set, quotes are then escaped by doubling
+     *                           them and other chars are written as they are
+     * @return the literal, including the quotes
+     */
+    public static byte[] sqlEscapeAndEncode(final String str, final boolean noBackslashEscapes) {
+        final byte[] escapes = noBackslashEscapes ? QUOTE_ESCAPES : BACKSLASH_ESCAPES;
+        final byte escapeChar = noBackslashEscapes ? (byte) '\'' : (byte) '\\';
+        final int length = str.length();
+        byte[] b = new byte[length + 2];
+        b[0] = '\'';
+        int pos = 1;
+        for (int i = 0; i < length; i++) {
+            final char c = str.charAt(i);
+            if (c < 0x80) {
+                final byte escaped = escapes[c];
+                if (escaped == 0) {
+                    b[pos++] = (byte) c;
+                    continue;
+                }
+                // the buffer always has room for the rest of the chars as one byte each and the closing quote
+                if (b.length - pos - (length - i) - 1 < 1) {
+                    b = grow(b, 1);
+                }
+                b[pos++] = escapeChar;
+                b[pos++] = escaped;
+            } else if (c < 0x800) {
+                if (b.length - pos - (length - i) - 1 < 1) {
+                    b = grow(b, 1);
+                }
+                b[pos++] = (byte) (0xc0 | c >> 6);
+                b[pos++] = (byte) (0x80 | c & 0x3f);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(str.charAt(i + 1))) {
+                if (b.length - pos - (length - i) - 1 < 2) {
+                    b = grow(b, 2);
+                }
+                final int codePoint = Character.toCodePoint(c, str.charAt(++i));
+                b[pos++] = (byte) (0xf0 | codePoint >> 18);
+                b[pos++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                b[pos++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                b[pos++] = (byte) (0x80 | codePoint & 0x3f);
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                // unpaired surrogates are replaced like String.getBytes does
+                b[pos++] = '?';
+            } else {
+                if (b.length - pos - (length - i) - 1 < 2) {
+                    b = grow(b, 2);
+                }
+                b[pos++] = (byte) (0xe0 | c >> 12);
+                b[pos++] = (byte) (0x80 | c >> 6 & 0x3f);
+                b[pos++] = (byte) (0x80 | c & 0x3f);
+            }
+        }
+        b[pos++] = '\'';
+        return pos == b.length ? b : Arrays.copyOf(b, pos);
+    }
+
+    private static byte[] grow(final byte[] b, final int extra) {
+        return Arrays.copyOf(b, b.length + Math.max(extra, (b.length >> 1) + 16));
+    }
+
     /**
      * Counts the number of occurrences of a character in a string.
      * <p/>
@@ -401,101 +511,267 @@ public class Utils {
         return (byte) value;
     }
     /**
-     * convert a byte array to an int
+     * convert a byte array to an int, values out of range give Integer.MAX_VALUE or Integer.MIN_VALUE.
      *
-     * sums negative numbers since Integer.MIN_VALUE < -Integer.MAX_VALUE
-     * @param b
-     * @return
+     * @param b the text of the number
+     * @return the value
+     * @see #byteArrayToLong(byte[], int, int)
      */
     public static int byteArrayToInt(byte [] b) {
-        int sum = 0;
-        int len = b.length;
-        
-        for(int i = 0; i < b.length; i++) {
-        	if(b[i] == '.'){
-        		len = i;
-        		break;
-        	}
-        }
-
-        int limit = -Integer.MAX_VALUE;
-        int startIdx = 0;
-        boolean isPositive = true;
-        if(len > 1) {
-            byte x =  (byte) (b[0] - '0');
-            if(x < 0 || x > 9) {
-                if(b[0] == '+') {
-                    isPositive = true;
-                    limit = -Integer.MAX_VALUE;
-                    startIdx++;
-                } else if(b[0] == '-') {
-                    isPositive = false;
-                    limit = Integer.MIN_VALUE;
-                    startIdx++;
-                }
-            }
-
+        final long value = byteArrayToLong(b, 0, b.length);
+        if (value > Integer.MAX_VALUE) {
+            return Integer.MAX_VALUE;
         }
-        int factor = (int) Math.pow(10, len-1-startIdx);
-        for(int i = startIdx; i < len; i++) {
-            byte x = (byte) (b[i] - '0');
-            if(x < 0 || x > 9) throw new NumberFormatException("Could not parse as int");
-            int oldSum = sum;
-            sum -= (x * factor);
-            if(sum > oldSum || sum < limit) {
-                if(isPositive)
-                    return Integer.MAX_VALUE;
-                else
-                    return Integer.MIN_VALUE;
-            }
-            factor/=10;
+        if (value < Integer.MIN_VALUE) {
+            return Integer.MIN_VALUE;
         }
-        return isPositive?-sum:sum;
+        return (int) value;
     }
+
     public static long byteArrayToLong(byte [] b) {
+        return byteArrayToLong(b, 0, b.length);
+    }
+
+    /**
+     * convert the text of a number to a long without creating a string. Values out of range give Long.MAX_VALUE or
+     * Long.MIN_VALUE, decimals are truncated towards zero and numbers with an exponent are converted through double.
+     * <p/>
+     * sums negative numbers since Long.MIN_VALUE < -Long.MAX_VALUE
+     *
+     * @param b      the bytes
+     * @param offset the first byte of the number
+     * @param length the number of bytes
+     * @return the value
+     * @throws NumberFormatException if the bytes are not a number
+     */
+    public static long byteArrayToLong(final byte[] b, final int offset, final int length) {
+        final int end = offset + length;
+        int i = offset;
+        boolean negative = false;
+        if (i < end && (b[i] == '-' || b[i] == '+')) {
+            negative = b[i] == '-';
+            i++;
+        }
+        final int firstDigit = i;
         long sum = 0;
-        int len = b.length;
-        
-        for(int i = 0; i < b.length; i++) {
-        	if(b[i] == '.'){
-        		len = i;
-        		break;
-        	}
-        }
-
-        long limit = -Long.MAX_VALUE;
-        int startIdx = 0;
-        boolean isPositive = true;
-        if(len > 1) {
-            byte x =  (byte) (b[0] - '0');
-            if(x < 0 || x > 9) {
-                if(b[0] == '+') {
-                    isPositive = true;
-                    limit = -Long.MAX_VALUE;
-                    startIdx++;
-                } else if(b[0] == '-') {
-                    isPositive = false;
-                    limit = Long.MIN_VALUE;
-                    startIdx++;
+        boolean overflow = false;
+        for (; i < end; i++) {
+            final int digit = b[i] - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            if (sum < Long.MIN_VALUE / 10 || sum * 10 < Long.MIN_VALUE + digit) {
+                overflow = true;
+            } else {
+                sum = sum * 10 - digit;
+            }
+        }
+        int digits = i - firstDigit;
+        if (i < end && b[i] == '.') {
+            i++;
+            for (; i < end && b[i] >= '0' && b[i] <= '9'; i++) {
+                digits++;
+            }
+        }
+        if (digits > 0 && i < end && (b[i] == 'e' || b[i] == 'E')) {
+            return (long) byteArrayToDouble(b, offset, length);
+        }
+        if (digits == 0 || i < end) {
+            throw new NumberFormatException("Could not parse as long");
+        }
+        if (overflow || (!negative && sum == Long.MIN_VALUE)) {
+            return negative ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+        return negative ? sum : -sum;
+    }
+
+    /**
+     * convert the text of a number to a double without creating a string.
+     * <p/>
+     * When the significant digits fit in 2^53 and the power of ten is at most 22 both are exact doubles, one
+     * multiplication or division of them is correctly rounded and gives the same result as Double.parseDouble. Other
+     * numbers are parsed by Double.parseDouble.
+     *
+     * @param b      the bytes
+     * @param offset the first byte of the number
+     * @param length the number of bytes
+     * @return the value
+     * @throws NumberFormatException if the bytes are not a number
+     */
+    public static double byteArrayToDouble(final byte[] b, final int offset, final int length) {
+        final double value = fastParse(b, offset, length, false);
+        if (value == value) {
+            return value;
+        }
+        return Double.parseDouble(asciiString(b, offset, length));
+    }
+
+    public static double byteArrayToDouble(final byte[] b) {
+        return byteArrayToDouble(b, 0, b.length);
+    }
+
+    /**
+     * convert the text of a number to a float without creating a string.
+     * <p/>
+     * When the significant digits fit in 2^24 and the power of ten is at most 10 both are exact floats, one
+     * multiplication or division of them is correctly rounded and gives the same result as Float.parseFloat. Other
+     * numbers are parsed by Float.parseFloat, rounding a parsed double to float could round twice and be off by one
+     * ulp.
+     *
+     * @param b the text of the number
+     * @return the value
+     * @throws NumberFormatException if the bytes are not a number
+     */
+    public static float byteArrayToFloat(final byte[] b) {
+        final double value = fastParse(b, 0, b.length, true);
+        if (value == value) {
+            return (float) value;
+        }
+        return Float.parseFloat(asciiString(b, 0, b.length));
+    }
+
+    /**
+     * parses numbers that can be computed exactly with one operation on doubles, or on floats if singlePrecision is
+     * set.
+     *
+     * @return the value, NaN if the number has to be parsed by Double.parseDouble or Float.parseFloat
+     */
+    private static double fastParse(final byte[] b, final int offset, final int length, final boolean singlePrecision) {
+        final long maxMantissa = singlePrecision ? MAX_EXACT_FLOAT_MANTISSA : MAX_EXACT_MANTISSA;
+        final int maxExponent = singlePrecision ? FLOAT_POWERS_OF_TEN.length - 1 : POWERS_OF_TEN.length - 1;
+        final int end = offset + length;
+        int i = offset;
+        boolean negative = false;
+        if (i < end && (b[i] == '-' || b[i] == '+')) {
+            negative = b[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int exponent = 0;
+        boolean seenDot = false;
+        boolean anyDigit = false;
+        for (; i < end; i++) {
+            final byte c = b[i];
+            if (c >= '0' && c <= '9') {
+                anyDigit = true;
+                if (mantissa > maxMantissa / 10) {
+                    return Double.NaN;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (seenDot) {
+                    exponent--;
+                }
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                break;
+            }
+        }
+        if (!anyDigit || mantissa > maxMantissa) {
+            return Double.NaN;
+        }
+        if (i < end && (b[i] == 'e' || b[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (b[i] == '-' || b[i] == '+')) {
+                negativeExponent = b[i] == '-';
+                i++;
+            }
+            final int firstDigit = i;
+            int explicitExponent = 0;
+            for (; i < end && b[i] >= '0' && b[i] <= '9'; i++) {
+                if (explicitExponent > 1000) {
+                    return Double.NaN;
                 }
+                explicitExponent = explicitExponent * 10 + (b[i] - '0');
             }
+            if (i == firstDigit) {
+                return Double.NaN;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (i < end || exponent < -maxExponent || exponent > maxExponent) {
+            return Double.NaN;
+        }
+        final double value;
+        if (singlePrecision) {
+            final float floatMantissa = mantissa;
+            value = exponent < 0
+                    ? floatMantissa / FLOAT_POWERS_OF_TEN[-exponent]
+                    : floatMantissa * FLOAT_POWERS_OF_TEN[exponent];
+        } else {
+            value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        }
+        return negative ? -value : value;
+    }
 
+    /**
+     * convert the text of a number to a BigDecimal, numbers with up to 18 digits and no exponent are created from an
+     * unscaled long without creating a string.
+     *
+     * @param b the text of the number
+     * @return the value
+     * @throws NumberFormatException if the bytes are not a number
+     */
+    public static BigDecimal byteArrayToBigDecimal(final byte[] b) {
+        int i = 0;
+        boolean negative = false;
+        if (i < b.length && (b[i] == '-' || b[i] == '+')) {
+            negative = b[i] == '-';
+            i++;
         }
-        long factor = (long) Math.pow(10, len-1-startIdx);
-        for(int i = startIdx; i < len; i++) {
-            byte x = (byte) (b[i] - '0');
-            if(x < 0 || x > 9) throw new NumberFormatException("Could not parse as long");
-            long oldSum = sum;
-            sum -= (x * factor);
-            if(sum > oldSum || sum < limit) {
-                if(isPositive)
-                    return Long.MAX_VALUE;
-                else
-                    return Long.MIN_VALUE;
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean seenDot = false;
+        for (; i < b.length; i++) {
+            final byte c = b[i];
+            if (c >= '0' && c <= '9') {
+                unscaled = unscaled * 10 + (c - '0');
+                digits++;
+                if (seenDot) {
+                    scale++;
+                }
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                break;
             }
-            factor/=10;
+            if (digits > 18) {
+                break;
+            }
+        }
+        if (i < b.length || digits == 0) {
+            return new BigDecimal(asciiString(b, 0, b.length));
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
+    /**
+     * convert the text of an integer to a BigInteger, numbers with up to 18 digits are created from a long without
+     * creating a string.
+     *
+     * @param b the text of the number
+     * @return the value
+     * @throws NumberFormatException if the bytes are not an integer
+     */
+    public static BigInteger byteArrayToBigInteger(final byte[] b) {
+        final int firstDigit = b.length > 0 && b[0] == '-' ? 1 : 0;
+        boolean digitsOnly = firstDigit < b.length && b.length <= 18;
+        for (int i = firstDigit; i < b.length && digitsOnly; i++) {
+            digitsOnly = b[i] >= '0' && b[i] <= '9';
+        }
+        if (digitsOnly) {
+            return BigInteger.valueOf(byteArrayToLong(b, 0, b.length));
+        }
+        return new BigInteger(asciiString(b, 0, b.length));
+    }
+
+    private static String asciiString(final byte[] b, final int offset, final int length) {
+        try {
+            return new String(b, offset, length, "ISO-8859-1");
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException("Unsupported encoding: " + e.getMessage(), e);
         }
-        return isPositive?-sum:sum;
-        //return Integer.MAX_VALUE;
     }
-}
\ No newline at end of file
+}
@@ -40,6 +40,8 @@ public class EOFPacket extends ResultPacket {
         SERVER_MORE_RESULTS_EXISTS(8),
         SERVER_QUERY_NO_GOOD_INDEX_USED(16),
         SERVER_QUERY_NO_INDEX_USED(32),
+        SERVER_STATUS_CURSOR_EXISTS(64),
+        SERVER_STATUS_LAST_ROW_SENT(128),
         SERVER_STATUS_DB_DROPPED(256);
         private final int bitmapFlag;
         ServerStatus(int bitmapFlag) {
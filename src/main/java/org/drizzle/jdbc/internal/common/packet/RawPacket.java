@@ -1,7 +1,7 @@
 /*
  * Drizzle-JDBC
  *
- * Copyright (c) 2009-2011, Marcus Eriksson, Trond Norbye
+ * Copyright (c) 2009-2011, Marcus Eriksson
  *
  * All rights reserved.
  *
@@ -21,13 +21,8 @@
  * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
  * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
-
 package org.drizzle.jdbc.internal.common.packet;
 
-import org.drizzle.jdbc.internal.common.packet.buffer.ReadUtil;
-
-import java.io.IOException;
-import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
@@ -35,81 +30,43 @@ import java.nio.ByteOrder;
 /**
  * Class to represent a raw packet as transferred over the wire. First we got 3 bytes specifying the actual length, then
  * one byte packet sequence number and then n bytes with user data.
+ * <p/>
+ * Packets handed out by a PacketFetcher may be views of the fetchers receive buffer, such a packet is only valid until
+ * the next packet is fetched. Use retain() to get a packet that can be kept longer.
  */
 public final class RawPacket {
     private final ByteBuffer byteBuffer;
     private final int packetSeq;
-
-    /**
-     * Get the next packet from the stream
-     *
-     * @param is the input stream to read the next packet from
-     * @return The next packet from the stream, or NULL if the stream is closed
-     * @throws java.io.IOException if an error occurs while reading data
-     */
-    static RawPacket nextPacket(final InputStream is) throws IOException {
-        byte[] lengthBuffer = readLengthSeq(is);
-        int length = (lengthBuffer[0] & 0xff) + ((lengthBuffer[1] & 0xff) << 8) + ((lengthBuffer[2] & 0xff) << 16);
-        if (length == -1) {
-            return null;
-        }
-
-        if (length < 0) {
-            throw new IOException("Got negative packet size: " + length);
-        }
-
-        final int packetSeq = lengthBuffer[3];
-
-        final byte[] rawBytes = new byte[length];
-
-        final int nr = ReadUtil.safeRead(is, rawBytes);
-        if (nr != length) {
-            throw new IOException("EOF. Expected " + length + ", got " + nr);
-        }
-
-        return new RawPacket(ByteBuffer.wrap(rawBytes).order(ByteOrder.LITTLE_ENDIAN),
-                             packetSeq);
-    }
+    private final boolean shared;
 
     /**
      * create a raw packet.
-     * @param byteBuffer the byte buffer containing the packet
-     * @param packetSeq the packet sequence
+     *
+     * @param byteBuffer the byte buffer containing the packet, position 0 is the first byte of the payload
+     * @param packetSeq  the packet sequence
+     * @param shared     true if the byte buffer is a view of a buffer that will be reused for later packets
      */
-    private RawPacket(final ByteBuffer byteBuffer, final int packetSeq) {
+    RawPacket(final ByteBuffer byteBuffer, final int packetSeq, final boolean shared) {
         this.byteBuffer = byteBuffer;
         this.packetSeq = packetSeq;
+        this.shared = shared;
     }
 
-    private static byte readPacketSeq(final InputStream reader) throws IOException {
-        final int val = reader.read();
-        if (val == -1) {
-            throw new IOException("EOF");
-        }
-
-        return (byte) val;
-    }
-    private static byte[] readLengthSeq(final InputStream reader) throws IOException {
-        final byte[] lengthBuffer = new byte[4];
-
-        final int nr = ReadUtil.safeRead(reader, lengthBuffer);
-        if (nr != 4) {
-            throw new IOException("Incomplete read! Expected 4, got " + nr);
-        }
-
-        return lengthBuffer;
-    }
-    private static int readLength(final InputStream reader) throws IOException {
-        final byte[] lengthBuffer = new byte[3];
-
-        final int nr = ReadUtil.safeRead(reader, lengthBuffer);
-        if (nr == -1) {
-            return -1;
-        } else if (nr != 3) {
-            throw new IOException("Incomplete read! Expected 3, got " + nr);
+    /**
+     * Get a packet that stays valid after the next packet has been read, copies the payload if this packet is a view
+     * of a reused receive buffer.
+     *
+     * @return a packet owning its payload
+     */
+    public RawPacket retain() {
+        if (!shared) {
+            return this;
         }
-
-        return (lengthBuffer[0] & 0xff) + ((lengthBuffer[1] & 0xff) << 8) + ((lengthBuffer[2] & 0xff) << 16);
+        final byte[] rawBytes = new byte[byteBuffer.limit()];
+        final ByteBuffer source = byteBuffer.duplicate();
+        source.position(0);
+        source.get(rawBytes);
+        return new RawPacket(ByteBuffer.wrap(rawBytes).order(ByteOrder.LITTLE_ENDIAN), packetSeq, false);
     }
 
     /**
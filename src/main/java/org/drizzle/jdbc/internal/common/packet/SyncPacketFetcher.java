@@ -1,7 +1,7 @@
 /*
  * Drizzle-JDBC
  *
- * Copyright (c) 2009-2011, Marcus Eriksson, Trond Norbye
+ * Copyright (c) 2009-2011, Marcus Eriksson
  *
  * All rights reserved.
  *
@@ -21,30 +21,131 @@
  * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
  * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
-
 package org.drizzle.jdbc.internal.common.packet;
 
 import org.drizzle.jdbc.internal.common.PacketFetcher;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
+/**
+ * Reads packets from the stream into a single receive buffer that is reused for all packets. The packets returned are
+ * views of the receive buffer and are only valid until the next call to getRawPacket, see RawPacket.retain().
+ * <p/>
+ * Packets that do not fit in the receive buffer get their own array, this means packets of the maximum size (that are
+ * continued in the next packet) always own their payload.
+ */
 public class SyncPacketFetcher implements PacketFetcher {
+    private static final int HEADER_LENGTH = 4;
+    private static final int DEFAULT_BUFFER_SIZE = 32768;
+    /**
+     * the receive buffer grows to fit packets up to this size, bigger packets are read into a separate array.
+     */
+    private static final int MAX_BUFFER_SIZE = 1024 * 1024;
 
     private final InputStream inputStream;
+    private byte[] buffer;
+    private ByteBuffer view;
+    /**
+     * start of the data in the buffer that has not been handed out yet
+     */
+    private int start;
+    /**
+     * end of the data read from the stream
+     */
+    private int end;
 
     public SyncPacketFetcher(final InputStream is) {
-        this.inputStream = new BufferedInputStream(is);
+        this(is, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * create a packet fetcher
+     *
+     * @param is         the stream to read packets from, the fetcher buffers so this does not need to be buffered
+     * @param bufferSize the initial size of the receive buffer
+     */
+    public SyncPacketFetcher(final InputStream is, final int bufferSize) {
+        this.inputStream = is;
+        setBuffer(new byte[Math.max(bufferSize, HEADER_LENGTH)]);
     }
 
     public RawPacket getRawPacket() throws IOException {
-        return RawPacket.nextPacket(inputStream);
+        fill(HEADER_LENGTH);
+        final int length = (buffer[start] & 0xff)
+                + ((buffer[start + 1] & 0xff) << 8)
+                + ((buffer[start + 2] & 0xff) << 16);
+        final int packetSeq = buffer[start + 3];
+        start += HEADER_LENGTH;
+
+        if (length > MAX_BUFFER_SIZE) {
+            return readLargePacket(length, packetSeq);
+        }
+        fill(length);
+        view.limit(start + length).position(start);
+        final ByteBuffer payload = view.slice().order(ByteOrder.LITTLE_ENDIAN);
+        start += length;
+        return new RawPacket(payload, packetSeq, true);
+    }
+
+    /**
+     * reads a packet that is bigger than the receive buffer into its own array.
+     */
+    private RawPacket readLargePacket(final int length, final int packetSeq) throws IOException {
+        final byte[] rawBytes = new byte[length];
+        final int buffered = Math.min(end - start, length);
+        System.arraycopy(buffer, start, rawBytes, 0, buffered);
+        start += buffered;
+        int read = buffered;
+        while (read < length) {
+            final int nr = inputStream.read(rawBytes, read, length - read);
+            if (nr == -1) {
+                throw new IOException("EOF. Expected " + length + ", got " + read);
+            }
+            read += nr;
+        }
+        return new RawPacket(ByteBuffer.wrap(rawBytes).order(ByteOrder.LITTLE_ENDIAN), packetSeq, false);
+    }
+
+    /**
+     * makes sure there are at least needed bytes after start in the buffer, compacts or grows the buffer if needed.
+     */
+    private void fill(final int needed) throws IOException {
+        if (end - start >= needed) {
+            return;
+        }
+        if (needed > buffer.length) {
+            final byte[] newBuffer = new byte[Math.min(Math.max(buffer.length * 2, needed), Math.max(MAX_BUFFER_SIZE, needed))];
+            System.arraycopy(buffer, start, newBuffer, 0, end - start);
+            end -= start;
+            start = 0;
+            setBuffer(newBuffer);
+        } else if (buffer.length - start < needed) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            end -= start;
+            start = 0;
+        }
+        while (end - start < needed) {
+            final int nr = inputStream.read(buffer, end, buffer.length - end);
+            if (nr == -1) {
+                throw new IOException("EOF. Expected " + needed + ", got " + (end - start));
+            }
+            end += nr;
+        }
+    }
+
+    private void setBuffer(final byte[] newBuffer) {
+        buffer = newBuffer;
+        view = ByteBuffer.wrap(buffer);
     }
 
     public void clearInputStream() throws IOException {
+        start = 0;
+        end = 0;
         int available = inputStream.available();
-        while(available > 0) {
+        while (available > 0) {
             available -= inputStream.skip(available);
         }
     }
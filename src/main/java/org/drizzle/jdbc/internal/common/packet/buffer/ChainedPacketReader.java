@@ -0,0 +1,180 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.drizzle.jdbc.internal.common.packet.buffer;
+
+import org.drizzle.jdbc.internal.common.PacketFetcher;
+import org.drizzle.jdbc.internal.common.packet.RawPacket;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads a payload that is split over several packets as one stream. A packet of the maximum packet size is continued
+ * in the next packet, the next packet is fetched when the current one has been read so every byte is read once, no
+ * matter how many packets the payload spans.
+ * <p/>
+ * Unlike Reader, a length encoded value that straddles two packets is read directly into its final array.
+ */
+public class ChainedPacketReader {
+    public static final int MAX_PACKET_LENGTH = 0xffffff;
+
+    private final PacketFetcher packetFetcher;
+    private ByteBuffer byteBuffer;
+    private boolean continued;
+
+    /**
+     * create a reader
+     *
+     * @param rawPacket     the first packet of the payload
+     * @param packetFetcher the fetcher to get continuation packets from
+     */
+    public ChainedPacketReader(final RawPacket rawPacket, final PacketFetcher packetFetcher) {
+        this.packetFetcher = packetFetcher;
+        setPacket(rawPacket);
+    }
+
+    private void setPacket(final RawPacket rawPacket) {
+        byteBuffer = rawPacket.getByteBuffer();
+        continued = byteBuffer.limit() == MAX_PACKET_LENGTH;
+    }
+
+    /**
+     * makes sure there is at least one byte to read in the current packet, fetching the next packet if needed.
+     *
+     * @throws IOException if the payload has been read or the next packet could not be read
+     */
+    private void nextPacketIfEmpty() throws IOException {
+        while (!byteBuffer.hasRemaining()) {
+            if (!continued) {
+                throw new IOException("Read past end of packet");
+            }
+            setPacket(packetFetcher.getRawPacket());
+        }
+    }
+
+    /**
+     * checks if there is more data in the payload.
+     *
+     * @return true if there are bytes left to read
+     * @throws IOException if the next packet could not be read
+     */
+    public boolean hasRemaining() throws IOException {
+        while (!byteBuffer.hasRemaining() && continued) {
+            setPacket(packetFetcher.getRawPacket());
+        }
+        return byteBuffer.hasRemaining();
+    }
+
+    public byte readByte() throws IOException {
+        nextPacketIfEmpty();
+        return byteBuffer.get();
+    }
+
+    public void skipByte() throws IOException {
+        readByte();
+    }
+
+    /**
+     * reads bytes into the given array, the bytes can be spread over several packets.
+     *
+     * @param dest   the array to read into
+     * @param offset where to start writing in dest
+     * @param length the number of bytes to read
+     * @throws IOException if there are not enough bytes left in the payload
+     */
+    public void readBytes(final byte[] dest, final int offset, final int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            nextPacketIfEmpty();
+            final int chunk = Math.min(length - read, byteBuffer.remaining());
+            byteBuffer.get(dest, offset + read, chunk);
+            read += chunk;
+        }
+    }
+
+    public byte[] readRawBytes(final int numberOfBytes) throws IOException {
+        final byte[] tmpArr = new byte[numberOfBytes];
+        readBytes(tmpArr, 0, numberOfBytes);
+        return tmpArr;
+    }
+
+    public void skipBytes(final long bytesToSkip) throws IOException {
+        long skipped = 0;
+        while (skipped < bytesToSkip) {
+            nextPacketIfEmpty();
+            final int chunk = (int) Math.min(bytesToSkip - skipped, byteBuffer.remaining());
+            byteBuffer.position(byteBuffer.position() + chunk);
+            skipped += chunk;
+        }
+    }
+
+    /**
+     * skips the rest of the payload, including any continuation packets that have not been read yet. This must be
+     * called when done with a payload that ends exactly at a packet boundary, the empty packet that ends it would
+     * otherwise be read as the next packet.
+     *
+     * @throws IOException if the continuation packets could not be read
+     */
+    public void skipRemaining() throws IOException {
+        while (hasRemaining()) {
+            byteBuffer.position(byteBuffer.limit());
+        }
+    }
+
+    /**
+     * reads a little endian number of the given number of bytes
+     */
+    private long readNumber(final int bytes) throws IOException {
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            value |= (long) (readByte() & 0xff) << (8 * i);
+        }
+        return value;
+    }
+
+    public long getLengthEncodedBinary() throws IOException {
+        final int type = readByte() & 0xff;
+        if (type == 251) {
+            return -1;
+        }
+        if (type == 252) {
+            return readNumber(2);
+        }
+        if (type == 253) {
+            return readNumber(3);
+        }
+        if (type == 254) {
+            return readNumber(8);
+        }
+        return type;
+    }
+
+    public byte[] getLengthEncodedBytes() throws IOException {
+        final long encLength = getLengthEncodedBinary();
+        if (encLength == -1) {
+            return null;
+        }
+        return readRawBytes((int) encLength);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.drizzle.jdbc.internal.common.packet.buffer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encodes query strings as utf8 straight into a packet buffer that is reused for every query on a connection, so
+ * sending a query does not allocate.
+ * <p/>
+ * The buffer is sized for the worst case of three bytes per char, the exact encoded length is only computed for
+ * queries too long to be sure they fit in the buffer kept between queries.
+ */
+public class QueryPacketWriter {
+    private static final int HEADER_LENGTH = 4;
+    private static final int INITIAL_SIZE = 1024;
+    /**
+     * the buffer is not kept bigger than this, a longer query is encoded into a temporary array.
+     */
+    private static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+    private byte[] buffer = new byte[INITIAL_SIZE];
+
+    /**
+     * Writes a packet with the command and the encoded query to the stream, the stream is not flushed.
+     *
+     * @param command the command byte, for example COM_QUERY (0x03)
+     * @param query   the query
+     * @param os      the stream to write to
+     * @return false if nothing was written since the query does not fit in one packet
+     * @throws IOException if the packet could not be written
+     */
+    public boolean write(final byte command, final String query, final OutputStream os) throws IOException {
+        byte[] packet = buffer;
+        final long maxLength = HEADER_LENGTH + 1 + 3L * query.length();
+        if (maxLength > packet.length) {
+            if (maxLength <= MAX_RETAINED_SIZE) {
+                buffer = new byte[(int) Math.min(MAX_RETAINED_SIZE, Math.max(maxLength, 2L * packet.length))];
+                packet = buffer;
+            } else {
+                final long payloadLength = 1 + encodedLength(query);
+                if (payloadLength >= ChainedPacketReader.MAX_PACKET_LENGTH) {
+                    return false;
+                }
+                packet = new byte[HEADER_LENGTH + (int) payloadLength];
+            }
+        }
+        final int payloadLength = encode(query, packet, HEADER_LENGTH + 1) - HEADER_LENGTH;
+        if (payloadLength >= ChainedPacketReader.MAX_PACKET_LENGTH) {
+            return false;
+        }
+        packet[0] = (byte) payloadLength;
+        packet[1] = (byte) (payloadLength >>> 8);
+        packet[2] = (byte) (payloadLength >>> 16);
+        packet[3] = 0;
+        packet[4] = command;
+        os.write(packet, 0, HEADER_LENGTH + payloadLength);
+        return true;
+    }
+
+    /**
+     * encodes the string as utf8 into the buffer, an unpaired surrogate is written as '?' like String.getBytes does.
+     *
+     * @return the position after the last byte written
+     */
+    static int encode(final String s, final byte[] buf, int pos) {
+        final int length = s.length();
+        int i = 0;
+        while (i < length) {
+            final char c = s.charAt(i);
+            if (c >= 0x80) {
+                break;
+            }
+            buf[pos++] = (byte) c;
+            i++;
+        }
+        for (; i < length; i++) {
+            final char c = s.charAt(i);
+            if (c < 0x80) {
+                buf[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xc0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                buf[pos++] = (byte) (0xf0 | (codePoint >> 18));
+                buf[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buf[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (isSurrogate(c)) {
+                buf[pos++] = '?';
+            } else {
+                buf[pos++] = (byte) (0xe0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return pos;
+    }
+
+    private static boolean isSurrogate(final char c) {
+        return c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE;
+    }
+
+    /**
+     * the number of bytes the string takes encoded as utf8.
+     */
+    static long encodedLength(final String s) {
+        final int length = s.length();
+        long encoded = length;
+        for (int i = 0; i < length; i++) {
+            final char c = s.charAt(i);
+            if (c >= 0x800) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    encoded += 2;
+                    i++;
+                } else if (!isSurrogate(c)) {
+                    encoded += 2;
+                }
+            } else if (c >= 0x80) {
+                encoded++;
+            }
+        }
+        return encoded;
+    }
+}
@@ -28,7 +28,6 @@ import org.drizzle.jdbc.internal.common.packet.RawPacket;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 
 /**
  * . User: marcuse Date: Jan 16, 2009 Time: 8:27:38 PM
@@ -189,16 +188,6 @@ public class Reader {
         return byteBuffer.remaining();
     }
 
-    public void appendPacket(RawPacket rawPacket) {
-        ByteBuffer newBuffer = ByteBuffer.allocate(byteBuffer.capacity() + rawPacket.getByteBuffer().capacity()).order(ByteOrder.LITTLE_ENDIAN);
-        int pos = byteBuffer.position();
-        byteBuffer.rewind();
-        newBuffer.put(byteBuffer);
-        newBuffer.put(rawPacket.getByteBuffer());
-        newBuffer.position(pos);
-        byteBuffer = newBuffer;
-    }
-
     public long getSilentLengthEncodedBinary() throws IOException {
         byteBuffer.mark();
         long retVal = getLengthEncodedBinary();
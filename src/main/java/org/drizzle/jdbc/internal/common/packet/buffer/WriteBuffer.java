@@ -32,7 +32,7 @@ import java.nio.ByteOrder;
  * . User: marcuse Date: Jan 16, 2009 Time: 8:10:24 PM
  */
 public class WriteBuffer {
-    private final ByteBuffer byteBuffer;
+    private ByteBuffer byteBuffer;
 
     public WriteBuffer() {
          byteBuffer = ByteBuffer.allocate(1000).order(ByteOrder.LITTLE_ENDIAN);
@@ -43,9 +43,12 @@ public class WriteBuffer {
     }
 
     private void assureBufferCapacity(final int len) {
-
         if(byteBuffer.remaining()<len) {
-            byteBuffer.limit(byteBuffer.capacity()*2);
+            final int newCapacity = Math.max(byteBuffer.capacity() * 2, byteBuffer.position() + len);
+            final ByteBuffer newBuffer = ByteBuffer.allocate(newCapacity).order(ByteOrder.LITTLE_ENDIAN);
+            byteBuffer.flip();
+            newBuffer.put(byteBuffer);
+            byteBuffer = newBuffer;
         }
     }
     public WriteBuffer writeByte(final byte theByte) {
@@ -60,6 +63,12 @@ public class WriteBuffer {
         return this;
     }
 
+    public WriteBuffer writeByteArray(final byte[] bytes, final int offset, final int length) {
+        assureBufferCapacity(length);
+        byteBuffer.put(bytes, offset, length);
+        return this;
+    }
+
     public WriteBuffer writeBytes(final byte theByte, final int count) {
         for (int i = 0; i < count; i++) {
             this.writeByte(theByte);
@@ -79,6 +88,47 @@ public class WriteBuffer {
         return this;
     }
 
+    public WriteBuffer writeLong(final long theLong) {
+        assureBufferCapacity(8);
+        byteBuffer.putLong(theLong);
+        return this;
+    }
+
+    /**
+     * writes a length coded binary, 1, 3, 4 or 9 bytes depending on the size of the value.
+     *
+     * @param length the value to write
+     * @return this
+     */
+    public WriteBuffer writeLengthEncodedBinary(final long length) {
+        if (length < 251) {
+            writeByte((byte) length);
+        } else if (length < 65536) {
+            writeByte((byte) 252);
+            writeShort((short) length);
+        } else if (length < 16777216) {
+            writeByte((byte) 253);
+            writeByte((byte) (length & 0xff));
+            writeByte((byte) (length >>> 8));
+            writeByte((byte) (length >>> 16));
+        } else {
+            writeByte((byte) 254);
+            writeLong(length);
+        }
+        return this;
+    }
+
+    /**
+     * writes the bytes as a length coded string.
+     *
+     * @param bytes the bytes to write
+     * @return this
+     */
+    public WriteBuffer writeLengthEncodedBytes(final byte[] bytes) {
+        writeLengthEncodedBinary(bytes.length);
+        return writeByteArray(bytes);
+    }
+
     public WriteBuffer writeString(final String str) {
         final byte[] strBytes;
         try {
@@ -126,10 +176,10 @@ public class WriteBuffer {
         returnArray[1] = (byte) (l >>> 8);
         returnArray[2] = (byte) (l >>> 16);
         returnArray[3] = (byte) (l >>> 24);
-        returnArray[0] = (byte) (l >>> 32);
-        returnArray[1] = (byte) (l >>> 40);
-        returnArray[2] = (byte) (l >>> 48);
-        returnArray[3] = (byte) (l >>> 56);
+        returnArray[4] = (byte) (l >>> 32);
+        returnArray[5] = (byte) (l >>> 40);
+        returnArray[6] = (byte) (l >>> 48);
+        returnArray[7] = (byte) (l >>> 56);
         return returnArray;
     }
 
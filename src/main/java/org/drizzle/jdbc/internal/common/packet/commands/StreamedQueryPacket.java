@@ -54,15 +54,43 @@ public class StreamedQueryPacket implements CommandPacket
 
     private final Query         query;
 
+    private final byte          command;
+
     public StreamedQueryPacket(final Query query)
     {
-        this.query = query;
+        this(query, (byte) 0x03);
+    }
 
+    /**
+     * Creates a packet sending the query text with the given command, for example COM_STMT_PREPARE (0x16).
+     *
+     * @param query   the query
+     * @param command the command byte
+     */
+    public StreamedQueryPacket(final Query query, final byte command)
+    {
+        this.query = query;
+        this.command = command;
     }
 
     public int send(final OutputStream ostream) throws IOException,
             QueryException
     {
+        final int packetIndex = write(ostream);
+        ostream.flush();
+        return packetIndex;
+    }
+
+    /**
+     * Writes the packet without flushing the stream, so several queries can be sent back to back. Queries that need
+     * more than one packet are flushed anyway.
+     *
+     * @param ostream the stream to write to
+     * @return the sequence number of the last packet written
+     */
+    public int write(final OutputStream ostream) throws IOException,
+            QueryException
+    {
 
         if (query.length() > MAX_PACKET_LENGTH - HEADER_LENGTH)
         {
@@ -74,11 +102,10 @@ public class StreamedQueryPacket implements CommandPacket
             byte[] byteHeader = Utils.copyWithLength(
                     intToByteArray( query.length() + 1), 5);
             byteHeader[3] = (byte) 0;
-            byteHeader[4] = (byte) 0x03;
+            byteHeader[4] = command;
             ostream.write(byteHeader);
 
             query.writeTo(ostream);
-            ostream.flush();
             return 0;
         }
     }
@@ -98,7 +125,7 @@ public class StreamedQueryPacket implements CommandPacket
             {
                 byteHeader = Utils.copyWithLength(intToByteArray(packLength), 5);
                 // Add the command byte
-                byteHeader[4] = (byte) 0x03;
+                byteHeader[4] = command;
                 // And remove 1 byte from available data length
                 packLength -= 1;
             }
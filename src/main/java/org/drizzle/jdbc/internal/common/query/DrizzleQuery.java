@@ -30,54 +30,77 @@ import java.io.UnsupportedEncodingException;
 
 /**
  * . User: marcuse Date: Feb 20, 2009 Time: 10:43:58 PM
+ * <p/>
+ * A query created from a string is not encoded until the bytes are needed, the protocol can encode it straight into
+ * its packet buffer instead. A query created from bytes, like a rewritten batch, is likewise not decoded until the
+ * string is asked for.
  */
 public class DrizzleQuery implements Query {
 
-    private final String query;
-    private final byte[] queryToSend;
+    private String query;
+    private byte[] queryToSend;
 
     public DrizzleQuery(final String query) {
         this.query = query;
-        try {
-            queryToSend = query.getBytes("UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException("Unsupported encoding: " + e.getMessage(), e);
-        }
     }
 
     public DrizzleQuery(final byte[] query) {
         queryToSend = query;
-        try {
-            this.query = new String(query, "UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException("Unsupported encoding: " + e.getMessage(), e);
+    }
+
+    private byte[] getQueryToSend() {
+        if (queryToSend == null) {
+            try {
+                queryToSend = query.getBytes("UTF-8");
+            } catch (UnsupportedEncodingException e) {
+                throw new RuntimeException("Unsupported encoding: " + e.getMessage(), e);
+            }
         }
+        return queryToSend;
+    }
+
+    /**
+     * true if the utf8 bytes of the query have been created, if not it is cheaper to encode the string into a packet
+     * than to create them.
+     *
+     * @return if the query is encoded
+     */
+    public boolean isEncoded() {
+        return queryToSend != null;
     }
 
     public int length() {
-        return queryToSend.length;
+        return getQueryToSend().length;
     }
 
     public void writeTo(final OutputStream os) throws IOException {
-        os.write(queryToSend, 0, queryToSend.length);
+        final byte[] bytes = getQueryToSend();
+        os.write(bytes, 0, bytes.length);
     }
 
     public String getQuery() {
+        if (query == null) {
+            try {
+                query = new String(queryToSend, "UTF-8");
+            } catch (UnsupportedEncodingException e) {
+                throw new RuntimeException("Unsupported encoding: " + e.getMessage(), e);
+            }
+        }
         return query;
     }
 
     public QueryType getQueryType() {
-        return QueryType.classifyQuery(query);
+        return QueryType.classifyQuery(getQuery());
     }
 
     @Override
     public boolean equals(final Object otherObj) {
-        return otherObj instanceof DrizzleQuery && (((DrizzleQuery) otherObj).query).equals(query);
+        return otherObj instanceof DrizzleQuery && ((DrizzleQuery) otherObj).getQuery().equals(getQuery());
     }
 
     public void writeTo(OutputStream ostream, int offset, int packLength) throws IOException
     {
-        ostream.write(queryToSend, offset, packLength);
+        ostream.write(getQueryToSend(), offset, packLength);
     }
 
 
@@ -21,16 +21,30 @@
  * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
  * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
-                         
 package org.drizzle.jdbc.internal.common.query;
 
-import java.util.concurrent.ConcurrentHashMap;
-
 /**
  * . User: marcuse Date: Mar 18, 2009 Time: 10:14:27 PM
  */
 public class DrizzleQueryFactory implements QueryFactory {
-    private static final ConcurrentHashMap<String, ParameterizedQuery> PREPARED_CACHE = new ConcurrentHashMap<String, ParameterizedQuery>();
+    public static final int DEFAULT_CACHE_SIZE = 1000;
+    public static final long DEFAULT_CACHE_BYTES = 4L * 1024 * 1024;
+    private final QueryTemplateCache cache;
+
+    public DrizzleQueryFactory() {
+        this(new QueryTemplateCache(DEFAULT_CACHE_SIZE, DEFAULT_CACHE_BYTES));
+    }
+
+    /**
+     * creates a query factory that parses prepared statement queries through the given cache, connections using the
+     * same factory share the cache.
+     *
+     * @param cache the cache
+     */
+    public DrizzleQueryFactory(final QueryTemplateCache cache) {
+        this.cache = cache;
+    }
+
     public Query createQuery(final String query) {
         return new DrizzleQuery(query);
     }
@@ -40,23 +54,16 @@ public class DrizzleQueryFactory implements QueryFactory {
         return new DrizzleQuery(query);
     }
     public ParameterizedQuery createParameterizedQuery(final String query, boolean noCache) {
-
         if(noCache)
-            return new DrizzleParameterizedQuery(new DrizzleParameterizedQuery(query));
-
-        // Cache prepared statements
-        ParameterizedQuery pq = DrizzleQueryFactory.PREPARED_CACHE.get(query);
-
-        if(pq == null) {
-            pq = new DrizzleParameterizedQuery(query);
-            DrizzleQueryFactory.PREPARED_CACHE.put(query, pq);
-            return pq;
-        } else {
-            return new DrizzleParameterizedQuery(pq);
-        }
+            return new DrizzleParameterizedQuery(query);
+        return cache.get(query);
     }
 
     public ParameterizedQuery createParameterizedQuery(final ParameterizedQuery dQuery) {
         return new DrizzleParameterizedQuery(dQuery);
     }
+
+    public QueryTemplateCache getCache() {
+        return cache;
+    }
 }
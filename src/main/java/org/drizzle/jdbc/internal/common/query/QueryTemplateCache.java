@@ -0,0 +1,185 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.drizzle.jdbc.internal.common.query;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache of parsed prepared statement queries, bounded by the number of queries and by their size in bytes.
+ * <p/>
+ * Lookups only read a ConcurrentHashMap and mark the entry as used. Adding an entry evicts with the clock algorithm,
+ * an approximation of least recently used: entries are kept in insertion order and an entry that has been used since
+ * it was last looked at gets a second chance at the back of the queue.
+ * <p/>
+ * The cached queries are templates that are never handed out, callers get copies to set parameters on.
+ */
+public final class QueryTemplateCache {
+    /**
+     * the size of an entry on top of its strings and arrays, a rough guess of the object headers and references.
+     */
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    private final ConcurrentLinkedQueue<Entry> clock = new ConcurrentLinkedQueue<Entry>();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * creates a cache.
+     *
+     * @param maxEntries the max number of queries kept, 0 disables the cache
+     * @param maxBytes   the max estimated size of the queries kept
+     */
+    public QueryTemplateCache(final int maxEntries, final long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * gets a copy of the parsed query, the query is parsed and cached if it is not in the cache.
+     *
+     * @param query the query
+     * @return a new parameterized query
+     */
+    public ParameterizedQuery get(final String query) {
+        final Entry entry = entries.get(query);
+        if (entry != null) {
+            hits.incrementAndGet();
+            if (!entry.used) {
+                entry.used = true;
+            }
+            return new DrizzleParameterizedQuery(entry.template);
+        }
+        misses.incrementAndGet();
+        final ParameterizedQuery template = new DrizzleParameterizedQuery(query);
+        final Entry created = new Entry(query, template);
+        if (maxEntries > 0 && created.size <= maxBytes && entries.putIfAbsent(query, created) == null) {
+            clock.add(created);
+            bytes.addAndGet(created.size);
+            evict();
+        }
+        return new DrizzleParameterizedQuery(template);
+    }
+
+    private synchronized void evict() {
+        while (entries.size() > maxEntries || bytes.get() > maxBytes) {
+            final Entry entry = clock.poll();
+            if (entry == null) {
+                return;
+            }
+            if (entry.used) {
+                entry.used = false;
+                clock.add(entry);
+            } else {
+                entries.remove(entry.query, entry);
+                bytes.addAndGet(-entry.size);
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * removes all queries from the cache, the counters are kept.
+     */
+    public synchronized void clear() {
+        Entry entry;
+        while ((entry = clock.poll()) != null) {
+            entries.remove(entry.query, entry);
+            bytes.addAndGet(-entry.size);
+        }
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return the number of queries in the cache
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the estimated size of the queries in the cache
+     */
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * @return the number of lookups that found the query in the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of lookups that had to parse the query
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of queries removed to make room for others
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "QueryTemplateCache{size=" + size() + ", bytes=" + getBytes() + ", hits=" + getHits()
+                + ", misses=" + getMisses() + ", evictions=" + getEvictions() + "}";
+    }
+
+    private static final class Entry {
+        private final String query;
+        private final ParameterizedQuery template;
+        private final long size;
+        private volatile boolean used;
+
+        private Entry(final String query, final ParameterizedQuery template) {
+            this.query = query;
+            this.template = template;
+            long partsSize = 0;
+            for (final byte[] part : template.getQueryPartsArray()) {
+                partsSize += part.length + 16;
+            }
+            this.size = ENTRY_OVERHEAD + 2L * query.length() + partsSize;
+        }
+    }
+}
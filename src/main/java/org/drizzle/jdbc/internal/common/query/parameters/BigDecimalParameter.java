@@ -24,6 +24,8 @@
 
 package org.drizzle.jdbc.internal.common.query.parameters;
 
+import org.drizzle.jdbc.internal.common.packet.buffer.WriteBuffer;
+
 import java.io.IOException;
 import java.io.OutputStream;
 import java.math.BigDecimal;
@@ -31,7 +33,7 @@ import java.math.BigDecimal;
 /**
  * User: marcuse Date: Feb 27, 2009 Time: 10:07:00 PM
  */
-public class BigDecimalParameter implements ParameterHolder {
+public class BigDecimalParameter implements BinaryParameterHolder {
     private final byte[] rawBytes;
 
     public BigDecimalParameter(final BigDecimal x) {
@@ -47,4 +49,12 @@ public class BigDecimalParameter implements ParameterHolder {
     public long length() {
         return rawBytes.length;
     }
+
+    public byte getBinaryType() {
+        return (byte) 0xf6;
+    }
+
+    public void writeBinaryTo(final WriteBuffer buffer) {
+        buffer.writeLengthEncodedBytes(rawBytes);
+    }
 }
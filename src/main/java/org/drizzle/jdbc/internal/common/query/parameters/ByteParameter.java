@@ -26,13 +26,15 @@ package org.drizzle.jdbc.internal.common.query.parameters;
 
 import static org.drizzle.jdbc.internal.common.Utils.needsEscaping;
 
+import org.drizzle.jdbc.internal.common.packet.buffer.WriteBuffer;
+
 import java.io.IOException;
 import java.io.OutputStream;
 
 /**
  * . User: marcuse Date: Feb 27, 2009 Time: 9:56:17 PM
  */
-public class ByteParameter implements ParameterHolder {
+public class ByteParameter implements BinaryParameterHolder {
     private final byte[] buffer;
     private final int length;
 
@@ -59,4 +61,24 @@ public class ByteParameter implements ParameterHolder {
     public long length() {
         return length;
     }
+
+    public byte getBinaryType() {
+        return (byte) 0xfc;
+    }
+
+    /**
+     * the raw bytes are not kept around, they are recreated by removing the quotes and escapes.
+     */
+    public void writeBinaryTo(final WriteBuffer writeBuffer) {
+        final byte[] rawBytes = new byte[length - 2];
+        int rawLength = 0;
+        for (int i = 1; i < length - 1; i++) {
+            if (buffer[i] == '\\') {
+                i++;
+            }
+            rawBytes[rawLength++] = buffer[i];
+        }
+        writeBuffer.writeLengthEncodedBinary(rawLength);
+        writeBuffer.writeByteArray(rawBytes, 0, rawLength);
+    }
 }
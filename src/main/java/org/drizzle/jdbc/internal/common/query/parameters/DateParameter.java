@@ -24,35 +24,40 @@
 
 package org.drizzle.jdbc.internal.common.query.parameters;
 
+import org.drizzle.jdbc.internal.common.packet.buffer.WriteBuffer;
+
 import java.io.IOException;
 import java.io.OutputStream;
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Date;
 
 /**
- * Represents a time stamp
+ * Represents a date
  * <p/>
  * User: marcuse Date: Feb 19, 2009 Time: 8:50:52 PM
  */
-public class DateParameter implements ParameterHolder {
+public class DateParameter extends TemporalParameter {
     private final byte[] byteRepresentation;
 
     /**
-     * Represents a timestamp, constructed with time in millis since epoch
+     * Represents a date, constructed with time in millis since epoch
      *
      * @param timestamp the time in millis since epoch
      */
     public DateParameter(final long timestamp) {
-        final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-        byteRepresentation = String.valueOf("'" + sdf.format(new Date(timestamp)) + "'").getBytes();
+        this(timestamp, null);
     }
 
     public DateParameter(final long timestamp, final Calendar cal) {
-        final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-        sdf.setCalendar(cal);
-        byteRepresentation = String.valueOf("'" + sdf.format(new Date(timestamp)) + "'").getBytes();
+        super(timestamp, 0, cal);
+        byteRepresentation = dateLiteral();
+    }
 
+    /**
+     * Represents a local date.
+     */
+    public DateParameter(final int year, final int month, final int day) {
+        super(year, month, day, 0, 0, 0, 0);
+        byteRepresentation = dateLiteral();
     }
 
     public int writeTo(final OutputStream os, int offset, int maxWriteSize) throws IOException {
@@ -64,4 +69,15 @@ public class DateParameter implements ParameterHolder {
     public long length() {
         return byteRepresentation.length;
     }
+
+    public byte getBinaryType() {
+        return 0x0a;
+    }
+
+    public void writeBinaryTo(final WriteBuffer buffer) {
+        buffer.writeByte((byte) 4);
+        buffer.writeShort((short) year);
+        buffer.writeByte((byte) month);
+        buffer.writeByte((byte) day);
+    }
 }
@@ -24,16 +24,20 @@
 
 package org.drizzle.jdbc.internal.common.query.parameters;
 
+import org.drizzle.jdbc.internal.common.packet.buffer.WriteBuffer;
+
 import java.io.IOException;
 import java.io.OutputStream;
 
 /**
  * . User: marcuse Date: Feb 27, 2009 Time: 10:00:38 PM
  */
-public class DoubleParameter implements ParameterHolder {
+public class DoubleParameter implements BinaryParameterHolder {
     private final byte[] byteRepresentation;
+    private final double theDouble;
 
     public DoubleParameter(final double x) {
+        this.theDouble = x;
         byteRepresentation = String.valueOf(x).getBytes();
     }
 
@@ -46,4 +50,12 @@ public class DoubleParameter implements ParameterHolder {
     public long length() {
         return byteRepresentation.length;
     }
+
+    public byte getBinaryType() {
+        return 0x05;
+    }
+
+    public void writeBinaryTo(final WriteBuffer buffer) {
+        buffer.writeLong(Double.doubleToLongBits(theDouble));
+    }
 }
@@ -24,16 +24,20 @@
 
 package org.drizzle.jdbc.internal.common.query.parameters;
 
+import org.drizzle.jdbc.internal.common.packet.buffer.WriteBuffer;
+
 import java.io.IOException;
 import java.io.OutputStream;
 
 /**
  * . User: marcuse Date: Feb 19, 2009 Time: 8:48:15 PM
  */
-public class IntParameter implements ParameterHolder {
+public class IntParameter implements BinaryParameterHolder {
     private final byte[] byteRepresentation;
+    private final int theInt;
 
     public IntParameter(final int theInt) {
+        this.theInt = theInt;
         byteRepresentation = String.valueOf(theInt).getBytes();
     }
 
@@ -46,4 +50,12 @@ public class IntParameter implements ParameterHolder {
     public long length() {
         return byteRepresentation.length;
     }
+
+    public byte getBinaryType() {
+        return 0x03;
+    }
+
+    public void writeBinaryTo(final WriteBuffer buffer) {
+        buffer.writeInt(theInt);
+    }
 }
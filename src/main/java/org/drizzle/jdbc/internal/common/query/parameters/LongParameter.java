@@ -24,16 +24,20 @@
 
 package org.drizzle.jdbc.internal.common.query.parameters;
 
+import org.drizzle.jdbc.internal.common.packet.buffer.WriteBuffer;
+
 import java.io.IOException;
 import java.io.OutputStream;
 
 /**
  * . User: marcuse Date: Feb 19, 2009 Time: 8:50:52 PM
  */
-public class LongParameter implements ParameterHolder {
+public class LongParameter implements BinaryParameterHolder {
     private final byte[] byteRepresentation;
+    private final long theLong;
 
     public LongParameter(final long theLong) {
+        this.theLong = theLong;
         byteRepresentation = String.valueOf(theLong).getBytes();
     }
 
@@ -46,4 +50,12 @@ public class LongParameter implements ParameterHolder {
     public long length() {
         return byteRepresentation.length;
     }
+
+    public byte getBinaryType() {
+        return 0x08;
+    }
+
+    public void writeBinaryTo(final WriteBuffer buffer) {
+        buffer.writeLong(theLong);
+    }
 }
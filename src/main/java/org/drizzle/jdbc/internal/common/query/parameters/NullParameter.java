@@ -24,13 +24,15 @@
 
 package org.drizzle.jdbc.internal.common.query.parameters;
 
+import org.drizzle.jdbc.internal.common.packet.buffer.WriteBuffer;
+
 import java.io.IOException;
 import java.io.OutputStream;
 
 /**
  * . User: marcuse Date: Feb 19, 2009 Time: 9:35:15 PM
  */
-public class NullParameter implements ParameterHolder {
+public class NullParameter implements BinaryParameterHolder {
     private final byte[] byteRepresentation;
 
     public NullParameter() {
@@ -46,4 +48,12 @@ public class NullParameter implements ParameterHolder {
     public long length() {
         return byteRepresentation.length;
     }
+
+    public byte getBinaryType() {
+        return 0x06;
+    }
+
+    public void writeBinaryTo(final WriteBuffer buffer) {
+        // NULL is only marked in the null bitmap
+    }
 }
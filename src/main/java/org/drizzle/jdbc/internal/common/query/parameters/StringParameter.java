@@ -24,7 +24,9 @@
 
 package org.drizzle.jdbc.internal.common.query.parameters;
 
-import static org.drizzle.jdbc.internal.common.Utils.sqlEscapeString;
+import static org.drizzle.jdbc.internal.common.Utils.sqlEscapeAndEncode;
+
+import org.drizzle.jdbc.internal.common.packet.buffer.WriteBuffer;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -33,16 +35,23 @@ import java.io.UnsupportedEncodingException;
 /**
  * User: marcuse Date: Feb 18, 2009 Time: 10:17:14 PM
  */
-public class StringParameter implements ParameterHolder {
+public class StringParameter implements BinaryParameterHolder {
     private final byte[] byteRepresentation;
+    private final String parameter;
 
     public StringParameter(final String parameter) {
-        final String tempParam = "'" + sqlEscapeString(parameter) + "'";
-        try {
-            this.byteRepresentation = tempParam.getBytes("UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException("unsupp encoding: " + e.getMessage(), e);
-        }
+        this(parameter, false);
+    }
+
+    /**
+     * creates a string parameter, the literal is escaped and encoded as UTF-8 in one pass.
+     *
+     * @param parameter          the string
+     * @param noBackslashEscapes true if the NO_BACKSLASH_ESCAPES sql_mode is set
+     */
+    public StringParameter(final String parameter, final boolean noBackslashEscapes) {
+        this.parameter = parameter;
+        this.byteRepresentation = sqlEscapeAndEncode(parameter, noBackslashEscapes);
     }
 
     public int writeTo(final OutputStream os, int offset, int maxWriteSize) throws IOException {
@@ -54,4 +63,16 @@ public class StringParameter implements ParameterHolder {
     public long length() {
         return byteRepresentation.length;
     }
+
+    public byte getBinaryType() {
+        return (byte) 0xfd;
+    }
+
+    public void writeBinaryTo(final WriteBuffer buffer) {
+        try {
+            buffer.writeLengthEncodedBytes(parameter.getBytes("UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException("unsupp encoding: " + e.getMessage(), e);
+        }
+    }
 }
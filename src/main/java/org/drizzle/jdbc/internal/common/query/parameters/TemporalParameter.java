@@ -0,0 +1,210 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.drizzle.jdbc.internal.common.query.parameters;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/**
+ * Base of the date, time and timestamp parameters, holds the local date and time fields of the value and writes
+ * them as text without going through a SimpleDateFormat.
+ * <p/>
+ * The fields are computed from the offset of the time zone of the calendar, or the default time zone. Instants before
+ * 1600 and calendars that are not gregorian are left to Calendar, like SimpleDateFormat would.
+ */
+abstract class TemporalParameter implements BinaryParameterHolder {
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    /**
+     * 1600-01-01, instants before this and calendars that switch to the gregorian calendar after it are left to
+     * Calendar.
+     */
+    private static final long MIN_GREGORIAN_CHANGE = -11676096000000L;
+    private static final int MAX_YEAR = 9999;
+
+    protected final int year;
+    protected final int month;
+    protected final int day;
+    protected final int hour;
+    protected final int minute;
+    protected final int second;
+    protected final int microseconds;
+
+    /**
+     * computes the local fields of an instant.
+     *
+     * @param millis       the time in millis since epoch
+     * @param microseconds the fraction of the second in microseconds, or -1 to take it from millis
+     * @param cal          the calendar, null for the default time zone
+     */
+    protected TemporalParameter(final long millis, final int microseconds, final Calendar cal) {
+        final TimeZone zone = cal == null ? TimeZone.getDefault() : cal.getTimeZone();
+        final long local = millis + zone.getOffset(millis);
+        long days = local / MILLIS_PER_DAY;
+        if (local % MILLIS_PER_DAY < 0) {
+            days--;
+        }
+        final int millisOfDay = (int) (local - days * MILLIS_PER_DAY);
+        final int micros = microseconds < 0 ? millisOfDay % 1000 * 1000 : microseconds;
+        if (millis >= MIN_GREGORIAN_CHANGE && isGregorian(cal)) {
+            // days to civil date, the era arithmetic only works on positive numbers, 1600 is well past 0000-03-01
+            final long z = days + 719468;
+            final long era = z / 146097;
+            final long doe = z - era * 146097;
+            final long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+            final long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+            final long mp = (5 * doy + 2) / 153;
+            final int m = (int) (mp < 10 ? mp + 3 : mp - 9);
+            final int y = (int) (yoe + era * 400 + (m <= 2 ? 1 : 0));
+            if (y <= MAX_YEAR) {
+                this.year = y;
+                this.month = m;
+                this.day = (int) (doy - (153 * mp + 2) / 5 + 1);
+                this.hour = millisOfDay / 3600000;
+                this.minute = millisOfDay / 60000 % 60;
+                this.second = millisOfDay / 1000 % 60;
+                this.microseconds = micros;
+                return;
+            }
+        }
+        final Calendar calendar = cal == null ? new GregorianCalendar() : (Calendar) cal.clone();
+        calendar.setTimeInMillis(millis);
+        this.year = calendar.get(Calendar.YEAR);
+        this.month = calendar.get(Calendar.MONTH) + 1;
+        this.day = calendar.get(Calendar.DAY_OF_MONTH);
+        this.hour = calendar.get(Calendar.HOUR_OF_DAY);
+        this.minute = calendar.get(Calendar.MINUTE);
+        this.second = calendar.get(Calendar.SECOND);
+        this.microseconds = micros;
+    }
+
+    protected TemporalParameter(final int year, final int month, final int day,
+                                final int hour, final int minute, final int second, final int microseconds) {
+        this.year = year;
+        this.month = month;
+        this.day = day;
+        this.hour = hour;
+        this.minute = minute;
+        this.second = second;
+        this.microseconds = microseconds;
+    }
+
+    private static boolean isGregorian(final Calendar cal) {
+        return cal == null
+                || cal instanceof GregorianCalendar
+                && ((GregorianCalendar) cal).getGregorianChange().getTime() <= MIN_GREGORIAN_CHANGE;
+    }
+
+    /**
+     * @return the length of the year, which is at least four digits
+     */
+    private int yearLength() {
+        int length = 4;
+        for (int y = year / 10000; y > 0; y /= 10) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * @return the length of the fraction including the dot, milliseconds are written with three digits
+     */
+    private int fractionLength() {
+        if (microseconds == 0) {
+            return 0;
+        }
+        return microseconds % 1000 == 0 ? 4 : 7;
+    }
+
+    /**
+     * @return the quoted date, 'YYYY-MM-DD'
+     */
+    protected byte[] dateLiteral() {
+        final byte[] b = new byte[yearLength() + 8];
+        b[0] = '\'';
+        final int pos = writeDate(b, 1);
+        b[pos] = '\'';
+        return b;
+    }
+
+    /**
+     * @return the quoted time, 'HH:MM:SS[.fff[fff]]'
+     */
+    protected byte[] timeLiteral() {
+        final byte[] b = new byte[10 + fractionLength()];
+        b[0] = '\'';
+        final int pos = writeTime(b, 1);
+        b[pos] = '\'';
+        return b;
+    }
+
+    /**
+     * @return the quoted date and time, 'YYYY-MM-DD HH:MM:SS[.fff[fff]]'
+     */
+    protected byte[] dateTimeLiteral() {
+        final byte[] b = new byte[yearLength() + 17 + fractionLength()];
+        b[0] = '\'';
+        int pos = writeDate(b, 1);
+        b[pos++] = ' ';
+        pos = writeTime(b, pos);
+        b[pos] = '\'';
+        return b;
+    }
+
+    private int writeDate(final byte[] b, final int offset) {
+        int pos = offset + yearLength();
+        for (int y = year, i = pos - 1; i >= offset; i--, y /= 10) {
+            b[i] = (byte) ('0' + y % 10);
+        }
+        b[pos++] = '-';
+        pos = writeTwoDigits(b, pos, month);
+        b[pos++] = '-';
+        return writeTwoDigits(b, pos, day);
+    }
+
+    private int writeTime(final byte[] b, final int offset) {
+        int pos = writeTwoDigits(b, offset, hour);
+        b[pos++] = ':';
+        pos = writeTwoDigits(b, pos, minute);
+        b[pos++] = ':';
+        pos = writeTwoDigits(b, pos, second);
+        final int fractionLength = fractionLength();
+        if (fractionLength > 0) {
+            b[pos++] = '.';
+            int fraction = fractionLength == 4 ? microseconds / 1000 : microseconds;
+            for (int i = pos + fractionLength - 2; i >= pos; i--, fraction /= 10) {
+                b[i] = (byte) ('0' + fraction % 10);
+            }
+            pos += fractionLength - 1;
+        }
+        return pos;
+    }
+
+    private static int writeTwoDigits(final byte[] b, final int pos, final int value) {
+        b[pos] = (byte) ('0' + value / 10);
+        b[pos + 1] = (byte) ('0' + value % 10);
+        return pos + 2;
+    }
+}
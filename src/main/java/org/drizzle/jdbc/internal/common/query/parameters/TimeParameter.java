@@ -24,21 +24,32 @@
 
 package org.drizzle.jdbc.internal.common.query.parameters;
 
-import org.drizzle.jdbc.internal.common.Utils;
+import org.drizzle.jdbc.internal.common.packet.buffer.WriteBuffer;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.Calendar;
 
 /**
  */
-public class TimeParameter implements ParameterHolder {
+public class TimeParameter extends TemporalParameter {
     private final byte[] byteRepresentation;
 
     public TimeParameter(final long timestamp) {
-        SimpleDateFormat sdf = new SimpleDateFormat("HH:mm:ss.SSS");
-        byteRepresentation = ("'"+sdf.format(new Date(timestamp))+"'").getBytes();
+        this(timestamp, null);
+    }
+
+    public TimeParameter(final long timestamp, final Calendar cal) {
+        super(timestamp, -1, cal);
+        byteRepresentation = timeLiteral();
+    }
+
+    /**
+     * Represents a local time.
+     */
+    public TimeParameter(final int hour, final int minute, final int second, final int microseconds) {
+        super(0, 0, 0, hour, minute, second, microseconds);
+        byteRepresentation = timeLiteral();
     }
 
     public int writeTo(final OutputStream os, int offset, int maxWriteSize) throws IOException {
@@ -50,4 +61,18 @@ public class TimeParameter implements ParameterHolder {
     public long length() {
         return byteRepresentation.length;
     }
+
+    public byte getBinaryType() {
+        return 0x0b;
+    }
+
+    public void writeBinaryTo(final WriteBuffer buffer) {
+        buffer.writeByte((byte) 12);
+        buffer.writeByte((byte) 0);
+        buffer.writeInt(0);
+        buffer.writeByte((byte) hour);
+        buffer.writeByte((byte) minute);
+        buffer.writeByte((byte) second);
+        buffer.writeInt(microseconds);
+    }
 }
@@ -24,18 +24,18 @@
 
 package org.drizzle.jdbc.internal.common.query.parameters;
 
+import org.drizzle.jdbc.internal.common.packet.buffer.WriteBuffer;
+
 import java.io.IOException;
 import java.io.OutputStream;
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Date;
 
 /**
  * Represents a time stamp
  * <p/>
  * User: marcuse Date: Feb 19, 2009 Time: 8:50:52 PM
  */
-public class TimestampParameter implements ParameterHolder {
+public class TimestampParameter extends TemporalParameter {
     private final byte[] byteRepresentation;
 
     /**
@@ -44,15 +44,32 @@ public class TimestampParameter implements ParameterHolder {
      * @param timestamp the time in millis since epoch
      */
     public TimestampParameter(final long timestamp) {
-        final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
-        byteRepresentation = String.valueOf("'" + sdf.format(new Date(timestamp)) + "'").getBytes();
+        this(timestamp, null);
     }
 
     public TimestampParameter(final long timestamp, final Calendar cal) {
-        final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
-        sdf.setCalendar(cal);
-        byteRepresentation = String.valueOf("'" + sdf.format(new Date(timestamp)) + "'").getBytes();
+        this(timestamp, -1, cal);
+    }
+
+    /**
+     * Represents a timestamp with a fraction of microseconds, like a java.sql.Timestamp.
+     *
+     * @param timestamp the time in millis since epoch
+     * @param nanos     the fractional seconds in nanoseconds, truncated to microseconds
+     * @param cal       the calendar to take the time zone from, null for the default time zone
+     */
+    public TimestampParameter(final long timestamp, final int nanos, final Calendar cal) {
+        super(timestamp, nanos < 0 ? -1 : nanos / 1000, cal);
+        byteRepresentation = dateTimeLiteral();
+    }
 
+    /**
+     * Represents a local date and time.
+     */
+    public TimestampParameter(final int year, final int month, final int day,
+                              final int hour, final int minute, final int second, final int microseconds) {
+        super(year, month, day, hour, minute, second, microseconds);
+        byteRepresentation = dateTimeLiteral();
     }
 
     public int writeTo(final OutputStream os, int offset, int maxWriteSize) throws IOException {
@@ -64,4 +81,19 @@ public class TimestampParameter implements ParameterHolder {
     public long length() {
         return byteRepresentation.length;
     }
+
+    public byte getBinaryType() {
+        return 0x0c;
+    }
+
+    public void writeBinaryTo(final WriteBuffer buffer) {
+        buffer.writeByte((byte) 11);
+        buffer.writeShort((short) year);
+        buffer.writeByte((byte) month);
+        buffer.writeByte((byte) day);
+        buffer.writeByte((byte) hour);
+        buffer.writeByte((byte) minute);
+        buffer.writeByte((byte) second);
+        buffer.writeInt(microseconds);
+    }
 }
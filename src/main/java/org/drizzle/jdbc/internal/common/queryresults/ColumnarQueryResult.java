@@ -0,0 +1,75 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.drizzle.jdbc.internal.common.queryresults;
+
+/**
+ * A buffered result that stores each column in its own array, integer columns as longs and floating point columns as
+ * doubles, so they can be read without creating a value object.
+ */
+public interface ColumnarQueryResult extends SelectQueryResult {
+    /**
+     * true if the column is stored as longs, then getLong can be used.
+     *
+     * @param index the column, starts at 0
+     * @return true if the column is stored as longs, false if not or if there is no such column
+     */
+    boolean isLongColumn(int index);
+
+    /**
+     * true if the column is stored as doubles, then getDouble can be used.
+     *
+     * @param index the column, starts at 0
+     * @return true if the column is stored as doubles, false if not or if there is no such column
+     */
+    boolean isDoubleColumn(int index);
+
+    /**
+     * checks if the value in the current row is NULL.
+     *
+     * @param index the column, starts at 0
+     * @return true if the value is NULL
+     * @throws NoSuchColumnException if the column does not exist, there is no current row or the result is closed
+     */
+    boolean isNull(int index) throws NoSuchColumnException;
+
+    /**
+     * gets the value in the current row of a column stored as longs, 0 for NULL.
+     *
+     * @param index the column, starts at 0
+     * @return the value
+     * @throws NoSuchColumnException if the column is not stored as longs, there is no current row or the result is
+     *                               closed
+     */
+    long getLong(int index) throws NoSuchColumnException;
+
+    /**
+     * gets the value in the current row of a column stored as doubles, 0 for NULL.
+     *
+     * @param index the column, starts at 0
+     * @return the value
+     * @throws NoSuchColumnException if the column is not stored as doubles, there is no current row or the result is
+     *                               closed
+     */
+    double getDouble(int index) throws NoSuchColumnException;
+}
@@ -0,0 +1,104 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.drizzle.jdbc.internal.common.queryresults;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The off-heap memory a connection may use for buffered results, and counters of how often results did not fit and
+ * were spilled to disk.
+ * <p/>
+ * All results of a connection share one budget, memory is reserved while rows are read and given back when the result
+ * is closed.
+ */
+public final class ResultBufferBudget {
+    private final long budget;
+    private long bytesInUse;
+    private final AtomicLong spilledResults = new AtomicLong();
+    private final AtomicLong spilledBytes = new AtomicLong();
+
+    /**
+     * create a budget.
+     *
+     * @param budget the number of bytes of off-heap memory results may use
+     */
+    public ResultBufferBudget(final long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * reserves off-heap memory.
+     *
+     * @param bytes the number of bytes wanted
+     * @return true if the bytes were reserved, false if that would exceed the budget
+     */
+    public synchronized boolean reserve(final long bytes) {
+        if (bytesInUse + bytes > budget) {
+            return false;
+        }
+        bytesInUse += bytes;
+        return true;
+    }
+
+    /**
+     * gives back memory reserved with reserve.
+     *
+     * @param bytes the number of bytes
+     */
+    public synchronized void release(final long bytes) {
+        bytesInUse -= bytes;
+    }
+
+    /**
+     * records that a result was spilled to disk.
+     *
+     * @param bytes the number of row bytes written to disk
+     */
+    public void recordSpill(final long bytes) {
+        spilledResults.incrementAndGet();
+        spilledBytes.addAndGet(bytes);
+    }
+
+    public long getBudget() {
+        return budget;
+    }
+
+    public synchronized long getBytesInUse() {
+        return bytesInUse;
+    }
+
+    /**
+     * @return the number of results that did not fit in the budget and were partly stored on disk
+     */
+    public long getSpilledResults() {
+        return spilledResults.get();
+    }
+
+    /**
+     * @return the total number of row bytes written to disk
+     */
+    public long getSpilledBytes() {
+        return spilledBytes.get();
+    }
+}
@@ -24,6 +24,7 @@
 
 package org.drizzle.jdbc.internal.common.queryresults;
 
+import org.drizzle.jdbc.internal.common.QueryException;
 import org.drizzle.jdbc.internal.common.ValueObject;
 
 /**
@@ -77,6 +78,7 @@ public interface SelectQueryResult extends QueryResult {
      * move pointer forward
      *
      * @return true if there is another row
+     * @throws QueryException if the next row could not be read from the server
      */
-    boolean next();
+    boolean next() throws QueryException;
 }
@@ -0,0 +1,192 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.drizzle.jdbc.internal.common.queryresults;
+
+import org.drizzle.jdbc.internal.common.ColumnInformation;
+import org.drizzle.jdbc.internal.common.QueryException;
+import org.drizzle.jdbc.internal.common.ValueObject;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * A forward only result that reads one row at a time from the server instead of buffering the whole result.
+ * <p/>
+ * The connection is busy until all rows have been read, so close() drains whatever is left on the wire. Subclasses
+ * provide the protocol specific reading of rows.
+ */
+public abstract class StreamingQueryResult implements SelectQueryResult {
+    private final static Logger log = Logger.getLogger(StreamingQueryResult.class.getName());
+    private final List<ColumnInformation> columnInformation;
+    private final Map<String, Integer> columnNameMap;
+    private List<ValueObject> currentRow;
+    private int rowPointer;
+    private int rowsRead;
+    private boolean exhausted;
+    private short warningCount;
+
+    protected StreamingQueryResult(final List<ColumnInformation> columnInformation) {
+        this.columnInformation = columnInformation;
+        this.columnNameMap = new HashMap<String, Integer>();
+        this.rowPointer = -1;
+        int i = 0;
+        for (final ColumnInformation ci : columnInformation) {
+            columnNameMap.put(ci.getTable().toLowerCase() + "." + ci.getName().toLowerCase(), i);
+            columnNameMap.put(ci.getName().toLowerCase(), i++);
+        }
+    }
+
+    /**
+     * reads the next row from the server.
+     *
+     * @return the next row, or null if there are no more rows
+     * @throws QueryException if the row could not be read
+     */
+    protected abstract List<ValueObject> readRow() throws QueryException;
+
+    /**
+     * reads and throws away all rows left on the wire, without decoding them.
+     *
+     * @throws QueryException if the rows could not be read
+     */
+    protected abstract void skipRemainingRows() throws QueryException;
+
+    public boolean next() throws QueryException {
+        if (exhausted) {
+            rowPointer = rowsRead;
+            currentRow = null;
+            return false;
+        }
+        try {
+            currentRow = readRow();
+        } catch (QueryException e) {
+            exhausted = true;
+            currentRow = null;
+            throw e;
+        }
+        if (currentRow == null) {
+            exhausted = true;
+            rowPointer = rowsRead;
+            return false;
+        }
+        rowPointer = rowsRead++;
+        return true;
+    }
+
+    /**
+     * reads all remaining rows off the wire so that the connection can be used again.
+     *
+     * @throws QueryException if the rows could not be read
+     */
+    public void drain() throws QueryException {
+        if (!exhausted) {
+            exhausted = true;
+            currentRow = null;
+            skipRemainingRows();
+        }
+    }
+
+    /**
+     * true if all rows have been read from the server.
+     *
+     * @return true if there are no more rows on the wire
+     */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    public void close() {
+        try {
+            drain();
+        } catch (QueryException e) {
+            log.warning("Could not drain streaming result: " + e.getMessage());
+        }
+        currentRow = null;
+        columnNameMap.clear();
+    }
+
+    protected void setWarnings(final short warningCount) {
+        this.warningCount = warningCount;
+    }
+
+    public short getWarnings() {
+        return warningCount;
+    }
+
+    public String getMessage() {
+        return null;
+    }
+
+    public List<ColumnInformation> getColumnInformation() {
+        return columnInformation;
+    }
+
+    /**
+     * returns the number of rows read so far, the total number of rows is not known until the result is exhausted.
+     *
+     * @return the number of rows read
+     */
+    public int getRows() {
+        return rowsRead;
+    }
+
+    public ValueObject getValueObject(final int i) throws NoSuchColumnException {
+        if (currentRow == null) {
+            throw new NoSuchColumnException("No current row");
+        }
+        if (i < 0 || i >= currentRow.size()) {
+            throw new NoSuchColumnException("No such column: " + i);
+        }
+        return currentRow.get(i);
+    }
+
+    public ValueObject getValueObject(final String column) throws NoSuchColumnException {
+        return getValueObject(getColumnId(column));
+    }
+
+    public int getColumnId(final String columnLabel) throws NoSuchColumnException {
+        final Integer id = columnNameMap.get(columnLabel.toLowerCase());
+        if (id == null) {
+            throw new NoSuchColumnException("No such column: " + columnLabel);
+        }
+        return id;
+    }
+
+    public void moveRowPointerTo(final int i) {
+        if (i != rowPointer) {
+            throw new UnsupportedOperationException("Streaming results are forward only");
+        }
+    }
+
+    public int getRowPointer() {
+        return rowPointer;
+    }
+
+    public ResultSetType getResultSetType() {
+        return ResultSetType.SELECT;
+    }
+}
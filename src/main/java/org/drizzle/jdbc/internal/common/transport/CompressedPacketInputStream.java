@@ -0,0 +1,157 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.drizzle.jdbc.internal.common.transport;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads packets in the compressed protocol and returns the uncompressed stream of normal packets.
+ */
+public class CompressedPacketInputStream extends InputStream {
+    private static final int HEADER_LENGTH = 7;
+
+    private final InputStream inputStream;
+    private final CompressedPacketOutputStream outputStream;
+    private final Inflater inflater = new Inflater();
+    private final byte[] header = new byte[HEADER_LENGTH];
+    private byte[] compressed = new byte[8192];
+    private byte[] buffer = new byte[8192];
+    private int position;
+    private int limit;
+
+    /**
+     * create a compressed stream
+     *
+     * @param inputStream  the stream to read compressed packets from
+     * @param outputStream the compressed stream writing to the same connection, shares the sequence number
+     */
+    public CompressedPacketInputStream(final InputStream inputStream, final CompressedPacketOutputStream outputStream) {
+        this.inputStream = inputStream;
+        this.outputStream = outputStream;
+    }
+
+    private void readFully(final byte[] b, final int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            final int nr = inputStream.read(b, read, length - read);
+            if (nr == -1) {
+                throw new EOFException("EOF. Expected " + length + ", got " + read);
+            }
+            read += nr;
+        }
+    }
+
+    /**
+     * reads the next compressed packet into the buffer.
+     *
+     * @return false at end of stream
+     */
+    private boolean nextPacket() throws IOException {
+        final int first = inputStream.read();
+        if (first == -1) {
+            return false;
+        }
+        header[0] = (byte) first;
+        readFully(header, HEADER_LENGTH - 1);
+        final int length = (first & 0xff) + ((header[0] & 0xff) << 8) + ((header[1] & 0xff) << 16);
+        outputStream.setSequence((byte) (header[2] + 1));
+        final int uncompressedLength = (header[3] & 0xff) + ((header[4] & 0xff) << 8) + ((header[5] & 0xff) << 16);
+
+        if (uncompressedLength == 0) {
+            ensureBuffer(length);
+            readFully(buffer, length);
+            limit = length;
+        } else {
+            if (compressed.length < length) {
+                compressed = new byte[length];
+            }
+            readFully(compressed, length);
+            ensureBuffer(uncompressedLength);
+            inflater.reset();
+            inflater.setInput(compressed, 0, length);
+            try {
+                int inflated = 0;
+                while (inflated < uncompressedLength) {
+                    final int nr = inflater.inflate(buffer, inflated, uncompressedLength - inflated);
+                    if (nr == 0 && (inflater.finished() || inflater.needsInput())) {
+                        throw new IOException("Compressed packet inflated to " + inflated + " bytes, expected " + uncompressedLength);
+                    }
+                    inflated += nr;
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Could not inflate packet: " + e.getMessage());
+            }
+            limit = uncompressedLength;
+        }
+        position = 0;
+        return true;
+    }
+
+    private void ensureBuffer(final int length) {
+        if (buffer.length < length) {
+            buffer = new byte[length];
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (position == limit) {
+            if (!nextPacket()) {
+                return -1;
+            }
+        }
+        return buffer[position++] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (position == limit) {
+            if (!nextPacket()) {
+                return -1;
+            }
+        }
+        final int chunk = Math.min(len, limit - position);
+        System.arraycopy(buffer, position, b, off, chunk);
+        position += chunk;
+        return chunk;
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        inputStream.close();
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.drizzle.jdbc.internal.common.transport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * Writes packets in the compressed protocol. Everything written is buffered until flush, then sent as compressed
+ * packets: a 3 byte compressed length, a sequence number, the 3 byte uncompressed length and the zlib compressed
+ * payload. Payloads shorter than the threshold, or that do not get smaller, are sent as is with uncompressed length 0.
+ */
+public class CompressedPacketOutputStream extends OutputStream {
+    private static final int MAX_PACKET_LENGTH = 0xffffff;
+    private static final int HEADER_LENGTH = 7;
+
+    private final OutputStream outputStream;
+    private final int threshold;
+    private final Deflater deflater = new Deflater();
+    private byte[] buffer = new byte[8192];
+    private int count;
+    private byte[] compressed = new byte[8192 + HEADER_LENGTH];
+    private byte sequence;
+
+    /**
+     * create a compressed stream
+     *
+     * @param outputStream the stream to write compressed packets to
+     * @param threshold    payloads smaller than this are not compressed
+     */
+    public CompressedPacketOutputStream(final OutputStream outputStream, final int threshold) {
+        this.outputStream = outputStream;
+        this.threshold = threshold;
+    }
+
+    /**
+     * the compressed sequence continues from the last compressed packet the server sent within a command.
+     *
+     * @param sequence the sequence number of the next packet to send
+     */
+    void setSequence(final byte sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * starts the compressed sequence of a new command at 0, anything still buffered belongs to the previous command and
+     * is written first.
+     *
+     * @throws IOException if the buffered bytes could not be written
+     */
+    public void resetSequence() throws IOException {
+        if (count > 0) {
+            writeFrame(0, count);
+            count = 0;
+        }
+        sequence = 0;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        ensureCapacity(1);
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        int written = 0;
+        while (written < len) {
+            if (count == MAX_PACKET_LENGTH) {
+                writeFrame(0, count);
+                count = 0;
+            }
+            final int chunk = Math.min(len - written, MAX_PACKET_LENGTH - count);
+            ensureCapacity(chunk);
+            System.arraycopy(b, off + written, buffer, count, chunk);
+            count += chunk;
+            written += chunk;
+        }
+    }
+
+    private void ensureCapacity(final int length) throws IOException {
+        if (count + length > MAX_PACKET_LENGTH) {
+            writeFrame(0, count);
+            count = 0;
+        }
+        if (count + length > buffer.length) {
+            final byte[] newBuffer = new byte[Math.max(buffer.length * 2, count + length)];
+            System.arraycopy(buffer, 0, newBuffer, 0, count);
+            buffer = newBuffer;
+        }
+    }
+
+    /**
+     * writes one compressed packet.
+     */
+    private void writeFrame(final int offset, final int length) throws IOException {
+        int compressedLength = 0;
+        if (length >= threshold) {
+            if (compressed.length < length + HEADER_LENGTH) {
+                compressed = new byte[length + HEADER_LENGTH];
+            }
+            deflater.reset();
+            deflater.setInput(buffer, offset, length);
+            deflater.finish();
+            // only keep the compressed version if it is smaller
+            while (!deflater.finished() && compressedLength < length) {
+                compressedLength += deflater.deflate(compressed, HEADER_LENGTH + compressedLength, length - compressedLength);
+            }
+            if (!deflater.finished()) {
+                compressedLength = 0;
+            }
+        }
+        if (compressedLength > 0) {
+            writeHeader(compressed, compressedLength, length);
+            outputStream.write(compressed, 0, HEADER_LENGTH + compressedLength);
+        } else {
+            final byte[] header = new byte[HEADER_LENGTH];
+            writeHeader(header, length, 0);
+            outputStream.write(header);
+            outputStream.write(buffer, offset, length);
+        }
+    }
+
+    private void writeHeader(final byte[] dest, final int length, final int uncompressedLength) {
+        dest[0] = (byte) length;
+        dest[1] = (byte) (length >>> 8);
+        dest[2] = (byte) (length >>> 16);
+        dest[3] = sequence++;
+        dest[4] = (byte) uncompressedLength;
+        dest[5] = (byte) (uncompressedLength >>> 8);
+        dest[6] = (byte) (uncompressedLength >>> 16);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (count > 0) {
+            writeFrame(0, count);
+            count = 0;
+        }
+        outputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        deflater.end();
+        outputStream.close();
+    }
+}
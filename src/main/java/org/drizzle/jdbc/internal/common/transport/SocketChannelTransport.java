@@ -0,0 +1,389 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.drizzle.jdbc.internal.common.transport;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Transport over a blocking nio SocketChannel.
+ * <p/>
+ * Reads and writes go through one read and one write buffer that can be direct buffers. Writes bigger than the write
+ * buffer are not copied, the buffered bytes (the packet header) and the payload are sent with a gathering write. TLS is
+ * done with an SSLEngine, the engine encrypts straight from the write buffer and the payload and decrypts into the
+ * read buffer.
+ */
+public class SocketChannelTransport implements Transport {
+    private static final ByteBuffer[] NO_DATA = new ByteBuffer[]{ByteBuffer.allocate(0)};
+
+    private final TransportOptions options;
+    private final SocketChannel channel;
+    private final InputStream inputStream;
+    private final OutputStream outputStream;
+    /**
+     * data read but not consumed is between position and limit.
+     */
+    private ByteBuffer readBuffer;
+    /**
+     * data to write is between 0 and position.
+     */
+    private final ByteBuffer writeBuffer;
+
+    private SSLEngine sslEngine;
+    /**
+     * encrypted data read from the channel and not yet decrypted, kept in write mode.
+     */
+    private ByteBuffer netIn;
+    private ByteBuffer netOut;
+
+    /**
+     * connects to the server
+     *
+     * @param host    the host to connect to
+     * @param port    the port to connect to
+     * @param options the transport settings
+     * @throws IOException if the connection could not be made
+     */
+    public SocketChannelTransport(final String host, final int port, final TransportOptions options) throws IOException {
+        this.options = options;
+        channel = SocketChannel.open();
+        try {
+            options.configure(channel.socket());
+            channel.socket().connect(new InetSocketAddress(host, port), options.getConnectTimeout());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        readBuffer = allocate(options.getBufferSize());
+        readBuffer.limit(0);
+        writeBuffer = allocate(options.getBufferSize());
+        inputStream = new ChannelInputStream();
+        outputStream = new ChannelOutputStream();
+    }
+
+    private ByteBuffer allocate(final int size) {
+        return options.useDirectBuffers() ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    }
+
+    public InputStream getInputStream() {
+        return inputStream;
+    }
+
+    public OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    /**
+     * reads into dst, which must be empty and at least as big as the TLS application buffer when TLS is used.
+     *
+     * @return the number of bytes read or -1 at end of stream
+     */
+    private int read(final ByteBuffer dst) throws IOException {
+        if (sslEngine == null) {
+            int nr = 0;
+            while (nr == 0) {
+                nr = channel.read(dst);
+            }
+            return nr;
+        }
+        while (true) {
+            netIn.flip();
+            final SSLEngineResult result = sslEngine.unwrap(netIn, dst);
+            netIn.compact();
+            runDelegatedTasks(result);
+            switch (result.getStatus()) {
+                case OK:
+                    if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+                        handshake();
+                    }
+                    if (dst.position() > 0) {
+                        return dst.position();
+                    }
+                    break;
+                case BUFFER_UNDERFLOW:
+                    if (readNetwork() == -1) {
+                        return -1;
+                    }
+                    break;
+                case CLOSED:
+                    return -1;
+                default:
+                    throw new SSLException("Unexpected TLS state when reading: " + result.getStatus());
+            }
+        }
+    }
+
+    /**
+     * writes all remaining bytes in the buffers.
+     */
+    private void write(final ByteBuffer[] srcs) throws IOException {
+        if (sslEngine == null) {
+            while (hasRemaining(srcs)) {
+                channel.write(srcs);
+            }
+            return;
+        }
+        while (hasRemaining(srcs)) {
+            wrap(srcs);
+        }
+    }
+
+    private static boolean hasRemaining(final ByteBuffer[] buffers) {
+        for (final ByteBuffer buffer : buffers) {
+            if (buffer.hasRemaining()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeFully(final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * encrypts as much as fits in one TLS record and sends it.
+     */
+    private SSLEngineResult wrap(final ByteBuffer[] srcs) throws IOException {
+        netOut.clear();
+        final SSLEngineResult result = sslEngine.wrap(srcs, netOut);
+        runDelegatedTasks(result);
+        if (result.getStatus() != SSLEngineResult.Status.OK && result.getStatus() != SSLEngineResult.Status.CLOSED) {
+            throw new SSLException("Unexpected TLS state when writing: " + result.getStatus());
+        }
+        netOut.flip();
+        writeFully(netOut);
+        return result;
+    }
+
+    /**
+     * reads encrypted data from the channel into netIn, grows netIn if it is full.
+     */
+    private int readNetwork() throws IOException {
+        if (!netIn.hasRemaining()) {
+            final ByteBuffer bigger = allocate(netIn.capacity() * 2);
+            netIn.flip();
+            bigger.put(netIn);
+            netIn = bigger;
+        }
+        return channel.read(netIn);
+    }
+
+    private void runDelegatedTasks(final SSLEngineResult result) {
+        if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+            Runnable task;
+            while ((task = sslEngine.getDelegatedTask()) != null) {
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * runs the handshake until the engine does not need to send or receive handshake messages.
+     */
+    private void handshake() throws IOException {
+        while (true) {
+            switch (sslEngine.getHandshakeStatus()) {
+                case NEED_WRAP:
+                    wrap(NO_DATA);
+                    break;
+                case NEED_UNWRAP:
+                    netIn.flip();
+                    final SSLEngineResult result = sslEngine.unwrap(netIn, readBuffer);
+                    netIn.compact();
+                    runDelegatedTasks(result);
+                    if (result.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+                        if (readNetwork() == -1) {
+                            throw new EOFException("Connection closed during TLS handshake");
+                        }
+                    } else if (result.getStatus() != SSLEngineResult.Status.OK) {
+                        throw new SSLException("Unexpected TLS state in handshake: " + result.getStatus());
+                    }
+                    break;
+                case NEED_TASK:
+                    Runnable task;
+                    while ((task = sslEngine.getDelegatedTask()) != null) {
+                        task.run();
+                    }
+                    break;
+                default:
+                    return;
+            }
+        }
+    }
+
+    /**
+     * without TLS the file is handed to the socket with FileChannel.transferTo, which lets the kernel send it without
+     * copying it through the jvm. With TLS it has to be encrypted so it goes through the output stream.
+     */
+    public void transferFrom(final FileChannel source, final long position, final long count) throws IOException {
+        outputStream.flush();
+        final WritableByteChannel target = sslEngine == null ? channel : Channels.newChannel(outputStream);
+        long sent = 0;
+        while (sent < count) {
+            final long nr = source.transferTo(position + sent, count - sent, target);
+            if (nr <= 0) {
+                throw new EOFException("File ended after " + sent + " of " + count + " bytes");
+            }
+            sent += nr;
+        }
+        outputStream.flush();
+    }
+
+    public void startTls() throws IOException {
+        outputStream.flush();
+        try {
+            sslEngine = SSLContext.getDefault().createSSLEngine(
+                    channel.socket().getInetAddress().getHostAddress(),
+                    channel.socket().getPort());
+        } catch (NoSuchAlgorithmException e) {
+            throw new SSLException("Could not create TLS engine: " + e.getMessage(), e);
+        }
+        sslEngine.setEnabledProtocols(new String[]{"TLSv1"});
+        sslEngine.setUseClientMode(true);
+        netIn = allocate(sslEngine.getSession().getPacketBufferSize());
+        netOut = allocate(sslEngine.getSession().getPacketBufferSize());
+        if (readBuffer.capacity() < sslEngine.getSession().getApplicationBufferSize()) {
+            readBuffer = allocate(sslEngine.getSession().getApplicationBufferSize());
+        }
+        readBuffer.clear();
+        sslEngine.beginHandshake();
+        handshake();
+        readBuffer.flip();
+    }
+
+    public void shutdownInput() throws IOException {
+        if (sslEngine == null) {
+            channel.socket().shutdownInput();
+        }
+    }
+
+    public void close() throws IOException {
+        try {
+            outputStream.flush();
+            if (sslEngine == null) {
+                channel.socket().shutdownOutput();
+            } else {
+                sslEngine.closeOutbound();
+                while (!sslEngine.isOutboundDone()) {
+                    wrap(NO_DATA);
+                }
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    private class ChannelInputStream extends InputStream {
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!readBuffer.hasRemaining()) {
+                readBuffer.clear();
+                final int nr = SocketChannelTransport.this.read(readBuffer);
+                readBuffer.flip();
+                if (nr == -1) {
+                    return -1;
+                }
+            }
+            final int chunk = Math.min(len, readBuffer.remaining());
+            readBuffer.get(b, off, chunk);
+            return chunk;
+        }
+
+        @Override
+        public int available() {
+            return readBuffer.remaining();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private class ChannelOutputStream extends OutputStream {
+        @Override
+        public void write(final int b) throws IOException {
+            if (!writeBuffer.hasRemaining()) {
+                flush();
+            }
+            writeBuffer.put((byte) b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            if (len <= writeBuffer.remaining()) {
+                writeBuffer.put(b, off, len);
+                return;
+            }
+            if (len < writeBuffer.capacity()) {
+                flush();
+                writeBuffer.put(b, off, len);
+                return;
+            }
+            writeBuffer.flip();
+            SocketChannelTransport.this.write(new ByteBuffer[]{writeBuffer, ByteBuffer.wrap(b, off, len)});
+            writeBuffer.clear();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (writeBuffer.position() == 0) {
+                return;
+            }
+            writeBuffer.flip();
+            SocketChannelTransport.this.write(new ByteBuffer[]{writeBuffer});
+            writeBuffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.drizzle.jdbc.internal.common.transport;
+
+import javax.net.SocketFactory;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Transport over a plain java.net.Socket, TLS is done with an SSLSocket layered over the socket.
+ */
+public class SocketTransport implements Transport {
+    private final TransportOptions options;
+    private Socket socket;
+    private InputStream inputStream;
+    private OutputStream outputStream;
+    private ByteBuffer transferBuffer;
+
+    /**
+     * connects to the server
+     *
+     * @param host    the host to connect to
+     * @param port    the port to connect to
+     * @param options the transport settings
+     * @throws IOException if the connection could not be made
+     */
+    public SocketTransport(final String host, final int port, final TransportOptions options) throws IOException {
+        this.options = options;
+        socket = SocketFactory.getDefault().createSocket();
+        options.configure(socket);
+        socket.connect(new InetSocketAddress(host, port), options.getConnectTimeout());
+        setStreams();
+    }
+
+    private void setStreams() throws IOException {
+        inputStream = socket.getInputStream();
+        outputStream = new BufferedOutputStream(socket.getOutputStream(), options.getBufferSize());
+    }
+
+    public InputStream getInputStream() {
+        return inputStream;
+    }
+
+    public OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    /**
+     * a plain socket has no channel so the file is read into a buffer and written straight to the socket stream.
+     */
+    public void transferFrom(final FileChannel source, final long position, final long count) throws IOException {
+        outputStream.flush();
+        if (transferBuffer == null) {
+            transferBuffer = ByteBuffer.allocate(options.getBufferSize());
+        }
+        final OutputStream socketOutput = socket.getOutputStream();
+        long sent = 0;
+        while (sent < count) {
+            transferBuffer.clear();
+            if (count - sent < transferBuffer.capacity()) {
+                transferBuffer.limit((int) (count - sent));
+            }
+            final int nr = source.read(transferBuffer, position + sent);
+            if (nr <= 0) {
+                throw new EOFException("File ended after " + sent + " of " + count + " bytes");
+            }
+            socketOutput.write(transferBuffer.array(), 0, nr);
+            sent += nr;
+        }
+    }
+
+    public void startTls() throws IOException {
+        outputStream.flush();
+        final SSLSocketFactory sslSocketFactory = (SSLSocketFactory) SSLSocketFactory.getDefault();
+        final SSLSocket sslSocket = (SSLSocket) sslSocketFactory.createSocket(socket,
+                socket.getInetAddress().getHostAddress(),
+                socket.getPort(),
+                false);
+        sslSocket.setEnabledProtocols(new String[]{"TLSv1"});
+        sslSocket.setUseClientMode(true);
+        sslSocket.startHandshake();
+        socket = sslSocket;
+        setStreams();
+    }
+
+    public void shutdownInput() throws IOException {
+        if (!(socket instanceof SSLSocket)) {
+            socket.shutdownInput();
+        }
+    }
+
+    public void close() throws IOException {
+        try {
+            if (!(socket instanceof SSLSocket)) {
+                socket.shutdownOutput();
+            }
+            outputStream.close();
+        } finally {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.drizzle.jdbc.internal.common.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+
+/**
+ * The connection to the server that the protocol reads packets from and writes packets to.
+ */
+public interface Transport {
+    /**
+     * Get the stream to read from the server, it is not buffered since the packet fetcher does its own buffering.
+     *
+     * @return the input stream
+     */
+    InputStream getInputStream();
+
+    /**
+     * Get the buffered stream to write to the server, nothing is sent until it is flushed.
+     *
+     * @return the output stream
+     */
+    OutputStream getOutputStream();
+
+    /**
+     * Writes count bytes of the file starting at position to the server, bypassing the output stream. The output
+     * stream is flushed first so that anything written to it goes before the file data.
+     *
+     * @param source   the file to send
+     * @param position where in the file to start
+     * @param count    the number of bytes to send
+     * @throws IOException if the file could not be read or the data could not be written
+     */
+    void transferFrom(FileChannel source, long position, long count) throws IOException;
+
+    /**
+     * Upgrades the connection to TLS, streams fetched before this must not be used after it.
+     *
+     * @throws IOException if the handshake fails
+     */
+    void startTls() throws IOException;
+
+    /**
+     * Stops reading from the server, does nothing if the connection is encrypted.
+     *
+     * @throws IOException if the input could not be shut down
+     */
+    void shutdownInput() throws IOException;
+
+    /**
+     * Closes the connection, the output is shut down first unless the connection is encrypted.
+     *
+     * @throws IOException if the connection could not be closed
+     */
+    void close() throws IOException;
+}
@@ -0,0 +1,116 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.drizzle.jdbc.internal.common.transport;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * The per connection transport settings, read from the connection properties.
+ */
+public final class TransportOptions {
+    private final static Logger log = Logger.getLogger(TransportOptions.class.getName());
+    private static final int DEFAULT_BUFFER_SIZE = 32768;
+
+    private final int connectTimeout;
+    private final int bufferSize;
+    private final boolean directBuffers;
+    private final String tcpNoDelay;
+    private final String tcpKeepAlive;
+    private final int tcpRcvBuf;
+    private final int tcpSndBuf;
+
+    /**
+     * reads the transport settings
+     *
+     * @param info the connection properties
+     */
+    public TransportOptions(final Properties info) {
+        connectTimeout = getInt(info, "connectTimeout", 0) * 1000;
+        bufferSize = getInt(info, "socketBufferSize", DEFAULT_BUFFER_SIZE);
+        directBuffers = info.getProperty("useDirectBuffers", "").equalsIgnoreCase("true");
+        tcpNoDelay = info.getProperty("tcpNoDelay");
+        tcpKeepAlive = info.getProperty("tcpKeepAlive");
+        tcpRcvBuf = getInt(info, "tcpRcvBuf", 0);
+        tcpSndBuf = getInt(info, "tcpSndBuf", 0);
+    }
+
+    private static int getInt(final Properties info, final String name, final int defaultValue) {
+        final String value = info.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            log.warning("Invalid " + name + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * sets the socket options, must be called before the socket is connected for the buffer sizes to affect the tcp
+     * window.
+     *
+     * @param socket the socket to configure
+     * @throws IOException if an option could not be set
+     */
+    void configure(final Socket socket) throws IOException {
+        if (tcpNoDelay != null) {
+            socket.setTcpNoDelay(tcpNoDelay.equalsIgnoreCase("true"));
+        }
+        if (tcpKeepAlive != null) {
+            socket.setKeepAlive(tcpKeepAlive.equalsIgnoreCase("true"));
+        }
+        if (tcpRcvBuf > 0) {
+            socket.setReceiveBufferSize(tcpRcvBuf);
+        }
+        if (tcpSndBuf > 0) {
+            socket.setSendBufferSize(tcpSndBuf);
+        }
+    }
+
+    /**
+     * @return the connect timeout in milliseconds, 0 means no timeout
+     */
+    int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * @return the size of the read and write buffers of the transport
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @return true if the nio transport should allocate direct buffers
+     */
+    boolean useDirectBuffers() {
+        return directBuffers;
+    }
+}
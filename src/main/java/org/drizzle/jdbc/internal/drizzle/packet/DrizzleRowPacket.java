@@ -25,13 +25,14 @@
 package org.drizzle.jdbc.internal.drizzle.packet;
 
 import org.drizzle.jdbc.internal.common.ColumnInformation;
+import org.drizzle.jdbc.internal.common.DataType;
+import org.drizzle.jdbc.internal.common.TextRow;
 import org.drizzle.jdbc.internal.common.ValueObject;
 import org.drizzle.jdbc.internal.common.packet.RawPacket;
-import org.drizzle.jdbc.internal.common.packet.buffer.Reader;
 import org.drizzle.jdbc.internal.drizzle.DrizzleValueObject;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -41,17 +42,22 @@ public class DrizzleRowPacket {
     private final List<ValueObject> columns;
 
     public DrizzleRowPacket(final RawPacket rawPacket, final List<ColumnInformation> columnInformation) throws IOException {
-        columns = new ArrayList<ValueObject>(columnInformation.size());
-        final Reader reader = new Reader(rawPacket);
-        for (final ColumnInformation currentColumn : columnInformation) {
-            final ValueObject dvo = new DrizzleValueObject(reader.getLengthEncodedBytes(), currentColumn.getType());
-            columns.add(dvo);
-            currentColumn.updateDisplaySize(dvo.getDisplayLength());
-        }
+        columns = new Row(rawPacket.getByteBuffer(), columnInformation);
     }
 
     public List<ValueObject> getRow() {
         return columns;
     }
 
+    private static final class Row extends TextRow {
+        Row(final ByteBuffer payload, final List<ColumnInformation> columnInformation) {
+            super(payload, columnInformation);
+        }
+
+        @Override
+        protected ValueObject createValueObject(final byte[] rawBytes, final DataType dataType) {
+            return new DrizzleValueObject(rawBytes, dataType);
+        }
+    }
+
 }
\ No newline at end of file
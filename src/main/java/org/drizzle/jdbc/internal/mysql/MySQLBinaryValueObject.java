@@ -0,0 +1,464 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.drizzle.jdbc.internal.mysql;
+
+import org.drizzle.jdbc.internal.common.DataType;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.text.ParseException;
+import java.util.Calendar;
+
+/**
+ * A value from a binary protocol row. Numbers and temporal values are decoded directly from their binary form instead
+ * of being parsed from text, other types are sent as strings and handled like in the text protocol.
+ * <p/>
+ * Is immutable
+ */
+public class MySQLBinaryValueObject extends MySQLValueObject {
+    private final byte[] binaryValue;
+    private final boolean unsigned;
+
+    public MySQLBinaryValueObject(final byte[] rawBytes, final DataType dataType, final boolean unsigned) {
+        super(rawBytes, dataType);
+        this.binaryValue = rawBytes;
+        this.unsigned = unsigned;
+    }
+
+    private boolean isInteger() {
+        switch (dataType.getType()) {
+            case TINY:
+            case SHORT:
+            case YEAR:
+            case LONG:
+            case INT24:
+            case LONGLONG:
+                return true;
+        }
+        return false;
+    }
+
+    private boolean isTemporal() {
+        switch (dataType.getType()) {
+            case DATE:
+            case DATETIME:
+            case TIMESTAMP:
+            case TIME:
+                return true;
+        }
+        return false;
+    }
+
+    private boolean isBinaryEncoded() {
+        switch (dataType.getType()) {
+            case FLOAT:
+            case DOUBLE:
+                return true;
+        }
+        return isInteger() || isTemporal();
+    }
+
+    private long readLittleEndian(final int offset, final int length) {
+        long value = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            value = (value << 8) | (binaryValue[offset + i] & 0xff);
+        }
+        return value;
+    }
+
+    private long integerValue() {
+        switch (dataType.getType()) {
+            case TINY:
+                return unsigned ? binaryValue[0] & 0xff : binaryValue[0];
+            case SHORT:
+            case YEAR:
+                final short s = (short) readLittleEndian(0, 2);
+                return unsigned ? s & 0xffff : s;
+            case LONG:
+            case INT24:
+                final int i = (int) readLittleEndian(0, 4);
+                return unsigned ? i & 0xffffffffL : i;
+            default:
+                return readLittleEndian(0, 8);
+        }
+    }
+
+    private boolean isUnsignedLongLong() {
+        return unsigned && dataType.getType() == MySQLType.Type.LONGLONG;
+    }
+
+    @Override
+    public String getString() {
+        if (binaryValue == null || !isBinaryEncoded()) {
+            return super.getString();
+        }
+        switch (dataType.getType()) {
+            case FLOAT:
+                return Float.toString(getFloat());
+            case DOUBLE:
+                return Double.toString(getDouble());
+            case DATE:
+                return formatDate();
+            case DATETIME:
+            case TIMESTAMP:
+                return formatDateTime();
+            case TIME:
+                return formatTime();
+        }
+        if (isUnsignedLongLong()) {
+            return getBigInteger().toString();
+        }
+        return Long.toString(integerValue());
+    }
+
+    @Override
+    public byte[] getBytes() {
+        if (binaryValue == null || !isBinaryEncoded()) {
+            return binaryValue;
+        }
+        return getString().getBytes();
+    }
+
+    @Override
+    public long getLong() {
+        if (binaryValue == null) {
+            return 0;
+        }
+        if (isInteger()) {
+            return integerValue();
+        }
+        switch (dataType.getType()) {
+            case FLOAT:
+                return (long) getFloat();
+            case DOUBLE:
+                return (long) getDouble();
+        }
+        return super.getLong();
+    }
+
+    @Override
+    public int getInt() {
+        if (binaryValue != null && isBinaryEncoded()) {
+            return (int) getLong();
+        }
+        return super.getInt();
+    }
+
+    @Override
+    public short getShort() {
+        if (binaryValue != null && isBinaryEncoded()) {
+            return (short) getLong();
+        }
+        return super.getShort();
+    }
+
+    @Override
+    public byte getByte() {
+        if (binaryValue != null && isBinaryEncoded()) {
+            return (byte) getLong();
+        }
+        return super.getByte();
+    }
+
+    @Override
+    public float getFloat() {
+        if (binaryValue == null) {
+            return 0;
+        }
+        switch (dataType.getType()) {
+            case FLOAT:
+                return Float.intBitsToFloat((int) readLittleEndian(0, 4));
+            case DOUBLE:
+                return (float) getDouble();
+        }
+        if (isInteger()) {
+            return isUnsignedLongLong() ? getBigInteger().floatValue() : (float) integerValue();
+        }
+        return super.getFloat();
+    }
+
+    @Override
+    public double getDouble() {
+        if (binaryValue == null) {
+            return 0;
+        }
+        switch (dataType.getType()) {
+            case FLOAT:
+                return getFloat();
+            case DOUBLE:
+                return Double.longBitsToDouble(readLittleEndian(0, 8));
+        }
+        if (isInteger()) {
+            return isUnsignedLongLong() ? getBigInteger().doubleValue() : (double) integerValue();
+        }
+        return super.getDouble();
+    }
+
+    @Override
+    public BigInteger getBigInteger() {
+        if (binaryValue == null) {
+            return null;
+        }
+        if (isUnsignedLongLong()) {
+            final byte[] bigEndian = new byte[8];
+            for (int i = 0; i < 8; i++) {
+                bigEndian[i] = binaryValue[7 - i];
+            }
+            return new BigInteger(1, bigEndian);
+        }
+        if (isInteger()) {
+            return BigInteger.valueOf(integerValue());
+        }
+        return super.getBigInteger();
+    }
+
+    @Override
+    public BigDecimal getBigDecimal() {
+        if (binaryValue == null) {
+            return null;
+        }
+        if (isUnsignedLongLong()) {
+            return new BigDecimal(getBigInteger());
+        }
+        if (isInteger()) {
+            return BigDecimal.valueOf(integerValue());
+        }
+        switch (dataType.getType()) {
+            case FLOAT:
+            case DOUBLE:
+                return new BigDecimal(getString());
+        }
+        return super.getBigDecimal();
+    }
+
+    @Override
+    public boolean getBoolean() {
+        if (binaryValue == null) {
+            return false;
+        }
+        if (isInteger()) {
+            return integerValue() != 0;
+        }
+        return super.getBoolean();
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        if (binaryValue == null) {
+            return null;
+        }
+        return new ByteArrayInputStream(getString().getBytes());
+    }
+
+    @Override
+    public InputStream getBinaryInputStream() {
+        if (binaryValue == null) {
+            return null;
+        }
+        return new ByteArrayInputStream(getBytes());
+    }
+
+    @Override
+    public int getDisplayLength() {
+        if (binaryValue == null) {
+            return 4;
+        }
+        if (isBinaryEncoded()) {
+            return getString().length();
+        }
+        return binaryValue.length;
+    }
+
+    /*
+     * DATE, DATETIME and TIMESTAMP are sent as 0, 4, 7 or 11 bytes:
+     * 2 bytes year, 1 byte month, 1 byte day, 1 byte hour, 1 byte minute, 1 byte second, 4 bytes microseconds
+     *
+     * TIME is sent as 0, 8 or 12 bytes:
+     * 1 byte negative, 4 bytes days, 1 byte hour, 1 byte minute, 1 byte second, 4 bytes microseconds
+     */
+
+    private int year() {
+        return binaryValue.length >= 4 && dataType.getType() != MySQLType.Type.TIME ? (int) readLittleEndian(0, 2) : 0;
+    }
+
+    private int month() {
+        return binaryValue.length >= 4 && dataType.getType() != MySQLType.Type.TIME ? binaryValue[2] : 0;
+    }
+
+    private int day() {
+        return binaryValue.length >= 4 && dataType.getType() != MySQLType.Type.TIME ? binaryValue[3] : 0;
+    }
+
+    private int hour() {
+        if (dataType.getType() == MySQLType.Type.TIME) {
+            return binaryValue.length >= 8 ? (int) readLittleEndian(1, 4) * 24 + binaryValue[5] : 0;
+        }
+        return binaryValue.length >= 7 ? binaryValue[4] : 0;
+    }
+
+    private int minute() {
+        if (dataType.getType() == MySQLType.Type.TIME) {
+            return binaryValue.length >= 8 ? binaryValue[6] : 0;
+        }
+        return binaryValue.length >= 7 ? binaryValue[5] : 0;
+    }
+
+    private int second() {
+        if (dataType.getType() == MySQLType.Type.TIME) {
+            return binaryValue.length >= 8 ? binaryValue[7] : 0;
+        }
+        return binaryValue.length >= 7 ? binaryValue[6] : 0;
+    }
+
+    private int microseconds() {
+        if (dataType.getType() == MySQLType.Type.TIME) {
+            return binaryValue.length >= 12 ? (int) readLittleEndian(8, 4) : 0;
+        }
+        return binaryValue.length >= 11 ? (int) readLittleEndian(7, 4) : 0;
+    }
+
+    private boolean isNegativeTime() {
+        return dataType.getType() == MySQLType.Type.TIME && binaryValue.length >= 8 && binaryValue[0] == 1;
+    }
+
+    private String formatDate() {
+        return pad(year(), 4) + "-" + pad(month(), 2) + "-" + pad(day(), 2);
+    }
+
+    private String formatDateTime() {
+        final StringBuilder sb = new StringBuilder(formatDate());
+        sb.append(' ').append(pad(hour(), 2)).append(':').append(pad(minute(), 2)).append(':').append(pad(second(), 2));
+        if (microseconds() > 0) {
+            sb.append('.').append(pad(microseconds(), 6));
+        }
+        return sb.toString();
+    }
+
+    private String formatTime() {
+        final StringBuilder sb = new StringBuilder();
+        if (isNegativeTime()) {
+            sb.append('-');
+        }
+        sb.append(pad(hour(), 2)).append(':').append(pad(minute(), 2)).append(':').append(pad(second(), 2));
+        if (microseconds() > 0) {
+            sb.append('.').append(pad(microseconds(), 6));
+        }
+        return sb.toString();
+    }
+
+    private static String pad(final int value, final int length) {
+        final String s = Integer.toString(value);
+        if (s.length() >= length) {
+            return s;
+        }
+        final StringBuilder sb = new StringBuilder(length);
+        for (int i = s.length(); i < length; i++) {
+            sb.append('0');
+        }
+        return sb.append(s).toString();
+    }
+
+    private long toMillis(final Calendar calendar, final boolean includeDate, final boolean includeTime) {
+        final Calendar cal = calendar == null ? Calendar.getInstance() : (Calendar) calendar.clone();
+        cal.clear();
+        if (includeDate) {
+            cal.set(year(), month() - 1, day());
+        } else {
+            cal.set(1970, Calendar.JANUARY, 1);
+        }
+        if (includeTime) {
+            cal.set(Calendar.HOUR_OF_DAY, hour());
+            cal.set(Calendar.MINUTE, minute());
+            cal.set(Calendar.SECOND, second());
+            cal.set(Calendar.MILLISECOND, microseconds() / 1000);
+        }
+        return cal.getTimeInMillis();
+    }
+
+    @Override
+    public Date getDate() throws ParseException {
+        if (binaryValue != null && !isTemporal()) {
+            return super.getDate();
+        }
+        return getDate(null);
+    }
+
+    @Override
+    public Date getDate(final Calendar cal) throws ParseException {
+        if (binaryValue == null) {
+            return null;
+        }
+        if (!isTemporal()) {
+            return super.getDate(cal);
+        }
+        return new Date(toMillis(cal, dataType.getType() != MySQLType.Type.TIME, false));
+    }
+
+    @Override
+    public Time getTime() throws ParseException {
+        if (binaryValue != null && !isTemporal()) {
+            return super.getTime();
+        }
+        return getTime(null);
+    }
+
+    @Override
+    public Time getTime(final Calendar cal) {
+        if (binaryValue == null) {
+            return null;
+        }
+        if (!isTemporal()) {
+            return super.getTime(cal);
+        }
+        return new Time(toMillis(cal, false, dataType.getType() != MySQLType.Type.DATE));
+    }
+
+    @Override
+    public Timestamp getTimestamp() throws ParseException {
+        if (binaryValue != null && !isTemporal()) {
+            return super.getTimestamp();
+        }
+        return getTimestamp(null);
+    }
+
+    @Override
+    public Timestamp getTimestamp(final Calendar cal) throws ParseException {
+        if (binaryValue == null) {
+            return null;
+        }
+        if (!isTemporal()) {
+            return super.getTimestamp(cal);
+        }
+        final boolean isTime = dataType.getType() == MySQLType.Type.TIME;
+        final Timestamp timestamp = new Timestamp(toMillis(cal, !isTime, dataType.getType() != MySQLType.Type.DATE));
+        timestamp.setNanos(microseconds() * 1000);
+        return timestamp;
+    }
+}
@@ -47,7 +47,6 @@ public class MySQLColumnInformation implements ColumnInformation {
     private final DataType type;
     private final byte decimals;
     private final Set<ColumnFlags> flags;
-    private int displayWidth = 0;
 
     private MySQLColumnInformation(final Builder builder) {
         this.catalog = builder.catalog;
@@ -112,12 +111,6 @@ public class MySQLColumnInformation implements ColumnInformation {
         return flags;
     }
 
-    public void updateDisplaySize(final int displayLength) {
-        if (displayLength > displayWidth) {
-            this.displayWidth = displayLength;
-        }
-    }
-
     public static class Builder {
         private String catalog;
         private String db;
@@ -0,0 +1,390 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.drizzle.jdbc.internal.mysql;
+
+import org.drizzle.jdbc.internal.common.ColumnInformation;
+import org.drizzle.jdbc.internal.common.Utils;
+import org.drizzle.jdbc.internal.common.ValueObject;
+import org.drizzle.jdbc.internal.common.queryresults.ColumnFlags;
+import org.drizzle.jdbc.internal.common.queryresults.ColumnarQueryResult;
+import org.drizzle.jdbc.internal.common.queryresults.NoSuchColumnException;
+import org.drizzle.jdbc.internal.common.queryresults.ResultSetType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A buffered text protocol result stored column by column.
+ * <p/>
+ * Integer columns are parsed into long arrays and FLOAT and DOUBLE columns into double arrays when the rows are read.
+ * All other columns, and the text of the floating point columns, are copied into one byte arena that is shared by all
+ * columns, each value is an offset and a length in the arena. NULL is kept in a bitmap per column. No objects are
+ * created per row or per value, a value object is only created when a getter needs one.
+ * <p/>
+ * Unsigned BIGINT and zerofilled columns are kept as text since the text of their values can not be recreated from a
+ * long. Temporal columns are kept as text since how they are decoded depends on the calendar passed to the getter.
+ */
+public final class MySQLColumnarQueryResult implements ColumnarQueryResult {
+    private static final int INITIAL_ROWS = 64;
+    private static final int INITIAL_ARENA_SIZE = 4096;
+    /**
+     * the server calls flag 64 ZEROFILL, ColumnFlags calls it DECIMAL.
+     */
+    private static final ColumnFlags ZEROFILL = ColumnFlags.DECIMAL;
+
+    private final List<ColumnInformation> columnInformation;
+    private final Map<String, Integer> columnNameMap;
+    private final boolean[] longColumn;
+    private final boolean[] doubleColumn;
+    private final long[][] longs;
+    private final double[][] doubles;
+    private final int[][] offsets;
+    private final int[][] lengths;
+    private final long[][] nulls;
+    private byte[] arena = new byte[INITIAL_ARENA_SIZE];
+    private int arenaSize;
+    private int rows;
+    private int capacity;
+    private short warningCount;
+    private int rowPointer = -1;
+    private boolean closed;
+
+    public MySQLColumnarQueryResult(final List<ColumnInformation> columnInformation) {
+        this.columnInformation = columnInformation;
+        final int columnCount = columnInformation.size();
+        longColumn = new boolean[columnCount];
+        doubleColumn = new boolean[columnCount];
+        longs = new long[columnCount][];
+        doubles = new double[columnCount][];
+        offsets = new int[columnCount][];
+        lengths = new int[columnCount][];
+        nulls = new long[columnCount][];
+        capacity = INITIAL_ROWS;
+        columnNameMap = new HashMap<String, Integer>();
+        for (int i = 0; i < columnCount; i++) {
+            final ColumnInformation ci = columnInformation.get(i);
+            columnNameMap.put(ci.getTable().toLowerCase() + "." + ci.getName().toLowerCase(), i);
+            columnNameMap.put(ci.getName().toLowerCase(), i);
+            final MySQLType.Type type = ((MySQLType) ci.getType()).getType();
+            switch (type) {
+                case TINY:
+                case SHORT:
+                case INT24:
+                case LONG:
+                    longColumn[i] = !ci.getFlags().contains(ZEROFILL);
+                    break;
+                case LONGLONG:
+                    longColumn[i] = !ci.getFlags().contains(ZEROFILL) && !ci.getFlags().contains(ColumnFlags.UNSIGNED);
+                    break;
+                case FLOAT:
+                case DOUBLE:
+                    doubleColumn[i] = true;
+                    break;
+                default:
+                    break;
+            }
+            if (longColumn[i]) {
+                longs[i] = new long[capacity];
+            } else {
+                offsets[i] = new int[capacity];
+                lengths[i] = new int[capacity];
+                if (doubleColumn[i]) {
+                    doubles[i] = new double[capacity];
+                }
+            }
+            nulls[i] = new long[(capacity + 63) / 64];
+        }
+    }
+
+    /**
+     * adds a row from a text protocol row packet that holds the whole row.
+     *
+     * @param payload the row packet payload, it is not kept
+     * @throws IOException if a value in an integer column is not an integer
+     */
+    void addRow(final ByteBuffer payload) throws IOException {
+        ensureCapacity();
+        int pos = 0;
+        final int limit = payload.limit();
+        for (int i = 0; i < columnInformation.size(); i++) {
+            long length = 0;
+            if (pos < limit) {
+                final int type = payload.get(pos++) & 0xff;
+                if (type <= 250) {
+                    length = type;
+                } else if (type == 251) {
+                    length = -1;
+                } else if (type == 252) {
+                    length = (payload.get(pos) & 0xff) | (payload.get(pos + 1) & 0xff) << 8;
+                    pos += 2;
+                } else if (type == 253) {
+                    length = (payload.get(pos) & 0xff) | (payload.get(pos + 1) & 0xff) << 8
+                            | (payload.get(pos + 2) & 0xff) << 16;
+                    pos += 3;
+                } else if (type == 254) {
+                    length = payload.getLong(pos);
+                    pos += 8;
+                }
+            }
+            if (length == -1) {
+                setNull(i);
+            } else {
+                setValue(i, payload, pos, (int) length);
+                pos += length;
+            }
+        }
+        rows++;
+    }
+
+    /**
+     * adds a row that has been decoded into value objects, used for rows split over several packets.
+     *
+     * @param row the values
+     * @throws IOException if a value in an integer column is not an integer
+     */
+    void addRow(final List<ValueObject> row) throws IOException {
+        ensureCapacity();
+        for (int i = 0; i < columnInformation.size(); i++) {
+            final byte[] value = row.get(i).getBytes();
+            if (value == null) {
+                setNull(i);
+            } else {
+                setValue(i, ByteBuffer.wrap(value), 0, value.length);
+            }
+        }
+        rows++;
+    }
+
+    void setWarnings(final short warningCount) {
+        this.warningCount = warningCount;
+    }
+
+    private void setNull(final int column) {
+        nulls[column][rows >>> 6] |= 1L << rows;
+        if (!longColumn[column]) {
+            lengths[column][rows] = -1;
+        }
+    }
+
+    private void setValue(final int column, final ByteBuffer source, final int pos, final int length)
+            throws IOException {
+        if (longColumn[column]) {
+            longs[column][rows] = parseLong(source, pos, length);
+            return;
+        }
+        if (arenaSize + length > arena.length) {
+            final byte[] bigger = new byte[Math.max(arena.length * 2, arenaSize + length)];
+            System.arraycopy(arena, 0, bigger, 0, arenaSize);
+            arena = bigger;
+        }
+        final ByteBuffer value = source.duplicate();
+        value.limit(pos + length).position(pos);
+        value.get(arena, arenaSize, length);
+        offsets[column][rows] = arenaSize;
+        lengths[column][rows] = length;
+        if (doubleColumn[column]) {
+            doubles[column][rows] = Utils.byteArrayToDouble(arena, arenaSize, length);
+        }
+        arenaSize += length;
+    }
+
+    private void ensureCapacity() {
+        if (rows < capacity) {
+            return;
+        }
+        capacity *= 2;
+        for (int i = 0; i < columnInformation.size(); i++) {
+            if (longColumn[i]) {
+                longs[i] = grow(longs[i], capacity);
+            } else {
+                offsets[i] = grow(offsets[i], capacity);
+                lengths[i] = grow(lengths[i], capacity);
+                if (doubleColumn[i]) {
+                    doubles[i] = grow(doubles[i], capacity);
+                }
+            }
+            nulls[i] = grow(nulls[i], (capacity + 63) / 64);
+        }
+    }
+
+    private static long[] grow(final long[] array, final int size) {
+        final long[] bigger = new long[size];
+        System.arraycopy(array, 0, bigger, 0, array.length);
+        return bigger;
+    }
+
+    private static int[] grow(final int[] array, final int size) {
+        final int[] bigger = new int[size];
+        System.arraycopy(array, 0, bigger, 0, array.length);
+        return bigger;
+    }
+
+    private static double[] grow(final double[] array, final int size) {
+        final double[] bigger = new double[size];
+        System.arraycopy(array, 0, bigger, 0, array.length);
+        return bigger;
+    }
+
+    private static long parseLong(final ByteBuffer source, final int pos, final int length) throws IOException {
+        int i = pos;
+        final int end = pos + length;
+        boolean negative = false;
+        if (i < end && (source.get(i) == '-' || source.get(i) == '+')) {
+            negative = source.get(i) == '-';
+            i++;
+        }
+        if (i == end) {
+            throw new IOException("Could not parse integer column value");
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            final int digit = source.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IOException("Could not parse integer column value");
+            }
+            // accumulate negatively so Long.MIN_VALUE can be parsed
+            value = value * 10 - digit;
+        }
+        return negative ? value : -value;
+    }
+
+    public boolean isLongColumn(final int index) {
+        return index >= 0 && index < longColumn.length && longColumn[index];
+    }
+
+    public boolean isDoubleColumn(final int index) {
+        return index >= 0 && index < doubleColumn.length && doubleColumn[index];
+    }
+
+    public boolean isNull(final int index) throws NoSuchColumnException {
+        checkRow(index);
+        return (nulls[index][rowPointer >>> 6] & (1L << rowPointer)) != 0;
+    }
+
+    public long getLong(final int index) throws NoSuchColumnException {
+        if (!isLongColumn(index)) {
+            throw new NoSuchColumnException("Column is not stored as longs: " + index);
+        }
+        checkRow(index);
+        return longs[index][rowPointer];
+    }
+
+    public double getDouble(final int index) throws NoSuchColumnException {
+        if (!isDoubleColumn(index)) {
+            throw new NoSuchColumnException("Column is not stored as doubles: " + index);
+        }
+        return isNull(index) ? 0 : doubles[index][rowPointer];
+    }
+
+    /**
+     * checks that the column exists and that the row pointer is on a row, the arrays are read without bounds checks
+     * otherwise a row from before the first or after the last could be read, or an array that has been released.
+     */
+    private void checkRow(final int index) throws NoSuchColumnException {
+        if (closed) {
+            throw new NoSuchColumnException("Result is closed");
+        }
+        if (index < 0 || index >= columnInformation.size()) {
+            throw new NoSuchColumnException("No such column: " + index);
+        }
+        if (rowPointer < 0 || rowPointer >= rows) {
+            throw new NoSuchColumnException("No current row");
+        }
+    }
+
+    public ValueObject getValueObject(final int index) throws NoSuchColumnException {
+        checkRow(index);
+        final byte[] rawBytes;
+        if (isNull(index)) {
+            rawBytes = null;
+        } else if (longColumn[index]) {
+            rawBytes = Long.toString(longs[index][rowPointer]).getBytes();
+        } else {
+            rawBytes = new byte[lengths[index][rowPointer]];
+            System.arraycopy(arena, offsets[index][rowPointer], rawBytes, 0, rawBytes.length);
+        }
+        return new MySQLValueObject(rawBytes, columnInformation.get(index).getType());
+    }
+
+    public ValueObject getValueObject(final String columnName) throws NoSuchColumnException {
+        return getValueObject(getColumnId(columnName));
+    }
+
+    public int getColumnId(final String columnLabel) throws NoSuchColumnException {
+        final Integer id = columnNameMap.get(columnLabel.toLowerCase());
+        if (id == null) {
+            throw new NoSuchColumnException("No such column: " + columnLabel);
+        }
+        return id;
+    }
+
+    public void moveRowPointerTo(final int i) {
+        rowPointer = i;
+    }
+
+    public int getRowPointer() {
+        return rowPointer;
+    }
+
+    public boolean next() {
+        rowPointer++;
+        return rowPointer < rows;
+    }
+
+    public ResultSetType getResultSetType() {
+        return ResultSetType.SELECT;
+    }
+
+    public void close() {
+        closed = true;
+        arena = new byte[0];
+        for (int i = 0; i < columnInformation.size(); i++) {
+            longs[i] = null;
+            doubles[i] = null;
+            offsets[i] = null;
+            lengths[i] = null;
+            nulls[i] = null;
+        }
+        rows = 0;
+    }
+
+    public short getWarnings() {
+        return warningCount;
+    }
+
+    public String getMessage() {
+        return null;
+    }
+
+    public List<ColumnInformation> getColumnInformation() {
+        return columnInformation;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.drizzle.jdbc.internal.mysql;
+
+import org.drizzle.jdbc.internal.common.ColumnInformation;
+import org.drizzle.jdbc.internal.common.QueryException;
+import org.drizzle.jdbc.internal.common.ValueObject;
+import org.drizzle.jdbc.internal.common.queryresults.StreamingQueryResult;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A result backed by a read only server side cursor, rows are fetched fetchSize at a time with COM_STMT_FETCH.
+ * <p/>
+ * Unlike a streamed result, every fetch is read completely so the connection can be used for other statements between
+ * fetches.
+ */
+final class MySQLCursorQueryResult extends StreamingQueryResult {
+    private final MySQLProtocol protocol;
+    private final int statementId;
+    private final int fetchSize;
+    private final LinkedList<List<ValueObject>> fetchedRows = new LinkedList<List<ValueObject>>();
+    private boolean lastRowSent;
+    private boolean statementClosed;
+
+    MySQLCursorQueryResult(final List<ColumnInformation> columnInformation,
+                           final MySQLProtocol protocol,
+                           final int statementId,
+                           final int fetchSize,
+                           final short warningCount) {
+        super(columnInformation);
+        this.protocol = protocol;
+        this.statementId = statementId;
+        this.fetchSize = fetchSize;
+        setWarnings(warningCount);
+    }
+
+    @Override
+    protected List<ValueObject> readRow() throws QueryException {
+        while (fetchedRows.isEmpty()) {
+            if (lastRowSent) {
+                closeStatement();
+                return null;
+            }
+            try {
+                lastRowSent = protocol.fetchRows(statementId, fetchSize, getColumnInformation(), fetchedRows);
+            } catch (QueryException e) {
+                closeStatement();
+                throw e;
+            }
+        }
+        return fetchedRows.removeFirst();
+    }
+
+    @Override
+    protected void skipRemainingRows() throws QueryException {
+        fetchedRows.clear();
+        closeStatement();
+    }
+
+    private void closeStatement() throws QueryException {
+        if (!statementClosed) {
+            statementClosed = true;
+            protocol.closeStatement(statementId);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.drizzle.jdbc.internal.mysql;
+
+import org.drizzle.jdbc.internal.common.ColumnInformation;
+import org.drizzle.jdbc.internal.common.DataType;
+import org.drizzle.jdbc.internal.common.TextRow;
+import org.drizzle.jdbc.internal.common.ValueObject;
+import org.drizzle.jdbc.internal.common.queryresults.NoSuchColumnException;
+import org.drizzle.jdbc.internal.common.queryresults.ResultBufferBudget;
+import org.drizzle.jdbc.internal.common.queryresults.ResultSetType;
+import org.drizzle.jdbc.internal.common.queryresults.SelectQueryResult;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * A buffered text protocol result that keeps the row packets outside the java heap.
+ * <p/>
+ * Rows are copied into direct buffers as long as the connection's ResultBufferBudget allows, the rest of the rows are
+ * written to memory mapped regions of a temporary file. A row is decoded when the row pointer is moved to it, so only
+ * the current row is on the heap and a big result can not fill the heap.
+ * <p/>
+ * Direct buffers can not be freed and mapped regions can not be unmapped explicitly. The temporary file is deleted
+ * when the result is closed, but the memory of the buffers and the mappings is only given back when they are garbage
+ * collected.
+ */
+public final class MySQLOffHeapQueryResult implements SelectQueryResult {
+    private static final Logger log = Logger.getLogger(MySQLOffHeapQueryResult.class.getName());
+    private static final int CHUNK_SIZE = 256 * 1024;
+    private static final int SPILL_REGION_SIZE = 8 * 1024 * 1024;
+    private static final int INITIAL_ROWS = 64;
+
+    private final List<ColumnInformation> columnInformation;
+    private final Map<String, Integer> columnNameMap;
+    private final ResultBufferBudget budget;
+    private final List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+    private ByteBuffer currentChunk;
+    private long reservedBytes;
+    private File spillFile;
+    private RandomAccessFile spillAccess;
+    private long spillFileSize;
+    private long spilledBytes;
+    /**
+     * the chunk index in the high 32 bits and the offset in the chunk in the low 32 bits.
+     */
+    private long[] rowPositions = new long[INITIAL_ROWS];
+    private int[] rowLengths = new int[INITIAL_ROWS];
+    private int rows;
+    private short warningCount;
+    private int rowPointer = -1;
+    private int decodedRowPointer = -1;
+    private List<ValueObject> decodedRow;
+
+    public MySQLOffHeapQueryResult(final List<ColumnInformation> columnInformation, final ResultBufferBudget budget) {
+        this.columnInformation = columnInformation;
+        this.budget = budget;
+        columnNameMap = new HashMap<String, Integer>();
+        int i = 0;
+        for (final ColumnInformation ci : columnInformation) {
+            columnNameMap.put(ci.getTable().toLowerCase() + "." + ci.getName().toLowerCase(), i);
+            columnNameMap.put(ci.getName().toLowerCase(), i);
+            i++;
+        }
+    }
+
+    /**
+     * adds a row from a text protocol row packet that holds the whole row.
+     *
+     * @param payload the row packet payload, it is copied
+     * @throws IOException if the spill file could not be written
+     */
+    void addRow(final ByteBuffer payload) throws IOException {
+        final ByteBuffer source = payload.duplicate();
+        source.position(0);
+        final int length = source.remaining();
+        ensureSpace(length);
+        if (rows == rowLengths.length) {
+            final long[] biggerPositions = new long[rows * 2];
+            System.arraycopy(rowPositions, 0, biggerPositions, 0, rows);
+            rowPositions = biggerPositions;
+            final int[] biggerLengths = new int[rows * 2];
+            System.arraycopy(rowLengths, 0, biggerLengths, 0, rows);
+            rowLengths = biggerLengths;
+        }
+        rowPositions[rows] = ((long) (chunks.size() - 1) << 32) | currentChunk.position();
+        rowLengths[rows] = length;
+        currentChunk.put(source);
+        if (spillAccess != null) {
+            spilledBytes += length;
+        }
+        rows++;
+    }
+
+    /**
+     * adds a row that has been decoded into value objects, used for rows split over several packets. The row is
+     * encoded back into the text protocol format.
+     *
+     * @param row the values
+     * @throws IOException if the spill file could not be written
+     */
+    void addRow(final List<ValueObject> row) throws IOException {
+        final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        for (final ValueObject value : row) {
+            final byte[] bytes = value.getBytes();
+            if (bytes == null) {
+                encoded.write(251);
+                continue;
+            }
+            if (bytes.length < 251) {
+                encoded.write(bytes.length);
+            } else if (bytes.length < 65536) {
+                encoded.write(252);
+                writeInt(encoded, bytes.length, 2);
+            } else if (bytes.length < 16777216) {
+                encoded.write(253);
+                writeInt(encoded, bytes.length, 3);
+            } else {
+                encoded.write(254);
+                writeInt(encoded, bytes.length, 8);
+            }
+            encoded.write(bytes);
+        }
+        addRow(ByteBuffer.wrap(encoded.toByteArray()));
+    }
+
+    private static void writeInt(final ByteArrayOutputStream out, final long value, final int bytes) {
+        for (int i = 0; i < bytes; i++) {
+            out.write((int) (value >>> (8 * i)));
+        }
+    }
+
+    /**
+     * makes sure the current chunk has room for length bytes, a new chunk is allocated off-heap if the budget allows
+     * and mapped from the spill file otherwise. Once the result has spilled all following rows go to the file.
+     */
+    private void ensureSpace(final int length) throws IOException {
+        if (currentChunk != null && currentChunk.remaining() >= length) {
+            return;
+        }
+        final int chunkSize = Math.max(CHUNK_SIZE, length);
+        if (spillAccess == null && budget.reserve(chunkSize)) {
+            reservedBytes += chunkSize;
+            currentChunk = ByteBuffer.allocateDirect(chunkSize);
+        } else {
+            currentChunk = mapSpillRegion(Math.max(SPILL_REGION_SIZE, length));
+        }
+        chunks.add(currentChunk);
+    }
+
+    private ByteBuffer mapSpillRegion(final int size) throws IOException {
+        if (spillAccess == null) {
+            spillFile = File.createTempFile("drizzle-result", ".tmp");
+            spillAccess = new RandomAccessFile(spillFile, "rw");
+            log.fine("Result does not fit in the off-heap budget of " + budget.getBudget()
+                    + " bytes, spilling to " + spillFile);
+        }
+        final ByteBuffer region = spillAccess.getChannel().map(FileChannel.MapMode.READ_WRITE, spillFileSize, size);
+        spillFileSize += size;
+        return region;
+    }
+
+    /**
+     * called when all rows have been read.
+     *
+     * @param warningCount the number of warnings of the result
+     */
+    void finish(final short warningCount) {
+        this.warningCount = warningCount;
+        if (spillAccess != null) {
+            budget.recordSpill(spilledBytes);
+        }
+    }
+
+    private List<ValueObject> currentRow() {
+        if (decodedRowPointer != rowPointer) {
+            final long position = rowPositions[rowPointer];
+            final ByteBuffer source = chunks.get((int) (position >>> 32)).duplicate();
+            source.limit((int) position + rowLengths[rowPointer]).position((int) position);
+            decodedRow = new Row(source.slice().order(ByteOrder.LITTLE_ENDIAN), columnInformation);
+            decodedRowPointer = rowPointer;
+        }
+        return decodedRow;
+    }
+
+    public ValueObject getValueObject(final int index) throws NoSuchColumnException {
+        if (index < 0 || index >= columnInformation.size()) {
+            throw new NoSuchColumnException("No such column: " + index);
+        }
+        return currentRow().get(index);
+    }
+
+    public ValueObject getValueObject(final String columnName) throws NoSuchColumnException {
+        return getValueObject(getColumnId(columnName));
+    }
+
+    public int getColumnId(final String columnLabel) throws NoSuchColumnException {
+        final Integer id = columnNameMap.get(columnLabel.toLowerCase());
+        if (id == null) {
+            throw new NoSuchColumnException("No such column: " + columnLabel);
+        }
+        return id;
+    }
+
+    public void moveRowPointerTo(final int i) {
+        rowPointer = i;
+    }
+
+    public int getRowPointer() {
+        return rowPointer;
+    }
+
+    public boolean next() {
+        rowPointer++;
+        return rowPointer < rows;
+    }
+
+    public ResultSetType getResultSetType() {
+        return ResultSetType.SELECT;
+    }
+
+    /**
+     * gives the off-heap memory back to the budget and deletes the spill file.
+     * <p/>
+     * The direct buffers and mappings are only dropped, java has no portable way to free them, so their memory is
+     * given back to the os when they are garbage collected. The budget counts them as free as soon as the result is
+     * closed. On systems that can not delete a mapped file the spill file is left behind.
+     */
+    public void close() {
+        chunks.clear();
+        currentChunk = null;
+        decodedRow = null;
+        decodedRowPointer = -1;
+        rows = 0;
+        budget.release(reservedBytes);
+        reservedBytes = 0;
+        if (spillAccess != null) {
+            try {
+                spillAccess.close();
+            } catch (IOException e) {
+                log.warning("Could not close result spill file: " + e.getMessage());
+            }
+            if (!spillFile.delete()) {
+                log.warning("Could not delete result spill file " + spillFile);
+            }
+            spillAccess = null;
+        }
+    }
+
+    public short getWarnings() {
+        return warningCount;
+    }
+
+    public String getMessage() {
+        return null;
+    }
+
+    public List<ColumnInformation> getColumnInformation() {
+        return columnInformation;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    private static final class Row extends TextRow {
+        Row(final ByteBuffer payload, final List<ColumnInformation> columnInformation) {
+            super(payload, columnInformation);
+        }
+
+        @Override
+        protected ValueObject createValueObject(final byte[] rawBytes, final DataType dataType) {
+            return new MySQLValueObject(rawBytes, dataType);
+        }
+    }
+}
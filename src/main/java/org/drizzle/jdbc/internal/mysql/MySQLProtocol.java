@@ -34,39 +34,60 @@ import org.drizzle.jdbc.internal.common.packet.ResultPacket;
 import org.drizzle.jdbc.internal.common.packet.ResultPacketFactory;
 import org.drizzle.jdbc.internal.common.packet.ResultSetPacket;
 import org.drizzle.jdbc.internal.common.packet.SyncPacketFetcher;
+import org.drizzle.jdbc.internal.common.packet.buffer.ChainedPacketReader;
+import org.drizzle.jdbc.internal.common.packet.buffer.QueryPacketWriter;
 import org.drizzle.jdbc.internal.common.packet.buffer.ReadUtil;
 import org.drizzle.jdbc.internal.common.packet.commands.ClosePacket;
 import org.drizzle.jdbc.internal.common.packet.commands.SelectDBPacket;
 import org.drizzle.jdbc.internal.common.packet.commands.StreamedQueryPacket;
 import org.drizzle.jdbc.internal.common.query.DrizzleQuery;
+import org.drizzle.jdbc.internal.common.query.ParameterizedQuery;
 import org.drizzle.jdbc.internal.common.query.Query;
+import org.drizzle.jdbc.internal.common.query.QueryType;
+import org.drizzle.jdbc.internal.common.query.parameters.BinaryParameterHolder;
+import org.drizzle.jdbc.internal.common.query.parameters.ParameterHolder;
+import org.drizzle.jdbc.internal.common.transport.CompressedPacketInputStream;
+import org.drizzle.jdbc.internal.common.transport.CompressedPacketOutputStream;
+import org.drizzle.jdbc.internal.common.transport.SocketChannelTransport;
+import org.drizzle.jdbc.internal.common.transport.SocketTransport;
+import org.drizzle.jdbc.internal.common.transport.Transport;
+import org.drizzle.jdbc.internal.common.transport.TransportOptions;
 import org.drizzle.jdbc.internal.common.queryresults.DrizzleQueryResult;
 import org.drizzle.jdbc.internal.common.queryresults.DrizzleUpdateResult;
 import org.drizzle.jdbc.internal.common.queryresults.NoSuchColumnException;
 import org.drizzle.jdbc.internal.common.queryresults.QueryResult;
+import org.drizzle.jdbc.internal.common.queryresults.ResultBufferBudget;
+import org.drizzle.jdbc.internal.common.queryresults.SelectQueryResult;
+import org.drizzle.jdbc.internal.common.queryresults.StreamingQueryResult;
 import org.drizzle.jdbc.internal.drizzle.packet.DrizzleRowPacket;
+import org.drizzle.jdbc.internal.mysql.packet.MySQLBinaryRowPacket;
 import org.drizzle.jdbc.internal.mysql.packet.MySQLFieldPacket;
 import org.drizzle.jdbc.internal.mysql.packet.MySQLGreetingReadPacket;
+import org.drizzle.jdbc.internal.mysql.packet.MySQLPrepareOKPacket;
 import org.drizzle.jdbc.internal.mysql.packet.MySQLRowPacket;
 import org.drizzle.jdbc.internal.mysql.packet.commands.AbbreviatedMySQLClientAuthPacket;
 import org.drizzle.jdbc.internal.mysql.packet.commands.MySQLBinlogDumpPacket;
+import org.drizzle.jdbc.internal.mysql.packet.commands.MySQLChangeUserPacket;
 import org.drizzle.jdbc.internal.mysql.packet.commands.MySQLClientAuthPacket;
 import org.drizzle.jdbc.internal.mysql.packet.commands.MySQLClientOldPasswordAuthPacket;
 import org.drizzle.jdbc.internal.mysql.packet.commands.MySQLPingPacket;
+import org.drizzle.jdbc.internal.mysql.packet.commands.MySQLResetConnectionPacket;
+import org.drizzle.jdbc.internal.mysql.packet.commands.MySQLStmtClosePacket;
+import org.drizzle.jdbc.internal.mysql.packet.commands.MySQLStmtExecutePacket;
+import org.drizzle.jdbc.internal.mysql.packet.commands.MySQLStmtFetchPacket;
 
-import javax.net.SocketFactory;
-import javax.net.ssl.SSLSocket;
-import javax.net.ssl.SSLSocketFactory;
 import java.io.*;
-import java.net.InetSocketAddress;
-import java.net.Socket;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import static org.drizzle.jdbc.internal.common.packet.buffer.WriteBuffer.intToByteArray;
@@ -77,9 +98,46 @@ import static org.drizzle.jdbc.internal.common.packet.buffer.WriteBuffer.intToBy
  */
 public class MySQLProtocol implements Protocol {
     private final static Logger log = Logger.getLogger(MySQLProtocol.class.getName());
+    private final static int DEFAULT_PREP_STMT_CACHE_SIZE = 100;
+    /**
+     * the number of query bytes a pipelined batch sends before reading results, small enough to fit in the socket
+     * buffers.
+     */
+    private final static int PIPELINE_WINDOW = 16384;
+    /**
+     * the fetch size batches execute their queries with, it never streams or uses a cursor since the batch reads the
+     * next result while the rows of a streamed select would still be on the wire.
+     */
+    private final static int BUFFERED_FETCH_SIZE = -1;
+    /**
+     * the newline ends a trailing -- or # comment in the previous statement.
+     */
+    private final static String MULTI_STATEMENT_SEPARATOR = "\n;";
+    private final static int DEFAULT_MAX_ALLOWED_PACKET = 1024 * 1024;
+    private final static byte COM_QUERY = 0x03;
+    /**
+     * packets shorter than this are not worth compressing, same as the server uses.
+     */
+    private final static int DEFAULT_COMPRESSION_THRESHOLD = 50;
+    /**
+     * the size of the packets a local infile is sent in, below the smallest default max_allowed_packet.
+     */
+    private final static int LOCAL_INFILE_PACKET_SIZE = 512 * 1024;
+    /**
+     * "This command is not supported in the prepared statement protocol yet"
+     */
+    private final static int ER_UNSUPPORTED_PS = 1295;
+    /**
+     * "Unknown command", sent by servers older than 5.7.3 for COM_RESET_CONNECTION
+     */
+    private final static int ER_UNKNOWN_COM_ERROR = 1047;
     private boolean connected = false;
-    private Socket socket;
-    private BufferedOutputStream writer;
+    private final Transport transport;
+    private OutputStream writer;
+    /**
+     * the compressed stream writer writes to, null if the connection is not compressed.
+     */
+    private CompressedPacketOutputStream compressedOutput;
     private final String version;
     private boolean readOnly = false;
     private final String host;
@@ -94,6 +152,48 @@ public class MySQLProtocol implements Protocol {
     private volatile boolean queryWasCancelled = false;
     private volatile boolean queryTimedOut = false;
     private boolean hasMoreResults = false;
+    /**
+     * the max_allowed_packet of the server, 0 until it has been read.
+     */
+    private int maxAllowedPacket = 0;
+    /**
+     * the streaming result currently reading rows off the connection, null if there is none.
+     */
+    private volatile StreamingQueryResult activeStreamingResult;
+    /**
+     * server side prepared statements of this connection keyed on the query, a null value means the server can not
+     * prepare the query.
+     */
+    private final Map<String, MySQLPrepareOKPacket> serverPreparedStatements;
+    /**
+     * the max number of server side prepared statements kept open, 0 closes every statement after it is executed.
+     */
+    private final int prepStmtCacheSize;
+    /**
+     * the initial size of the receive buffer of the packet fetcher, set with socketBufferSize.
+     */
+    private final int readBufferSize;
+    private final QueryPacketWriter queryPacketWriter = new QueryPacketWriter();
+    /**
+     * the off-heap memory buffered results may use, null if results are buffered on the heap.
+     */
+    private final ResultBufferBudget resultBufferBudget;
+    /**
+     * true if the NO_BACKSLASH_ESCAPES sql_mode is set, read from the status of the ok packets.
+     */
+    private boolean noBackslashEscapes = false;
+    /**
+     * the database the connection was opened with, a session reset goes back to it.
+     */
+    private final String initialDatabase;
+    /**
+     * the seed of the greeting packet, used to scramble the password again for COM_CHANGE_USER.
+     */
+    private final byte[] seed;
+    /**
+     * true when the server has answered COM_RESET_CONNECTION with an unknown command error.
+     */
+    private boolean resetConnectionUnsupported = false;
     /**
      * Get a protocol instance
      *
@@ -117,29 +217,17 @@ public class MySQLProtocol implements Protocol {
         this.host = host;
         this.port = port;
         this.database = (database == null ? "" : database);
+        this.initialDatabase = this.database;
         this.username = (username == null ? "" : username);
         this.password = (password == null ? "" : password);
 
-        final SocketFactory socketFactory = SocketFactory.getDefault();
+        final TransportOptions transportOptions = new TransportOptions(info);
+        this.readBufferSize = transportOptions.getBufferSize();
         try {
-            // Extract connectTimeout URL parameter
-            String connectTimeoutString = info.getProperty("connectTimeout");
-            Integer connectTimeout = null;
-            if (connectTimeoutString != null) {
-                try {
-                    connectTimeout = Integer.valueOf(connectTimeoutString);
-                } catch (Exception e) {
-                    connectTimeout = null;
-                }
-            }
-
-            // Create socket with timeout if required
-            InetSocketAddress sockAddr = new InetSocketAddress(host, port);
-            socket = socketFactory.createSocket();
-            if (connectTimeout != null) {
-                socket.connect(sockAddr, connectTimeout * 1000);
+            if (info.getProperty("useNIO", "").equalsIgnoreCase("true")) {
+                transport = new SocketChannelTransport(host, port, transportOptions);
             } else {
-                socket.connect(sockAddr);
+                transport = new SocketTransport(host, port, transportOptions);
             }
         } catch (IOException e) {
             throw new QueryException("Could not connect: " + e.getMessage(),
@@ -148,12 +236,15 @@ public class MySQLProtocol implements Protocol {
                     e);
         }
         batchList = new ArrayList<Query>();
+        prepStmtCacheSize = readPrepStmtCacheSize(info);
+        serverPreparedStatements = createServerPreparedStatementCache(prepStmtCacheSize);
+        resultBufferBudget = createResultBufferBudget(info);
         try {
-            BufferedInputStream reader = new BufferedInputStream(socket.getInputStream(), 32768);
-            packetFetcher = new SyncPacketFetcher(reader);
-            writer = new BufferedOutputStream(socket.getOutputStream(), 32768);
+            packetFetcher = new SyncPacketFetcher(transport.getInputStream(), readBufferSize);
+            writer = transport.getOutputStream();
             final MySQLGreetingReadPacket greetingPacket = new MySQLGreetingReadPacket(packetFetcher.getRawPacket());
             this.serverThreadId = greetingPacket.getServerThreadID();
+            this.seed = greetingPacket.getSeed();
 
             log.finest("Got greeting packet");
             this.version = greetingPacket.getServerVersion();
@@ -175,24 +266,19 @@ public class MySQLProtocol implements Protocol {
             if (info.getProperty("useAffectedRows", "false").equals("false")) {
                 capabilities.add(MySQLServerCapabilities.FOUND_ROWS);
             }
+            final boolean useCompression = info.getProperty("useCompression", "").equalsIgnoreCase("true")
+                    && greetingPacket.getServerCapabilities().contains(MySQLServerCapabilities.COMPRESS);
+            if (useCompression) {
+                capabilities.add(MySQLServerCapabilities.COMPRESS);
+            }
             if(info.getProperty("useSSL") != null && greetingPacket.getServerCapabilities().contains(MySQLServerCapabilities.SSL)) {
                 capabilities.add(MySQLServerCapabilities.SSL);
                 AbbreviatedMySQLClientAuthPacket amcap = new AbbreviatedMySQLClientAuthPacket(capabilities);
                 amcap.send(writer);
 
-                SSLSocketFactory sslSocketFactory = (SSLSocketFactory)SSLSocketFactory.getDefault();
-                SSLSocket sslSocket = (SSLSocket)sslSocketFactory.createSocket(socket,
-                        socket.getInetAddress().getHostAddress(),
-                        socket.getPort(),
-                        false);
-                sslSocket.setEnabledProtocols(new String [] {"TLSv1"});
-                sslSocket.setUseClientMode(true);
-                sslSocket.startHandshake();
-                socket = sslSocket;
-                writer = new BufferedOutputStream(socket.getOutputStream(), 32768);
-                writer.flush();
-                reader = new BufferedInputStream(socket.getInputStream(), 32768);
-                packetFetcher = new SyncPacketFetcher(reader);
+                transport.startTls();
+                writer = transport.getOutputStream();
+                packetFetcher = new SyncPacketFetcher(transport.getInputStream(), readBufferSize);
 
                 packetSeq++;
             } else if(info.getProperty("useSSL") != null){
@@ -226,6 +312,13 @@ public class MySQLProtocol implements Protocol {
                 final String message = ep.getMessage();
                 throw new QueryException("Could not connect: " + message);
             }
+            if (resultPacket.getResultType() == ResultPacket.ResultType.OK) {
+                this.noBackslashEscapes = ((OKPacket) resultPacket).getServerStatus()
+                        .contains(ServerStatus.NO_BACKSLASH_ESCAPES);
+            }
+            if (useCompression) {
+                startCompression();
+            }
 
             // At this point, the driver is connected to the database, if createDB is true, 
             // then just try to create the database and to use it
@@ -245,6 +338,77 @@ public class MySQLProtocol implements Protocol {
         }
     }
 
+    /**
+     * switches to the compressed protocol, all packets after the authentication ok packet are compressed.
+     */
+    private void startCompression() {
+        int threshold = DEFAULT_COMPRESSION_THRESHOLD;
+        try {
+            threshold = Integer.parseInt(info.getProperty("compressionThreshold", String.valueOf(DEFAULT_COMPRESSION_THRESHOLD)));
+        } catch (NumberFormatException e) {
+            log.warning("Invalid compressionThreshold, using " + DEFAULT_COMPRESSION_THRESHOLD);
+        }
+        compressedOutput = new CompressedPacketOutputStream(writer, threshold);
+        writer = compressedOutput;
+        packetFetcher = new SyncPacketFetcher(new CompressedPacketInputStream(transport.getInputStream(), compressedOutput),
+                readBufferSize);
+    }
+
+    /**
+     * creates the off-heap budget of buffered results.
+     *
+     * @param info the connection properties, offHeapResultBudget is the budget in bytes
+     * @return the budget, null if offHeapResultBudget is not set
+     */
+    private ResultBufferBudget createResultBufferBudget(final Properties info) {
+        final String budget = info.getProperty("offHeapResultBudget");
+        if (budget == null) {
+            return null;
+        }
+        try {
+            return new ResultBufferBudget(Long.parseLong(budget));
+        } catch (NumberFormatException e) {
+            log.warning("Invalid offHeapResultBudget, buffering results on the heap");
+            return null;
+        }
+    }
+
+    private static int readPrepStmtCacheSize(final Properties info) {
+        try {
+            return Math.max(0, Integer.parseInt(info.getProperty("prepStmtCacheSize",
+                    String.valueOf(DEFAULT_PREP_STMT_CACHE_SIZE))));
+        } catch (NumberFormatException e) {
+            log.warning("Invalid prepStmtCacheSize, using " + DEFAULT_PREP_STMT_CACHE_SIZE);
+            return DEFAULT_PREP_STMT_CACHE_SIZE;
+        }
+    }
+
+    /**
+     * creates the per connection cache of server side prepared statements, statements evicted from the cache are
+     * closed on the server.
+     *
+     * @param maxSize the size of the cache, set with prepStmtCacheSize
+     * @return the cache
+     */
+    private Map<String, MySQLPrepareOKPacket> createServerPreparedStatementCache(final int maxSize) {
+        return new LinkedHashMap<String, MySQLPrepareOKPacket>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, MySQLPrepareOKPacket> eldest) {
+                if (size() <= maxSize) {
+                    return false;
+                }
+                if (eldest.getValue() != null) {
+                    try {
+                        closeStatement(eldest.getValue().getStatementId());
+                    } catch (QueryException e) {
+                        log.warning("Could not close prepared statement: " + e.getMessage());
+                    }
+                }
+                return true;
+            }
+        };
+    }
+
     /**
      * Closes socket and stream readers/writers
      *
@@ -252,18 +416,16 @@ public class MySQLProtocol implements Protocol {
      *          if the socket or readers/writes cannot be closed
      */
     public void close() throws QueryException {
+        // not synchronized, shutting down the input is what breaks a read blocked in another thread
+        activeStreamingResult = null;
         try {
-            if(! (socket instanceof SSLSocket))
-                socket.shutdownInput();
+            transport.shutdownInput();
         } catch (IOException ignored) {
         }
         try {
             final ClosePacket closePacket = new ClosePacket();
+            startCommand();
             closePacket.send(writer);
-            if (! (socket instanceof SSLSocket))
-                socket.shutdownOutput();
-            writer.close();
-            packetFetcher.close();
         } catch (IOException e) {
             throw new QueryException("Could not close connection: " + e.getMessage(),
                     -1,
@@ -272,7 +434,8 @@ public class MySQLProtocol implements Protocol {
         } finally {
             try {
                 this.connected = false;
-                socket.close();
+                transport.close();
+                packetFetcher.close();
             } catch (IOException e) {
                 log.warning("Could not close socket");
             }
@@ -295,13 +458,14 @@ public class MySQLProtocol implements Protocol {
      * @throws java.io.IOException when something goes wrong while reading/writing from the server
      */
     private QueryResult createDrizzleQueryResult(final ResultSetPacket packet) throws IOException, QueryException {
-        final List<ColumnInformation> columnInformation = new ArrayList<ColumnInformation>();
-        for (int i = 0; i < packet.getFieldCount(); i++) {
-            final RawPacket rawPacket = packetFetcher.getRawPacket();
-            final ColumnInformation columnInfo = MySQLFieldPacket.columnInformationFactory(rawPacket);
-            columnInformation.add(columnInfo);
-        }
+        final List<ColumnInformation> columnInformation = readColumnInformation(packet);
         packetFetcher.getRawPacket();
+        if (resultBufferBudget != null && getDatabaseType() == SupportedDatabases.MYSQL) {
+            return createOffHeapQueryResult(columnInformation);
+        }
+        if (useColumnarResults()) {
+            return createColumnarQueryResult(columnInformation);
+        }
         final List<List<ValueObject>> valueObjects = new ArrayList<List<ValueObject>>();
 
         while (true) {
@@ -321,17 +485,507 @@ public class MySQLProtocol implements Protocol {
                 return new DrizzleQueryResult(columnInformation, valueObjects, eofPacket.getWarningCount());
             }
 
-            if (getDatabaseType() == SupportedDatabases.MYSQL) {
-                final MySQLRowPacket rowPacket = new MySQLRowPacket(rawPacket, columnInformation);
-                valueObjects.add(rowPacket.getRow(packetFetcher));
+            valueObjects.add(readRow(rawPacket, columnInformation));
+        }
+    }
+
+    /**
+     * reads the rows of a text protocol result into an off-heap result, the column packets must have been read.
+     *
+     * @param columnInformation the columns of the result
+     * @return a MySQLOffHeapQueryResult
+     * @throws IOException when something goes wrong while reading from the server or writing the spill file
+     * @throws QueryException if the server sends an error
+     */
+    private QueryResult createOffHeapQueryResult(final List<ColumnInformation> columnInformation)
+            throws IOException, QueryException {
+        final MySQLOffHeapQueryResult result = new MySQLOffHeapQueryResult(columnInformation, resultBufferBudget);
+        boolean complete = false;
+        try {
+            while (true) {
+                final RawPacket rawPacket = packetFetcher.getRawPacket();
+
+                if (ReadUtil.isErrorPacket(rawPacket)) {
+                    ErrorPacket errorPacket = (ErrorPacket) ResultPacketFactory.createResultPacket(rawPacket);
+                    checkIfCancelled();
+                    throw new QueryException(errorPacket.getMessage(), errorPacket.getErrorNumber(), errorPacket.getSqlState());
+                }
+
+                if (ReadUtil.eofIsNext(rawPacket)) {
+                    final EOFPacket eofPacket = (EOFPacket) ResultPacketFactory.createResultPacket(rawPacket);
+                    this.hasMoreResults = eofPacket.getStatusFlags().contains(EOFPacket.ServerStatus.SERVER_MORE_RESULTS_EXISTS);
+                    checkIfCancelled();
+                    result.finish(eofPacket.getWarningCount());
+                    complete = true;
+                    return result;
+                }
+
+                if (rawPacket.getByteBuffer().limit() < ChainedPacketReader.MAX_PACKET_LENGTH) {
+                    result.addRow(rawPacket.getByteBuffer());
+                } else {
+                    result.addRow(readRow(rawPacket, columnInformation));
+                }
+            }
+        } finally {
+            if (!complete) {
+                result.close();
+            }
+        }
+    }
+
+    /**
+     * reads the rows of a text protocol result into a columnar result, the column packets must have been read.
+     *
+     * @param columnInformation the columns of the result
+     * @return a MySQLColumnarQueryResult
+     * @throws IOException when something goes wrong while reading from the server
+     * @throws QueryException if the server sends an error
+     */
+    private QueryResult createColumnarQueryResult(final List<ColumnInformation> columnInformation)
+            throws IOException, QueryException {
+        final MySQLColumnarQueryResult result = new MySQLColumnarQueryResult(columnInformation);
+        while (true) {
+            final RawPacket rawPacket = packetFetcher.getRawPacket();
+
+            if (ReadUtil.isErrorPacket(rawPacket)) {
+                ErrorPacket errorPacket = (ErrorPacket) ResultPacketFactory.createResultPacket(rawPacket);
+                checkIfCancelled();
+                throw new QueryException(errorPacket.getMessage(), errorPacket.getErrorNumber(), errorPacket.getSqlState());
+            }
+
+            if (ReadUtil.eofIsNext(rawPacket)) {
+                final EOFPacket eofPacket = (EOFPacket) ResultPacketFactory.createResultPacket(rawPacket);
+                this.hasMoreResults = eofPacket.getStatusFlags().contains(EOFPacket.ServerStatus.SERVER_MORE_RESULTS_EXISTS);
+                checkIfCancelled();
+                result.setWarnings(eofPacket.getWarningCount());
+                return result;
+            }
+
+            if (rawPacket.getByteBuffer().limit() < ChainedPacketReader.MAX_PACKET_LENGTH) {
+                result.addRow(rawPacket.getByteBuffer());
             } else {
-                final DrizzleRowPacket rowPacket = new DrizzleRowPacket(rawPacket, columnInformation);
-                valueObjects.add(rowPacket.getRow());
+                result.addRow(readRow(rawPacket, columnInformation));
+            }
+        }
+    }
+
+    /**
+     * create a streaming result - precondition is that a result set packet has been read. Only the column packets are
+     * read here, the rows are read when the result is iterated.
+     *
+     * @param packet the result set packet from the server
+     * @return a streaming query result
+     * @throws java.io.IOException when something goes wrong while reading/writing from the server
+     */
+    private QueryResult createStreamingQueryResult(final ResultSetPacket packet) throws IOException, QueryException {
+        final List<ColumnInformation> columnInformation = readColumnInformation(packet);
+        packetFetcher.getRawPacket();
+        activeStreamingResult = new MySQLStreamingQueryResult(columnInformation, this, false);
+        return activeStreamingResult;
+    }
+
+    /**
+     * reads the field packets following a result set packet, the EOF packet after the fields is not read.
+     *
+     * @param packet the result set packet from the server
+     * @return the column information
+     * @throws IOException if the packets could not be read
+     */
+    private List<ColumnInformation> readColumnInformation(final ResultSetPacket packet) throws IOException {
+        final List<ColumnInformation> columnInformation = new ArrayList<ColumnInformation>();
+        for (int i = 0; i < packet.getFieldCount(); i++) {
+            final RawPacket rawPacket = packetFetcher.getRawPacket();
+            columnInformation.add(MySQLFieldPacket.columnInformationFactory(rawPacket));
+        }
+        return columnInformation;
+    }
+
+    /**
+     * reads binary protocol rows until the EOF packet.
+     *
+     * @param columnInformation the columns of the result set
+     * @param rows              the list to add the rows to
+     * @return the EOF packet ending the rows
+     * @throws IOException    if the rows could not be read
+     * @throws QueryException if the server sent an error
+     */
+    private EOFPacket readBinaryRows(final List<ColumnInformation> columnInformation,
+                                     final List<List<ValueObject>> rows) throws IOException, QueryException {
+        while (true) {
+            final RawPacket rawPacket = packetFetcher.getRawPacket();
+            if (ReadUtil.isErrorPacket(rawPacket)) {
+                final ErrorPacket errorPacket = (ErrorPacket) ResultPacketFactory.createResultPacket(rawPacket);
+                checkIfCancelled();
+                throw new QueryException(errorPacket.getMessage(), errorPacket.getErrorNumber(), errorPacket.getSqlState());
+            }
+            if (ReadUtil.eofIsNext(rawPacket)) {
+                return (EOFPacket) ResultPacketFactory.createResultPacket(rawPacket);
+            }
+            rows.add(readBinaryRow(rawPacket, columnInformation));
+        }
+    }
+
+    /**
+     * decodes a binary protocol row, reading more packets from the server if the row is split.
+     *
+     * @param rawPacket         the first packet of the row
+     * @param columnInformation the columns of the result set
+     * @return the values of the row
+     * @throws IOException if the row could not be read
+     */
+    List<ValueObject> readBinaryRow(final RawPacket rawPacket, final List<ColumnInformation> columnInformation) throws IOException {
+        return new MySQLBinaryRowPacket(rawPacket, columnInformation).getRow(packetFetcher);
+    }
+
+    /**
+     * checks whether a prepared statement should be executed as a server side prepared statement, all parameters must
+     * have a binary representation.
+     *
+     * @param dQuery the query
+     * @return true if the query should be prepared on the server
+     */
+    private boolean useServerPrepStmts(final Query dQuery) {
+        if (!(dQuery instanceof ParameterizedQuery)
+                || info == null
+                || !info.getProperty("useServerPrepStmts", "").equalsIgnoreCase("true")
+                || getDatabaseType() != SupportedDatabases.MYSQL) {
+            return false;
+        }
+        for (final ParameterHolder parameter : ((ParameterizedQuery) dQuery).getParameters()) {
+            if (!(parameter instanceof BinaryParameterHolder)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * gets the server side statement for the query, preparing it if this connection has not done so before.
+     *
+     * @param dQuery the query
+     * @return the prepared statement, or null if the server can not prepare the query
+     * @throws QueryException if the query could not be prepared
+     */
+    private MySQLPrepareOKPacket getServerPreparedStatement(final ParameterizedQuery dQuery) throws QueryException {
+        final String sql = dQuery.getQuery();
+        if (serverPreparedStatements.containsKey(sql)) {
+            return serverPreparedStatements.get(sql);
+        }
+        MySQLPrepareOKPacket prepared;
+        try {
+            prepared = prepare(new DrizzleQuery(sql));
+        } catch (QueryException e) {
+            if (e.getErrorCode() != ER_UNSUPPORTED_PS) {
+                throw e;
+            }
+            prepared = null;
+        }
+        if (prepared != null && prepared.getParameterCount() != dQuery.getParamCount()) {
+            closeStatement(prepared.getStatementId());
+            prepared = null;
+        }
+        // remember queries that can not be prepared too, so we do not try again
+        if (prepStmtCacheSize > 0) {
+            serverPreparedStatements.put(sql, prepared);
+        }
+        return prepared;
+    }
+
+    /**
+     * executes a server side prepared statement, the parameters are sent and the rows are read in the binary
+     * protocol.
+     *
+     * @param prepared  the prepared statement
+     * @param dQuery    the query holding the parameters
+     * @param fetchSize the fetch size of the statement
+     * @return the query result
+     * @throws QueryException if the query could not be executed
+     */
+    private QueryResult executeServerPrepared(final MySQLPrepareOKPacket prepared,
+                                              final ParameterizedQuery dQuery,
+                                              final int fetchSize) throws QueryException {
+        final ParameterHolder[] parameters = dQuery.getParameters();
+        final BinaryParameterHolder[] binaryParameters = new BinaryParameterHolder[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            binaryParameters[i] = (BinaryParameterHolder) parameters[i];
+        }
+        final ResultPacket resultPacket;
+        try {
+            packetFetcher.clearInputStream();
+            startCommand();
+            new MySQLStmtExecutePacket(prepared.getStatementId(),
+                    MySQLStmtExecutePacket.CURSOR_TYPE_NO_CURSOR,
+                    binaryParameters).send(writer);
+            resultPacket = ResultPacketFactory.createResultPacket(packetFetcher.getRawPacket());
+        } catch (IOException e) {
+            throw new QueryException("Could not send query: " + e.getMessage(),
+                    -1,
+                    SQLExceptionMapper.SQLStates.CONNECTION_EXCEPTION.getSqlState(),
+                    e);
+        }
+
+        switch (resultPacket.getResultType()) {
+            case ERROR:
+                final ErrorPacket ep = (ErrorPacket) resultPacket;
+                checkIfCancelled();
+                log.warning("Could not execute query " + dQuery + ": " + ep.getMessage());
+                throw new QueryException(ep.getMessage(), ep.getErrorNumber(), ep.getSqlState());
+            case OK:
+                final OKPacket okpacket = (OKPacket) resultPacket;
+                this.hasMoreResults = okpacket.getServerStatus().contains(ServerStatus.MORE_RESULTS_EXISTS);
+                this.noBackslashEscapes = okpacket.getServerStatus().contains(ServerStatus.NO_BACKSLASH_ESCAPES);
+                return new DrizzleUpdateResult(okpacket.getAffectedRows(),
+                        okpacket.getWarnings(),
+                        okpacket.getMessage(),
+                        okpacket.getInsertId());
+            case RESULTSET:
+                try {
+                    final List<ColumnInformation> columnInformation = readColumnInformation((ResultSetPacket) resultPacket);
+                    packetFetcher.getRawPacket();
+                    if (useStreamingResults(fetchSize)) {
+                        activeStreamingResult = new MySQLStreamingQueryResult(columnInformation, this, true);
+                        return activeStreamingResult;
+                    }
+                    final List<List<ValueObject>> rows = new ArrayList<List<ValueObject>>();
+                    final EOFPacket eofPacket = readBinaryRows(columnInformation, rows);
+                    this.hasMoreResults = eofPacket.getStatusFlags().contains(EOFPacket.ServerStatus.SERVER_MORE_RESULTS_EXISTS);
+                    checkIfCancelled();
+                    return new DrizzleQueryResult(columnInformation, rows, eofPacket.getWarningCount());
+                } catch (IOException e) {
+                    throw new QueryException("Could not read result set: " + e.getMessage(),
+                            -1,
+                            SQLExceptionMapper.SQLStates.CONNECTION_EXCEPTION.getSqlState(),
+                            e);
+                }
+            default:
+                throw new QueryException("Could not parse result", (short) -1, SQLExceptionMapper.SQLStates.INTERRUPTED_EXCEPTION.getSqlState());
+        }
+    }
+
+    /**
+     * checks whether a select should be read through a server side cursor.
+     *
+     * @param dQuery    the query
+     * @param fetchSize the fetch size of the statement
+     * @return true if a cursor should be used
+     */
+    private boolean useCursorFetch(final Query dQuery, final int fetchSize) {
+        return fetchSize > 0
+                && info != null
+                && info.getProperty("useCursorFetch", "").equalsIgnoreCase("true")
+                && getDatabaseType() == SupportedDatabases.MYSQL
+                && dQuery.getQueryType() == QueryType.SELECT;
+    }
+
+    /**
+     * prepares the query on the server with COM_STMT_PREPARE.
+     *
+     * @param dQuery the query to prepare
+     * @return the answer from the server, containing the statement id
+     * @throws QueryException if the query could not be prepared
+     */
+    private MySQLPrepareOKPacket prepare(final Query dQuery) throws QueryException {
+        final StreamedQueryPacket packet = new StreamedQueryPacket(dQuery, (byte) 0x16);
+        try {
+            packetFetcher.clearInputStream();
+            startCommand();
+            packet.send(writer);
+            final RawPacket rawPacket = packetFetcher.getRawPacket();
+            if (ReadUtil.isErrorPacket(rawPacket)) {
+                final ErrorPacket ep = (ErrorPacket) ResultPacketFactory.createResultPacket(rawPacket);
+                throw new QueryException(ep.getMessage(), ep.getErrorNumber(), ep.getSqlState());
+            }
+            final MySQLPrepareOKPacket prepareOK = new MySQLPrepareOKPacket(rawPacket);
+            // the parameter and column definitions are each followed by an EOF packet
+            if (prepareOK.getParameterCount() > 0) {
+                for (int i = 0; i <= prepareOK.getParameterCount(); i++) {
+                    packetFetcher.getRawPacket();
+                }
+            }
+            if (prepareOK.getColumnCount() > 0) {
+                for (int i = 0; i <= prepareOK.getColumnCount(); i++) {
+                    packetFetcher.getRawPacket();
+                }
+            }
+            return prepareOK;
+        } catch (IOException e) {
+            throw new QueryException("Could not prepare query: " + e.getMessage(),
+                    -1,
+                    SQLExceptionMapper.SQLStates.CONNECTION_EXCEPTION.getSqlState(),
+                    e);
+        }
+    }
+
+    /**
+     * executes a select through a read only server side cursor, rows are fetched fetchSize at a time when the result
+     * is iterated.
+     *
+     * @param dQuery    the query to execute
+     * @param fetchSize the number of rows to fetch per round trip
+     * @return the query result
+     * @throws QueryException if the query could not be executed
+     */
+    private QueryResult executeWithCursor(final Query dQuery, final int fetchSize) throws QueryException {
+        final int statementId = prepare(dQuery).getStatementId();
+        final ResultPacket resultPacket;
+        try {
+            startCommand();
+            new MySQLStmtExecutePacket(statementId, MySQLStmtExecutePacket.CURSOR_TYPE_READ_ONLY).send(writer);
+            resultPacket = ResultPacketFactory.createResultPacket(packetFetcher.getRawPacket());
+            switch (resultPacket.getResultType()) {
+                case ERROR:
+                    final ErrorPacket ep = (ErrorPacket) resultPacket;
+                    closeStatement(statementId);
+                    checkIfCancelled();
+                    throw new QueryException(ep.getMessage(), ep.getErrorNumber(), ep.getSqlState());
+                case OK:
+                    final OKPacket okpacket = (OKPacket) resultPacket;
+                    closeStatement(statementId);
+                    return new DrizzleUpdateResult(okpacket.getAffectedRows(),
+                            okpacket.getWarnings(),
+                            okpacket.getMessage(),
+                            okpacket.getInsertId());
+                case RESULTSET:
+                    final List<ColumnInformation> columnInformation = readColumnInformation((ResultSetPacket) resultPacket);
+                    final EOFPacket eofPacket = (EOFPacket) ResultPacketFactory.createResultPacket(packetFetcher.getRawPacket());
+                    if (eofPacket.getStatusFlags().contains(EOFPacket.ServerStatus.SERVER_STATUS_CURSOR_EXISTS)) {
+                        return new MySQLCursorQueryResult(columnInformation,
+                                this,
+                                statementId,
+                                fetchSize,
+                                eofPacket.getWarningCount());
+                    }
+                    // the server did not open a cursor, the rows follow directly
+                    final List<List<ValueObject>> rows = new ArrayList<List<ValueObject>>();
+                    final EOFPacket lastPacket = readBinaryRows(columnInformation, rows);
+                    closeStatement(statementId);
+                    return new DrizzleQueryResult(columnInformation, rows, lastPacket.getWarningCount());
+                default:
+                    throw new QueryException("Could not parse result", (short) -1, SQLExceptionMapper.SQLStates.INTERRUPTED_EXCEPTION.getSqlState());
             }
+        } catch (IOException e) {
+            throw new QueryException("Could not read result set: " + e.getMessage(),
+                    -1,
+                    SQLExceptionMapper.SQLStates.CONNECTION_EXCEPTION.getSqlState(),
+                    e);
+        }
+    }
+
+    /**
+     * fetches rows from an open cursor with COM_STMT_FETCH.
+     *
+     * @param statementId       the statement owning the cursor
+     * @param fetchSize         the number of rows to fetch
+     * @param columnInformation the columns of the result set
+     * @param rows              the list to add the fetched rows to
+     * @return true if the server has sent the last row of the cursor
+     * @throws QueryException if the rows could not be fetched
+     */
+    synchronized boolean fetchRows(final int statementId,
+                      final int fetchSize,
+                      final List<ColumnInformation> columnInformation,
+                      final List<List<ValueObject>> rows) throws QueryException {
+        checkNoStreamingResult();
+        try {
+            startCommand();
+            new MySQLStmtFetchPacket(statementId, fetchSize).send(writer);
+            final EOFPacket eofPacket = readBinaryRows(columnInformation, rows);
+            return eofPacket.getStatusFlags().contains(EOFPacket.ServerStatus.SERVER_STATUS_LAST_ROW_SENT);
+        } catch (IOException e) {
+            throw new QueryException("Could not fetch rows: " + e.getMessage(),
+                    -1,
+                    SQLExceptionMapper.SQLStates.CONNECTION_EXCEPTION.getSqlState(),
+                    e);
+        }
+    }
+
+    /**
+     * deallocates a server side prepared statement, the server does not answer COM_STMT_CLOSE.
+     *
+     * @param statementId the statement to close
+     * @throws QueryException if the command could not be sent
+     */
+    synchronized void closeStatement(final int statementId) throws QueryException {
+        if (!connected) {
+            return;
+        }
+        try {
+            startCommand();
+            new MySQLStmtClosePacket(statementId).send(writer);
+        } catch (IOException e) {
+            throw new QueryException("Could not close statement: " + e.getMessage(),
+                    -1,
+                    SQLExceptionMapper.SQLStates.CONNECTION_EXCEPTION.getSqlState(),
+                    e);
+        }
+    }
+
+    /**
+     * decodes a text protocol row, reading more packets from the server if the row is split.
+     *
+     * @param rawPacket         the first packet of the row
+     * @param columnInformation the columns of the result set
+     * @return the values of the row
+     * @throws IOException if the row could not be read
+     */
+    List<ValueObject> readRow(final RawPacket rawPacket, final List<ColumnInformation> columnInformation) throws IOException {
+        if (getDatabaseType() == SupportedDatabases.MYSQL) {
+            final MySQLRowPacket rowPacket = new MySQLRowPacket(rawPacket, columnInformation);
+            return rowPacket.getRow(packetFetcher);
+        } else {
+            final DrizzleRowPacket rowPacket = new DrizzleRowPacket(rawPacket, columnInformation);
+            return rowPacket.getRow();
+        }
+    }
+
+    PacketFetcher getPacketFetcher() {
+        return packetFetcher;
+    }
+
+    void setHasMoreResults(final boolean hasMoreResults) {
+        this.hasMoreResults = hasMoreResults;
+    }
+
+    /**
+     * called by a streaming result when it has read its last row, the connection can be used for other commands after
+     * this.
+     *
+     * @param result the result that is done
+     */
+    void releaseStreamingResult(final StreamingQueryResult result) {
+        if (activeStreamingResult == result) {
+            activeStreamingResult = null;
+        }
+    }
+
+    /**
+     * makes sure no streaming result is reading from the connection, commands can not be sent until all rows of a
+     * streaming result have been read or the result has been closed.
+     *
+     * @throws QueryException if there is an open streaming result
+     */
+    private void checkNoStreamingResult() throws QueryException {
+        if (activeStreamingResult != null) {
+            throw new QueryException("Streaming result set is still open, all rows must be read or the result set " +
+                    "closed before new commands can be sent on this connection",
+                    -1,
+                    SQLExceptionMapper.SQLStates.INVALID_CURSOR_STATE.getSqlState(),
+                    null);
         }
     }
 
-    private void checkIfCancelled() throws QueryException {
+    /**
+     * checks whether a select should stream its rows instead of buffering them.
+     *
+     * @param fetchSize the fetch size of the statement
+     * @return true if the result should be streamed
+     */
+    private boolean useStreamingResults(final int fetchSize) {
+        return fetchSize == Integer.MIN_VALUE
+                || (fetchSize == 0 && info != null && info.getProperty("useStreamingResults", "").equalsIgnoreCase("true"));
+    }
+
+    void checkIfCancelled() throws QueryException {
         if (queryWasCancelled) {
             queryWasCancelled = false;
             throw new QueryException("Query was cancelled by another thread", (short) -1, "JZ0001");
@@ -342,10 +996,12 @@ public class MySQLProtocol implements Protocol {
         }
     }
 
-    public void selectDB(final String database) throws QueryException {
+    public synchronized void selectDB(final String database) throws QueryException {
         log.finest("Selecting db " + database);
+        checkNoStreamingResult();
         final SelectDBPacket packet = new SelectDBPacket(database);
         try {
+            startCommand();
             packet.send(writer);
             final RawPacket rawPacket = packetFetcher.getRawPacket();
             ResultPacketFactory.createResultPacket(rawPacket);
@@ -370,26 +1026,26 @@ public class MySQLProtocol implements Protocol {
         return readOnly;
     }
 
-    public void commit() throws QueryException {
+    public synchronized void commit() throws QueryException {
         log.finest("commiting transaction");
         executeQuery(new DrizzleQuery("COMMIT"));
     }
 
-    public void rollback() throws QueryException {
+    public synchronized void rollback() throws QueryException {
         log.finest("rolling transaction back");
         executeQuery(new DrizzleQuery("ROLLBACK"));
     }
 
-    public void rollback(final String savepoint) throws QueryException {
+    public synchronized void rollback(final String savepoint) throws QueryException {
         log.finest("rolling back to savepoint " + savepoint);
         executeQuery(new DrizzleQuery("ROLLBACK TO SAVEPOINT " + savepoint));
     }
 
-    public void setSavepoint(final String savepoint) throws QueryException {
+    public synchronized void setSavepoint(final String savepoint) throws QueryException {
         executeQuery(new DrizzleQuery("SAVEPOINT " + savepoint));
     }
 
-    public void releaseSavepoint(final String savepoint) throws QueryException {
+    public synchronized void releaseSavepoint(final String savepoint) throws QueryException {
         executeQuery(new DrizzleQuery("RELEASE SAVEPOINT " + savepoint));
     }
 
@@ -413,9 +1069,11 @@ public class MySQLProtocol implements Protocol {
         return password;
     }
 
-    public boolean ping() throws QueryException {
+    public synchronized boolean ping() throws QueryException {
+        checkNoStreamingResult();
         final MySQLPingPacket pingPacket = new MySQLPingPacket();
         try {
+            startCommand();
             pingPacket.send(writer);
             log.finest("Sent ping packet");
             final RawPacket rawPacket = packetFetcher.getRawPacket();
@@ -428,15 +1086,99 @@ public class MySQLProtocol implements Protocol {
         }
     }
 
-    public QueryResult executeQuery(final Query dQuery) throws QueryException {
-        log.finest("Executing streamed query: " + dQuery);
+    /**
+     * resets the session with COM_RESET_CONNECTION, or with COM_CHANGE_USER if the server does not support it or the
+     * database has been changed, since COM_RESET_CONNECTION keeps the current database. Both drop temporary tables,
+     * user variables, prepared statements and the open transaction and set session variables to their global values
+     * in one round trip.
+     *
+     * @throws QueryException if the session could not be reset
+     */
+    public synchronized void resetSession() throws QueryException {
+        log.finest("Resetting session");
+        checkNoStreamingResult();
+        try {
+            ResultPacket resultPacket = null;
+            if (!resetConnectionUnsupported && database.equals(initialDatabase)) {
+                startCommand();
+                new MySQLResetConnectionPacket().send(writer);
+                resultPacket = ResultPacketFactory.createResultPacket(packetFetcher.getRawPacket());
+                if (resultPacket.getResultType() == ResultPacket.ResultType.ERROR
+                        && ((ErrorPacket) resultPacket).getErrorNumber() == ER_UNKNOWN_COM_ERROR) {
+                    resetConnectionUnsupported = true;
+                    resultPacket = null;
+                }
+            }
+            if (resultPacket == null) {
+                resultPacket = changeUser();
+            }
+            if (resultPacket.getResultType() == ResultPacket.ResultType.ERROR) {
+                final ErrorPacket ep = (ErrorPacket) resultPacket;
+                throw new QueryException("Could not reset session: " + ep.getMessage(), ep.getErrorNumber(),
+                        ep.getSqlState());
+            }
+            if (resultPacket.getResultType() == ResultPacket.ResultType.OK) {
+                this.noBackslashEscapes = ((OKPacket) resultPacket).getServerStatus()
+                        .contains(ServerStatus.NO_BACKSLASH_ESCAPES);
+            }
+        } catch (IOException e) {
+            throw new QueryException("Could not reset session: " + e.getMessage(),
+                    -1,
+                    SQLExceptionMapper.SQLStates.CONNECTION_EXCEPTION.getSqlState(),
+                    e);
+        }
+        this.database = initialDatabase;
+        this.readOnly = false;
         this.hasMoreResults = false;
-        final StreamedQueryPacket packet = new StreamedQueryPacket(dQuery);
+        this.batchList.clear();
+        // the server has deallocated them, they must not be closed
+        this.serverPreparedStatements.clear();
+    }
 
+    private ResultPacket changeUser() throws IOException, QueryException {
+        startCommand();
+        new MySQLChangeUserPacket(username, password, initialDatabase, seed).send(writer);
+        RawPacket rp = packetFetcher.getRawPacket();
+        if ((rp.getByteBuffer().get(0) & 0xFF) == 0xFE) {   // Server asking for old format password
+            new MySQLClientOldPasswordAuthPacket(password, Utils.copyWithLength(seed, 8), rp.getPacketSeq() + 1)
+                    .send(writer);
+            rp = packetFetcher.getRawPacket();
+        }
+        return ResultPacketFactory.createResultPacket(rp);
+    }
+
+    public synchronized QueryResult executeQuery(final Query dQuery) throws QueryException {
+        return executeQuery(dQuery, 0);
+    }
+
+    public synchronized QueryResult executeQuery(final Query dQuery, final int fetchSize) throws QueryException {
+        if (log.isLoggable(Level.FINEST)) {
+            log.finest("Executing streamed query: " + dQuery);
+        }
+        checkNoStreamingResult();
+        this.hasMoreResults = false;
+        if (useCursorFetch(dQuery, fetchSize)) {
+            return executeWithCursor(dQuery, fetchSize);
+        }
+        if (useServerPrepStmts(dQuery)) {
+            final MySQLPrepareOKPacket prepared = getServerPreparedStatement((ParameterizedQuery) dQuery);
+            if (prepared != null) {
+                if (prepStmtCacheSize > 0) {
+                    return executeServerPrepared(prepared, (ParameterizedQuery) dQuery, fetchSize);
+                }
+                // not cached, the rows of a non-cursor execute are already on their way so the statement can go
+                try {
+                    return executeServerPrepared(prepared, (ParameterizedQuery) dQuery, fetchSize);
+                } finally {
+                    closeStatement(prepared.getStatementId());
+                }
+            }
+        }
         try {
             // make sure we are in a good state
             packetFetcher.clearInputStream();
-            packet.send(writer);
+            writeQuery(dQuery);
+            writer.flush();
         } catch (IOException e) {
             throw new QueryException("Could not send query: " + e.getMessage(),
                     -1,
@@ -444,6 +1186,43 @@ public class MySQLProtocol implements Protocol {
                     e);
         }
 
+        return readResult(dQuery, fetchSize);
+    }
+
+    /**
+     * restarts the compressed sequence, it has to be called before the first packet of every command.
+     */
+    private void startCommand() throws IOException {
+        if (compressedOutput != null) {
+            compressedOutput.resetSequence();
+        }
+    }
+
+    /**
+     * writes a COM_QUERY packet without flushing, a query that has not been encoded yet is encoded straight into the
+     * packet buffer of the connection.
+     *
+     * @param query the query to write
+     * @return the sequence number of the last packet written
+     */
+    private int writeQuery(final Query query) throws IOException, QueryException {
+        startCommand();
+        if (query instanceof DrizzleQuery && !((DrizzleQuery) query).isEncoded()
+                && queryPacketWriter.write(COM_QUERY, query.getQuery(), writer)) {
+            return 0;
+        }
+        return new StreamedQueryPacket(query).write(writer);
+    }
+
+    /**
+     * reads the result of a query sent with COM_QUERY.
+     *
+     * @param dQuery    the query, used for logging
+     * @param fetchSize the fetch size of the statement
+     * @return the query result
+     * @throws QueryException if the query failed or the result could not be read
+     */
+    private QueryResult readResult(final Query dQuery, final int fetchSize) throws QueryException {
         final RawPacket rawPacket;
         final ResultPacket resultPacket;
         try {
@@ -467,6 +1246,7 @@ public class MySQLProtocol implements Protocol {
             case OK:
                 final OKPacket okpacket = (OKPacket) resultPacket;
                 this.hasMoreResults = okpacket.getServerStatus().contains(ServerStatus.MORE_RESULTS_EXISTS);
+                this.noBackslashEscapes = okpacket.getServerStatus().contains(ServerStatus.NO_BACKSLASH_ESCAPES);
                 final QueryResult updateResult = new DrizzleUpdateResult(okpacket.getAffectedRows(),
                         okpacket.getWarnings(),
                         okpacket.getMessage(),
@@ -477,6 +1257,9 @@ public class MySQLProtocol implements Protocol {
                 log.fine("SELECT executed, fetching result set");
 
                 try {
+                    if (useStreamingResults(fetchSize)) {
+                        return this.createStreamingQueryResult((ResultSetPacket) resultPacket);
+                    }
                     return this.createDrizzleQueryResult((ResultSetPacket) resultPacket);
                 } catch (IOException e) {
                     throw new QueryException("Could not read result set: " + e.getMessage(),
@@ -491,28 +1274,231 @@ public class MySQLProtocol implements Protocol {
 
     }
 
-    public void addToBatch(final Query dQuery) {
+    public synchronized void addToBatch(final Query dQuery) {
         batchList.add(dQuery);
     }
 
-    public List<QueryResult> executeBatch() throws QueryException {
+    public synchronized List<QueryResult> executeBatch() throws QueryException {
         final List<QueryResult> retList = new ArrayList<QueryResult>(batchList.size());
-
-        for (final Query query : batchList) {
-            retList.add(executeQuery(query));
+        try {
+            if (info.getProperty("allowMultiQueries") != null) {
+                executeMultiStatementBatch(retList);
+            } else if (info.getProperty("pipelineBatches", "").equalsIgnoreCase("true")) {
+                executePipelinedBatch(retList);
+            } else {
+                for (final Query query : batchList) {
+                    try {
+                        retList.add(executeQuery(query, BUFFERED_FETCH_SIZE));
+                    } catch (QueryException e) {
+                        throw new BatchQueryException(e, retList);
+                    }
+                }
+            }
+        } finally {
+            clearBatch();
         }
-        clearBatch();
         return retList;
+    }
+
+    /**
+     * sends the queries of the batch back to back and then reads the results in order, instead of waiting for each
+     * result before sending the next query.
+     * <p/>
+     * At most PIPELINE_WINDOW bytes of queries are sent before the results are read, so everything written fits in
+     * the socket buffers and the writes can not block while the server is blocked writing results nobody reads.
+     * When a query fails, the queries already sent are still executed by the server, their results are read and no
+     * more queries are sent.
+     *
+     * @param results the list to add the results to
+     * @throws QueryException if a query fails or the connection breaks
+     */
+    private void executePipelinedBatch(final List<QueryResult> results) throws QueryException {
+        checkNoStreamingResult();
+        QueryException failure = null;
+        int sent = 0;
+        try {
+            packetFetcher.clearInputStream();
+            while (sent < batchList.size() && failure == null) {
+                final int firstInWindow = sent;
+                int windowBytes = 0;
+                while (sent < batchList.size()
+                        && (sent == firstInWindow || windowBytes + batchList.get(sent).length() <= PIPELINE_WINDOW)) {
+                    final Query query = batchList.get(sent);
+                    writeQuery(query);
+                    windowBytes += query.length() + 5;
+                    sent++;
+                }
+                writer.flush();
+                for (int i = firstInWindow; i < sent; i++) {
+                    try {
+                        this.hasMoreResults = false;
+                        results.add(readResult(batchList.get(i), BUFFERED_FETCH_SIZE));
+                        skipMoreResults();
+                    } catch (QueryException e) {
+                        if (SQLExceptionMapper.SQLStates.CONNECTION_EXCEPTION.getSqlState().equals(e.getSqlState())) {
+                            throw e;
+                        }
+                        this.hasMoreResults = false;
+                        results.add(null);
+                        if (failure == null) {
+                            failure = e;
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new QueryException("Could not send query: " + e.getMessage(),
+                    -1,
+                    SQLExceptionMapper.SQLStates.CONNECTION_EXCEPTION.getSqlState(),
+                    e);
+        }
+        if (failure != null) {
+            throw new BatchQueryException(failure, results);
+        }
+    }
+
+    /**
+     * packs as many queries of the batch as fit in max_allowed_packet into one multi statement query, and maps the
+     * results of the statements back to the queries. The server stops executing a multi statement query at the first
+     * failing statement, so the batch stops there too.
+     *
+     * @param results the list to add the results to
+     * @throws QueryException if a query fails or the connection breaks
+     */
+    private void executeMultiStatementBatch(final List<QueryResult> results) throws QueryException {
+        final int maxLength = getMaxAllowedPacket() - 1;
+        int next = 0;
+        while (next < batchList.size()) {
+            final int first = next;
+            if (!canPackInMultiStatement(batchList.get(next))) {
+                // the statement can return any number of results, it has to be sent by itself
+                next++;
+            } else {
+                int length = 0;
+                while (next < batchList.size() && canPackInMultiStatement(batchList.get(next))) {
+                    final int queryLength = batchList.get(next).length() + MULTI_STATEMENT_SEPARATOR.length();
+                    if (next > first && length + queryLength > maxLength) {
+                        break;
+                    }
+                    length += queryLength;
+                    next++;
+                }
+            }
+            executeMultiStatement(first, next, results);
+        }
+    }
 
+    /**
+     * executes the batch queries from first (inclusive) to last (exclusive) as one multi statement query.
+     */
+    private void executeMultiStatement(final int first, final int last, final List<QueryResult> results) throws QueryException {
+        final Query query;
+        if (last - first == 1) {
+            query = batchList.get(first);
+        } else {
+            final StringBuilder sb = new StringBuilder();
+            for (int i = first; i < last; i++) {
+                if (i > first) {
+                    sb.append(MULTI_STATEMENT_SEPARATOR);
+                }
+                sb.append(stripTrailingSemicolons(batchList.get(i).getQuery()));
+            }
+            query = new DrizzleQuery(sb.toString());
+        }
+        for (int i = first; i < last; i++) {
+            try {
+                if (i == first) {
+                    results.add(executeQuery(query, BUFFERED_FETCH_SIZE));
+                } else if (hasMoreResults) {
+                    results.add(getMoreResults());
+                } else {
+                    throw new QueryException("Got fewer results than statements in the batch",
+                            -1,
+                            SQLExceptionMapper.SQLStates.CONNECTION_EXCEPTION.getSqlState(),
+                            null);
+                }
+            } catch (QueryException e) {
+                if (SQLExceptionMapper.SQLStates.CONNECTION_EXCEPTION.getSqlState().equals(e.getSqlState())) {
+                    throw e;
+                }
+                this.hasMoreResults = false;
+                results.add(null);
+                throw new BatchQueryException(e, results);
+            }
+        }
+        skipMoreResults();
+    }
+
+    /**
+     * statements like CALL can return several results, they can not be mapped back to the batch if packed with
+     * other statements.
+     */
+    private static boolean canPackInMultiStatement(final Query query) {
+        return !query.getQuery().trim().toLowerCase().startsWith("call");
+    }
+
+    private static String stripTrailingSemicolons(final String query) {
+        int end = query.length();
+        while (end > 0 && (query.charAt(end - 1) == ';' || Character.isWhitespace(query.charAt(end - 1)))) {
+            end--;
+        }
+        return query.substring(0, end);
     }
 
-    public void clearBatch() {
+    /**
+     * gets the max_allowed_packet of the server, it is read the first time it is needed.
+     *
+     * @return the max packet size the server accepts
+     * @throws QueryException if the variable could not be read
+     */
+    public synchronized int getMaxAllowedPacket() throws QueryException {
+        if (maxAllowedPacket == 0) {
+            final SelectQueryResult result = (SelectQueryResult) executeQuery(new DrizzleQuery("select @@max_allowed_packet"),
+                    BUFFERED_FETCH_SIZE);
+            try {
+                if (result.next()) {
+                    maxAllowedPacket = (int) Math.min(result.getValueObject(0).getLong(), Integer.MAX_VALUE);
+                }
+            } catch (NoSuchColumnException e) {
+                throw new QueryException("Could not read max_allowed_packet: " + e.getMessage(),
+                        -1,
+                        SQLExceptionMapper.SQLStates.UNDEFINED_SQLSTATE.getSqlState(),
+                        e);
+            } finally {
+                result.close();
+            }
+            if (maxAllowedPacket <= 0) {
+                maxAllowedPacket = DEFAULT_MAX_ALLOWED_PACKET;
+            }
+        }
+        return maxAllowedPacket;
+    }
+
+    /**
+     * reads and throws away the rest of the results of a query that returned several results.
+     */
+    private void skipMoreResults() throws QueryException {
+        while (hasMoreResults) {
+            try {
+                getMoreResults();
+            } catch (QueryException e) {
+                this.hasMoreResults = false;
+                throw e;
+            }
+        }
+    }
+
+    public synchronized void clearBatch() {
         batchList.clear();
     }
 
-    public List<RawPacket> startBinlogDump(final int startPos, final String filename) throws BinlogDumpException {
+    public synchronized List<RawPacket> startBinlogDump(final int startPos, final String filename) throws BinlogDumpException {
+        if (activeStreamingResult != null) {
+            throw new BinlogDumpException("Streaming result set is still open", null);
+        }
         final MySQLBinlogDumpPacket mbdp = new MySQLBinlogDumpPacket(startPos, filename);
         try {
+            startCommand();
             mbdp.send(writer);
             final List<RawPacket> rpList = new LinkedList<RawPacket>();
             while (true) {
@@ -520,7 +1506,7 @@ public class MySQLProtocol implements Protocol {
                 if (ReadUtil.eofIsNext(rp)) {
                     return rpList;
                 }
-                rpList.add(rp);
+                rpList.add(rp.retain());
             }
         } catch (IOException e) {
             throw new BinlogDumpException("Could not read binlog", e);
@@ -535,22 +1521,27 @@ public class MySQLProtocol implements Protocol {
         return info != null && info.getProperty("enableBlobStreaming", "").equalsIgnoreCase("true");
     }
 
-    public String getServerVariable(String variable) throws QueryException {
-        DrizzleQueryResult qr = (DrizzleQueryResult) executeQuery(new DrizzleQuery("select @@" + variable));
-        if (!qr.next()) {
-            throw new QueryException("Could not get variable: " + variable);
-        }
-
+    public synchronized String getServerVariable(String variable) throws QueryException {
+        final SelectQueryResult result =
+                (SelectQueryResult) executeQuery(new DrizzleQuery("select @@" + variable), BUFFERED_FETCH_SIZE);
         try {
-            String value = qr.getValueObject(0).getString();
-            return value;
+            if (!result.next()) {
+                throw new QueryException("Could not get variable: " + variable);
+            }
+            return result.getValueObject(0).getString();
         } catch (NoSuchColumnException e) {
-            throw new QueryException("Could not get variable: " + variable);
+            throw new QueryException("Could not get variable: " + variable,
+                    -1,
+                    SQLExceptionMapper.SQLStates.UNDEFINED_SQLSTATE.getSqlState(),
+                    e);
+        } finally {
+            result.close();
         }
     }
 
-    public QueryResult executeQuery(Query dQuery,
+    public synchronized QueryResult executeQuery(Query dQuery,
                                     InputStream inputStream) throws QueryException {
+        checkNoStreamingResult();
         int packIndex = 0;
         if(hasMoreResults) {
             try {
@@ -564,11 +1555,12 @@ public class MySQLProtocol implements Protocol {
             }
         }
         this.hasMoreResults = false;
-        log.finest("Executing streamed query: " + dQuery);
-        final StreamedQueryPacket packet = new StreamedQueryPacket(dQuery);
-
+        if (log.isLoggable(Level.FINEST)) {
+            log.finest("Executing streamed query: " + dQuery);
+        }
         try {
-            packIndex = packet.send(writer);
+            packIndex = writeQuery(dQuery);
+            writer.flush();
             packIndex++;
         } catch (IOException e) {
             throw new QueryException("Could not send query: " + e.getMessage(),
@@ -641,13 +1633,34 @@ public class MySQLProtocol implements Protocol {
                 && info.getProperty("createDB", "").equalsIgnoreCase("true");
     }
 
+    private boolean useColumnarResults() {
+        return getDatabaseType() == SupportedDatabases.MYSQL && info != null
+                && info.getProperty("useColumnarResults", "").equalsIgnoreCase("true");
+    }
+
+    public ResultBufferBudget getResultBufferBudget() {
+        return resultBufferBudget;
+    }
+
+    public boolean supportsMultiStatements() {
+        return info != null && info.getProperty("allowMultiQueries") != null;
+    }
+
+    public boolean noBackslashEscapes() {
+        return noBackslashEscapes;
+    }
+
     public boolean noPrepStmtCache() {
         return info != null
                 && info.getProperty("noPrepStmtCache", "").equalsIgnoreCase("true");
     }
 
     /**
-     * Send the given file to the server starting with packet number packIndex
+     * Send the given file to the server starting with packet number packIndex.
+     * <p/>
+     * The file is sent in packets of LOCAL_INFILE_PACKET_SIZE bytes followed by an empty packet. A FileInputStream is
+     * sent with FileChannel.transferTo unless the connection is compressed, other streams are read in bulk into one
+     * buffer that the packets are written from.
      *
      * @param dQuery          the query that was first issued
      * @param inputStream input stream used to read the file
@@ -657,56 +1670,16 @@ public class MySQLProtocol implements Protocol {
      */
     private QueryResult sendFile(Query dQuery, InputStream inputStream,
                                  int packIndex) throws QueryException {
-        byte[] emptyHeader = Utils.copyWithLength(intToByteArray(0), 4);
         RawPacket rawPacket;
         ResultPacket resultPacket;
 
-        BufferedInputStream bufferedInputStream = new BufferedInputStream(
-                inputStream);
-
-        ByteArrayOutputStream bOS = new ByteArrayOutputStream();
-
         try {
-            while (true) {
-                int data = bufferedInputStream.read();
-                if (data == -1) {
-                    // Send the last packet
-                    byte[] data1 = bOS.toByteArray();
-                    byte[] byteHeader = Utils.copyWithLength(
-                            intToByteArray(data1.length), 4);
-                    byteHeader[3] = (byte) packIndex;
-                    // Send the packet
-                    writer.write(byteHeader);
-                    writer.write(data1);
-                    writer.flush();
-                    packIndex++;
-                    break;
-                }
-
-                // Add data into buffer
-                bOS.write(data);
-
-                if (bOS.size() >= 0xffffff) {
-                    byte[] byteHeader = Utils.copyWithLength(intToByteArray(bOS.size()), 4);
-                    byteHeader[3] = (byte) packIndex;
-                    // Send the packet
-                    writer.write(byteHeader);
-
-                    bOS.writeTo(writer);
-                    writer.flush();
-                    packIndex++;
-                    bOS.reset();
-
-                }
+            if (inputStream instanceof FileInputStream && writer == transport.getOutputStream()) {
+                packIndex = sendFileChannel(((FileInputStream) inputStream).getChannel(), packIndex);
+            } else {
+                packIndex = sendStream(inputStream, packIndex);
             }
-        } catch (IOException e) {
-            throw new QueryException("Could not send query: " + e.getMessage(),
-                    -1, SQLExceptionMapper.SQLStates.CONNECTION_EXCEPTION
-                    .getSqlState(), e);
-        }
-        try {
-            emptyHeader[3] = (byte) packIndex;
-            writer.write(emptyHeader);
+            writer.write(packetHeader(0, packIndex));
             writer.flush();
         } catch (IOException e) {
             throw new QueryException("Could not send query: " + e.getMessage(),
@@ -733,6 +1706,7 @@ public class MySQLProtocol implements Protocol {
             case OK:
                 final OKPacket okpacket = (OKPacket) resultPacket;
                 this.hasMoreResults = okpacket.getServerStatus().contains(ServerStatus.MORE_RESULTS_EXISTS);
+                this.noBackslashEscapes = okpacket.getServerStatus().contains(ServerStatus.NO_BACKSLASH_ESCAPES);
 
                 final QueryResult updateResult = new DrizzleUpdateResult(
                         okpacket.getAffectedRows(), okpacket.getWarnings(),
@@ -755,7 +1729,62 @@ public class MySQLProtocol implements Protocol {
         }
     }
 
-    public QueryResult getMoreResults() throws QueryException {
+    /**
+     * sends the rest of the file from its current position, the file data goes straight from the file to the
+     * transport and only the packet headers are written by the driver.
+     *
+     * @return the sequence number of the next packet
+     */
+    private int sendFileChannel(FileChannel fileChannel, int packIndex) throws IOException {
+        long position = fileChannel.position();
+        final long size = fileChannel.size();
+        while (position < size) {
+            final int length = (int) Math.min(LOCAL_INFILE_PACKET_SIZE, size - position);
+            writer.write(packetHeader(length, packIndex++));
+            transport.transferFrom(fileChannel, position, length);
+            position += length;
+        }
+        fileChannel.position(position);
+        return packIndex;
+    }
+
+    /**
+     * reads the stream in bulk into one buffer and writes each full buffer as a packet, every packet is flushed
+     * since the compressed stream buffers everything until it is flushed.
+     *
+     * @return the sequence number of the next packet
+     */
+    private int sendStream(InputStream inputStream, int packIndex) throws IOException {
+        final byte[] buffer = new byte[LOCAL_INFILE_PACKET_SIZE];
+        int length = 0;
+        int read;
+        while ((read = inputStream.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+            if (length == buffer.length) {
+                writer.write(packetHeader(length, packIndex++));
+                writer.write(buffer, 0, length);
+                writer.flush();
+                length = 0;
+            }
+        }
+        if (length > 0) {
+            writer.write(packetHeader(length, packIndex++));
+            writer.write(buffer, 0, length);
+        }
+        return packIndex;
+    }
+
+    private static byte[] packetHeader(int length, int packIndex) {
+        final byte[] header = Utils.copyWithLength(intToByteArray(length), 4);
+        header[3] = (byte) packIndex;
+        return header;
+    }
+
+    public synchronized QueryResult getMoreResults() throws QueryException {
+        if (activeStreamingResult != null) {
+            // the rest of the current result has to be read before we get to the next one
+            activeStreamingResult.drain();
+        }
         try {
             if(!hasMoreResults)
                 return null;
@@ -765,12 +1794,15 @@ public class MySQLProtocol implements Protocol {
                     return createDrizzleQueryResult((ResultSetPacket) resultPacket);
                 case OK:
                     OKPacket okpacket = (OKPacket) resultPacket;
-                    this.hasMoreResults = okpacket.getServerStatus().contains(ServerStatus.MORE_RESULTS_EXISTS);                    
+                    this.hasMoreResults = okpacket.getServerStatus().contains(ServerStatus.MORE_RESULTS_EXISTS);
+                    this.noBackslashEscapes = okpacket.getServerStatus().contains(ServerStatus.NO_BACKSLASH_ESCAPES);
                     return new DrizzleUpdateResult(
                             okpacket.getAffectedRows(), okpacket.getWarnings(),
                             okpacket.getMessage(), okpacket.getInsertId());
                 case ERROR:
                     ErrorPacket ep = (ErrorPacket) resultPacket;
+                    // the server stops executing a multi statement query at the first error
+                    this.hasMoreResults = false;
                     checkIfCancelled();
                     throw new QueryException(ep.getMessage(), ep.getErrorNumber(),
                                         ep.getSqlState());
@@ -812,7 +1844,7 @@ public class MySQLProtocol implements Protocol {
      * {@link MySQLProtocol#selectDB(String)} is that the catalog is switched
      * inside the connection using SQL 'USE' command
      */
-    public void setCatalog(String catalog) throws QueryException
+    public synchronized void setCatalog(String catalog) throws QueryException
     {
         if (getDatabaseType() == SupportedDatabases.MYSQL)
         {
@@ -829,7 +1861,7 @@ public class MySQLProtocol implements Protocol {
      * MySQL treats catalogs as databases. This function thus returns the
      * currently selected database
      */
-    public String getCatalog() throws QueryException
+    public synchronized String getCatalog() throws QueryException
     {
         if (getDatabaseType() == SupportedDatabases.MYSQL)
         {
@@ -0,0 +1,129 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.drizzle.jdbc.internal.mysql;
+
+import org.drizzle.jdbc.internal.SQLExceptionMapper;
+import org.drizzle.jdbc.internal.common.ColumnInformation;
+import org.drizzle.jdbc.internal.common.QueryException;
+import org.drizzle.jdbc.internal.common.ValueObject;
+import org.drizzle.jdbc.internal.common.packet.EOFPacket;
+import org.drizzle.jdbc.internal.common.packet.ErrorPacket;
+import org.drizzle.jdbc.internal.common.packet.RawPacket;
+import org.drizzle.jdbc.internal.common.packet.ResultPacketFactory;
+import org.drizzle.jdbc.internal.common.packet.buffer.ReadUtil;
+import org.drizzle.jdbc.internal.common.queryresults.StreamingQueryResult;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Streams the rows of a result set from the connection, one row per call to next().
+ */
+final class MySQLStreamingQueryResult extends StreamingQueryResult {
+    private final MySQLProtocol protocol;
+    private final boolean binaryRows;
+
+    /**
+     * @param columnInformation the columns of the result
+     * @param protocol          the protocol to read rows from
+     * @param binaryRows        true if the rows are sent in the binary protocol (server side prepared statements)
+     */
+    MySQLStreamingQueryResult(final List<ColumnInformation> columnInformation,
+                              final MySQLProtocol protocol,
+                              final boolean binaryRows) {
+        super(columnInformation);
+        this.protocol = protocol;
+        this.binaryRows = binaryRows;
+    }
+
+    @Override
+    protected List<ValueObject> readRow() throws QueryException {
+        try {
+            final RawPacket rawPacket = protocol.getPacketFetcher().getRawPacket();
+            if (isLastPacket(rawPacket)) {
+                return null;
+            }
+            if (binaryRows) {
+                return protocol.readBinaryRow(rawPacket, getColumnInformation());
+            }
+            return protocol.readRow(rawPacket, getColumnInformation());
+        } catch (IOException e) {
+            protocol.releaseStreamingResult(this);
+            throw new QueryException("Could not read result set: " + e.getMessage(),
+                    -1,
+                    SQLExceptionMapper.SQLStates.CONNECTION_EXCEPTION.getSqlState(),
+                    e);
+        }
+    }
+
+    @Override
+    protected void skipRemainingRows() throws QueryException {
+        try {
+            while (true) {
+                final RawPacket rawPacket = protocol.getPacketFetcher().getRawPacket();
+                if (isLastPacket(rawPacket)) {
+                    return;
+                }
+                // rows larger than a packet continue in the next packets
+                RawPacket part = rawPacket;
+                while (part.getByteBuffer().capacity() == 0xffffff) {
+                    part = protocol.getPacketFetcher().getRawPacket();
+                }
+            }
+        } catch (IOException e) {
+            protocol.releaseStreamingResult(this);
+            throw new QueryException("Could not read result set: " + e.getMessage(),
+                    -1,
+                    SQLExceptionMapper.SQLStates.CONNECTION_EXCEPTION.getSqlState(),
+                    e);
+        }
+    }
+
+    /**
+     * checks if the packet ends the result set, if so the connection is released.
+     *
+     * @param rawPacket the packet to check
+     * @return true if this was the last packet of the result set
+     * @throws QueryException if the server sent an error instead of more rows
+     * @throws IOException    if the packet could not be parsed
+     */
+    private boolean isLastPacket(final RawPacket rawPacket) throws QueryException, IOException {
+        if (ReadUtil.isErrorPacket(rawPacket)) {
+            final ErrorPacket errorPacket = (ErrorPacket) ResultPacketFactory.createResultPacket(rawPacket);
+            protocol.releaseStreamingResult(this);
+            protocol.checkIfCancelled();
+            throw new QueryException(errorPacket.getMessage(), errorPacket.getErrorNumber(), errorPacket.getSqlState());
+        }
+        if (ReadUtil.eofIsNext(rawPacket)) {
+            final EOFPacket eofPacket = (EOFPacket) ResultPacketFactory.createResultPacket(rawPacket);
+            setWarnings(eofPacket.getWarningCount());
+            protocol.setHasMoreResults(eofPacket.getStatusFlags().contains(EOFPacket.ServerStatus.SERVER_MORE_RESULTS_EXISTS));
+            protocol.releaseStreamingResult(this);
+            protocol.checkIfCancelled();
+            return true;
+        }
+        return false;
+    }
+}
@@ -27,10 +27,12 @@ package org.drizzle.jdbc.internal.mysql;
 import org.drizzle.jdbc.DrizzleBlob;
 import org.drizzle.jdbc.internal.common.AbstractValueObject;
 import org.drizzle.jdbc.internal.common.DataType;
+import org.drizzle.jdbc.internal.common.TemporalValue;
 
 import java.sql.Time;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.Calendar;
 
 /**
  * Contains the raw value returned from the server
@@ -96,6 +98,10 @@ public class MySQLValueObject extends AbstractValueObject {
         if (getBytes() == null) {
             return null;
         }
+        final TemporalValue value = TemporalValue.parse(getBytes());
+        if (value != null) {
+            return value.toTime(null);
+        }
         final String rawValue = getString();
         final SimpleDateFormat sdf;
         if (rawValue.length() > 8) {
@@ -108,4 +114,17 @@ public class MySQLValueObject extends AbstractValueObject {
         return new Time(utilTime.getTime());
     }
 
+    @Override
+    public Time getTime(final Calendar cal) {
+        if (getBytes() == null) {
+            return null;
+        }
+        final TemporalValue value = TemporalValue.parse(getBytes());
+        final Time time = value == null ? null : value.toTime(cal);
+        if (time != null) {
+            return time;
+        }
+        return super.getTime(cal);
+    }
+
 }
\ No newline at end of file
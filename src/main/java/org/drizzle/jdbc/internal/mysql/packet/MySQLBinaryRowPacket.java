@@ -0,0 +1,103 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.drizzle.jdbc.internal.mysql.packet;
+
+import org.drizzle.jdbc.internal.common.ColumnInformation;
+import org.drizzle.jdbc.internal.common.PacketFetcher;
+import org.drizzle.jdbc.internal.common.ValueObject;
+import org.drizzle.jdbc.internal.common.packet.RawPacket;
+import org.drizzle.jdbc.internal.common.packet.buffer.ChainedPacketReader;
+import org.drizzle.jdbc.internal.common.queryresults.ColumnFlags;
+import org.drizzle.jdbc.internal.mysql.MySQLBinaryValueObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A row in the binary protocol, as sent for server side prepared statements and cursor fetches.
+ * <p/>
+ * The row starts with a 0x00 header byte and a null bitmap (with a 2 bit offset), then the non-null values follow.
+ * Numbers are sent as little endian integers and floats, temporal types as a length byte followed by the date parts,
+ * everything else as length encoded strings.
+ */
+public class MySQLBinaryRowPacket {
+    private final RawPacket rawPacket;
+    private final List<ColumnInformation> columnInformation;
+
+    public MySQLBinaryRowPacket(final RawPacket rawPacket, final List<ColumnInformation> columnInformation) {
+        this.rawPacket = rawPacket;
+        this.columnInformation = columnInformation;
+    }
+
+    public List<ValueObject> getRow(final PacketFetcher packetFetcher) throws IOException {
+        final ChainedPacketReader reader = new ChainedPacketReader(rawPacket, packetFetcher);
+        final int columnCount = columnInformation.size();
+        final List<ValueObject> columns = new ArrayList<ValueObject>(columnCount);
+        final int nullBitmapLength = (columnCount + 9) / 8;
+        reader.skipByte();
+        final byte[] nullBitmap = reader.readRawBytes(nullBitmapLength);
+
+        for (int i = 0; i < columnCount; i++) {
+            final ColumnInformation currentColumn = columnInformation.get(i);
+            final boolean unsigned = currentColumn.getFlags().contains(ColumnFlags.UNSIGNED);
+            final int bit = i + 2;
+            if ((nullBitmap[bit / 8] & (1 << (bit % 8))) != 0) {
+                columns.add(new MySQLBinaryValueObject(null, currentColumn.getType(), unsigned));
+                continue;
+            }
+            final byte[] value;
+            switch (currentColumn.getType().getType()) {
+                case TINY:
+                    value = reader.readRawBytes(1);
+                    break;
+                case SHORT:
+                case YEAR:
+                    value = reader.readRawBytes(2);
+                    break;
+                case LONG:
+                case INT24:
+                case FLOAT:
+                    value = reader.readRawBytes(4);
+                    break;
+                case LONGLONG:
+                case DOUBLE:
+                    value = reader.readRawBytes(8);
+                    break;
+                case DATE:
+                case DATETIME:
+                case TIMESTAMP:
+                case TIME:
+                    value = reader.readRawBytes(reader.readByte() & 0xff);
+                    break;
+                default:
+                    value = reader.getLengthEncodedBytes();
+            }
+            columns.add(new MySQLBinaryValueObject(value, currentColumn.getType(), unsigned));
+        }
+        reader.skipRemaining();
+        return columns;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.drizzle.jdbc.internal.mysql.packet;
+
+import org.drizzle.jdbc.internal.common.packet.RawPacket;
+import org.drizzle.jdbc.internal.common.packet.buffer.Reader;
+
+import java.io.IOException;
+
+/**
+ * The answer to a successful COM_STMT_PREPARE.
+ */
+public class MySQLPrepareOKPacket {
+    /*
+Bytes              Name
+-----              ----
+1                  0 - marker for OK packet
+4                  statement_handler_id
+2                  number of columns in result set
+2                  number of parameters in query
+1                  filler (always 0)
+2                  warning count
+    */
+    private final int statementId;
+    private final int columnCount;
+    private final int parameterCount;
+    private final short warningCount;
+
+    public MySQLPrepareOKPacket(final RawPacket rawPacket) throws IOException {
+        final Reader reader = new Reader(rawPacket);
+        reader.skipByte();
+        statementId = reader.readInt();
+        columnCount = reader.readShort() & 0xffff;
+        parameterCount = reader.readShort() & 0xffff;
+        if (reader.getRemainingSize() >= 3) {
+            reader.skipByte();
+            warningCount = reader.readShort();
+        } else {
+            warningCount = 0;
+        }
+    }
+
+    public int getStatementId() {
+        return statementId;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public int getParameterCount() {
+        return parameterCount;
+    }
+
+    public short getWarningCount() {
+        return warningCount;
+    }
+}
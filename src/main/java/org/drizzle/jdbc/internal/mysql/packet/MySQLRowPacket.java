@@ -25,48 +25,58 @@
 package org.drizzle.jdbc.internal.mysql.packet;
 
 import org.drizzle.jdbc.internal.common.ColumnInformation;
+import org.drizzle.jdbc.internal.common.DataType;
 import org.drizzle.jdbc.internal.common.PacketFetcher;
+import org.drizzle.jdbc.internal.common.TextRow;
 import org.drizzle.jdbc.internal.common.ValueObject;
 import org.drizzle.jdbc.internal.common.packet.RawPacket;
-import org.drizzle.jdbc.internal.common.packet.buffer.Reader;
+import org.drizzle.jdbc.internal.common.packet.buffer.ChainedPacketReader;
 import org.drizzle.jdbc.internal.mysql.MySQLValueObject;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 
 public class MySQLRowPacket {
-    private final List<ValueObject> columns;
-    private final Reader reader;
+    private final RawPacket rawPacket;
     private final List<ColumnInformation> columnInformation;
 
     public MySQLRowPacket(final RawPacket rawPacket, final List<ColumnInformation> columnInformation) throws IOException {
-        columns = new ArrayList<ValueObject>(columnInformation.size());
-        reader = new Reader(rawPacket);
+        this.rawPacket = rawPacket;
         this.columnInformation = columnInformation;
     }
 
-    public boolean isPacketComplete() throws IOException {
-        long encLength = reader.getSilentLengthEncodedBinary();
-        long remaining = reader.getRemainingSize();
-        return encLength<=remaining;
-    }
-
-    public void appendPacket(RawPacket rawPacket) {
-        reader.appendPacket(rawPacket);
-    }
-
+    /**
+     * gets the values of the row, a row that fits in one packet is decoded when its columns are read.
+     *
+     * @param packetFetcher the fetcher to read the rest of a row split over several packets from
+     * @return the values
+     * @throws IOException if the row could not be read
+     */
     public List<ValueObject> getRow(PacketFetcher packetFetcher) throws IOException {
+        if (rawPacket.getByteBuffer().limit() < ChainedPacketReader.MAX_PACKET_LENGTH) {
+            return new Row(rawPacket.getByteBuffer(), columnInformation);
+        }
+        final List<ValueObject> columns = new ArrayList<ValueObject>(columnInformation.size());
+        final ChainedPacketReader reader = new ChainedPacketReader(rawPacket, packetFetcher);
         for (final ColumnInformation currentColumn : columnInformation) {
-            if(!isPacketComplete()) {
-                appendPacket(packetFetcher.getRawPacket());
-            }
-            final ValueObject dvo = new MySQLValueObject(reader.getLengthEncodedBytes(), currentColumn.getType());
-            columns.add(dvo);
-            currentColumn.updateDisplaySize(dvo.getDisplayLength());
+            columns.add(new MySQLValueObject(reader.getLengthEncodedBytes(), currentColumn.getType()));
         }
+        reader.skipRemaining();
         return columns;
     }
 
-}
\ No newline at end of file
+    private static final class Row extends TextRow {
+        Row(final ByteBuffer payload, final List<ColumnInformation> columnInformation) {
+            super(payload, columnInformation);
+        }
+
+        @Override
+        protected ValueObject createValueObject(final byte[] rawBytes, final DataType dataType) {
+            return new MySQLValueObject(rawBytes, dataType);
+        }
+    }
+
+}
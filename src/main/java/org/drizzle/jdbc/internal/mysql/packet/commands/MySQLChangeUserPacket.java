@@ -0,0 +1,72 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.drizzle.jdbc.internal.mysql.packet.commands;
+
+import org.drizzle.jdbc.internal.common.Utils;
+import org.drizzle.jdbc.internal.common.packet.CommandPacket;
+import org.drizzle.jdbc.internal.common.packet.buffer.WriteBuffer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * COM_CHANGE_USER, authenticates again on the same connection which also resets the session state.
+ * <p/>
+ * 1 command 0x11, n (Null-Terminated String) user, 1 + x scramble_buff, n (Null-Terminated String) databasename, 2
+ * charset_number
+ * <p/>
+ * The password is scrambled with the seed of the greeting packet of the connection.
+ */
+public class MySQLChangeUserPacket implements CommandPacket {
+    private final WriteBuffer writeBuffer = new WriteBuffer();
+
+    public MySQLChangeUserPacket(final String username, final String password, final String database,
+                                 final byte[] seed) {
+        final byte[] scrambledPassword;
+        try {
+            scrambledPassword = Utils.encryptPassword(password, seed);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Could not use SHA-1, failing", e);
+        }
+        final byte serverLanguage = 33;
+        writeBuffer.writeByte((byte) 0x11).
+                writeString(username).
+                writeByte((byte) 0).
+                writeByte((byte) scrambledPassword.length).
+                writeByteArray(scrambledPassword).
+                writeString(database).
+                writeByte((byte) 0).
+                writeByte(serverLanguage).
+                writeByte((byte) 0);
+    }
+
+    public int send(final OutputStream os) throws IOException {
+        os.write(writeBuffer.getLengthWithPacketSeq((byte) 0));
+        os.write(writeBuffer.getBuffer(), 0, writeBuffer.getLength());
+        os.flush();
+        return 0;
+    }
+}
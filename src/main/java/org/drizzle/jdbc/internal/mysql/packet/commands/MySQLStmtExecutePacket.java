@@ -0,0 +1,101 @@
+/*
+ * Drizzle-JDBC
+ *
+ * Copyright (c) 2009-2011, Marcus Eriksson
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided with the distribution.
+ *  Neither the name of the driver nor the names of its contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO
+ * EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.drizzle.jdbc.internal.mysql.packet.commands;
+
+import org.drizzle.jdbc.internal.common.packet.CommandPacket;
+import org.drizzle.jdbc.internal.common.packet.buffer.WriteBuffer;
+import org.drizzle.jdbc.internal.common.query.parameters.BinaryParameterHolder;
+import org.drizzle.jdbc.internal.common.query.parameters.NullParameter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.drizzle.jdbc.internal.common.packet.buffer.WriteBuffer.intToByteArray;
+
+/**
+ * COM_STMT_EXECUTE, executes a server side prepared statement.
+ * <p/>
+ * 1 byte command, 4 byte statement id, 1 byte cursor flags, 4 byte iteration count (always 1), then if there are
+ * parameters: the null bitmap, 1 byte new-params-bound flag, 2 bytes type per parameter and the non null values.
+ */
+public class MySQLStmtExecutePacket implements CommandPacket {
+    public static final byte CURSOR_TYPE_NO_CURSOR = 0x00;
+    public static final byte CURSOR_TYPE_READ_ONLY = 0x01;
+    private static final int MAX_PACKET_LENGTH = 0xffffff;
+
+    private final WriteBuffer buffer;
+
+    public MySQLStmtExecutePacket(final int statementId, final byte cursorType) {
+        this(statementId, cursorType, new BinaryParameterHolder[0]);
+    }
+
+    public MySQLStmtExecutePacket(final int statementId,
+                                  final byte cursorType,
+                                  final BinaryParameterHolder[] parameters) {
+        buffer = new WriteBuffer(100 + parameters.length * 16);
+        buffer.writeByte((byte) 0x17);
+        buffer.writeInt(statementId);
+        buffer.writeByte(cursorType);
+        buffer.writeInt(1);
+        if (parameters.length > 0) {
+            final byte[] nullBitmap = new byte[(parameters.length + 7) / 8];
+            for (int i = 0; i < parameters.length; i++) {
+                if (parameters[i] instanceof NullParameter) {
+                    nullBitmap[i / 8] |= 1 << (i % 8);
+                }
+            }
+            buffer.writeByteArray(nullBitmap);
+            buffer.writeByte((byte) 1);
+            for (final BinaryParameterHolder parameter : parameters) {
+                buffer.writeByte(parameter.getBinaryType());
+                buffer.writeByte((byte) 0);
+            }
+            for (final BinaryParameterHolder parameter : parameters) {
+                parameter.writeBinaryTo(buffer);
+            }
+        }
+    }
+
+    public int send(final OutputStream os) throws IOException {
+        final int length = buffer.getLength();
+        int offset = 0;
+        int packetSeq = 0;
+        while (true) {
+            final int packetLength = Math.min(length - offset, MAX_PACKET_LENGTH);
+            final byte[] header = intToByteArray(packetLength);
+            header[3] = (byte) packetSeq;
+            os.write(header);
+            os.write(buffer.getBuffer(), offset, packetLength);
+            offset += packetLength;
+            // a packet of exactly max length must be followed by another, possibly empty, packet
+            if (packetLength < MAX_PACKET_LENGTH) {
+                break;
+            }
+            packetSeq++;
+        }
+        os.flush();
+        return packetSeq;
+    }
+}
@@ -0,0 +1,123 @@
+package org.drizzle.jdbc;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+
+public class AsyncQueryTest {
+    private Connection connection;
+
+    public AsyncQueryTest() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:mysql:thin://" + DriverTest.host + ":3306/test_units_jdbc");
+        connection.createStatement().execute("drop table if exists asynctest");
+        connection.createStatement().execute("create table asynctest (id int not null primary key, test varchar(20))");
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void queriesRunInOrder() throws Exception {
+        AsyncConnection async = connection.unwrap(AsyncConnection.class);
+        List<QueryFuture<Integer>> updates = new ArrayList<QueryFuture<Integer>>();
+        for (int i = 0; i < 100; i++) {
+            updates.add(async.executeUpdateAsync("insert into asynctest values (" + i + ", 'row" + i + "')"));
+        }
+        QueryFuture<ResultSet> query = async.executeQueryAsync("select count(*) from asynctest");
+        final CountDownLatch latch = new CountDownLatch(1);
+        query.addListener(new Runnable() {
+            public void run() {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        ResultSet rs = query.get();
+        assertTrue(rs.next());
+        assertEquals(100, rs.getInt(1));
+        for (QueryFuture<Integer> update : updates) {
+            assertEquals(Integer.valueOf(1), update.get());
+        }
+    }
+
+    @Test
+    public void failureIsReported() throws Exception {
+        AsyncConnection async = connection.unwrap(AsyncConnection.class);
+        QueryFuture<Integer> failing = async.executeUpdateAsync("insert into nonexistingtable values (1)");
+        QueryFuture<Integer> next = async.executeUpdateAsync("insert into asynctest values (1, 'a')");
+        try {
+            failing.get();
+            fail("expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof SQLException);
+        }
+        assertEquals(Integer.valueOf(1), next.get());
+    }
+
+    @Test
+    public void manyConnections() throws Exception {
+        List<Connection> connections = new ArrayList<Connection>();
+        List<QueryFuture<ResultSet>> results = new ArrayList<QueryFuture<ResultSet>>();
+        for (int i = 0; i < 20; i++) {
+            Connection c = DriverManager.getConnection("jdbc:mysql:thin://" + DriverTest.host + ":3306/test_units_jdbc");
+            connections.add(c);
+            results.add(c.unwrap(AsyncConnection.class).executeQueryAsync("select sleep(0.5), " + i));
+        }
+        for (int i = 0; i < 20; i++) {
+            ResultSet rs = results.get(i).get();
+            assertTrue(rs.next());
+            assertEquals(i, rs.getInt(2));
+            connections.get(i).close();
+        }
+    }
+
+    @Test
+    public void statementClosedWithResultSet() throws Exception {
+        ResultSet rs = connection.unwrap(AsyncConnection.class).executeQueryAsync("select 1").get();
+        assertTrue(rs.next());
+        assertTrue(rs.getStatement().isCloseOnCompletion());
+        rs.close();
+        assertTrue(rs.getStatement().isClosed());
+    }
+
+    @Test
+    public void syncQueryWaitsForAsyncQuery() throws Exception {
+        QueryFuture<ResultSet> async = connection.unwrap(AsyncConnection.class).executeQueryAsync("select sleep(0.5), 1");
+        ResultSet rs = connection.createStatement().executeQuery("select 2");
+        assertTrue(rs.next());
+        assertEquals(2, rs.getInt(1));
+        ResultSet asyncResult = async.get();
+        assertTrue(asyncResult.next());
+        assertEquals(1, asyncResult.getInt(2));
+    }
+
+    @Test
+    public void closeFailsQueuedQueries() throws Exception {
+        Connection c = DriverManager.getConnection("jdbc:mysql:thin://" + DriverTest.host + ":3306/test_units_jdbc");
+        AsyncConnection async = c.unwrap(AsyncConnection.class);
+        async.executeQueryAsync("select sleep(0.5)");
+        QueryFuture<ResultSet> queued = async.executeQueryAsync("select 1");
+        c.close();
+        try {
+            queued.get(10, TimeUnit.SECONDS);
+            fail("expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof SQLException);
+        }
+    }
+}
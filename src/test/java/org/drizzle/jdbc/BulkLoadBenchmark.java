@@ -0,0 +1,86 @@
+package org.drizzle.jdbc;
+
+import org.drizzle.jdbc.internal.common.RewriteParameterizedBatchHandlerFactory;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+
+
+/**
+ * Compares inserting rows with a rewritten multi row insert batch against streaming them with the bulk load api.
+ */
+@Ignore
+public class BulkLoadBenchmark {
+    private static final int ROWS = 1000000;
+
+    private static Iterator<Object[]> rows() {
+        return new Iterator<Object[]>() {
+            int i = 0;
+
+            public boolean hasNext() {
+                return i < ROWS;
+            }
+
+            public Object[] next() {
+                i++;
+                return new Object[]{i, "some text for row " + i, i * 3};
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private static Connection createTable() throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:mysql:thin://" + DriverTest.host + ":3306/test_units_jdbc");
+        connection.createStatement().execute("drop table if exists bulkloadbench");
+        connection.createStatement().execute("create table bulkloadbench (id int not null primary key, a varchar(100), b int) engine=innodb");
+        return connection;
+    }
+
+    @Test
+    public void compareBulkLoad() throws SQLException {
+        for (int i = 0; i < 5; i++) {
+            rewriteBatch();
+            bulkLoad();
+        }
+    }
+
+    private void rewriteBatch() throws SQLException {
+        Connection connection = createTable();
+        connection.unwrap(DrizzleConnection.class).setBatchQueryHandlerFactory(new RewriteParameterizedBatchHandlerFactory());
+        long startTime = System.currentTimeMillis();
+        PreparedStatement ps = connection.prepareStatement("insert into bulkloadbench values (?,?,?)");
+        Iterator<Object[]> rows = rows();
+        int batched = 0;
+        while (rows.hasNext()) {
+            Object[] row = rows.next();
+            ps.setInt(1, (Integer) row[0]);
+            ps.setString(2, (String) row[1]);
+            ps.setInt(3, (Integer) row[2]);
+            ps.addBatch();
+            if (++batched == 10000) {
+                ps.executeBatch();
+                batched = 0;
+            }
+        }
+        ps.executeBatch();
+        System.out.println("rewritten batch: " + ROWS + " rows in " + (System.currentTimeMillis() - startTime) + "ms");
+        connection.close();
+    }
+
+    private void bulkLoad() throws SQLException {
+        Connection connection = createTable();
+        long startTime = System.currentTimeMillis();
+        BulkLoadResult result = connection.unwrap(BulkLoadConnection.class)
+                .bulkLoad("bulkloadbench", new String[]{"id", "a", "b"}, rows());
+        System.out.println("bulk load: " + result + " in " + (System.currentTimeMillis() - startTime) + "ms");
+        connection.close();
+    }
+}
@@ -0,0 +1,101 @@
+package org.drizzle.jdbc;
+
+import org.drizzle.jdbc.internal.common.LoadDataInputStream;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+public class BulkLoadTest {
+    private Connection connection;
+
+    public BulkLoadTest() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:mysql:thin://" + DriverTest.host + ":3306/test_units_jdbc");
+        connection.createStatement().execute("drop table if exists bulkloadtest");
+        connection.createStatement().execute("create table bulkloadtest (id int not null primary key, " +
+                "test varchar(100), bin varbinary(10), flag tinyint, created datetime)");
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    private static String encode(List<Object[]> rows) throws IOException {
+        InputStream in = new LoadDataInputStream(rows.iterator());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            out.write(b);
+        }
+        return out.toString("UTF-8");
+    }
+
+    @Test
+    public void encoding() throws IOException {
+        List<Object[]> rows = Arrays.asList(
+                new Object[]{1, "a\tb\nc\\d\re", null},
+                new Object[]{true, new byte[]{0, 'x'}, "\u00e5\u00e4\u00f6"});
+        assertEquals("1\ta\\tb\\nc\\\\d\\re\t\\N\n1\t\\0x\t\u00e5\u00e4\u00f6\n", encode(rows));
+    }
+
+    @Test
+    public void loadRows() throws SQLException {
+        BulkLoadConnection bulk = connection.unwrap(BulkLoadConnection.class);
+        Iterator<Object[]> rows = new Iterator<Object[]>() {
+            int i = 0;
+
+            public boolean hasNext() {
+                return i < 10000;
+            }
+
+            public Object[] next() {
+                i++;
+                return new Object[]{i, i % 10 == 0 ? null : "row\t" + i + "\n\\", new byte[]{0, (byte) i}, i % 2 == 0,
+                        new java.util.Date(1262304000000L)};
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        BulkLoadResult result = bulk.bulkLoad("bulkloadtest", new String[]{"id", "test", "bin", "flag", "created"}, rows);
+        assertEquals(10000, result.getRowsSent());
+        assertEquals(10000, result.getRowsLoaded());
+        assertEquals(0, result.getWarnings());
+
+        ResultSet rs = connection.createStatement().executeQuery("select * from bulkloadtest where id in (9, 10) order by id");
+        assertTrue(rs.next());
+        assertEquals("row\t9\n\\", rs.getString(2));
+        assertArrayEquals(new byte[]{0, 9}, rs.getBytes(3));
+        assertFalse(rs.getBoolean(4));
+        assertTrue(rs.next());
+        assertNull(rs.getString(2));
+        assertTrue(rs.getBoolean(4));
+    }
+
+    @Test
+    public void duplicatesAreReported() throws SQLException {
+        BulkLoadConnection bulk = connection.unwrap(BulkLoadConnection.class);
+        List<Object[]> rows = Arrays.asList(new Object[]{1, "a"}, new Object[]{1, "b"}, new Object[]{2, "c"});
+        BulkLoadResult result = bulk.bulkLoad("bulkloadtest", new String[]{"id", "test"}, rows.iterator());
+        assertEquals(3, result.getRowsSent());
+        assertEquals(2, result.getRowsLoaded());
+    }
+}
@@ -0,0 +1,83 @@
+package org.drizzle.jdbc;
+
+import org.drizzle.jdbc.internal.common.packet.SyncPacketFetcher;
+import org.drizzle.jdbc.internal.common.packet.buffer.ChainedPacketReader;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+
+public class ChainedPacketReaderTest {
+    private static final int MAX = ChainedPacketReader.MAX_PACKET_LENGTH;
+
+    /**
+     * splits the payload into packets the way the server does
+     */
+    private static byte[] packets(byte[] payload) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int offset = 0;
+        int seq = 0;
+        while (true) {
+            int length = Math.min(MAX, payload.length - offset);
+            out.write(length & 0xff);
+            out.write((length >>> 8) & 0xff);
+            out.write((length >>> 16) & 0xff);
+            out.write(seq++);
+            out.write(payload, offset, length);
+            offset += length;
+            if (length < MAX) {
+                return out.toByteArray();
+            }
+        }
+    }
+
+    private static byte[] lengthEncoded(int length) {
+        byte[] payload = new byte[length + 4];
+        payload[0] = (byte) 253;
+        payload[1] = (byte) length;
+        payload[2] = (byte) (length >>> 8);
+        payload[3] = (byte) (length >>> 16);
+        for (int i = 0; i < length; i++) {
+            payload[i + 4] = (byte) i;
+        }
+        return payload;
+    }
+
+    @Test
+    public void valueSpanningPackets() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] payload = new byte[MAX + 100];
+        byte[] value = lengthEncoded(MAX + 96);
+        System.arraycopy(value, 0, payload, 0, value.length);
+        out.write(packets(payload));
+        out.write(packets(new byte[]{1, 2, 3}));
+
+        SyncPacketFetcher fetcher = new SyncPacketFetcher(new ByteArrayInputStream(out.toByteArray()));
+        ChainedPacketReader reader = new ChainedPacketReader(fetcher.getRawPacket(), fetcher);
+        byte[] read = reader.getLengthEncodedBytes();
+        assertEquals(MAX + 96, read.length);
+        for (int i = 0; i < read.length; i++) {
+            assertEquals((byte) i, read[i]);
+        }
+        assertFalse(reader.hasRemaining());
+        assertEquals(3, fetcher.getRawPacket().getByteBuffer().remaining());
+    }
+
+    @Test
+    public void payloadEndingAtPacketBoundary() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(packets(lengthEncoded(MAX - 4)));
+        out.write(packets(new byte[]{1, 2, 3}));
+
+        SyncPacketFetcher fetcher = new SyncPacketFetcher(new ByteArrayInputStream(out.toByteArray()));
+        ChainedPacketReader reader = new ChainedPacketReader(fetcher.getRawPacket(), fetcher);
+        assertEquals(MAX - 4, reader.getLengthEncodedBytes().length);
+        reader.skipRemaining();
+        assertEquals(3, fetcher.getRawPacket().getByteBuffer().remaining());
+    }
+}
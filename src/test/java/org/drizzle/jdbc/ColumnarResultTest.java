@@ -0,0 +1,163 @@
+package org.drizzle.jdbc;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+
+public class ColumnarResultTest {
+    private Connection connection;
+
+    public ColumnarResultTest() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:mysql:thin://" + DriverTest.host + ":3306/test_units_jdbc?useColumnarResults=true");
+        Statement stmt = connection.createStatement();
+        stmt.execute("drop table if exists columnartest");
+        stmt.execute("create table columnartest (id int not null primary key, big bigint, ubig bigint unsigned, " +
+                "small tinyint, zf int(5) zerofill, f float, d double, dec_val decimal(10,2), test varchar(100), " +
+                "created datetime)");
+        stmt.execute("insert into columnartest values " +
+                "(1, -9223372036854775808, 18446744073709551615, -128, 42, 1.5, 0.1, 12.34, 'one', '2011-01-02 03:04:05')," +
+                "(2, 9223372036854775807, 0, 127, 7, -2.25, 1e300, -1.00, 'two', null)," +
+                "(3, null, null, null, null, null, null, null, null, null)");
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void numericValues() throws SQLException {
+        ResultSet rs = connection.createStatement().executeQuery("select * from columnartest order by id");
+        assertTrue(rs.next());
+        assertEquals(1, rs.getInt("id"));
+        assertEquals(Long.MIN_VALUE, rs.getLong("big"));
+        assertEquals(Integer.MIN_VALUE, rs.getInt("big"));
+        assertEquals("18446744073709551615", rs.getString("ubig"));
+        assertEquals(-128, rs.getByte("small"));
+        assertEquals("00042", rs.getString("zf"));
+        assertEquals(1.5f, rs.getFloat("f"), 0);
+        assertEquals(0.1, rs.getDouble("d"), 0);
+        assertEquals("0.1", rs.getString("d"));
+        assertEquals("12.34", rs.getBigDecimal("dec_val").toString());
+        assertEquals("one", rs.getString("test"));
+        assertEquals("2011-01-02 03:04:05.0", rs.getTimestamp("created").toString());
+        assertFalse(rs.wasNull());
+        assertTrue(rs.next());
+        assertEquals(Long.MAX_VALUE, rs.getLong(2));
+        assertEquals(Short.MAX_VALUE, rs.getShort(2));
+        assertEquals("9223372036854775807", rs.getString(2));
+        assertEquals(127, rs.getInt(4));
+        assertEquals(-2.25, rs.getDouble(6), 0);
+        assertEquals(1e300, rs.getDouble(7), 0);
+        assertNull(rs.getTimestamp(10));
+        assertTrue(rs.wasNull());
+        assertFalse(rs.next());
+    }
+
+    @Test
+    public void nullValues() throws SQLException {
+        ResultSet rs = connection.createStatement().executeQuery("select * from columnartest where id = 3");
+        assertTrue(rs.next());
+        for (int i = 2; i <= 10; i++) {
+            assertNull(rs.getString(i));
+            assertTrue(rs.wasNull());
+            assertEquals(0, rs.getLong(i));
+            assertTrue(rs.wasNull());
+            assertEquals(0, rs.getDouble(i), 0);
+            assertTrue(rs.wasNull());
+        }
+        assertEquals(3, rs.getInt(1));
+        assertFalse(rs.wasNull());
+    }
+
+    @Test
+    public void scrolling() throws SQLException {
+        ResultSet rs = connection.createStatement().executeQuery("select id, test from columnartest order by id");
+        assertTrue(rs.last());
+        assertEquals(3, rs.getInt(1));
+        assertTrue(rs.previous());
+        assertEquals("two", rs.getString(2));
+        assertTrue(rs.absolute(1));
+        assertEquals(1, rs.getLong("id"));
+        assertTrue(rs.next());
+        assertTrue(rs.next());
+        assertFalse(rs.next());
+    }
+
+    @Test
+    public void manyRows() throws SQLException {
+        // more rows than the initial capacity of the column arrays, so they have to grow several times
+        Statement stmt = connection.createStatement();
+        stmt.execute("drop table if exists columnarmany");
+        stmt.execute("create table columnarmany (id int not null primary key, d double, test varchar(20))");
+        StringBuilder insert = new StringBuilder("insert into columnarmany values ");
+        for (int i = 0; i < 1000; i++) {
+            if (i > 0) {
+                insert.append(",");
+            }
+            insert.append("(").append(i).append(", ").append(i).append(".5, ");
+            if (i % 7 == 0) {
+                insert.append("null)");
+            } else {
+                insert.append("'row").append(i).append("')");
+            }
+        }
+        stmt.execute(insert.toString());
+        ResultSet rs = stmt.executeQuery("select id, d, test from columnarmany order by id");
+        int rows = 0;
+        while (rs.next()) {
+            assertEquals(rows, rs.getLong(1));
+            assertEquals(String.valueOf(rows), rs.getString(1));
+            assertEquals(rows + 0.5, rs.getDouble(2), 0);
+            if (rows % 7 == 0) {
+                assertNull(rs.getString(3));
+                assertTrue(rs.wasNull());
+            } else {
+                assertEquals("row" + rows, rs.getString(3));
+            }
+            rows++;
+        }
+        assertEquals(1000, rows);
+        assertTrue(rs.absolute(500));
+        assertEquals(499, rs.getInt(1));
+    }
+
+    @Test
+    public void noCurrentRow() throws SQLException {
+        ResultSet rs = connection.createStatement().executeQuery("select id, d from columnartest order by id");
+        assertNoValue(rs);
+        while (rs.next()) {
+            rs.getLong(1);
+        }
+        assertNoValue(rs);
+        rs.close();
+        assertNoValue(rs);
+    }
+
+    private static void assertNoValue(ResultSet rs) {
+        try {
+            rs.getLong(1);
+            fail("read a long without a current row");
+        } catch (SQLException e) {
+            // expected
+        }
+        try {
+            rs.getDouble(2);
+            fail("read a double without a current row");
+        } catch (SQLException e) {
+            // expected
+        }
+    }
+}
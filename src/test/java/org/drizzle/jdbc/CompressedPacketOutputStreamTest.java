@@ -0,0 +1,74 @@
+package org.drizzle.jdbc;
+
+import org.drizzle.jdbc.internal.common.transport.CompressedPacketOutputStream;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class CompressedPacketOutputStreamTest {
+    private static byte[] packet(int sequence, int length) {
+        byte[] packet = new byte[length + 4];
+        packet[0] = (byte) length;
+        packet[1] = (byte) (length >>> 8);
+        packet[2] = (byte) (length >>> 16);
+        packet[3] = (byte) sequence;
+        return packet;
+    }
+
+    private static List<Integer> frameSequences(byte[] written) {
+        List<Integer> sequences = new ArrayList<Integer>();
+        int position = 0;
+        while (position < written.length) {
+            int length = (written[position] & 0xff) | (written[position + 1] & 0xff) << 8
+                    | (written[position + 2] & 0xff) << 16;
+            sequences.add(written[position + 3] & 0xff);
+            position += 7 + length;
+        }
+        return sequences;
+    }
+
+    @Test
+    public void sequenceContinuesPastInnerWrap() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompressedPacketOutputStream stream = new CompressedPacketOutputStream(out, 50);
+        stream.resetSequence();
+        // one packet per flush like a streamed LOAD DATA, the inner sequence wraps to 0 at packet 256
+        for (int i = 0; i < 600; i++) {
+            stream.write(packet(i, 100));
+            stream.flush();
+        }
+        List<Integer> sequences = frameSequences(out.toByteArray());
+        assertEquals(600, sequences.size());
+        for (int i = 0; i < 600; i++) {
+            assertEquals(i % 256, sequences.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void resetStartsNewCommand() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompressedPacketOutputStream stream = new CompressedPacketOutputStream(out, 50);
+        stream.resetSequence();
+        stream.write(packet(0, 10));
+        stream.flush();
+        stream.write(packet(1, 10));
+        stream.flush();
+        stream.resetSequence();
+        stream.write(packet(0, 10));
+        stream.resetSequence();
+        stream.write(packet(0, 10));
+        stream.flush();
+        List<Integer> sequences = frameSequences(out.toByteArray());
+        assertEquals(4, sequences.size());
+        assertEquals(0, sequences.get(0).intValue());
+        assertEquals(1, sequences.get(1).intValue());
+        assertEquals(0, sequences.get(2).intValue());
+        assertEquals(0, sequences.get(3).intValue());
+    }
+}
@@ -0,0 +1,102 @@
+package org.drizzle.jdbc;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Compares the bytes sent over the wire and the time it takes to read a big text result with and without
+ * compression. The driver connects through a local proxy that counts the bytes it forwards to the server.
+ */
+@Ignore
+public class CompressionBenchmark {
+    private final AtomicLong bytesFromServer = new AtomicLong();
+    private final AtomicLong bytesToServer = new AtomicLong();
+
+    private void pipe(final InputStream in, final OutputStream out, final AtomicLong counter) {
+        new Thread() {
+            public void run() {
+                byte[] buf = new byte[65536];
+                try {
+                    int nr;
+                    while ((nr = in.read(buf)) != -1) {
+                        out.write(buf, 0, nr);
+                        out.flush();
+                        counter.addAndGet(nr);
+                    }
+                    out.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }.start();
+    }
+
+    private int startProxy() throws IOException {
+        final ServerSocket serverSocket = new ServerSocket(0);
+        new Thread() {
+            public void run() {
+                try {
+                    while (true) {
+                        Socket client = serverSocket.accept();
+                        Socket server = new Socket(DriverTest.host, 3306);
+                        pipe(client.getInputStream(), server.getOutputStream(), bytesToServer);
+                        pipe(server.getInputStream(), client.getOutputStream(), bytesFromServer);
+                    }
+                } catch (IOException ignored) {
+                }
+            }
+        }.start();
+        return serverSocket.getLocalPort();
+    }
+
+    @Test
+    public void compareCompression() throws SQLException, IOException {
+        int port = startProxy();
+        Connection connection = DriverManager.getConnection("jdbc:mysql:thin://" + DriverTest.host + ":3306/test_units_jdbc");
+        Statement stmt = connection.createStatement();
+        stmt.execute("drop table if exists compressbench");
+        stmt.execute("create table compressbench (id int not null primary key auto_increment, data varchar(250))");
+        PreparedStatement ps = connection.prepareStatement("insert into compressbench (data) values (?)");
+        for (int i = 0; i < 100000; i++) {
+            ps.setString(1, "some fairly repetitive text to make the rows compress like real data does " + i);
+            ps.addBatch();
+        }
+        ps.executeBatch();
+        connection.close();
+
+        for (int i = 0; i < 5; i++) {
+            run("localhost:" + port, "");
+            run("localhost:" + port, "?useCompression=true");
+        }
+    }
+
+    private void run(String host, String options) throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:mysql:thin://" + host + "/test_units_jdbc" + options);
+        bytesFromServer.set(0);
+        bytesToServer.set(0);
+        long startTime = System.currentTimeMillis();
+        ResultSet rs = connection.createStatement().executeQuery("select * from compressbench");
+        int rows = 0;
+        while (rs.next()) {
+            rs.getString(2);
+            rows++;
+        }
+        long time = System.currentTimeMillis() - startTime;
+        connection.close();
+        System.out.println("options: '" + options + "' rows: " + rows + " time: " + time + "ms, bytes from server: "
+                + bytesFromServer.get() + " bytes to server: " + bytesToServer.get());
+    }
+}
@@ -0,0 +1,61 @@
+package org.drizzle.jdbc;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+public class CompressionTest {
+    private Connection connection;
+
+    public CompressionTest() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:mysql:thin://" + DriverTest.host + ":3306/test_units_jdbc?useCompression=true");
+        Statement stmt = connection.createStatement();
+        stmt.execute("drop table if exists compresstest");
+        stmt.execute("create table compresstest (id int not null primary key auto_increment, test longtext)");
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void smallAndLargeValues() throws SQLException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200000; i++) {
+            sb.append("abcdefghij".charAt(i % 10));
+        }
+        PreparedStatement ps = connection.prepareStatement("insert into compresstest (test) values (?)");
+        ps.setString(1, "a");
+        ps.executeUpdate();
+        ps.setString(1, sb.toString());
+        ps.executeUpdate();
+        ResultSet rs = connection.createStatement().executeQuery("select test from compresstest order by id");
+        assertTrue(rs.next());
+        assertEquals("a", rs.getString(1));
+        assertTrue(rs.next());
+        assertEquals(sb.toString(), rs.getString(1));
+        assertFalse(rs.next());
+    }
+
+    @Test
+    public void manyRoundTrips() throws SQLException {
+        Statement stmt = connection.createStatement();
+        for (int i = 0; i < 1000; i++) {
+            ResultSet rs = stmt.executeQuery("select " + i);
+            assertTrue(rs.next());
+            assertEquals(i, rs.getInt(1));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.drizzle.jdbc;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+public class CursorFetchTest {
+    private Connection connection;
+
+    public CursorFetchTest() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:mysql:thin://" + DriverTest.host + ":3306/test_units_jdbc?useCursorFetch=true");
+        Statement stmt = connection.createStatement();
+        stmt.execute("drop table if exists cursortest");
+        stmt.execute("create table cursortest (id int not null primary key auto_increment, test varchar(20), " +
+                "d double, big bigint unsigned, ts datetime)");
+        PreparedStatement ps = connection.prepareStatement("insert into cursortest (test, d, big, ts) values (?, ?, ?, ?)");
+        for (int i = 0; i < 1000; i++) {
+            ps.setString(1, "row" + i);
+            ps.setDouble(2, i + 0.5);
+            ps.setString(3, "18446744073709551615");
+            ps.setTimestamp(4, Timestamp.valueOf("2010-01-02 03:04:05"));
+            ps.addBatch();
+        }
+        ps.executeBatch();
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void fetchAllRows() throws SQLException {
+        Statement stmt = connection.createStatement();
+        stmt.setFetchSize(100);
+        ResultSet rs = stmt.executeQuery("select * from cursortest order by id");
+        int count = 0;
+        while (rs.next()) {
+            assertEquals(count + 1, rs.getInt("id"));
+            assertEquals("row" + count, rs.getString("test"));
+            assertEquals(count + 0.5, rs.getDouble("d"), 0.0001);
+            assertEquals("18446744073709551615", rs.getString("big"));
+            assertEquals(Timestamp.valueOf("2010-01-02 03:04:05"), rs.getTimestamp("ts"));
+            count++;
+        }
+        assertEquals(1000, count);
+    }
+
+    @Test
+    public void otherStatementsBetweenFetches() throws SQLException {
+        PreparedStatement ps = connection.prepareStatement("select id from cursortest where id > ?");
+        ps.setFetchSize(10);
+        ps.setInt(1, 500);
+        ResultSet rs = ps.executeQuery();
+        int count = 0;
+        while (rs.next()) {
+            ResultSet other = connection.createStatement().executeQuery("select count(*) from cursortest");
+            assertTrue(other.next());
+            assertEquals(1000, other.getInt(1));
+            count++;
+        }
+        assertEquals(500, count);
+    }
+
+    @Test
+    public void closeBeforeAllRowsRead() throws SQLException {
+        Statement stmt = connection.createStatement();
+        stmt.setFetchSize(10);
+        ResultSet rs = stmt.executeQuery("select * from cursortest");
+        assertTrue(rs.next());
+        rs.close();
+        rs = stmt.executeQuery("select * from cursortest where id = 1");
+        assertTrue(rs.next());
+        assertFalse(rs.next());
+    }
+}
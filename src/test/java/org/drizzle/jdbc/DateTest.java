@@ -126,4 +126,23 @@ public class DateTest {
         }
     }
 
+    @Test
+    public void fractionalSecondsAndJavaTime() throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:mysql:thin://"+DriverTest.host+":3306/test_units_jdbc");
+        connection.createStatement().execute("drop table if exists fractiontest");
+        connection.createStatement().execute("create table fractiontest (dt datetime(6), d date, t time(6))");
+        connection.createStatement().execute("insert into fractiontest values ('2011-01-02 03:04:05.123456', '2011-01-02', '-01:02:03.5')");
+        ResultSet rs = connection.createStatement().executeQuery("select * from fractiontest");
+        assertEquals(true, rs.next());
+        assertEquals("2011-01-02 03:04:05.123456", rs.getTimestamp(1).toString());
+        assertEquals("2011-01-02 03:04:05.123456",
+                rs.getTimestamp(1, java.util.Calendar.getInstance()).toString());
+        assertEquals(java.time.LocalDateTime.of(2011, 1, 2, 3, 4, 5, 123456000),
+                rs.getObject(1, java.time.LocalDateTime.class));
+        assertEquals(java.time.LocalDate.of(2011, 1, 2), rs.getObject("d", java.time.LocalDate.class));
+        assertEquals(java.time.LocalDateTime.of(2011, 1, 2, 0, 0), rs.getObject(2, java.time.LocalDateTime.class));
+        assertEquals(-(3723 * 1000 + 500) + Time.valueOf("00:00:00").getTime(), rs.getTime(3).getTime());
+        connection.close();
+    }
+
 }
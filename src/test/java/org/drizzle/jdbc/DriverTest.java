@@ -882,7 +882,11 @@ public class DriverTest {
             ps.setInt(3,30+i);
             ps.addBatch();
         }
-        ps.executeBatch();
+        int[] updateCounts = ps.executeBatch();
+        assertEquals(10000, updateCounts.length);
+        for (int updateCount : updateCounts) {
+            assertEquals(1, updateCount);
+        }
         ResultSet rs = getConnection().createStatement().executeQuery("select * from rewritetest");
         int i = 0;
         while(rs.next()) {
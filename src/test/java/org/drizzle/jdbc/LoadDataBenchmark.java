@@ -0,0 +1,163 @@
+package org.drizzle.jdbc;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+
+
+/**
+ * Measures the throughput of LOAD DATA LOCAL INFILE from a FileInputStream, which is sent with FileChannel.transferTo,
+ * and from a plain InputStream, which is read into a buffer. The driver talks to a local stand-in server that answers
+ * every query with a local infile request and throws the file data away, so only the driver and the loopback are
+ * measured.
+ */
+@Ignore
+public class LoadDataBenchmark {
+    private static final long FILE_SIZE = 1024L * 1024 * 1024;
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    private static void writePacket(OutputStream out, int seq, byte[] payload) throws IOException {
+        out.write(new byte[]{(byte) payload.length, (byte) (payload.length >>> 8), (byte) (payload.length >>> 16), (byte) seq});
+        out.write(payload);
+        out.flush();
+    }
+
+    private static byte[] readPacket(DataInputStream in, byte[] header) throws IOException {
+        in.readFully(header);
+        final int length = (header[0] & 0xff) | (header[1] & 0xff) << 8 | (header[2] & 0xff) << 16;
+        final byte[] payload = new byte[length];
+        in.readFully(payload);
+        return payload;
+    }
+
+    /**
+     * reads a packet and throws the payload away.
+     *
+     * @return the payload length
+     */
+    private static int skipPacket(DataInputStream in, byte[] header, byte[] buffer) throws IOException {
+        in.readFully(header);
+        final int length = (header[0] & 0xff) | (header[1] & 0xff) << 8 | (header[2] & 0xff) << 16;
+        for (int left = length; left > 0; left -= Math.min(left, buffer.length)) {
+            in.readFully(buffer, 0, Math.min(left, buffer.length));
+        }
+        return length;
+    }
+
+    private static byte[] okPacket() {
+        return new byte[]{0, 0, 0, 2, 0, 0, 0};
+    }
+
+    private static byte[] greetingPacket() {
+        final byte[] greeting = new byte[]{
+                10, 's', 't', 'a', 'n', 'd', '-', 'i', 'n', 0,
+                1, 0, 0, 0,
+                'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 0,
+                (byte) 0x80, (byte) 0x82, 8, 2, 0,
+                0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+                'i', 'j', 'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r', 's', 't', 0};
+        return greeting;
+    }
+
+    private void serve(Socket socket) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 65536));
+        final OutputStream out = socket.getOutputStream();
+        final byte[] header = new byte[4];
+        final byte[] buffer = new byte[65536];
+        writePacket(out, 0, greetingPacket());
+        readPacket(in, header);
+        writePacket(out, header[3] + 1, okPacket());
+        while (true) {
+            final byte[] command = readPacket(in, header);
+            if (command[0] == 1) {
+                socket.close();
+                return;
+            }
+            writePacket(out, 1, new byte[]{(byte) 0xfb, 'f', 'i', 'l', 'e'});
+            int length;
+            do {
+                length = skipPacket(in, header, buffer);
+                bytesReceived.addAndGet(length);
+            } while (length > 0);
+            writePacket(out, header[3] + 1, okPacket());
+        }
+    }
+
+    private int startStandInServer() throws IOException {
+        final ServerSocket serverSocket = new ServerSocket(0);
+        new Thread() {
+            public void run() {
+                try {
+                    while (true) {
+                        final Socket socket = serverSocket.accept();
+                        new Thread() {
+                            public void run() {
+                                try {
+                                    serve(socket);
+                                } catch (IOException ignored) {
+                                }
+                            }
+                        }.start();
+                    }
+                } catch (IOException ignored) {
+                }
+            }
+        }.start();
+        return serverSocket.getLocalPort();
+    }
+
+    private File createFile() throws IOException {
+        final File file = File.createTempFile("loaddatabench", ".txt");
+        file.deleteOnExit();
+        final OutputStream out = new FileOutputStream(file);
+        final byte[] line = "1\tsome text in a line of a file that is loaded with load data local infile\n".getBytes();
+        for (long written = 0; written < FILE_SIZE; written += line.length) {
+            out.write(line, 0, (int) Math.min(line.length, FILE_SIZE - written));
+        }
+        out.close();
+        return file;
+    }
+
+    @Test
+    public void compareLoadData() throws SQLException, IOException {
+        final int port = startStandInServer();
+        final File file = createFile();
+        for (int i = 0; i < 5; i++) {
+            run(port, "", file, true);
+            run(port, "", file, false);
+            run(port, "?useNIO=true", file, true);
+            run(port, "?useNIO=true", file, false);
+        }
+    }
+
+    private void run(int port, String options, File file, boolean fileStream) throws SQLException, IOException {
+        final Connection connection = DriverManager.getConnection("jdbc:mysql:thin://localhost:" + port + "/test_units_jdbc" + options);
+        final DrizzleStatement stmt = (DrizzleStatement) connection.createStatement();
+        final InputStream fileInput = new FileInputStream(file);
+        stmt.setLocalInfileInputStream(fileStream ? fileInput : new BufferedInputStream(fileInput));
+        bytesReceived.set(0);
+        final long startTime = System.currentTimeMillis();
+        stmt.executeUpdate("load data local infile 'dummy.tsv' into table loaddatabench");
+        final long time = System.currentTimeMillis() - startTime;
+        connection.close();
+        assertEquals(FILE_SIZE, bytesReceived.get());
+        System.out.println("options: '" + options + "' " + (fileStream ? "FileInputStream" : "InputStream") + " time: "
+                + time + "ms, " + (FILE_SIZE / 1024 / 1024 * 1000 / Math.max(time, 1)) + "MB/s");
+    }
+}
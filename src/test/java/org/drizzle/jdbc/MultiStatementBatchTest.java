@@ -0,0 +1,108 @@
+package org.drizzle.jdbc;
+
+import org.drizzle.jdbc.internal.common.RewriteParameterizedBatchHandlerFactory;
+import org.junit.After;
+import org.junit.Test;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+
+public class MultiStatementBatchTest {
+    private Connection connection;
+
+    public MultiStatementBatchTest() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:mysql:thin://" + DriverTest.host + ":3306/test_units_jdbc?allowMultiQueries=true");
+        Statement stmt = connection.createStatement();
+        stmt.execute("drop table if exists multibatchtest");
+        stmt.execute("create table multibatchtest (id int not null primary key, test varchar(100))");
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    private int count() throws SQLException {
+        ResultSet rs = connection.createStatement().executeQuery("select count(*) from multibatchtest");
+        assertTrue(rs.next());
+        return rs.getInt(1);
+    }
+
+    @Test
+    public void mixedStatements() throws SQLException {
+        Statement stmt = connection.createStatement();
+        for (int i = 0; i < 3000; i++) {
+            stmt.addBatch("insert into multibatchtest values (" + i + ", 'test " + i + "');");
+        }
+        stmt.addBatch("update multibatchtest set test = 'x' where id < 10 -- trailing comment");
+        stmt.addBatch("delete from multibatchtest where id >= 2990");
+        int[] counts = stmt.executeBatch();
+        assertEquals(3002, counts.length);
+        for (int i = 0; i < 3000; i++) {
+            assertEquals(1, counts[i]);
+        }
+        assertEquals(10, counts[3000]);
+        assertEquals(10, counts[3001]);
+        assertEquals(2990, count());
+    }
+
+    @Test
+    public void failingStatement() throws SQLException {
+        Statement stmt = connection.createStatement();
+        stmt.addBatch("insert into multibatchtest values (1, 'a')");
+        stmt.addBatch("insert into multibatchtest values (1, 'duplicate')");
+        stmt.addBatch("insert into multibatchtest values (2, 'b')");
+        try {
+            stmt.executeBatch();
+            fail("expected BatchUpdateException");
+        } catch (BatchUpdateException e) {
+            int[] counts = e.getUpdateCounts();
+            assertEquals(2, counts.length);
+            assertEquals(1, counts[0]);
+            assertEquals(Statement.EXECUTE_FAILED, counts[1]);
+        }
+        assertEquals(1, count());
+    }
+
+    @Test
+    public void failingPreparedStatementRow() throws SQLException {
+        connection.unwrap(DrizzleConnection.class).setBatchQueryHandlerFactory(new RewriteParameterizedBatchHandlerFactory());
+        connection.createStatement().execute("insert into multibatchtest values (1, 'a'), (2, 'b'), (3, 'c')");
+        PreparedStatement ps = connection.prepareStatement("update multibatchtest set id = ? where id = ?");
+        ps.setInt(1, 10);
+        ps.setInt(2, 1);
+        ps.addBatch();
+        ps.setInt(1, 3);
+        ps.setInt(2, 2);
+        ps.addBatch();
+        ps.setInt(1, 20);
+        ps.setInt(2, 3);
+        ps.addBatch();
+        try {
+            ps.executeBatch();
+            fail("expected BatchUpdateException");
+        } catch (BatchUpdateException e) {
+            int[] counts = e.getUpdateCounts();
+            assertEquals(2, counts.length);
+            assertEquals(1, counts[0]);
+            assertEquals(Statement.EXECUTE_FAILED, counts[1]);
+        }
+        ResultSet rs = connection.createStatement().executeQuery("select id from multibatchtest order by id");
+        assertTrue(rs.next());
+        assertEquals(2, rs.getInt(1));
+        assertTrue(rs.next());
+        assertEquals(3, rs.getInt(1));
+        assertTrue(rs.next());
+        assertEquals(10, rs.getInt(1));
+    }
+}
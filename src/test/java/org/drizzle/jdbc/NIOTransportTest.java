@@ -0,0 +1,54 @@
+package org.drizzle.jdbc;
+
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+public class NIOTransportTest {
+
+    private void roundTrip(String options) throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:mysql:thin://" + DriverTest.host + ":3306/test_units_jdbc?" + options);
+        try {
+            Statement stmt = connection.createStatement();
+            stmt.execute("drop table if exists niotest");
+            stmt.execute("create table niotest (id int not null primary key auto_increment, test longtext)");
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 100000; i++) {
+                sb.append((char) ('a' + i % 26));
+            }
+            PreparedStatement ps = connection.prepareStatement("insert into niotest (test) values (?)");
+            for (int i = 0; i < 10; i++) {
+                ps.setString(1, sb.toString() + i);
+                ps.executeUpdate();
+            }
+            ResultSet rs = stmt.executeQuery("select test from niotest order by id");
+            for (int i = 0; i < 10; i++) {
+                assertTrue(rs.next());
+                assertEquals(sb.toString() + i, rs.getString(1));
+            }
+            assertFalse(rs.next());
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void heapBuffers() throws SQLException {
+        roundTrip("useNIO=true&socketBufferSize=1024&tcpNoDelay=true");
+    }
+
+    @Test
+    public void directBuffers() throws SQLException {
+        roundTrip("useNIO=true&useDirectBuffers=true");
+    }
+}
@@ -0,0 +1,113 @@
+package org.drizzle.jdbc;
+
+import org.drizzle.jdbc.internal.common.Utils;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.util.Random;
+
+
+/**
+ * Compares the cost per call of parsing column values from the raw bytes with decoding them into a String first,
+ * which is how AbstractValueObject used to do it.
+ */
+@Ignore
+public class NumberParsingBenchmark {
+    private static final int VALUES = 10000;
+    private static final int ROUNDS = 500;
+
+    private static byte[][] values(String kind) {
+        final Random random = new Random(0);
+        final byte[][] values = new byte[VALUES][];
+        for (int i = 0; i < VALUES; i++) {
+            final String value;
+            if (kind.equals("double")) {
+                value = Double.toString(random.nextInt(1000000) / 100.0);
+            } else if (kind.equals("decimal")) {
+                value = (random.nextInt(2000000) - 1000000) + "." + (10 + random.nextInt(90));
+            } else {
+                value = Long.toString(random.nextLong());
+            }
+            values[i] = value.getBytes();
+        }
+        return values;
+    }
+
+    private static String string(byte[] value) throws UnsupportedEncodingException {
+        return new String(value, "UTF-8");
+    }
+
+    private static void report(String name, long startTime) {
+        final long time = System.nanoTime() - startTime;
+        System.out.println(name + ": " + (time / ((long) VALUES * ROUNDS)) + "ns per call");
+    }
+
+    @Test
+    public void compareParsing() throws UnsupportedEncodingException {
+        final byte[][] doubles = values("double");
+        final byte[][] decimals = values("decimal");
+        final byte[][] longs = values("long");
+        double sink = 0;
+        for (int run = 0; run < 5; run++) {
+            long startTime = System.nanoTime();
+            for (int round = 0; round < ROUNDS; round++) {
+                for (byte[] value : doubles) {
+                    sink += Double.valueOf(string(value));
+                }
+            }
+            report("getDouble via String", startTime);
+            startTime = System.nanoTime();
+            for (int round = 0; round < ROUNDS; round++) {
+                for (byte[] value : doubles) {
+                    sink += Utils.byteArrayToDouble(value);
+                }
+            }
+            report("getDouble from bytes", startTime);
+            startTime = System.nanoTime();
+            for (int round = 0; round < ROUNDS; round++) {
+                for (byte[] value : doubles) {
+                    sink += Float.valueOf(string(value));
+                }
+            }
+            report("getFloat via String", startTime);
+            startTime = System.nanoTime();
+            for (int round = 0; round < ROUNDS; round++) {
+                for (byte[] value : doubles) {
+                    sink += Utils.byteArrayToFloat(value);
+                }
+            }
+            report("getFloat from bytes", startTime);
+            startTime = System.nanoTime();
+            for (int round = 0; round < ROUNDS; round++) {
+                for (byte[] value : decimals) {
+                    sink += new BigDecimal(string(value)).scale();
+                }
+            }
+            report("getBigDecimal via String", startTime);
+            startTime = System.nanoTime();
+            for (int round = 0; round < ROUNDS; round++) {
+                for (byte[] value : decimals) {
+                    sink += Utils.byteArrayToBigDecimal(value).scale();
+                }
+            }
+            report("getBigDecimal from bytes", startTime);
+            startTime = System.nanoTime();
+            for (int round = 0; round < ROUNDS; round++) {
+                for (byte[] value : longs) {
+                    sink += Long.parseLong(string(value));
+                }
+            }
+            report("getLong via String", startTime);
+            startTime = System.nanoTime();
+            for (int round = 0; round < ROUNDS; round++) {
+                for (byte[] value : longs) {
+                    sink += Utils.byteArrayToLong(value);
+                }
+            }
+            report("getLong from bytes", startTime);
+        }
+        System.out.println(sink);
+    }
+}
@@ -0,0 +1,90 @@
+package org.drizzle.jdbc;
+
+import org.drizzle.jdbc.internal.common.queryresults.ResultBufferBudget;
+import org.junit.After;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+public class OffHeapResultTest {
+    private static final int ROWS = 5000;
+    private Connection connection;
+
+    public OffHeapResultTest() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:mysql:thin://" + DriverTest.host + ":3306/test_units_jdbc?offHeapResultBudget=300000");
+        Statement stmt = connection.createStatement();
+        stmt.execute("drop table if exists offheaptest");
+        stmt.execute("create table offheaptest (id int not null primary key, test varchar(200))");
+        PreparedStatement ps = connection.prepareStatement("insert into offheaptest values (?, ?)");
+        for (int i = 1; i <= ROWS; i++) {
+            ps.setInt(1, i);
+            ps.setString(2, i % 10 == 0 ? null : "row " + i + " of a result that does not fit in the off-heap budget");
+            ps.addBatch();
+        }
+        ps.executeBatch();
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    private ResultBufferBudget budget() throws SQLException {
+        return connection.unwrap(DrizzleConnection.class).getResultBufferBudget();
+    }
+
+    @Test
+    public void smallResultStaysOffHeap() throws SQLException {
+        ResultSet rs = connection.createStatement().executeQuery("select * from offheaptest where id <= 10 order by id");
+        assertTrue(budget().getBytesInUse() > 0);
+        assertEquals(0, budget().getSpilledResults());
+        for (int i = 1; i <= 10; i++) {
+            assertTrue(rs.next());
+            assertEquals(i, rs.getInt("id"));
+        }
+        assertNull(rs.getString(2));
+        assertFalse(rs.next());
+        rs.close();
+        assertEquals(0, budget().getBytesInUse());
+    }
+
+    @Test
+    public void bigResultSpills() throws SQLException {
+        ResultSet rs = connection.createStatement().executeQuery("select * from offheaptest order by id");
+        assertEquals(1, budget().getSpilledResults());
+        assertTrue(budget().getSpilledBytes() > 0);
+        int rows = 0;
+        while (rs.next()) {
+            rows++;
+            assertEquals(rows, rs.getInt(1));
+            if (rows % 10 == 0) {
+                assertNull(rs.getString(2));
+                assertTrue(rs.wasNull());
+            } else {
+                assertEquals("row " + rows + " of a result that does not fit in the off-heap budget", rs.getString(2));
+            }
+        }
+        assertEquals(ROWS, rows);
+        assertTrue(rs.last());
+        assertEquals(ROWS, rs.getInt(1));
+        assertTrue(rs.absolute(3));
+        assertEquals(3, rs.getInt(1));
+        assertTrue(rs.relative(ROWS - 4));
+        assertEquals(ROWS - 1, rs.getInt(1));
+        assertTrue(rs.relative(-(ROWS - 2)));
+        assertEquals(1, rs.getInt("id"));
+        rs.close();
+        assertEquals(0, budget().getBytesInUse());
+    }
+}
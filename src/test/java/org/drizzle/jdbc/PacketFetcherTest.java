@@ -0,0 +1,110 @@
+package org.drizzle.jdbc;
+
+import org.drizzle.jdbc.internal.common.packet.RawPacket;
+import org.drizzle.jdbc.internal.common.packet.SyncPacketFetcher;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+
+public class PacketFetcherTest {
+
+    private static void writePacket(ByteArrayOutputStream out, int length, int seq) {
+        out.write(length & 0xff);
+        out.write((length >>> 8) & 0xff);
+        out.write((length >>> 16) & 0xff);
+        out.write(seq);
+        for (int i = 0; i < length; i++) {
+            out.write((i + seq) & 0xff);
+        }
+    }
+
+    private static void assertPacket(RawPacket packet, int length, int seq) {
+        assertEquals(seq, packet.getPacketSeq());
+        assertEquals(length, packet.getByteBuffer().remaining());
+        for (int i = 0; i < length; i++) {
+            assertEquals((byte) ((i + seq) & 0xff), packet.getByteBuffer().get(i));
+        }
+    }
+
+    /**
+     * returns at most one byte per read, like a slow socket
+     */
+    private static class TrickleInputStream extends InputStream {
+        private final InputStream in;
+
+        TrickleInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        public int read() throws IOException {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return in.read(b, off, Math.min(len, 1));
+        }
+    }
+
+    @Test
+    public void readsPacketsThroughSmallBuffer() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < 100; i++) {
+            writePacket(out, i * 7, i);
+        }
+        SyncPacketFetcher fetcher = new SyncPacketFetcher(new ByteArrayInputStream(out.toByteArray()), 16);
+        for (int i = 0; i < 100; i++) {
+            assertPacket(fetcher.getRawPacket(), i * 7, i);
+        }
+    }
+
+    @Test
+    public void readsPartialReads() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < 20; i++) {
+            writePacket(out, 1000, i);
+        }
+        SyncPacketFetcher fetcher = new SyncPacketFetcher(new TrickleInputStream(new ByteArrayInputStream(out.toByteArray())), 64);
+        for (int i = 0; i < 20; i++) {
+            assertPacket(fetcher.getRawPacket(), 1000, i);
+        }
+    }
+
+    @Test
+    public void readsPacketsBiggerThanBuffer() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writePacket(out, 10, 0);
+        writePacket(out, 2 * 1024 * 1024, 1);
+        writePacket(out, 10, 2);
+        SyncPacketFetcher fetcher = new SyncPacketFetcher(new ByteArrayInputStream(out.toByteArray()));
+        assertPacket(fetcher.getRawPacket(), 10, 0);
+        RawPacket big = fetcher.getRawPacket();
+        assertPacket(big, 2 * 1024 * 1024, 1);
+        assertSame(big, big.retain());
+        assertPacket(fetcher.getRawPacket(), 10, 2);
+    }
+
+    @Test
+    public void retainedPacketSurvivesNextRead() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < 10; i++) {
+            writePacket(out, 20, i);
+        }
+        SyncPacketFetcher fetcher = new SyncPacketFetcher(new ByteArrayInputStream(out.toByteArray()), 32);
+        RawPacket first = fetcher.getRawPacket();
+        RawPacket retained = first.retain();
+        assertNotSame(first, retained);
+        for (int i = 1; i < 10; i++) {
+            fetcher.getRawPacket();
+        }
+        assertPacket(retained, 20, 0);
+    }
+}
@@ -0,0 +1,98 @@
+package org.drizzle.jdbc;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+
+public class PipelinedBatchTest {
+    private Connection connection;
+
+    public PipelinedBatchTest() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:mysql:thin://" + DriverTest.host + ":3306/test_units_jdbc?pipelineBatches=true");
+        Statement stmt = connection.createStatement();
+        stmt.execute("drop table if exists pipelinetest");
+        stmt.execute("create table pipelinetest (id int not null primary key, test varchar(100))");
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    private int count() throws SQLException {
+        ResultSet rs = connection.createStatement().executeQuery("select count(*) from pipelinetest");
+        assertTrue(rs.next());
+        return rs.getInt(1);
+    }
+
+    @Test
+    public void manyStatements() throws SQLException {
+        Statement stmt = connection.createStatement();
+        for (int i = 0; i < 5000; i++) {
+            stmt.addBatch("insert into pipelinetest values (" + i + ", 'some text to fill the window " + i + "')");
+        }
+        stmt.addBatch("update pipelinetest set test = 'x' where id < 10");
+        int[] counts = stmt.executeBatch();
+        assertEquals(5001, counts.length);
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(1, counts[i]);
+        }
+        assertEquals(10, counts[5000]);
+        assertEquals(5000, count());
+    }
+
+    @Test
+    public void failingStatement() throws SQLException {
+        Statement stmt = connection.createStatement();
+        stmt.addBatch("insert into pipelinetest values (1, 'a')");
+        stmt.addBatch("insert into pipelinetest values (1, 'duplicate')");
+        stmt.addBatch("insert into pipelinetest values (2, 'b')");
+        try {
+            stmt.executeBatch();
+            fail("expected BatchUpdateException");
+        } catch (BatchUpdateException e) {
+            int[] counts = e.getUpdateCounts();
+            assertEquals(3, counts.length);
+            assertEquals(1, counts[0]);
+            assertEquals(Statement.EXECUTE_FAILED, counts[1]);
+            assertEquals(1, counts[2]);
+        }
+        // the connection is still in sync
+        assertEquals(2, count());
+        stmt.addBatch("insert into pipelinetest values (3, 'c')");
+        assertEquals(1, stmt.executeBatch()[0]);
+    }
+
+    @Test
+    public void selectWithStreamingResults() throws SQLException {
+        Connection streaming = DriverManager.getConnection("jdbc:mysql:thin://" + DriverTest.host + ":3306/test_units_jdbc?pipelineBatches=true&useStreamingResults=true");
+        try {
+            Statement stmt = streaming.createStatement();
+            stmt.addBatch("insert into pipelinetest values (1, 'a')");
+            stmt.addBatch("select * from pipelinetest");
+            stmt.addBatch("insert into pipelinetest values (2, 'b')");
+            int[] counts = stmt.executeBatch();
+            assertEquals(3, counts.length);
+            assertEquals(1, counts[0]);
+            assertEquals(1, counts[2]);
+            // the select in the batch was buffered, so the connection is still in sync
+            ResultSet rs = stmt.executeQuery("select count(*) from pipelinetest");
+            assertTrue(rs.next());
+            assertEquals(2, rs.getInt(1));
+            rs.close();
+        } finally {
+            streaming.close();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.drizzle.jdbc;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+
+
+/**
+ * Measures the latency of borrowing and returning a connection from DrizzlePoolingDataSource with 64 threads and a
+ * pool smaller than the number of threads, so borrowers contend and wait. The pool connects to a local stand-in server
+ * that answers every command with an ok packet.
+ */
+@Ignore
+public class PoolBenchmark {
+    private static final int THREADS = 64;
+    private static final int BORROWS_PER_THREAD = 100000;
+
+    private static void writePacket(OutputStream out, int seq, byte[] payload) throws IOException {
+        out.write(new byte[]{(byte) payload.length, (byte) (payload.length >>> 8), (byte) (payload.length >>> 16), (byte) seq});
+        out.write(payload);
+        out.flush();
+    }
+
+    private static byte[] readPacket(DataInputStream in, byte[] header) throws IOException {
+        in.readFully(header);
+        final int length = (header[0] & 0xff) | (header[1] & 0xff) << 8 | (header[2] & 0xff) << 16;
+        final byte[] payload = new byte[length];
+        in.readFully(payload);
+        return payload;
+    }
+
+    private static byte[] okPacket() {
+        return new byte[]{0, 0, 0, 2, 0, 0, 0};
+    }
+
+    private static byte[] greetingPacket() {
+        return new byte[]{
+                10, 's', 't', 'a', 'n', 'd', '-', 'i', 'n', 0,
+                1, 0, 0, 0,
+                'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 0,
+                (byte) 0x80, (byte) 0x82, 8, 2, 0,
+                0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+                'i', 'j', 'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r', 's', 't', 0};
+    }
+
+    private static void serve(Socket socket) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        final OutputStream out = socket.getOutputStream();
+        final byte[] header = new byte[4];
+        writePacket(out, 0, greetingPacket());
+        readPacket(in, header);
+        writePacket(out, header[3] + 1, okPacket());
+        while (true) {
+            final byte[] command = readPacket(in, header);
+            if (command[0] == 1) {
+                socket.close();
+                return;
+            }
+            writePacket(out, header[3] + 1, okPacket());
+        }
+    }
+
+    private static int startStandInServer() throws IOException {
+        final ServerSocket serverSocket = new ServerSocket(0);
+        final Thread acceptor = new Thread() {
+            public void run() {
+                try {
+                    while (true) {
+                        final Socket socket = serverSocket.accept();
+                        final Thread server = new Thread() {
+                            public void run() {
+                                try {
+                                    serve(socket);
+                                } catch (IOException ignored) {
+                                }
+                            }
+                        };
+                        server.setDaemon(true);
+                        server.start();
+                    }
+                } catch (IOException ignored) {
+                }
+            }
+        };
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return serverSocket.getLocalPort();
+    }
+
+    @Test
+    public void borrowAndReturn() throws Exception {
+        final int port = startStandInServer();
+        for (final int poolSize : new int[]{8, 32, 64}) {
+            for (int i = 0; i < 3; i++) {
+                run(port, poolSize);
+            }
+        }
+    }
+
+    private void run(int port, int poolSize) throws Exception {
+        final DrizzlePoolingDataSource pool = new DrizzlePoolingDataSource("localhost", port, "test_units_jdbc", "root", "");
+        pool.setMaxPoolSize(poolSize);
+        pool.setValidationThreshold(Long.MAX_VALUE / 1000000);
+        final Connection[] warmup = new Connection[poolSize];
+        for (int i = 0; i < poolSize; i++) {
+            warmup[i] = pool.getConnection();
+        }
+        for (final Connection connection : warmup) {
+            connection.close();
+        }
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(THREADS);
+        final AtomicLong maxNanos = new AtomicLong();
+        for (int t = 0; t < THREADS; t++) {
+            new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                        long max = 0;
+                        for (int i = 0; i < BORROWS_PER_THREAD; i++) {
+                            final long borrowStart = System.nanoTime();
+                            final Connection connection = pool.getConnection();
+                            connection.close();
+                            max = Math.max(max, System.nanoTime() - borrowStart);
+                        }
+                        synchronized (maxNanos) {
+                            maxNanos.set(Math.max(maxNanos.get(), max));
+                        }
+                    } catch (InterruptedException ignored) {
+                    } catch (SQLException e) {
+                        e.printStackTrace();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+        final long startTime = System.nanoTime();
+        start.countDown();
+        done.await();
+        final long time = System.nanoTime() - startTime;
+        final long borrows = (long) THREADS * BORROWS_PER_THREAD;
+        assertEquals(borrows + poolSize, pool.getBorrowCount());
+        System.out.println("threads: " + THREADS + " pool size: " + poolSize + " connections: " + pool.getTotalConnections()
+                + " borrows/s: " + (borrows * 1000000000L / time)
+                + " avg getConnection: " + (pool.getTotalWaitNanos() / pool.getBorrowCount()) + "ns"
+                + " max borrow+return: " + (maxNanos.get() / 1000) + "us");
+        pool.close();
+    }
+}
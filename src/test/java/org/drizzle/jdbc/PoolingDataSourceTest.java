@@ -0,0 +1,198 @@
+package org.drizzle.jdbc;
+
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+
+public class PoolingDataSourceTest {
+    private DrizzlePoolingDataSource createPool() {
+        return new DrizzlePoolingDataSource(DriverTest.host, 3307, "test_units_jdbc", "root", "");
+    }
+
+    @Test
+    public void reusesConnections() throws SQLException {
+        DrizzlePoolingDataSource pool = createPool();
+        Connection connection = pool.getConnection();
+        long connectionId = connectionId(connection);
+        assertEquals(1, pool.getActiveConnections());
+        connection.close();
+        assertTrue(connection.isClosed());
+        assertEquals(0, pool.getActiveConnections());
+        assertEquals(1, pool.getIdleConnections());
+        connection = pool.getConnection();
+        assertEquals(connectionId, connectionId(connection));
+        assertTrue(connection.isValid(0));
+        connection.close();
+        assertEquals(1, pool.getTotalConnections());
+        assertEquals(2, pool.getBorrowCount());
+        pool.close();
+    }
+
+    private static long connectionId(Connection connection) throws SQLException {
+        ResultSet rs = connection.createStatement().executeQuery("select connection_id()");
+        assertTrue(rs.next());
+        return rs.getLong(1);
+    }
+
+    @Test
+    public void closedConnectionCanNotBeUsed() throws SQLException {
+        DrizzlePoolingDataSource pool = createPool();
+        Connection connection = pool.getConnection();
+        connection.close();
+        try {
+            connection.createStatement();
+            fail("closed connection was usable");
+        } catch (SQLException e) {
+            // expected
+        }
+        pool.close();
+    }
+
+    @Test
+    public void rollsBackOnReturn() throws SQLException {
+        DrizzlePoolingDataSource pool = createPool();
+        pool.setMaxPoolSize(1);
+        Connection connection = pool.getConnection();
+        Statement stmt = connection.createStatement();
+        stmt.executeUpdate("drop table if exists pool_rollback");
+        stmt.executeUpdate("create table pool_rollback (id int) engine=innodb");
+        connection.setAutoCommit(false);
+        connection.createStatement().executeUpdate("insert into pool_rollback values (1)");
+        connection.close();
+        connection = pool.getConnection();
+        assertTrue(connection.getAutoCommit());
+        ResultSet rs = connection.createStatement().executeQuery("select count(*) from pool_rollback");
+        assertTrue(rs.next());
+        assertEquals(0, rs.getInt(1));
+        connection.close();
+        pool.close();
+    }
+
+    @Test
+    public void timesOutWhenExhausted() throws SQLException {
+        DrizzlePoolingDataSource pool = createPool();
+        pool.setMaxPoolSize(1);
+        pool.setConnectionTimeout(100);
+        Connection connection = pool.getConnection();
+        try {
+            pool.getConnection();
+            fail("got a connection from an exhausted pool");
+        } catch (SQLException e) {
+            assertEquals(1, pool.getTimeoutCount());
+        }
+        connection.close();
+        connection = pool.getConnection();
+        assertFalse(connection.isClosed());
+        connection.close();
+        pool.close();
+    }
+
+    @Test
+    public void statementsGiveTheLogicalConnection() throws SQLException {
+        DrizzlePoolingDataSource pool = createPool();
+        Connection connection = pool.getConnection();
+        Statement stmt = connection.createStatement();
+        assertTrue(stmt.getConnection() == connection);
+        ResultSet rs = stmt.executeQuery("select 1");
+        assertTrue(rs.getStatement() == stmt);
+        assertTrue(connection.getMetaData().getConnection() == connection);
+        assertFalse(connection.isWrapperFor(DrizzleConnection.class));
+        try {
+            connection.unwrap(DrizzleConnection.class);
+            fail("got the physical connection");
+        } catch (SQLException e) {
+            // expected
+        }
+        try {
+            stmt.unwrap(DrizzleStatement.class);
+            fail("got the physical statement");
+        } catch (SQLException e) {
+            // expected
+        }
+        connection.close();
+        assertTrue(stmt.isClosed());
+        pool.close();
+    }
+
+    @Test
+    public void unreadStreamingResultIsClosedOnReturn() throws SQLException {
+        DrizzlePoolingDataSource pool = createPool();
+        pool.setMaxPoolSize(1);
+        Connection connection = pool.getConnection();
+        Statement stmt = connection.createStatement();
+        stmt.setFetchSize(Integer.MIN_VALUE);
+        ResultSet rs = stmt.executeQuery("select * from information_schema.columns");
+        assertTrue(rs.next());
+        connection.close();
+        connection = pool.getConnection();
+        rs = connection.createStatement().executeQuery("select 1");
+        assertTrue(rs.next());
+        assertEquals(1, rs.getInt(1));
+        connection.close();
+        pool.close();
+    }
+
+    @Test
+    public void concurrentCloseReturnsOnce() throws Exception {
+        DrizzlePoolingDataSource pool = createPool();
+        pool.setMaxPoolSize(2);
+        for (int i = 0; i < 100; i++) {
+            final Connection connection = pool.getConnection();
+            Thread[] threads = new Thread[4];
+            for (int j = 0; j < threads.length; j++) {
+                threads[j] = new Thread(new Runnable() {
+                    public void run() {
+                        try {
+                            connection.close();
+                        } catch (SQLException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                });
+                threads[j].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(0, pool.getActiveConnections());
+        }
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+        assertTrue(connectionId(first) != connectionId(second));
+        first.close();
+        second.close();
+        pool.close();
+    }
+
+    @Test
+    public void restoresSessionStateOnReturn() throws SQLException {
+        DrizzlePoolingDataSource pool = createPool();
+        pool.setMaxPoolSize(1);
+        Connection connection = pool.getConnection();
+        String catalog = connection.getCatalog();
+        int isolation = connection.getTransactionIsolation();
+        int otherIsolation = isolation == Connection.TRANSACTION_SERIALIZABLE
+                ? Connection.TRANSACTION_READ_COMMITTED
+                : Connection.TRANSACTION_SERIALIZABLE;
+        connection.createStatement().executeUpdate("create database if not exists test_units_jdbc_pool");
+        connection.setReadOnly(true);
+        connection.setCatalog("test_units_jdbc_pool");
+        connection.setTransactionIsolation(otherIsolation);
+        connection.close();
+        connection = pool.getConnection();
+        assertFalse(connection.isReadOnly());
+        assertEquals(catalog, connection.getCatalog());
+        assertEquals(isolation, connection.getTransactionIsolation());
+        connection.close();
+        pool.close();
+    }
+}
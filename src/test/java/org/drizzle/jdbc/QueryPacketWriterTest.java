@@ -0,0 +1,54 @@
+package org.drizzle.jdbc;
+
+import org.drizzle.jdbc.internal.common.packet.buffer.QueryPacketWriter;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class QueryPacketWriterTest {
+
+    private static void assertEncoded(QueryPacketWriter writer, String query) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(writer.write((byte) 0x03, query, out));
+        byte[] packet = out.toByteArray();
+        byte[] expected = query.getBytes("UTF-8");
+        int length = (packet[0] & 0xff) | (packet[1] & 0xff) << 8 | (packet[2] & 0xff) << 16;
+        assertEquals(expected.length + 1, length);
+        assertEquals(0, packet[3]);
+        assertEquals(0x03, packet[4]);
+        assertArrayEquals(expected, Arrays.copyOfRange(packet, 5, packet.length));
+    }
+
+    @Test
+    public void encodesLikeGetBytes() throws IOException {
+        QueryPacketWriter writer = new QueryPacketWriter();
+        assertEncoded(writer, "select 1");
+        assertEncoded(writer, "");
+        assertEncoded(writer, "select '\u00e5\u00e4\u00f6', '\u20ac', '\ud83d\ude00'");
+        assertEncoded(writer, "select 'lone \ud83d surrogate \ude00'");
+        assertEncoded(writer, "select 1");
+    }
+
+    @Test
+    public void bufferGrows() throws IOException {
+        QueryPacketWriter writer = new QueryPacketWriter();
+        StringBuilder sb = new StringBuilder("select '");
+        for (int i = 0; i < 100000; i++) {
+            sb.append(i % 100 == 0 ? '\u20ac' : 'a');
+        }
+        sb.append("'");
+        assertEncoded(writer, sb.toString());
+        for (int i = 0; i < 400000; i++) {
+            sb.append('b');
+        }
+        assertEncoded(writer, sb.toString());
+        assertEncoded(writer, "select 2");
+    }
+}
@@ -0,0 +1,87 @@
+package org.drizzle.jdbc;
+
+import org.drizzle.jdbc.internal.common.query.DrizzleQueryFactory;
+import org.drizzle.jdbc.internal.common.query.IllegalParameterException;
+import org.drizzle.jdbc.internal.common.query.ParameterizedQuery;
+import org.drizzle.jdbc.internal.common.query.QueryTemplateCache;
+import org.drizzle.jdbc.internal.common.query.parameters.LongParameter;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+public class QueryTemplateCacheTest {
+    @Test
+    public void countsHitsAndMisses() {
+        QueryTemplateCache cache = new QueryTemplateCache(10, 1024 * 1024);
+        cache.get("select * from t where a = ?");
+        cache.get("select * from t where a = ?");
+        cache.get("select * from t where b = ?");
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.size());
+        assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    public void copiesDoNotShareParameters() throws IllegalParameterException {
+        QueryTemplateCache cache = new QueryTemplateCache(10, 1024 * 1024);
+        ParameterizedQuery first = cache.get("select * from t where a = ?");
+        first.setParameter(0, new LongParameter(1));
+        ParameterizedQuery second = cache.get("select * from t where a = ?");
+        assertEquals(1, second.getParamCount());
+        assertNull(second.getParameters()[0]);
+    }
+
+    @Test
+    public void evictsUnusedQueries() {
+        QueryTemplateCache cache = new QueryTemplateCache(3, 1024 * 1024);
+        cache.get("select 1");
+        cache.get("select 2");
+        cache.get("select 3");
+        cache.get("select 1");
+        cache.get("select 4");
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictions());
+        cache.get("select 1");
+        assertEquals(2, cache.getHits());
+        cache.get("select 2");
+        assertEquals(5, cache.getMisses());
+    }
+
+    @Test
+    public void boundsBytes() {
+        QueryTemplateCache cache = new QueryTemplateCache(1000, 4096);
+        StringBuilder sb = new StringBuilder("select ?");
+        for (int i = 0; i < 100; i++) {
+            sb.append(", ").append(i);
+        }
+        for (int i = 0; i < 100; i++) {
+            cache.get(sb.toString() + " from t" + i);
+            assertTrue(cache.getBytes() <= 4096);
+        }
+        assertTrue(cache.size() < 100);
+        assertEquals(100 - cache.size(), cache.getEvictions());
+    }
+
+    @Test
+    public void noCacheBypassesCache() {
+        DrizzleQueryFactory factory = new DrizzleQueryFactory(new QueryTemplateCache(10, 1024 * 1024));
+        factory.createParameterizedQuery("select ?", true);
+        factory.createParameterizedQuery("select ?", false);
+        assertEquals(0, factory.getCache().getHits());
+        assertEquals(1, factory.getCache().getMisses());
+        assertEquals(1, factory.getCache().size());
+    }
+
+    @Test
+    public void zeroSizeDisablesCache() {
+        QueryTemplateCache cache = new QueryTemplateCache(0, 1024 * 1024);
+        cache.get("select ?");
+        cache.get("select ?");
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.getMisses());
+    }
+}
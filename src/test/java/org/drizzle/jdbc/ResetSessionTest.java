@@ -0,0 +1,72 @@
+package org.drizzle.jdbc;
+
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+
+public class ResetSessionTest {
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection("jdbc:mysql:thin://" + DriverTest.host + ":3306/test_units_jdbc");
+    }
+
+    @Test
+    public void resetsSessionState() throws SQLException {
+        Connection connection = connect();
+        Statement stmt = connection.createStatement();
+        stmt.executeUpdate("set @resetvar = 1");
+        stmt.executeUpdate("create temporary table reset_temp (id int)");
+        connection.setAutoCommit(false);
+        ((DrizzleConnection) connection).resetSession();
+        stmt = connection.createStatement();
+        ResultSet rs = stmt.executeQuery("select @resetvar");
+        assertTrue(rs.next());
+        assertNull(rs.getString(1));
+        assertTrue(connection.getAutoCommit());
+        try {
+            stmt.executeQuery("select * from reset_temp");
+            fail("temporary table survived the reset");
+        } catch (SQLException e) {
+            // expected
+        }
+        connection.close();
+    }
+
+    @Test
+    public void resetsDatabase() throws SQLException {
+        Connection connection = connect();
+        connection.createStatement().executeUpdate("create database if not exists reset_other");
+        connection.setCatalog("reset_other");
+        ((DrizzleConnection) connection).resetSession();
+        assertEquals("test_units_jdbc", connection.getCatalog());
+        ResultSet rs = connection.createStatement().executeQuery("select database()");
+        assertTrue(rs.next());
+        assertEquals("test_units_jdbc", rs.getString(1));
+        connection.close();
+    }
+
+    @Test
+    public void preparedStatementsWorkAfterReset() throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:mysql:thin://" + DriverTest.host
+                + ":3306/test_units_jdbc?useServerPrepStmts=true");
+        java.sql.PreparedStatement ps = connection.prepareStatement("select ?");
+        ps.setInt(1, 1);
+        ps.executeQuery().close();
+        ((DrizzleConnection) connection).resetSession();
+        ps = connection.prepareStatement("select ?");
+        ps.setInt(1, 2);
+        ResultSet rs = ps.executeQuery();
+        assertTrue(rs.next());
+        assertEquals(2, rs.getInt(1));
+        connection.close();
+    }
+}
@@ -6,9 +6,16 @@ import org.drizzle.jdbc.internal.common.query.DrizzleQuery;
 import org.drizzle.jdbc.internal.common.query.ParameterizedQuery;
 import org.drizzle.jdbc.internal.common.query.DrizzleParameterizedQuery;
 import org.drizzle.jdbc.internal.common.query.IllegalParameterException;
+import org.drizzle.jdbc.internal.common.query.Query;
 import org.drizzle.jdbc.internal.common.query.parameters.StringParameter;
+import org.drizzle.jdbc.internal.common.queryresults.DrizzleUpdateResult;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Statement;
+import java.util.Arrays;
 
 import static junit.framework.Assert.assertTrue;
 
@@ -35,7 +42,7 @@ public class RewriteBatchHandlerTest {
             rpbh.addToBatch(pq);
         }
         rpbh.executeBatch();
-        String expectedQuery = "insert into abc values(\"a0\",\"b0\",\"c0\"),(\"a1\",\"b1\",\"c1\"),(\"a2\",\"b2\",\"c2\")";
+        String expectedQuery = "insert into abc values('a0','b0','c0'),('a1','b1','c1'),('a2','b2','c2')";
         verify(mockProtocol).executeQuery(new DrizzleQuery(expectedQuery));
     }
     @Test
@@ -53,7 +60,7 @@ public class RewriteBatchHandlerTest {
             rpbh.addToBatch(pq);
         }
         rpbh.executeBatch();
-        String expectedQuery = "insert into abc (c1,c2,c3) values(\"a0\",\"b0\",\"c0\"),(\"a1\",\"b1\",\"c1\"),(\"a2\",\"b2\",\"c2\")";
+        String expectedQuery = "insert into abc (c1,c2,c3) values('a0','b0','c0'),('a1','b1','c1'),('a2','b2','c2')";
         verify(mockProtocol).executeQuery(new DrizzleQuery(expectedQuery));
     }
     @Test
@@ -71,7 +78,7 @@ public class RewriteBatchHandlerTest {
             rpbh.addToBatch(pq);
         }
         rpbh.executeBatch();
-        String expectedQuery = "insert abc (c1,c2,c3) value(\"a0\",\"b0\",\"c0\"),(\"a1\",\"b1\",\"c1\"),(\"a2\",\"b2\",\"c2\")";
+        String expectedQuery = "insert abc (c1,c2,c3) value('a0','b0','c0'),('a1','b1','c1'),('a2','b2','c2')";
         verify(mockProtocol).executeQuery(new DrizzleQuery(expectedQuery));
     }
     @Test
@@ -89,10 +96,30 @@ public class RewriteBatchHandlerTest {
             rpbh.addToBatch(pq);
         }
         rpbh.executeBatch();
-        String expectedQuery = "insert abc (c1,c2,c3) value(\"a0\",\"b0\",\"c0\"),(\"a1\",\"b1\",\"c1\"),(\"a2\",\"b2\",\"c2\")on duplicate key update c1 = values(c1)";
+        String expectedQuery = "insert abc (c1,c2,c3) value('a0','b0','c0'),('a1','b1','c1'),('a2','b2','c2')on duplicate key update c1 = values(c1)";
         verify(mockProtocol).executeQuery(new DrizzleQuery(expectedQuery));
     }
 
+    @Test
+    public void testOnDupKeyUpdateCounts() throws QueryException, IllegalParameterException {
+        RewriteParameterizedBatchHandlerFactory rpbhf = new RewriteParameterizedBatchHandlerFactory();
+        Protocol mockProtocol = mock(Protocol.class);
+        // one row inserted and one updated, which counts as two, can not be told from three inserts
+        when(mockProtocol.executeQuery(any(Query.class))).thenReturn(new DrizzleUpdateResult(3, (short) 0, "", 0));
+        String query = "insert abc (c1,c2,c3) value (?,?,?) on duplicate key update c1 = values(c1)";
+        ParameterizedBatchHandler rpbh = rpbhf.get(query, mockProtocol);
+        for(int i = 0;i<3;i++) {
+            ParameterizedQuery pq = new DrizzleParameterizedQuery(query);
+            pq.setParameter(0, new StringParameter("a"+i));
+            pq.setParameter(1, new StringParameter("b"+i));
+            pq.setParameter(2, new StringParameter("c"+i));
+            rpbh.addToBatch(pq);
+        }
+        int[] updateCounts = rpbh.executeBatch();
+        assertTrue(Arrays.equals(new int[]{Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO,
+                Statement.SUCCESS_NO_INFO}, updateCounts));
+    }
+
     /**
      * bug 501443
      * @throws QueryException
@@ -113,7 +140,76 @@ public class RewriteBatchHandlerTest {
             rpbh.addToBatch(pq);
         }
         rpbh.executeBatch();
-        String expectedQuery = "insert table1.abc (c1,c2,c3) value(\"a0\",\"b0\",\"c0\"),(\"a1\",\"b1\",\"c1\"),(\"a2\",\"b2\",\"c2\")on duplicate key update c1 = values(c1)";
+        String expectedQuery = "insert table1.abc (c1,c2,c3) value('a0','b0','c0'),('a1','b1','c1'),('a2','b2','c2')on duplicate key update c1 = values(c1)";
         verify(mockProtocol).executeQuery(new DrizzleQuery(expectedQuery));
     }
+
+    @Test
+    public void testSplitOnMaxAllowedPacket() throws QueryException, IllegalParameterException {
+        RewriteParameterizedBatchHandlerFactory rpbhf = new RewriteParameterizedBatchHandlerFactory();
+        Protocol mockProtocol = mock(Protocol.class);
+        when(mockProtocol.getMaxAllowedPacket()).thenReturn(60);
+        when(mockProtocol.executeQuery(any(Query.class)))
+                .thenReturn(new DrizzleUpdateResult(2, (short) 0, "", 0))
+                .thenReturn(new DrizzleUpdateResult(2, (short) 0, "", 0))
+                .thenReturn(new DrizzleUpdateResult(0, (short) 0, "", 0));
+        String query = "insert into abc values (?,?,?)";
+        ParameterizedBatchHandler rpbh = rpbhf.get(query, mockProtocol);
+        for(int i = 0;i<5;i++) {
+            ParameterizedQuery pq = new DrizzleParameterizedQuery(query);
+            pq.setParameter(0, new StringParameter("a"+i));
+            pq.setParameter(1, new StringParameter("b"+i));
+            pq.setParameter(2, new StringParameter("c"+i));
+            rpbh.addToBatch(pq);
+        }
+        int[] updateCounts = rpbh.executeBatch();
+        // every query has to fit in 59 bytes, the command byte takes the last one
+        verify(mockProtocol).executeQuery(new DrizzleQuery("insert into abc values('a0','b0','c0'),('a1','b1','c1')"));
+        verify(mockProtocol).executeQuery(new DrizzleQuery("insert into abc values('a2','b2','c2'),('a3','b3','c3')"));
+        verify(mockProtocol).executeQuery(new DrizzleQuery("insert into abc values('a4','b4','c4')"));
+        assertTrue(Arrays.equals(new int[]{1, 1, 1, 1, 0}, updateCounts));
+    }
+
+    @Test
+    public void testDeleteByKey() throws QueryException, IllegalParameterException {
+        RewriteParameterizedBatchHandlerFactory rpbhf = new RewriteParameterizedBatchHandlerFactory();
+        Protocol mockProtocol = mock(Protocol.class);
+        when(mockProtocol.executeQuery(any(Query.class))).thenReturn(new DrizzleUpdateResult(0, (short) 0, "", 0));
+        String query = "delete from abc where id = ?";
+        ParameterizedBatchHandler rpbh = rpbhf.get(query, mockProtocol);
+        assertTrue(rpbh instanceof RewriteParameterizedBatchHandler);
+        for(int i = 0;i<3;i++) {
+            ParameterizedQuery pq = new DrizzleParameterizedQuery(query);
+            pq.setParameter(0, new StringParameter("a"+i));
+            rpbh.addToBatch(pq);
+        }
+        int[] updateCounts = rpbh.executeBatch();
+        verify(mockProtocol).executeQuery(new DrizzleQuery("delete from abc where id IN ('a0','a1','a2')"));
+        assertTrue(Arrays.equals(new int[]{0, 0, 0}, updateCounts));
+    }
+
+    @Test
+    public void testUpdateAsMultiStatement() throws QueryException, IllegalParameterException {
+        RewriteParameterizedBatchHandlerFactory rpbhf = new RewriteParameterizedBatchHandlerFactory();
+        Protocol mockProtocol = mock(Protocol.class);
+        when(mockProtocol.supportsMultiStatements()).thenReturn(true);
+        when(mockProtocol.getMaxAllowedPacket()).thenReturn(1024);
+        when(mockProtocol.executeQuery(any(Query.class))).thenReturn(new DrizzleUpdateResult(1, (short) 0, "", 0));
+        when(mockProtocol.getMoreResults())
+                .thenReturn(new DrizzleUpdateResult(0, (short) 0, "", 0))
+                .thenReturn(new DrizzleUpdateResult(1, (short) 0, "", 0));
+        String query = "update abc set b = ? where id = ?";
+        ParameterizedBatchHandler rpbh = rpbhf.get(query, mockProtocol);
+        assertTrue(rpbh instanceof MultiStatementBatchHandler);
+        for(int i = 0;i<3;i++) {
+            ParameterizedQuery pq = new DrizzleParameterizedQuery(query);
+            pq.setParameter(0, new StringParameter("b"+i));
+            pq.setParameter(1, new StringParameter("a"+i));
+            rpbh.addToBatch(pq);
+        }
+        int[] updateCounts = rpbh.executeBatch();
+        verify(mockProtocol).executeQuery(new DrizzleQuery("update abc set b = 'b0' where id = 'a0'\n;"
+                + "update abc set b = 'b1' where id = 'a1'\n;update abc set b = 'b2' where id = 'a2'"));
+        assertTrue(Arrays.equals(new int[]{1, 0, 1}, updateCounts));
+    }
 }
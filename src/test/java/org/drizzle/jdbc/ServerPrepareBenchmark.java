@@ -0,0 +1,58 @@
+package org.drizzle.jdbc;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+
+@Ignore
+public class ServerPrepareBenchmark {
+    private static final int ROWS = 10000;
+
+    @Test
+    public void compareTextAndBinary() throws SQLException {
+        Connection textConnection = DriverManager.getConnection("jdbc:mysql:thin://" + DriverTest.host + ":3306/test_units_jdbc");
+        Connection binaryConnection = DriverManager.getConnection("jdbc:mysql:thin://" + DriverTest.host + ":3306/test_units_jdbc?useServerPrepStmts=true");
+        for (int i = 0; i < 5; i++) {
+            System.out.println("text inserts: " + inserts(textConnection) + "ms, point selects: " + pointSelects(textConnection) + "ms");
+            System.out.println("binary inserts: " + inserts(binaryConnection) + "ms, point selects: " + pointSelects(binaryConnection) + "ms");
+        }
+        textConnection.close();
+        binaryConnection.close();
+    }
+
+    private long inserts(Connection connection) throws SQLException {
+        Statement stmt = connection.createStatement();
+        stmt.executeUpdate("drop table if exists prepbench");
+        stmt.executeUpdate("create table prepbench (id int not null primary key, data varchar(100), d double) engine=innodb");
+        stmt.close();
+        long startTime = System.currentTimeMillis();
+        PreparedStatement ps = connection.prepareStatement("insert into prepbench (id, data, d) values (?, ?, ?)");
+        for (int i = 0; i < ROWS; i++) {
+            ps.setInt(1, i);
+            ps.setString(2, "some data " + i);
+            ps.setDouble(3, i * 1.5);
+            ps.executeUpdate();
+        }
+        return System.currentTimeMillis() - startTime;
+    }
+
+    private long pointSelects(Connection connection) throws SQLException {
+        long startTime = System.currentTimeMillis();
+        PreparedStatement ps = connection.prepareStatement("select data, d from prepbench where id = ?");
+        for (int i = 0; i < ROWS; i++) {
+            ps.setInt(1, i);
+            ResultSet rs = ps.executeQuery();
+            rs.next();
+            rs.getString(1);
+            rs.getDouble(2);
+        }
+        return System.currentTimeMillis() - startTime;
+    }
+}
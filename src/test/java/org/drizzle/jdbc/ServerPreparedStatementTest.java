@@ -0,0 +1,146 @@
+package org.drizzle.jdbc;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+public class ServerPreparedStatementTest {
+    private Connection connection;
+
+    public ServerPreparedStatementTest() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:mysql:thin://" + DriverTest.host + ":3306/test_units_jdbc?useServerPrepStmts=true&prepStmtCacheSize=2");
+        Statement stmt = connection.createStatement();
+        stmt.execute("drop table if exists serverprep");
+        stmt.execute("create table serverprep (id int not null primary key auto_increment, test varchar(20), " +
+                "d double, big bigint, dec1 decimal(10,2), dt date, tm time, ts datetime, bin varbinary(10))");
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void insertAndSelect() throws SQLException {
+        PreparedStatement ps = connection.prepareStatement("insert into serverprep " +
+                "(test, d, big, dec1, dt, tm, ts, bin) values (?, ?, ?, ?, ?, ?, ?, ?)");
+        ps.setString(1, "åäö'\\");
+        ps.setDouble(2, 1.5);
+        ps.setLong(3, Long.MAX_VALUE);
+        ps.setBigDecimal(4, new BigDecimal("12.34"));
+        ps.setDate(5, Date.valueOf("2010-01-02"));
+        ps.setTime(6, Time.valueOf("03:04:05"));
+        ps.setTimestamp(7, Timestamp.valueOf("2010-01-02 03:04:05"));
+        ps.setBytes(8, new byte[]{0, 1, '\'', '\\', 127});
+        assertEquals(1, ps.executeUpdate());
+
+        ps = connection.prepareStatement("select * from serverprep where id = ?");
+        ps.setInt(1, 1);
+        ResultSet rs = ps.executeQuery();
+        assertTrue(rs.next());
+        assertEquals("åäö'\\", rs.getString("test"));
+        assertEquals(1.5, rs.getDouble("d"), 0.0001);
+        assertEquals(Long.MAX_VALUE, rs.getLong("big"));
+        assertEquals(new BigDecimal("12.34"), rs.getBigDecimal("dec1"));
+        assertEquals(Date.valueOf("2010-01-02"), rs.getDate("dt"));
+        assertEquals(Time.valueOf("03:04:05"), rs.getTime("tm"));
+        assertEquals(Timestamp.valueOf("2010-01-02 03:04:05"), rs.getTimestamp("ts"));
+        byte[] bytes = rs.getBytes("bin");
+        assertEquals(5, bytes.length);
+        assertEquals('\'', bytes[2]);
+        assertEquals('\\', bytes[3]);
+        assertFalse(rs.next());
+    }
+
+    @Test
+    public void nullParameters() throws SQLException {
+        PreparedStatement ps = connection.prepareStatement("insert into serverprep (test, d) values (?, ?)");
+        ps.setNull(1, Types.VARCHAR);
+        ps.setDouble(2, 2.5);
+        ps.executeUpdate();
+        ResultSet rs = connection.createStatement().executeQuery("select test, d from serverprep");
+        assertTrue(rs.next());
+        assertNull(rs.getString(1));
+        assertEquals(2.5, rs.getDouble(2), 0.0001);
+    }
+
+    @Test
+    public void reuseAndEvict() throws SQLException {
+        for (int i = 0; i < 10; i++) {
+            PreparedStatement ps = connection.prepareStatement("insert into serverprep (test) values (?)");
+            ps.setString(1, "row" + i);
+            ps.executeUpdate();
+            ps = connection.prepareStatement("select count(*) from serverprep where test <> ?");
+            ps.setString(1, "x");
+            ResultSet rs = ps.executeQuery();
+            assertTrue(rs.next());
+            assertEquals(i + 1, rs.getInt(1));
+            ps = connection.prepareStatement("select count(*) + ? from serverprep");
+            ps.setInt(1, 1);
+            rs = ps.executeQuery();
+            assertTrue(rs.next());
+            assertEquals(i + 2, rs.getInt(1));
+        }
+    }
+
+    @Test
+    public void streamedBinaryRows() throws SQLException {
+        PreparedStatement ps = connection.prepareStatement("insert into serverprep (test) values (?)");
+        for (int i = 0; i < 100; i++) {
+            ps.setString(1, "row" + i);
+            ps.executeUpdate();
+        }
+        ps = connection.prepareStatement("select id, test from serverprep where id > ? order by id");
+        ps.setFetchSize(Integer.MIN_VALUE);
+        ps.setInt(1, 50);
+        ResultSet rs = ps.executeQuery();
+        int count = 0;
+        while (rs.next()) {
+            assertEquals(51 + count, rs.getInt(1));
+            count++;
+        }
+        assertEquals(50, count);
+    }
+
+    @Test
+    public void noStatementCache() throws SQLException {
+        Connection uncached = DriverManager.getConnection("jdbc:mysql:thin://" + DriverTest.host
+                + ":3306/test_units_jdbc?useServerPrepStmts=true&prepStmtCacheSize=0");
+        PreparedStatement ps = uncached.prepareStatement("insert into serverprep (test) values (?)");
+        for (int i = 0; i < 3; i++) {
+            ps.setString(1, "row" + i);
+            assertEquals(1, ps.executeUpdate());
+        }
+        ps = uncached.prepareStatement("select count(*) from serverprep where test like ?");
+        ps.setString(1, "row%");
+        ResultSet rs = ps.executeQuery();
+        assertTrue(rs.next());
+        assertEquals(3, rs.getInt(1));
+        uncached.close();
+    }
+
+    @Test(expected = SQLException.class)
+    public void errorIsReported() throws SQLException {
+        PreparedStatement ps = connection.prepareStatement("insert into serverprep (id) values (?)");
+        ps.setInt(1, 1);
+        ps.executeUpdate();
+        ps.executeUpdate();
+    }
+}
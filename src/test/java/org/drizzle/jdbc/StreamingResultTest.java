@@ -0,0 +1,111 @@
+package org.drizzle.jdbc;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+
+public class StreamingResultTest {
+    private Connection connection;
+
+    public StreamingResultTest() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:mysql:thin://" + DriverTest.host + ":3306/test_units_jdbc");
+        Statement stmt = connection.createStatement();
+        stmt.execute("drop table if exists streamtest");
+        stmt.execute("create table streamtest (id int not null primary key auto_increment, test varchar(20))");
+        PreparedStatement ps = connection.prepareStatement("insert into streamtest (test) values (?)");
+        for (int i = 0; i < 1000; i++) {
+            ps.setString(1, "row" + i);
+            ps.addBatch();
+        }
+        ps.executeBatch();
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void streamAllRows() throws SQLException {
+        Statement stmt = connection.createStatement();
+        stmt.setFetchSize(Integer.MIN_VALUE);
+        ResultSet rs = stmt.executeQuery("select * from streamtest order by id");
+        assertEquals(ResultSet.TYPE_FORWARD_ONLY, rs.getType());
+        int count = 0;
+        while (rs.next()) {
+            assertEquals("row" + count, rs.getString("test"));
+            count++;
+        }
+        assertEquals(1000, count);
+        assertTrue(rs.isAfterLast());
+        // connection is usable again once all rows are read
+        rs = connection.createStatement().executeQuery("select 1");
+        assertTrue(rs.next());
+    }
+
+    @Test
+    public void connectionLockedWhileStreaming() throws SQLException {
+        Statement stmt = connection.createStatement();
+        stmt.setFetchSize(Integer.MIN_VALUE);
+        ResultSet rs = stmt.executeQuery("select * from streamtest");
+        assertTrue(rs.next());
+        try {
+            connection.createStatement().executeQuery("select 1");
+            fail("Should not be able to run a query while streaming");
+        } catch (SQLException e) {
+            // expected
+        }
+        rs.close();
+        rs = connection.createStatement().executeQuery("select 1");
+        assertTrue(rs.next());
+    }
+
+    @Test
+    public void reuseStatementDrainsResult() throws SQLException {
+        Statement stmt = connection.createStatement();
+        stmt.setFetchSize(Integer.MIN_VALUE);
+        ResultSet rs = stmt.executeQuery("select * from streamtest");
+        assertTrue(rs.next());
+        rs = stmt.executeQuery("select count(*) from streamtest");
+        assertTrue(rs.next());
+        assertEquals(1000, rs.getInt(1));
+        assertFalse(rs.next());
+    }
+
+    @Test(expected = SQLException.class)
+    public void cannotScroll() throws SQLException {
+        Statement stmt = connection.createStatement();
+        stmt.setFetchSize(Integer.MIN_VALUE);
+        ResultSet rs = stmt.executeQuery("select * from streamtest");
+        rs.next();
+        rs.first();
+    }
+
+    @Test
+    public void streamingResultsProperty() throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:mysql:thin://" + DriverTest.host + ":3306/test_units_jdbc?useStreamingResults=true");
+        try {
+            ResultSet rs = conn.createStatement().executeQuery("select * from streamtest");
+            assertEquals(ResultSet.TYPE_FORWARD_ONLY, rs.getType());
+            int count = 0;
+            while (rs.next()) {
+                count++;
+            }
+            assertEquals(1000, count);
+        } finally {
+            conn.close();
+        }
+    }
+}
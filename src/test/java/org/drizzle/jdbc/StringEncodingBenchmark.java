@@ -0,0 +1,66 @@
+package org.drizzle.jdbc;
+
+import org.drizzle.jdbc.internal.common.Utils;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Random;
+
+
+/**
+ * Compares the cost per call of escaping and encoding string parameters in one pass with escaping into a String and
+ * encoding that, which is how StringParameter used to do it.
+ */
+@Ignore
+public class StringEncodingBenchmark {
+    private static final int VALUES = 1000;
+    private static final int ROUNDS = 200;
+
+    private static String[] values(int length, boolean ascii) {
+        final Random random = new Random(0);
+        final String chars = ascii
+                ? "abcdefghijklmnopqrstuvwxyz ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789"
+                : "abcdefghijklmnopqrstuvwxyz \u00e5\u00e4\u00f6\u00c5\u00c4\u00d6\u20ac";
+        final String[] values = new String[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            final StringBuilder sb = new StringBuilder(length);
+            for (int j = 0; j < length; j++) {
+                sb.append(random.nextInt(200) == 0 ? '\'' : chars.charAt(random.nextInt(chars.length())));
+            }
+            values[i] = sb.toString();
+        }
+        return values;
+    }
+
+    private static void report(String name, long startTime) {
+        final long time = System.nanoTime() - startTime;
+        System.out.println(name + ": " + (time / ((long) VALUES * ROUNDS)) + "ns per call");
+    }
+
+    @Test
+    public void compareEncoding() throws UnsupportedEncodingException {
+        final String[][] values = {values(16, true), values(16, false), values(1000, true), values(1000, false)};
+        final String[] names = {"short ascii", "short non-ascii", "long ascii", "long non-ascii"};
+        long sink = 0;
+        for (int run = 0; run < 5; run++) {
+            for (int kind = 0; kind < values.length; kind++) {
+                long startTime = System.nanoTime();
+                for (int round = 0; round < ROUNDS; round++) {
+                    for (String value : values[kind]) {
+                        sink += ("'" + Utils.sqlEscapeString(value) + "'").getBytes("UTF-8").length;
+                    }
+                }
+                report(names[kind] + " via String", startTime);
+                startTime = System.nanoTime();
+                for (int round = 0; round < ROUNDS; round++) {
+                    for (String value : values[kind]) {
+                        sink += Utils.sqlEscapeAndEncode(value, false).length;
+                    }
+                }
+                report(names[kind] + " in one pass", startTime);
+            }
+        }
+        System.out.println(sink);
+    }
+}
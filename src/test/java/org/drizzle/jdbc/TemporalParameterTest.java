@@ -0,0 +1,88 @@
+package org.drizzle.jdbc;
+
+import org.drizzle.jdbc.internal.common.JavaTimeConverter;
+import org.drizzle.jdbc.internal.common.query.parameters.DateParameter;
+import org.drizzle.jdbc.internal.common.query.parameters.ParameterHolder;
+import org.drizzle.jdbc.internal.common.query.parameters.TimeParameter;
+import org.drizzle.jdbc.internal.common.query.parameters.TimestampParameter;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+
+public class TemporalParameterTest {
+    private static String text(ParameterHolder holder) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        holder.writeTo(out, 0, Integer.MAX_VALUE);
+        assertEquals(holder.length(), out.size());
+        return new String(out.toByteArray(), "ASCII");
+    }
+
+    private static String format(String pattern, long millis, TimeZone zone) {
+        SimpleDateFormat sdf = new SimpleDateFormat(pattern);
+        sdf.setCalendar(new GregorianCalendar(zone));
+        return "'" + sdf.format(new Date(millis)) + "'";
+    }
+
+    @Test
+    public void formatsLikeSimpleDateFormat() throws IOException {
+        Random random = new Random(1);
+        String[] zones = {"UTC", "Europe/Stockholm", "America/New_York", "Asia/Kolkata", "Australia/Lord_Howe",
+                "Pacific/Chatham", "America/St_Johns"};
+        for (String id : zones) {
+            TimeZone zone = TimeZone.getTimeZone(id);
+            Calendar cal = new GregorianCalendar(zone);
+            for (int i = 0; i < 20000; i++) {
+                long millis = (long) ((random.nextDouble() - 0.6) * 20000000000000L) / 1000 * 1000;
+                assertEquals(format("yyyy-MM-dd HH:mm:ss", millis, zone), text(new TimestampParameter(millis, cal)));
+                assertEquals(format("yyyy-MM-dd", millis, zone), text(new DateParameter(millis, cal)));
+                assertEquals(format("HH:mm:ss", millis, zone), text(new TimeParameter(millis, cal)));
+            }
+        }
+    }
+
+    @Test
+    public void fractions() throws IOException {
+        TimeZone utc = TimeZone.getTimeZone("UTC");
+        Calendar cal = new GregorianCalendar(utc);
+        long millis = 1298937599000L;
+        assertEquals("'2011-02-28 23:59:59'", text(new TimestampParameter(millis, cal)));
+        assertEquals("'2011-02-28 23:59:59.120'", text(new TimestampParameter(millis + 120, cal)));
+        assertEquals("'2011-02-28 23:59:59.000123'", text(new TimestampParameter(millis, 123456, cal)));
+        assertEquals("'2011-02-28 23:59:59.999999'", text(new TimestampParameter(millis + 999, 999999999, cal)));
+        assertEquals("'23:59:59.005'", text(new TimeParameter(millis + 5, cal)));
+        assertEquals("'1969-12-31 23:59:59.900'", text(new TimestampParameter(-100, cal)));
+    }
+
+    @Test
+    public void outsideGregorianRange() throws IOException {
+        TimeZone utc = TimeZone.getTimeZone("UTC");
+        Calendar cal = new GregorianCalendar(utc);
+        long julian = -15000000000000L;
+        assertEquals(format("yyyy-MM-dd HH:mm:ss", julian, utc), text(new TimestampParameter(julian, cal)));
+        long farFuture = 300000000000000L;
+        assertEquals(format("yyyy-MM-dd HH:mm:ss", farFuture, utc), text(new TimestampParameter(farFuture, cal)));
+    }
+
+    @Test
+    public void javaTime() throws IOException {
+        assertEquals("'2011-02-28'", text(JavaTimeConverter.toParameter(java.time.LocalDate.of(2011, 2, 28))));
+        assertEquals("'01:02:03.000004'", text(JavaTimeConverter.toParameter(java.time.LocalTime.of(1, 2, 3, 4000))));
+        assertEquals("'2011-02-28 01:02:03.500'",
+                text(JavaTimeConverter.toParameter(java.time.LocalDateTime.of(2011, 2, 28, 1, 2, 3, 500000000))));
+        java.time.Instant instant = java.time.Instant.ofEpochSecond(1298937599L, 123456000);
+        assertEquals(text(new TimestampParameter(1298937599123L, 123456000, null)),
+                text(JavaTimeConverter.toParameter(instant)));
+        assertNull(JavaTimeConverter.toParameter(java.time.Duration.ofSeconds(1)));
+    }
+}
@@ -0,0 +1,106 @@
+package org.drizzle.jdbc;
+
+import org.drizzle.jdbc.internal.common.TemporalValue;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+public class TemporalValueTest {
+    private static long calendarMillis(TimeZone zone, int year, int month, int day, int hour, int minute, int second) {
+        Calendar cal = new GregorianCalendar(zone);
+        cal.clear();
+        cal.set(year, month - 1, day, hour, minute, second);
+        return cal.getTimeInMillis();
+    }
+
+    @Test
+    public void parse() {
+        TemporalValue value = TemporalValue.parse("2011-02-28 23:59:58.000123".getBytes());
+        assertTrue(value.hasDate());
+        assertEquals(2011, value.getYear());
+        assertEquals(2, value.getMonth());
+        assertEquals(28, value.getDay());
+        assertEquals(23, value.getHour());
+        assertEquals(59, value.getMinute());
+        assertEquals(58, value.getSecond());
+        assertEquals(123, value.getMicroseconds());
+        assertEquals(500000, TemporalValue.parse("2011-02-28 23:59:58.5".getBytes()).getMicroseconds());
+
+        value = TemporalValue.parse("-838:59:59".getBytes());
+        assertFalse(value.hasDate());
+        assertTrue(value.isNegative());
+        assertEquals(838, value.getHour());
+
+        assertNull(TemporalValue.parse("0000-00-00 00:00:00".getBytes()));
+        assertNull(TemporalValue.parse("2011-02-29".getBytes()));
+        assertNull(TemporalValue.parse("2011-02-28 24:00:00".getBytes()));
+        assertNull(TemporalValue.parse("2011-02-28 12:00:00.1234567".getBytes()));
+        assertNull(TemporalValue.parse("aaa".getBytes()));
+        assertNull(TemporalValue.parse("1".getBytes()));
+    }
+
+    @Test
+    public void timestampMatchesCalendar() {
+        Random random = new Random(0);
+        String[] zones = {"UTC", "Europe/Stockholm", "America/New_York", "Australia/Lord_Howe", "Asia/Kolkata"};
+        for (String zoneId : zones) {
+            TimeZone zone = TimeZone.getTimeZone(zoneId);
+            Calendar cal = new GregorianCalendar(zone);
+            for (int i = 0; i < 20000; i++) {
+                int year = 1600 + random.nextInt(500);
+                int month = 1 + random.nextInt(12);
+                int day = 1 + random.nextInt(28);
+                int hour = random.nextInt(24);
+                int minute = random.nextInt(60);
+                int second = random.nextInt(60);
+                String text = String.format("%04d-%02d-%02d %02d:%02d:%02d.%06d", year, month, day, hour, minute, second, i);
+                Timestamp timestamp = TemporalValue.parse(text.getBytes()).toTimestamp(cal);
+                assertEquals(text, calendarMillis(zone, year, month, day, hour, minute, second) + i / 1000, timestamp.getTime());
+                assertEquals(i * 1000, timestamp.getNanos());
+                assertEquals(text, calendarMillis(zone, year, month, day, 0, 0, 0),
+                        TemporalValue.parse(text.getBytes()).toDate(cal).getTime());
+            }
+        }
+    }
+
+    @Test
+    public void summerTimeSwitch() {
+        TimeZone zone = TimeZone.getTimeZone("Europe/Stockholm");
+        Calendar cal = new GregorianCalendar(zone);
+        assertEquals(calendarMillis(zone, 2011, 3, 27, 2, 30, 0),
+                TemporalValue.parse("2011-03-27 02:30:00".getBytes()).toTimestamp(cal).getTime());
+        assertEquals(calendarMillis(zone, 2011, 10, 30, 2, 30, 0),
+                TemporalValue.parse("2011-10-30 02:30:00".getBytes()).toTimestamp(cal).getTime());
+        assertEquals(calendarMillis(zone, 2011, 10, 30, 3, 0, 0),
+                TemporalValue.parse("2011-10-30 03:00:00".getBytes()).toTimestamp(cal).getTime());
+    }
+
+    @Test
+    public void time() {
+        TimeZone zone = TimeZone.getTimeZone("Europe/Stockholm");
+        Calendar cal = new GregorianCalendar(zone);
+        assertEquals(calendarMillis(zone, 1970, 1, 1, 12, 34, 56) + 789,
+                TemporalValue.parse("12:34:56.789".getBytes()).toTime(cal).getTime());
+        assertEquals(calendarMillis(zone, 1970, 1, 1, 838, 59, 59),
+                TemporalValue.parse("838:59:59".getBytes()).toTime(cal).getTime());
+        assertEquals(calendarMillis(zone, 1970, 1, 1, -1, -2, -3),
+                TemporalValue.parse("-01:02:03".getBytes()).toTime(cal).getTime());
+        assertEquals(calendarMillis(zone, 1970, 1, 1, 3, 4, 5),
+                TemporalValue.parse("2011-01-02 03:04:05".getBytes()).toTime(cal).getTime());
+    }
+
+    @Test
+    public void oldDatesAreLeftToCalendar() {
+        assertNull(TemporalValue.parse("1500-01-01".getBytes()).toDate(null));
+    }
+}
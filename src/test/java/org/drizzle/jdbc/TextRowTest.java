@@ -0,0 +1,86 @@
+package org.drizzle.jdbc;
+
+import org.drizzle.jdbc.internal.common.ColumnInformation;
+import org.drizzle.jdbc.internal.common.ValueObject;
+import org.drizzle.jdbc.internal.common.packet.SyncPacketFetcher;
+import org.drizzle.jdbc.internal.common.queryresults.ColumnFlags;
+import org.drizzle.jdbc.internal.mysql.MySQLColumnInformation;
+import org.drizzle.jdbc.internal.mysql.MySQLType;
+import org.drizzle.jdbc.internal.mysql.packet.MySQLRowPacket;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+public class TextRowTest {
+
+    private static void writeRow(ByteArrayOutputStream out, int seq, String... values) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        for (String value : values) {
+            if (value == null) {
+                payload.write(251);
+                continue;
+            }
+            byte[] bytes = value.getBytes("UTF-8");
+            if (bytes.length < 251) {
+                payload.write(bytes.length);
+            } else {
+                payload.write(252);
+                payload.write(bytes.length & 0xff);
+                payload.write(bytes.length >>> 8);
+            }
+            payload.write(bytes);
+        }
+        out.write(payload.size() & 0xff);
+        out.write((payload.size() >>> 8) & 0xff);
+        out.write((payload.size() >>> 16) & 0xff);
+        out.write(seq);
+        payload.writeTo(out);
+    }
+
+    private static List<ColumnInformation> columns(int count) {
+        List<ColumnInformation> columns = new ArrayList<ColumnInformation>();
+        for (int i = 0; i < count; i++) {
+            columns.add(new MySQLColumnInformation.Builder().name("c" + i).table("t")
+                    .type(new MySQLType(MySQLType.Type.VARCHAR))
+                    .flags(EnumSet.noneOf(ColumnFlags.class)).build());
+        }
+        return columns;
+    }
+
+    @Test
+    public void columnsAreDecodedOnAccess() throws IOException {
+        StringBuilder longValue = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            longValue.append((char) ('a' + i % 26));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeRow(out, 1, "abc", null, longValue.toString(), "");
+        writeRow(out, 2, "def", "x", "y", "z");
+        SyncPacketFetcher fetcher = new SyncPacketFetcher(new ByteArrayInputStream(out.toByteArray()));
+        List<ColumnInformation> columns = columns(4);
+
+        List<ValueObject> first = new MySQLRowPacket(fetcher.getRawPacket(), columns).getRow(fetcher);
+        List<ValueObject> second = new MySQLRowPacket(fetcher.getRawPacket(), columns).getRow(fetcher);
+
+        assertEquals(4, first.size());
+        assertEquals("abc", first.get(0).getString());
+        assertTrue(first.get(1).isNull());
+        assertNull(first.get(1).getString());
+        assertEquals(longValue.toString(), first.get(2).getString());
+        assertFalse(first.get(3).isNull());
+        assertEquals("", first.get(3).getString());
+        assertEquals("def", second.get(0).getString());
+        assertEquals("z", second.get(3).getString());
+    }
+}
@@ -4,6 +4,7 @@ import org.drizzle.jdbc.internal.common.Utils;
 import org.junit.Test;
 import static org.drizzle.jdbc.internal.common.Utils.countChars;
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
 
 /**
  * User: marcuse
@@ -127,4 +128,118 @@ public class UtilTest {
     public void testBad6() {
         Utils.byteArrayToShort("-123x".getBytes());
     }
-}
\ No newline at end of file
+    @Test
+    public void testLongTruncatesDecimals() {
+        assertEquals(12, Utils.byteArrayToLong("12.99".getBytes()));
+        assertEquals(-12, Utils.byteArrayToInt("-12.99".getBytes()));
+        assertEquals(0, Utils.byteArrayToLong("-0.5".getBytes()));
+        assertEquals(1500, Utils.byteArrayToLong("1.5e3".getBytes()));
+        assertEquals(12, Utils.byteArrayToLong("000000000000000000000000012".getBytes()));
+        assertEquals(Long.MAX_VALUE, Utils.byteArrayToLong("99999999999999999999999999.5".getBytes()));
+    }
+    @Test(expected = NumberFormatException.class)
+    public void testBad7() {
+        Utils.byteArrayToLong("1.x".getBytes());
+    }
+    @Test(expected = NumberFormatException.class)
+    public void testBad8() {
+        Utils.byteArrayToLong(".".getBytes());
+    }
+
+    @Test
+    public void testDouble() {
+        String[] values = {"0", "-0", "1.5", "-2.25", "1e300", "1E-5", "3.14159265358979323846", "0.30000000000000004",
+                "9007199254740993", "1.7976931348623157E308", "4.9e-324", "NaN", "-Infinity", ".5", "1e22", "1e23",
+                "123.456e-10"};
+        for (String value : values) {
+            assertEquals(value, Double.doubleToLongBits(Double.parseDouble(value)),
+                    Double.doubleToLongBits(Utils.byteArrayToDouble(value.getBytes())));
+            assertEquals(value, Float.floatToIntBits(Float.parseFloat(value)),
+                    Float.floatToIntBits(Utils.byteArrayToFloat(value.getBytes())));
+        }
+        java.util.Random random = new java.util.Random(0);
+        for (int i = 0; i < 100000; i++) {
+            String value = random.nextInt(1000000) + "." + random.nextInt(1000000);
+            assertEquals(value, Double.doubleToLongBits(Double.parseDouble(value)),
+                    Double.doubleToLongBits(Utils.byteArrayToDouble(value.getBytes())));
+            assertEquals(value, Float.floatToIntBits(Float.parseFloat(value)),
+                    Float.floatToIntBits(Utils.byteArrayToFloat(value.getBytes())));
+        }
+    }
+
+    @Test
+    public void testFloat() {
+        // parsing these as doubles and rounding to float rounds twice and gives a value one ulp off
+        String[] values = {"1.152736246585846", "1.761674702167511", "1.450218379497528", "16777217", "16777216",
+                "1.5e10", "1e-10", "3.4028235e38", "1.4e-45"};
+        for (String value : values) {
+            assertEquals(value, Float.floatToIntBits(Float.parseFloat(value)),
+                    Float.floatToIntBits(Utils.byteArrayToFloat(value.getBytes())));
+        }
+        java.util.Random random = new java.util.Random(0);
+        for (int i = 0; i < 100000; i++) {
+            String value = random.nextInt(10) + "." + (100000000000000L + (long) (random.nextDouble() * 900000000000000L));
+            assertEquals(value, Float.floatToIntBits(Float.parseFloat(value)),
+                    Float.floatToIntBits(Utils.byteArrayToFloat(value.getBytes())));
+            value = random.nextInt(1000) + "." + random.nextInt(10000);
+            assertEquals(value, Float.floatToIntBits(Float.parseFloat(value)),
+                    Float.floatToIntBits(Utils.byteArrayToFloat(value.getBytes())));
+        }
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testBadDouble() {
+        Utils.byteArrayToDouble("1.2.3".getBytes());
+    }
+
+    @Test
+    public void testBigDecimal() {
+        assertEquals(new java.math.BigDecimal("1.50"), Utils.byteArrayToBigDecimal("1.50".getBytes()));
+        assertEquals(new java.math.BigDecimal("-0.001"), Utils.byteArrayToBigDecimal("-0.001".getBytes()));
+        assertEquals(new java.math.BigDecimal("-1234567890.12345678901234"),
+                Utils.byteArrayToBigDecimal("-1234567890.12345678901234".getBytes()));
+        assertEquals(new java.math.BigDecimal("1.5E+3"), Utils.byteArrayToBigDecimal("1.5E+3".getBytes()));
+    }
+
+    @Test
+    public void testBigInteger() {
+        assertEquals(new java.math.BigInteger("-123456789012345678"),
+                Utils.byteArrayToBigInteger("-123456789012345678".getBytes()));
+        assertEquals(new java.math.BigInteger("18446744073709551615"),
+                Utils.byteArrayToBigInteger("18446744073709551615".getBytes()));
+    }
+
+    private static String literal(byte[] b) throws java.io.UnsupportedEncodingException {
+        return new String(b, "UTF-8");
+    }
+
+    @Test
+    public void testSqlEscapeAndEncode() throws java.io.UnsupportedEncodingException {
+        assertEquals("'abc'", literal(Utils.sqlEscapeAndEncode("abc", false)));
+        assertEquals("''", literal(Utils.sqlEscapeAndEncode("", false)));
+        assertEquals("'it\\'s \\\\ \\\" \\0\\n\\r\\Z'",
+                literal(Utils.sqlEscapeAndEncode("it's \\ \" \u0000\n\r\u001a", false)));
+        assertEquals("'it''s \\ \"'", literal(Utils.sqlEscapeAndEncode("it's \\ \"", true)));
+        // chars whose low byte is a quote or a backslash are not escaped
+        assertEquals("'\u0127\u015c'", literal(Utils.sqlEscapeAndEncode("\u0127\u015c", false)));
+        final String unicode = "\u00e5\u00e4\u00f6 \u20ac '\ud83d\ude00' \ud83d";
+        assertTrue(java.util.Arrays.equals(("'" + Utils.sqlEscapeString(unicode) + "'").getBytes("UTF-8"),
+                Utils.sqlEscapeAndEncode(unicode, false)));
+    }
+
+    @Test
+    public void testSqlEscapeAndEncodeMatchesGetBytes() throws java.io.UnsupportedEncodingException {
+        final java.util.Random random = new java.util.Random(0);
+        final char[] chars = {'a', 'Z', '\'', '\\', '\u00e5', '\u20ac', '\ud83d', '\ude00', '\u0127'};
+        for (int i = 0; i < 10000; i++) {
+            final StringBuilder sb = new StringBuilder();
+            for (int j = random.nextInt(64); j > 0; j--) {
+                sb.append(chars[random.nextInt(chars.length)]);
+            }
+            final String str = sb.toString();
+            final String expected = "'" + str.replace("'", "''") + "'";
+            assertEquals(new String(expected.getBytes("UTF-8"), "UTF-8"), literal(Utils.sqlEscapeAndEncode(str, true)));
+            assertTrue(java.util.Arrays.equals(expected.getBytes("UTF-8"), Utils.sqlEscapeAndEncode(str, true)));
+        }
+    }
+}